@@ -0,0 +1,26 @@
+package com.stack.sellstack.config;
+
+import com.stack.sellstack.service.product.ProductCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Subscribes every node to product cache evictions published by the others
+     */
+    @Bean
+    @ConditionalOnProperty(name = "product.cache.redis-enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer productCacheListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       ProductCache productCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(productCache, new ChannelTopic(ProductCache.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
@@ -76,6 +76,11 @@ public class FileValidationConfig {
     private boolean enableVirusScanning = true;
     private String clamAvHost = "localhost";
     private int clamAvPort = 3310;
+    private int clamAvPoolSize = 4; // persistent sessions = concurrent scans
+    private int clamAvChunkSizeBytes = 64 * 1024;
+    private int clamAvConnectTimeoutMs = 2000;
+    private int clamAvReadTimeoutMs = 60000;
+    private long clamAvIdleTimeoutMs = 20000; // below clamd's IdleTimeout (30s default)
 
     // Image optimization
     private boolean enableImageOptimization = true;
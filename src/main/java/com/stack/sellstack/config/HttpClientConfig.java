@@ -4,26 +4,46 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class HttpClientConfig {
 
+    @Value("${http.client.max-idle-connections:50}")
+    private int maxIdleConnections;
+
+    @Value("${http.client.keep-alive-minutes:5}")
+    private long keepAliveMinutes;
+
+    @Value("${http.client.connect-timeout-seconds:30}")
+    private long connectTimeoutSeconds;
+
+    @Value("${http.client.read-timeout-seconds:30}")
+    private long readTimeoutSeconds;
+
+    /**
+     * Shared client; HTTP/2 is negotiated over TLS where the server supports it, so concurrent
+     * requests to one provider multiplex over a single connection
+     */
     @Bean
     public OkHttpClient okHttpClient() {
         ConnectionPool connectionPool = new ConnectionPool(
-                10, // maxIdleConnections
-                5,  // keepAliveDuration in minutes
+                maxIdleConnections,
+                keepAliveMinutes,
                 TimeUnit.MINUTES
         );
 
         return new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(30, TimeUnit.SECONDS)
-                .writeTimeout(30, TimeUnit.SECONDS)
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(connectTimeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
+                .writeTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
                 .retryOnConnectionFailure(true)
                 .connectionPool(connectionPool)
                 .addInterceptor(chain -> {
@@ -44,4 +64,4 @@ public class HttpClientConfig {
                 .findAndRegisterModules()  // For Java 8 time support
                 .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
     }
-}
\ No newline at end of file
+}
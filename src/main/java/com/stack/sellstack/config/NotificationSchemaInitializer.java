@@ -0,0 +1,85 @@
+package com.stack.sellstack.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates the notification indexes that JPA annotations cannot declare. Runs after Hibernate has
+ * created/updated the tables.
+ *
+ * The delivery counter upserts conflict on uq_delivery_analytics_bucket, so startup fails if it
+ * cannot be created. Tables from before the index may hold several rows per bucket (NULL seller
+ * or template keys never conflicted); those are merged into one row first.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationSchemaInitializer {
+
+    private static final String BUCKET_INDEX = "uq_delivery_analytics_bucket";
+
+    // NULL seller and template keys must match too, which the plain unique_daily_aggregation constraint does not do
+    private static final String CREATE_BUCKET_INDEX =
+            "CREATE UNIQUE INDEX IF NOT EXISTS " + BUCKET_INDEX + " ON delivery_analytics " +
+                    "(date, channel, (COALESCE(seller_id, '')), (COALESCE(template_key, '')))";
+
+    // Sums every bucket's counters into its oldest row and deletes the others; returns the rows deleted
+    private static final String MERGE_DUPLICATE_BUCKETS =
+            "WITH duplicates AS (" +
+                    "SELECT (array_agg(id ORDER BY created_at NULLS LAST, id))[1] AS keep_id, array_agg(id) AS ids, " +
+                    "sum(COALESCE(attempted, 0)) AS attempted, sum(COALESCE(sent, 0)) AS sent, " +
+                    "sum(COALESCE(delivered, 0)) AS delivered, sum(COALESCE(failed, 0)) AS failed, " +
+                    "sum(COALESCE(bounced, 0)) AS bounced, sum(COALESCE(opened, 0)) AS opened, " +
+                    "sum(COALESCE(clicked, 0)) AS clicked, sum(COALESCE(replied, 0)) AS replied " +
+                    "FROM delivery_analytics " +
+                    "GROUP BY date, channel, COALESCE(seller_id, ''), COALESCE(template_key, '') " +
+                    "HAVING count(*) > 1), " +
+                    "merged AS (" +
+                    "UPDATE delivery_analytics a SET attempted = d.attempted, sent = d.sent, " +
+                    "delivered = d.delivered, failed = d.failed, bounced = d.bounced, opened = d.opened, " +
+                    "clicked = d.clicked, replied = d.replied, updated_at = now() " +
+                    "FROM duplicates d WHERE a.id = d.keep_id) " +
+                    "DELETE FROM delivery_analytics a USING duplicates d " +
+                    "WHERE a.id = ANY (d.ids) AND a.id <> d.keep_id";
+
+    @Value("${notification.schema.manage-indexes:true}")
+    private boolean manageIndexes;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void createNotificationIndexes() {
+        if (!manageIndexes) {
+            return;
+        }
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, BUCKET_INDEX);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Keeps other nodes' counter flushes from adding duplicates between the merge and the index
+                jdbcTemplate.execute("LOCK TABLE delivery_analytics IN SHARE ROW EXCLUSIVE MODE");
+                int merged = jdbcTemplate.update(MERGE_DUPLICATE_BUCKETS);
+                if (merged > 0) {
+                    log.warn("Merged {} duplicate delivery_analytics rows before creating {}", merged, BUCKET_INDEX);
+                }
+                jdbcTemplate.execute(CREATE_BUCKET_INDEX);
+            });
+        } catch (DataAccessException e) {
+            throw new IllegalStateException("Failed to create " + BUCKET_INDEX +
+                    "; delivery counters cannot be flushed without it", e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.stack.sellstack.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the product columns and indexes that JPA annotations cannot declare: the generated
+ * full-text column, GIN indexes and the expression index on the effective price. Runs after
+ * Hibernate has created/updated the tables; every statement is idempotent.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSchemaInitializer {
+
+    private static final String[] PRODUCT_SCHEMA = {
+            // Full-text document: title weighted A, category B, description C
+            "ALTER TABLE products ADD COLUMN IF NOT EXISTS search_vector tsvector " +
+                    "GENERATED ALWAYS AS (" +
+                    "setweight(to_tsvector('simple', coalesce(title, '')), 'A') || " +
+                    "setweight(to_tsvector('simple', coalesce(category, '')), 'B') || " +
+                    "setweight(to_tsvector('simple', coalesce(description, '')), 'C')) STORED",
+            "CREATE INDEX IF NOT EXISTS idx_products_search_vector ON products USING GIN (search_vector)",
+            "CREATE INDEX IF NOT EXISTS idx_products_tags ON products USING GIN (tags jsonb_path_ops)",
+            // Browse by price range and newest first within a status
+            "CREATE INDEX IF NOT EXISTS idx_products_status_effective_price_created " +
+                    "ON products (status, (COALESCE(discount_price, price)), created_at DESC)",
+            // Keyset pagination seeks on (created_at, id) for the storefront and seller listings
+            "CREATE INDEX IF NOT EXISTS idx_products_status_created_id ON products (status, created_at DESC, id DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_products_seller_created_id ON products (seller_id, created_at DESC, id DESC)",
+            // Daily view upserts conflict on (product_id, view_date)
+            "CREATE UNIQUE INDEX IF NOT EXISTS uq_product_views_product_date ON product_views (product_id, view_date)"
+    };
+
+    @Value("${product.schema.manage-indexes:true}")
+    private boolean manageIndexes;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void createProductIndexes() {
+        if (!manageIndexes) {
+            return;
+        }
+        for (String statement : PRODUCT_SCHEMA) {
+            try {
+                jdbcTemplate.execute(statement);
+            } catch (Exception e) {
+                log.error("Failed to apply product schema statement: {}", statement, e);
+            }
+        }
+    }
+}
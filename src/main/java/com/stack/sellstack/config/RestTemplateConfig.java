@@ -1,19 +1,42 @@
 package com.stack.sellstack.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
 import java.time.Duration;
+import java.util.concurrent.Executors;
 
 @Configuration
 public class RestTemplateConfig {
 
+    @Value("${http.client.connect-timeout-seconds:30}")
+    private long connectTimeoutSeconds;
+
+    @Value("${http.client.read-timeout-seconds:30}")
+    private long readTimeoutSeconds;
+
+    /**
+     * Backed by one JDK HttpClient, which keeps connections alive between calls and speaks HTTP/2
+     * where the server does; the default factory opened a new connection per request
+     */
     @Bean
     public RestTemplate restTemplate(RestTemplateBuilder builder) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofSeconds(readTimeoutSeconds));
+
         return builder
-                .setConnectTimeout(Duration.ofSeconds(30))
-                .setReadTimeout(Duration.ofSeconds(30))
+                .requestFactory(() -> requestFactory)
                 .build();
     }
-}
\ No newline at end of file
+}
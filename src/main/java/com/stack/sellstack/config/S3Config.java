@@ -30,6 +30,12 @@ public class S3Config {
     private long maxImageSizeBytes = 10 * 1024 * 1024L; // 10MB
     private long maxThumbnailSizeBytes = 2 * 1024 * 1024L; // 2MB
 
+    // Direct uploads stream through buffers of this size; larger files use multipart (min 5MB)
+    private int multipartPartSizeBytes = 8 * 1024 * 1024; // 8MB
+    private int multipartParallelism = 4; // parts in flight per upload
+    private int multipartPartRetries = 3; // attempts per part
+    private int multipartUploadExpiryHours = 24; // presigned part URLs and resumable uploads
+
     // CloudFront
     private String cloudfrontDomain;
     private String cloudfrontKeyPairId;
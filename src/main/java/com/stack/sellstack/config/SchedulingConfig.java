@@ -0,0 +1,12 @@
+package com.stack.sellstack.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on @Scheduled jobs (page view flush, queue processors, cleanups)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
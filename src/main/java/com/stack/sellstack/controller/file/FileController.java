@@ -2,6 +2,7 @@ package com.stack.sellstack.controller.file;
 
 
 import com.stack.sellstack.model.dto.response.ApiResponse;
+import com.stack.sellstack.model.dto.response.MultipartUploadResponse;
 import com.stack.sellstack.model.dto.response.PresignedUrlResponse;
 import com.stack.sellstack.model.entity.FileMetadata;
 import com.stack.sellstack.security.CurrentUser;
@@ -72,6 +73,81 @@ public class FileController {
         return ResponseEntity.ok(ApiResponse.success(null, "Upload confirmed"));
     }
 
+    @PostMapping("/multipart")
+    @PreAuthorize("hasRole('SELLER')")
+    @Operation(summary = "Start a presigned multipart upload for large files",
+            security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<ApiResponse<MultipartUploadResponse>> initiateMultipartUpload(
+            @CurrentUser UUID sellerId,
+            @Valid @RequestBody MultipartUploadRequest request) {
+
+        log.info("Starting multipart upload for seller: {}, file: {}, size: {}",
+                sellerId, request.getFilename(), request.getFileSize());
+
+        MultipartUploadResponse response = fileStorageService.initiateMultipartUpload(
+                sellerId,
+                request.getFilename(),
+                request.getContentType(),
+                request.getFileType(),
+                request.getFileSize()
+        );
+
+        return ResponseEntity.ok(ApiResponse.success(response, "Multipart upload started"));
+    }
+
+    @GetMapping("/multipart/{fileId}")
+    @PreAuthorize("hasRole('SELLER')")
+    @Operation(summary = "Resume a multipart upload (presigns the parts still missing)",
+            security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<ApiResponse<MultipartUploadResponse>> resumeMultipartUpload(
+            @CurrentUser UUID sellerId,
+            @PathVariable UUID fileId) {
+
+        MultipartUploadResponse response = fileStorageService.resumeMultipartUpload(sellerId, fileId);
+
+        return ResponseEntity.ok(ApiResponse.success(response, "Multipart upload resumed"));
+    }
+
+    @PostMapping("/multipart/{fileId}/complete")
+    @PreAuthorize("hasRole('SELLER')")
+    @Operation(summary = "Complete a multipart upload",
+            security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<ApiResponse<FileUploadResponse>> completeMultipartUpload(
+            @CurrentUser UUID sellerId,
+            @PathVariable UUID fileId) {
+
+        log.info("Completing multipart upload for file: {}", fileId);
+
+        FileMetadata metadata = fileStorageService.completeMultipartUpload(sellerId, fileId);
+
+        FileUploadResponse response = FileUploadResponse.builder()
+                .fileId(metadata.getId())
+                .filename(metadata.getOriginalFilename())
+                .fileUrl(metadata.getFileUrl())
+                .cdnUrl(metadata.getCdnUrl())
+                .fileSize(metadata.getFileSize())
+                .mimeType(metadata.getMimeType())
+                .status(metadata.getStatus())
+                .build();
+
+        return ResponseEntity.ok(ApiResponse.success(response, "Upload completed"));
+    }
+
+    @DeleteMapping("/multipart/{fileId}")
+    @PreAuthorize("hasRole('SELLER')")
+    @Operation(summary = "Abort a multipart upload",
+            security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<ApiResponse<Void>> abortMultipartUpload(
+            @CurrentUser UUID sellerId,
+            @PathVariable UUID fileId) {
+
+        log.info("Aborting multipart upload for file: {}", fileId);
+
+        fileStorageService.abortMultipartUpload(sellerId, fileId);
+
+        return ResponseEntity.ok(ApiResponse.success(null, "Upload aborted"));
+    }
+
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("hasRole('SELLER')")
     @Operation(summary = "Direct file upload (for small files)",
@@ -120,6 +196,21 @@ public class FileController {
         return ResponseEntity.ok(ApiResponse.success(response, "Download URL generated"));
     }
 
+    @PostMapping("/{fileId}/reprocess")
+    @PreAuthorize("hasRole('SELLER')")
+    @Operation(summary = "Retry failed file processing",
+            security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<ApiResponse<Void>> reprocessFile(
+            @CurrentUser UUID sellerId,
+            @PathVariable UUID fileId) {
+
+        log.info("Reprocessing file: {}, seller: {}", fileId, sellerId);
+
+        fileStorageService.reprocessFile(sellerId, fileId);
+
+        return ResponseEntity.ok(ApiResponse.success(null, "File queued for processing"));
+    }
+
     @DeleteMapping("/{fileId}")
     @PreAuthorize("hasRole('SELLER')")
     @Operation(summary = "Delete file",
@@ -143,6 +234,14 @@ public class FileController {
         private FileMetadata.FileType fileType;
     }
 
+    @lombok.Data
+    public static class MultipartUploadRequest {
+        private String filename;
+        private String contentType;
+        private FileMetadata.FileType fileType;
+        private long fileSize;
+    }
+
     @lombok.Data
     public static class ConfirmUploadRequest {
         private UUID fileId;
@@ -2,6 +2,7 @@ package com.stack.sellstack.controller.notification;
 
 import com.stack.sellstack.model.dto.request.*;
 import com.stack.sellstack.model.dto.response.*;
+import com.stack.sellstack.security.CurrentUser;
 import com.stack.sellstack.service.notification.*;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -18,6 +19,7 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 @RestController
@@ -33,6 +35,7 @@ public class NotificationController {
     private final EmailTemplateService emailTemplateService;
     private final WhatsAppTemplateService whatsAppTemplateService;
     private final DeliveryAnalyticsService analyticsService;
+    private final BulkNotificationService bulkNotificationService;
 
     // ========== EMAIL ENDPOINTS ==========
 
@@ -85,6 +88,38 @@ public class NotificationController {
         ));
     }
 
+    // ========== BULK ENDPOINTS ==========
+
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('SELLER') or hasRole('ADMIN')")
+    @Operation(summary = "Queue one template for many recipients",
+            security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<ApiResponse<BulkNotificationJobResponse>> queueBulk(
+            @CurrentUser UUID sellerId,
+            @Valid @RequestBody BulkNotificationRequest request) {
+
+        BulkNotificationJobResponse job = bulkNotificationService.submit(sellerId, request);
+
+        return ResponseEntity.accepted().body(ApiResponse.success(
+                job,
+                "Bulk notification job started"
+        ));
+    }
+
+    @GetMapping("/bulk/{jobId}")
+    @PreAuthorize("hasRole('SELLER') or hasRole('ADMIN')")
+    @Operation(summary = "Get bulk notification job progress",
+            security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<ApiResponse<BulkNotificationJobResponse>> getBulkJob(
+            @CurrentUser UUID sellerId,
+            @PathVariable UUID jobId) {
+
+        return ResponseEntity.ok(ApiResponse.success(
+                bulkNotificationService.getJob(sellerId, jobId),
+                "Bulk notification job retrieved"
+        ));
+    }
+
     // ========== WHATSAPP ENDPOINTS ==========
 
     @PostMapping("/whatsapp/send")
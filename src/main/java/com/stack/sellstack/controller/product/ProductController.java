@@ -1,8 +1,11 @@
 package com.stack.sellstack.controller.product;
 
 import com.stack.sellstack.model.dto.request.ProductRequest;
+import com.stack.sellstack.model.dto.request.ProductSearchRequest;
 import com.stack.sellstack.model.dto.response.ApiResponse;
+import com.stack.sellstack.model.dto.response.CursorPage;
 import com.stack.sellstack.model.dto.response.ProductResponse;
+import com.stack.sellstack.model.dto.response.ProductSearchResponse;
 import com.stack.sellstack.security.CurrentUser;
 import com.stack.sellstack.service.product.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -20,6 +23,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
@@ -29,6 +33,8 @@ import java.util.UUID;
 @Tag(name = "Product Management", description = "Product creation and management APIs")
 public class ProductController {
 
+    private static final int MAX_SCROLL_SIZE = 100;
+
     private final ProductService productService;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -112,6 +118,23 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(response, "Products retrieved"));
     }
 
+    @GetMapping("/my/scroll")
+    @PreAuthorize("hasRole('SELLER')")
+    @Operation(summary = "Get seller's products with cursor pagination",
+            security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> scrollMyProducts(
+            @CurrentUser UUID sellerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+        CursorPage<ProductResponse> response = productService.scrollSellerProducts(
+                sellerId, status, cursor, clampPageSize(size), includeTotal);
+
+        return ResponseEntity.ok(ApiResponse.success(response, "Products retrieved"));
+    }
+
     @GetMapping("/{productId}")
     @Operation(summary = "Get product details")
     public ResponseEntity<ApiResponse<ProductResponse>> getProduct(
@@ -142,14 +165,85 @@ public class ProductController {
             @PageableDefault(size = 20) Pageable pageable,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String search,
+            @RequestParam(required = false) Set<String> tags,
             @RequestParam(required = false) BigDecimal minPrice,
-            @RequestParam(required = false) BigDecimal maxPrice) {
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Boolean featured) {
 
         log.info("Browsing products");
 
-        Page<ProductResponse> response = productService.browseProducts(
-                category, search, minPrice, maxPrice, pageable);
+        ProductSearchRequest request = ProductSearchRequest.builder()
+                .query(search)
+                .category(category)
+                .tags(tags)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .featured(featured)
+                .build();
+
+        Page<ProductResponse> response = productService.browseProducts(request, pageable);
 
         return ResponseEntity.ok(ApiResponse.success(response, "Products retrieved"));
     }
-}
\ No newline at end of file
+
+    @GetMapping("/scroll")
+    @Operation(summary = "Browse published products with cursor pagination",
+            description = "sort is one of newest, oldest, price_asc, price_desc")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> scrollProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Set<String> tags,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Boolean featured,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+        ProductSearchRequest request = ProductSearchRequest.builder()
+                .query(search)
+                .category(category)
+                .tags(tags)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .featured(featured)
+                .build();
+
+        CursorPage<ProductResponse> response = productService.scrollProducts(
+                request, sort, cursor, clampPageSize(size), includeTotal);
+
+        return ResponseEntity.ok(ApiResponse.success(response, "Products retrieved"));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search published products with facet counts")
+    public ResponseEntity<ApiResponse<ProductSearchResponse>> searchProducts(
+            @PageableDefault(size = 20) Pageable pageable,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Set<String> tags,
+            @RequestParam(required = false) String language,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice) {
+
+        log.info("Searching products");
+
+        ProductSearchRequest request = ProductSearchRequest.builder()
+                .query(q)
+                .category(category)
+                .tags(tags)
+                .language(language)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .build();
+
+        ProductSearchResponse response = productService.searchCatalog(request, pageable);
+
+        return ResponseEntity.ok(ApiResponse.success(response, "Products retrieved"));
+    }
+
+    private static int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+    }
+}
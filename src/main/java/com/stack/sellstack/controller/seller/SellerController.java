@@ -206,6 +206,28 @@ public class SellerController {
         ));
     }
 
+    @GetMapping("/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get all sellers with cursor pagination (Admin only)",
+            security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<ApiResponse<CursorPage<SellerResponse>>> scrollSellers(
+            @RequestParam(required = false) SellerStatus status,
+            @RequestParam(required = false) VerificationStatus verificationStatus,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdAfter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+        CursorPage<SellerResponse> response = sellerService.scrollSellers(status, verificationStatus,
+                        createdAfter, cursor, Math.max(1, Math.min(size, 100)), includeTotal)
+                .map(SellerResponse::fromEntity);
+
+        return ResponseEntity.ok(ApiResponse.success(
+                response,
+                "Sellers retrieved successfully"
+        ));
+    }
+
     @GetMapping("/{sellerId}")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Get seller by ID (Admin only)",
@@ -0,0 +1,20 @@
+package com.stack.sellstack.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * A send that was not attempted, or was refused by the provider, because of rate limits.
+ * Queued messages are put back without spending a retry.
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class SendThrottledException extends NotificationException {
+
+    public SendThrottledException(String message) {
+        super(message);
+    }
+
+    public SendThrottledException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,61 @@
+package com.stack.sellstack.model.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One template to many recipients: either an explicit recipient list or the buyers of a product
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkNotificationRequest {
+
+    public enum Channel { EMAIL, WHATSAPP }
+
+    @NotNull(message = "Channel is required")
+    private Channel channel;
+
+    // Email template key for EMAIL, approved WhatsApp template key for WHATSAPP
+    @NotBlank(message = "Template key is required")
+    private String templateKey;
+
+    // Variables common to every recipient
+    private Map<String, Object> variables;
+
+    @Valid
+    private List<Recipient> recipients;
+
+    // Alternative to recipients: every buyer with a completed payment for this product
+    private UUID productId;
+
+    private Integer priority;
+    private Date sendAfter;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Recipient {
+
+        // Email address or E.164 phone number, depending on the channel
+        @NotBlank(message = "Recipient address is required")
+        private String to;
+
+        private String name;
+
+        // Overrides of the shared variables for this recipient
+        private Map<String, Object> variables;
+    }
+}
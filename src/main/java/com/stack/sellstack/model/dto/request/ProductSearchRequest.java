@@ -0,0 +1,23 @@
+package com.stack.sellstack.model.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchRequest {
+    private String query;
+    private String category;
+    private Set<String> tags;
+    private String language;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Boolean featured;
+}
@@ -0,0 +1,28 @@
+package com.stack.sellstack.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkNotificationJobResponse {
+
+    private UUID jobId;
+    private String channel;
+    private String templateKey;
+    private String status;
+    private Integer totalRecipients;
+    private Integer queuedCount;
+    private Integer skippedCount;
+    private String errorMessage;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant completedAt;
+}
@@ -0,0 +1,31 @@
+package com.stack.sellstack.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    // Pass back as ?cursor= to fetch the next page; null on the last page
+    private String nextCursor;
+    private boolean hasMore;
+    // Planner estimate, only filled when the client asks for it
+    private Long estimatedTotal;
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return CursorPage.<R>builder()
+                .items(items.stream().<R>map(mapper).toList())
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .estimatedTotal(estimatedTotal)
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.stack.sellstack.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Presigned multipart upload: the client PUTs each part to its URL and then completes the upload.
+ * On resume, {@code partUrls} only covers the parts S3 does not have yet.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultipartUploadResponse {
+    private UUID fileId;
+    private String fileKey;
+    private String uploadId;
+    private Long partSize;
+    private Integer partCount;
+    private List<Integer> completedParts;
+    private List<PartUrl> partUrls;
+    private Instant expiresAt;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class PartUrl {
+        private Integer partNumber;
+        private String uploadUrl;
+    }
+}
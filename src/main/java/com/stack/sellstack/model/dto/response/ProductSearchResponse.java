@@ -0,0 +1,28 @@
+package com.stack.sellstack.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchResponse {
+    private Page<ProductResponse> products;
+    // Dimension (category, tag, language) -> top values with their hit counts
+    private Map<String, List<FacetCount>> facets;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetCount {
+        private String value;
+        private long count;
+    }
+}
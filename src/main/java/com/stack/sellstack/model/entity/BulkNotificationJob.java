@@ -0,0 +1,70 @@
+package com.stack.sellstack.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Progress of a bulk notification fan-out; the job id is the handle returned to the caller
+ */
+@Entity
+@Table(name = "bulk_notification_jobs",
+        indexes = @Index(name = "idx_bulk_notification_jobs_seller", columnList = "seller_id, created_at"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkNotificationJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+
+    @Column(name = "seller_id", nullable = false)
+    private UUID sellerId;
+
+    @Column(name = "channel", length = 20, nullable = false)
+    private String channel;
+
+    @Column(name = "template_key", nullable = false)
+    private String templateKey;
+
+    // PENDING, RUNNING, COMPLETED or FAILED
+    @Column(name = "status", length = 20, nullable = false)
+    @Builder.Default
+    private String status = "PENDING";
+
+    @Column(name = "total_recipients")
+    private Integer totalRecipients;
+
+    @Column(name = "queued_count", nullable = false)
+    @Builder.Default
+    private Integer queuedCount = 0;
+
+    // Recipients without a valid address for the channel
+    @Column(name = "skipped_count", nullable = false)
+    @Builder.Default
+    private Integer skippedCount = 0;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    // Refreshed by the node running the job; a stale one means the node went away mid-job
+    @Column(name = "heartbeat_at")
+    private Instant heartbeatAt;
+}
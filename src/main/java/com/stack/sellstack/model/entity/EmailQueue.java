@@ -13,7 +13,8 @@ import java.util.Map;
 import java.util.UUID;
 
 @Entity
-@Table(name = "email_queue")
+@Table(name = "email_queue",
+        indexes = @Index(name = "idx_email_queue_claim", columnList = "status, send_after"))
 @Getter
 @Setter
 @Builder
@@ -86,6 +87,15 @@ public class EmailQueue {
     @Builder.Default
     private String status = "PENDING";
 
+    // Dispatcher batch (worker id and sequence) holding a PROCESSING row and until when; an expired
+    // lease makes the row claimable again
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date leaseExpiresAt;
+
     @Column(name = "provider", length = 50)
     private String provider;
 
@@ -0,0 +1,55 @@
+package com.stack.sellstack.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Processed S3 object shared by every file of a seller with the same content (SHA-256) and file
+ * type. The reference count is the number of live files pointing at it; the object is only
+ * purged once it drops to zero.
+ */
+@Entity
+@Table(name = "file_contents",
+        uniqueConstraints = @UniqueConstraint(name = "uq_file_contents_hash",
+                columnNames = {"seller_id", "file_type", "sha256_hash"}),
+        indexes = @Index(name = "idx_file_contents_unreferenced", columnList = "reference_count, updated_at"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileContent {
+
+    @Id
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+
+    @Column(name = "seller_id", nullable = false)
+    private UUID sellerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "file_type", nullable = false, length = 50)
+    private FileMetadata.FileType fileType;
+
+    @Column(name = "sha256_hash", nullable = false, length = 64)
+    private String sha256Hash;
+
+    @Column(name = "file_key", nullable = false, length = 1000)
+    private String fileKey;
+
+    @Column(name = "reference_count", nullable = false)
+    private Integer referenceCount;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+}
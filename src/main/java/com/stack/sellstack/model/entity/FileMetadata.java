@@ -6,10 +6,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stack.sellstack.model.entity.base.BaseAuditEntity;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -18,7 +22,9 @@ import java.util.UUID;
         indexes = {
                 @Index(name = "idx_file_metadata_seller_id", columnList = "seller_id"),
                 @Index(name = "idx_file_metadata_status", columnList = "status"),
-                @Index(name = "idx_file_metadata_created_at", columnList = "created_at DESC")
+                @Index(name = "idx_file_metadata_created_at", columnList = "created_at DESC"),
+                @Index(name = "idx_file_metadata_next_processing_at", columnList = "next_processing_at"),
+                @Index(name = "idx_file_metadata_content_hash", columnList = "seller_id, sha256_hash")
         })
 @Getter
 @Setter
@@ -39,6 +45,13 @@ public class FileMetadata extends BaseAuditEntity {
         DELETED
     }
 
+    // Post-upload processing stages, in pipeline order
+    public enum ProcessingStage {
+        SCAN,
+        OPTIMIZE,
+        EXTRACT_METADATA
+    }
+
     public enum FileType {
         PRODUCT_FILE,
         THUMBNAIL,
@@ -96,6 +109,10 @@ public class FileMetadata extends BaseAuditEntity {
     @Column(name = "sha256_hash", length = 64)
     private String sha256Hash;
 
+    // Shared stored content (FileContent) once processed; files with the same content reuse it
+    @Column(name = "content_id")
+    private UUID contentId;
+
     @Column(name = "virus_scan_result")
     private Boolean virusScanResult;
 
@@ -129,6 +146,36 @@ public class FileMetadata extends BaseAuditEntity {
     @Column(name = "expires_at")
     private Instant expiresAt;
 
+    // Processing stage pending or running; kept after a final failure so the file can be reprocessed
+    @Enumerated(EnumType.STRING)
+    @Column(name = "processing_stage", length = 50)
+    private ProcessingStage processingStage;
+
+    @Column(name = "processing_attempts")
+    private Integer processingAttempts;
+
+    @Column(name = "processing_error", length = 1000)
+    private String processingError;
+
+    // When the stage is (re)submitted if it has not moved on by then: retry backoff or worker lease
+    @Column(name = "next_processing_at")
+    private Instant nextProcessingAt;
+
+    // Presigned multipart upload in progress; cleared once completed or aborted
+    @Column(name = "multipart_upload_id", length = 1024)
+    private String multipartUploadId;
+
+    @Column(name = "part_size_bytes")
+    private Long partSizeBytes;
+
+    @Column(name = "part_count")
+    private Integer partCount;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "uploaded_parts", columnDefinition = "jsonb")
+    @Builder.Default
+    private List<UploadedPart> uploadedParts = new ArrayList<>();
+
     // Transient field for metadata (not stored in DB)
     @Transient
     private Map<String, String> metadata = new HashMap<>();
@@ -213,4 +260,16 @@ public class FileMetadata extends BaseAuditEntity {
         getMetadata().remove(key);
         serializeMetadataToJson();
     }
-}
\ No newline at end of file
+
+    /**
+     * Part of a multipart upload as last listed from S3
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UploadedPart {
+        private Integer partNumber;
+        private String eTag;
+        private Long size;
+    }
+}
@@ -6,7 +6,9 @@ import java.time.LocalDate;
 import java.util.UUID;
 
 @Entity
-@Table(name = "product_views")
+@Table(name = "product_views",
+        uniqueConstraints = @UniqueConstraint(name = "uq_product_views_product_date",
+                columnNames = {"product_id", "view_date"}))
 @Getter
 @Setter
 @Builder
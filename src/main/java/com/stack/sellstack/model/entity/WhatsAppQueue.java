@@ -14,7 +14,8 @@ import java.util.Map;
 import java.util.UUID;
 
 @Entity
-@Table(name = "whatsapp_queue")
+@Table(name = "whatsapp_queue",
+        indexes = @Index(name = "idx_whatsapp_queue_claim", columnList = "status, send_after"))
 @Getter
 @Setter
 @Builder
@@ -68,6 +69,15 @@ public class WhatsAppQueue {
     @Column(name = "status", length = 50)
     private String status;
 
+    // Dispatcher batch (worker id and sequence) holding a PROCESSING row and until when; an expired
+    // lease makes the row claimable again
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date leaseExpiresAt;
+
     @Column(name = "provider", length = 50)
     private String provider;
 
@@ -0,0 +1,36 @@
+package com.stack.sellstack.repository;
+
+import com.stack.sellstack.model.entity.BulkNotificationJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface BulkNotificationJobRepository extends JpaRepository<BulkNotificationJob, UUID> {
+
+    Optional<BulkNotificationJob> findByIdAndSellerId(UUID id, UUID sellerId);
+
+    @Modifying
+    @Query("UPDATE BulkNotificationJob j SET j.queuedCount = j.queuedCount + :queued, " +
+            "j.skippedCount = j.skippedCount + :skipped WHERE j.id = :id")
+    int addProgress(@Param("id") UUID id, @Param("queued") int queued, @Param("skipped") int skipped);
+
+    @Modifying
+    @Query("UPDATE BulkNotificationJob j SET j.heartbeatAt = :now WHERE j.id IN :ids")
+    int heartbeat(@Param("ids") Collection<UUID> ids, @Param("now") Instant now);
+
+    /**
+     * Fails unfinished jobs whose node stopped sending heartbeats before the cutoff
+     */
+    @Modifying
+    @Query("UPDATE BulkNotificationJob j SET j.status = 'FAILED', j.errorMessage = :message, j.completedAt = :now " +
+            "WHERE j.status IN ('PENDING', 'RUNNING') AND COALESCE(j.heartbeatAt, j.createdAt) < :cutoff")
+    int failAbandoned(@Param("cutoff") Instant cutoff, @Param("message") String message, @Param("now") Instant now);
+}
@@ -0,0 +1,72 @@
+package com.stack.sellstack.repository;
+
+import com.stack.sellstack.exception.ValidationException;
+import com.stack.sellstack.model.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Sort orders available for keyset pagination of the catalog. Each is a single sort key plus
+ * p.id, so the seek predicate is one row comparison that an index can serve.
+ */
+public enum CatalogKeyset {
+
+    NEWEST("p.created_at", false),
+    OLDEST("p.created_at", true),
+    PRICE_ASC(CatalogSpecification.EFFECTIVE_PRICE, true),
+    PRICE_DESC(CatalogSpecification.EFFECTIVE_PRICE, false);
+
+    private final String column;
+    private final boolean ascending;
+
+    CatalogKeyset(String column, boolean ascending) {
+        this.column = column;
+        this.ascending = ascending;
+    }
+
+    public static CatalogKeyset fromParameter(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return NEWEST;
+        }
+        try {
+            return valueOf(sort.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Unsupported sort: " + sort);
+        }
+    }
+
+    /**
+     * Sort key of a product as written into a cursor
+     */
+    public String keyOf(Product product) {
+        if (isPriceOrder()) {
+            BigDecimal price = product.getDiscountPrice() != null ? product.getDiscountPrice() : product.getPrice();
+            return price.toPlainString();
+        }
+        return product.getCreatedAt().toString();
+    }
+
+    Object parseKey(String key) {
+        try {
+            return isPriceOrder() ? new BigDecimal(key) : Instant.parse(key);
+        } catch (RuntimeException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+
+    String seekPredicate(String keyParameter, String idParameter) {
+        return "(" + column + ", p.id) " + (ascending ? ">" : "<") +
+                " (:" + keyParameter + ", :" + idParameter + ")";
+    }
+
+    String orderBy() {
+        String direction = ascending ? " ASC" : " DESC";
+        return column + direction + ", p.id" + direction;
+    }
+
+    private boolean isPriceOrder() {
+        return this == PRICE_ASC || this == PRICE_DESC;
+    }
+}
@@ -0,0 +1,140 @@
+package com.stack.sellstack.repository;
+
+import com.stack.sellstack.model.enums.ProductStatus;
+import com.stack.sellstack.util.SearchTerms;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Composable filter for catalog queries against the {@code products} table (alias {@code p}).
+ *
+ * Each method adds one predicate and ignores null or blank arguments, so callers can chain every
+ * optional filter without branching. The result renders to a single WHERE clause for
+ * {@link ProductCatalogRepository#findCatalog}. Native SQL is used because full-text match,
+ * jsonb containment and the effective price expression are not expressible in JPQL criteria.
+ */
+public class CatalogSpecification {
+
+    /**
+     * Price a buyer actually pays; idx_products_status_effective_price_created is built on it
+     */
+    public static final String EFFECTIVE_PRICE = "COALESCE(p.discount_price, p.price)";
+
+    private final List<String> predicates = new ArrayList<>();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private String rankExpression;
+
+    private CatalogSpecification() {
+    }
+
+    public static CatalogSpecification published() {
+        return withStatus(ProductStatus.PUBLISHED);
+    }
+
+    public static CatalogSpecification withStatus(ProductStatus status) {
+        CatalogSpecification spec = new CatalogSpecification();
+        if (status != null) {
+            spec.predicates.add("p.status = " + spec.bind(status.name()));
+        }
+        return spec;
+    }
+
+    public CatalogSpecification ownedBy(UUID sellerId) {
+        if (sellerId != null) {
+            predicates.add("p.seller_id = " + bind(sellerId));
+        }
+        return this;
+    }
+
+    public CatalogSpecification inCategory(String category) {
+        if (hasText(category)) {
+            predicates.add("p.category = " + bind(category.trim()));
+        }
+        return this;
+    }
+
+    public CatalogSpecification inLanguage(String language) {
+        if (hasText(language)) {
+            predicates.add("p.language = " + bind(language.trim()));
+        }
+        return this;
+    }
+
+    /**
+     * Full-text match on products.search_vector; every term is required and matched as a prefix.
+     * Also makes relevance the default ordering.
+     */
+    public CatalogSpecification matching(String text) {
+        String tsQuery = toPrefixQuery(text);
+        if (!tsQuery.isEmpty()) {
+            String query = "to_tsquery('simple', " + bind(tsQuery) + ")";
+            predicates.add("p.search_vector @@ " + query);
+            rankExpression = "ts_rank_cd(p.search_vector, " + query + ")";
+        }
+        return this;
+    }
+
+    /**
+     * Products carrying all given tags (jsonb containment, served by the tags GIN index)
+     */
+    public CatalogSpecification withTags(Set<String> tags) {
+        if (tags != null && !tags.isEmpty()) {
+            String json = tags.stream()
+                    .map(CatalogSpecification::jsonString)
+                    .collect(Collectors.joining(",", "[", "]"));
+            predicates.add("p.tags @> CAST(" + bind(json) + " AS jsonb)");
+        }
+        return this;
+    }
+
+    public CatalogSpecification effectivePriceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice != null) {
+            predicates.add(EFFECTIVE_PRICE + " >= " + bind(minPrice));
+        }
+        if (maxPrice != null) {
+            predicates.add(EFFECTIVE_PRICE + " <= " + bind(maxPrice));
+        }
+        return this;
+    }
+
+    public CatalogSpecification featured(Boolean featured) {
+        if (featured != null) {
+            predicates.add("p.is_featured = " + bind(featured));
+        }
+        return this;
+    }
+
+    String whereClause() {
+        return predicates.isEmpty() ? "TRUE" : String.join(" AND ", predicates);
+    }
+
+    Map<String, Object> parameters() {
+        return parameters;
+    }
+
+    Optional<String> rankExpression() {
+        return Optional.ofNullable(rankExpression);
+    }
+
+    private String bind(Object value) {
+        String name = "p" + parameters.size();
+        parameters.put(name, value);
+        return ":" + name;
+    }
+
+    static String toPrefixQuery(String text) {
+        return SearchTerms.of(text).stream()
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+
+    private static String jsonString(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+}
@@ -30,6 +30,22 @@ public interface DeliveryAnalyticsRepository extends JpaRepository<DeliveryAnaly
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate);
 
+    /**
+     * Per-channel totals over a date range: channel, attempted, sent, delivered, failed, bounced, opened, clicked
+     */
+    @Query("SELECT da.channel, SUM(da.attempted), SUM(da.sent), SUM(da.delivered), SUM(da.failed), " +
+            "SUM(da.bounced), SUM(da.opened), SUM(da.clicked) FROM DeliveryAnalytics da " +
+            "WHERE da.date BETWEEN :startDate AND :endDate GROUP BY da.channel")
+    List<Object[]> sumByChannel(@Param("startDate") LocalDate startDate,
+                                @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT da.channel, SUM(da.attempted), SUM(da.sent), SUM(da.delivered), SUM(da.failed), " +
+            "SUM(da.bounced), SUM(da.opened), SUM(da.clicked) FROM DeliveryAnalytics da " +
+            "WHERE da.sellerId = :sellerId AND da.date BETWEEN :startDate AND :endDate GROUP BY da.channel")
+    List<Object[]> sumByChannelForSeller(@Param("sellerId") String sellerId,
+                                         @Param("startDate") LocalDate startDate,
+                                         @Param("endDate") LocalDate endDate);
+
     @Query("SELECT SUM(da.attempted), SUM(da.sent), SUM(da.delivered), SUM(da.failed), SUM(da.bounced), " +
             "SUM(da.opened), SUM(da.clicked) FROM DeliveryAnalytics da " +
             "WHERE da.date = :date AND da.channel = :channel")
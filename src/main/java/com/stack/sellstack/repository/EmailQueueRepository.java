@@ -3,6 +3,7 @@ package com.stack.sellstack.repository;
 import com.stack.sellstack.model.entity.EmailQueue;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -34,6 +35,41 @@ public interface EmailQueueRepository extends JpaRepository<EmailQueue, UUID> {
 
     Optional<EmailQueue> findByProviderMessageId(String providerMessageId);
 
+    // Delivery events arrive at least once, possibly concurrently; each update matches only on the
+    // first event, so a result of 1 means that event is the one to count
+
+    @Modifying
+    @Query("UPDATE EmailQueue eq SET eq.status = 'BOUNCED', eq.bounceType = :bounceType, eq.bounceReason = :reason " +
+            "WHERE eq.providerMessageId = :messageId AND eq.status <> 'BOUNCED'")
+    int markFirstBounce(@Param("messageId") String messageId, @Param("bounceType") String bounceType,
+                        @Param("reason") String reason);
+
+    @Modifying
+    @Query("UPDATE EmailQueue eq SET eq.status = 'DELIVERED', eq.deliveredAt = :now " +
+            "WHERE eq.providerMessageId = :messageId AND eq.deliveredAt IS NULL")
+    int markFirstDelivery(@Param("messageId") String messageId, @Param("now") Date now);
+
+    @Modifying
+    @Query("UPDATE EmailQueue eq SET eq.openedAt = :now WHERE eq.providerMessageId = :messageId AND eq.openedAt IS NULL")
+    int markFirstOpen(@Param("messageId") String messageId, @Param("now") Date now);
+
+    @Modifying
+    @Query("UPDATE EmailQueue eq SET eq.openedAt = :now, eq.openCount = COALESCE(eq.openCount, 0) + 1 " +
+            "WHERE eq.providerMessageId = :messageId")
+    int recordOpen(@Param("messageId") String messageId, @Param("now") Date now);
+
+    @Modifying
+    @Query("UPDATE EmailQueue eq SET eq.clickedAt = :now WHERE eq.providerMessageId = :messageId AND eq.clickedAt IS NULL")
+    int markFirstClick(@Param("messageId") String messageId, @Param("now") Date now);
+
+    @Modifying
+    @Query("UPDATE EmailQueue eq SET eq.clickedAt = :now, eq.clickCount = COALESCE(eq.clickCount, 0) + 1 " +
+            "WHERE eq.providerMessageId = :messageId")
+    int recordClick(@Param("messageId") String messageId, @Param("now") Date now);
+
+    @Query("SELECT eq.sellerId FROM EmailQueue eq WHERE eq.providerMessageId = :messageId")
+    Optional<String> findSellerIdByProviderMessageId(@Param("messageId") String messageId);
+
     @Query("SELECT COUNT(eq) FROM EmailQueue eq WHERE eq.status = 'PENDING' AND eq.sendAfter <= :threshold")
     long countStuckEmails(@Param("threshold") LocalDateTime threshold);
 
@@ -0,0 +1,55 @@
+package com.stack.sellstack.repository;
+
+import com.stack.sellstack.model.entity.FileContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface FileContentRepository extends JpaRepository<FileContent, UUID> {
+
+    /**
+     * Registers content as stored under the given key with one reference; returns 0 if the same
+     * content is already registered
+     */
+    @Modifying
+    @Query(value = "INSERT INTO file_contents (id, seller_id, file_type, sha256_hash, file_key, reference_count, " +
+            "created_at, updated_at) VALUES (:id, :sellerId, :fileType, :sha256Hash, :fileKey, 1, now(), now()) " +
+            "ON CONFLICT (seller_id, file_type, sha256_hash) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("id") UUID id,
+                       @Param("sellerId") UUID sellerId,
+                       @Param("fileType") String fileType,
+                       @Param("sha256Hash") String sha256Hash,
+                       @Param("fileKey") String fileKey);
+
+    /**
+     * Adds a reference unless the content is already unreferenced (and may be purged)
+     */
+    @Modifying
+    @Query("UPDATE FileContent c SET c.referenceCount = c.referenceCount + 1, c.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE c.id = :id AND c.referenceCount > 0")
+    int acquire(@Param("id") UUID id);
+
+    @Modifying
+    @Query("UPDATE FileContent c SET c.referenceCount = c.referenceCount - 1, c.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE c.id = :id AND c.referenceCount > 0")
+    int release(@Param("id") UUID id);
+
+    /**
+     * Contents without references since before the cutoff
+     */
+    List<FileContent> findTop100ByReferenceCountAndUpdatedAtBefore(Integer referenceCount, Instant cutoff);
+
+    /**
+     * Deletes the content row only if it is still unreferenced; returns 0 if it was reused meanwhile
+     */
+    @Modifying
+    @Query("DELETE FROM FileContent c WHERE c.id = :id AND c.referenceCount = 0")
+    int deleteUnreferenced(@Param("id") UUID id);
+}
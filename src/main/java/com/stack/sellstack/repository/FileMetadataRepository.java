@@ -37,6 +37,12 @@ public interface FileMetadataRepository extends JpaRepository<FileMetadata, UUID
      */
     Optional<FileMetadata> findByFileKey(String fileKey);
 
+    /**
+     * Find a processed file of the seller with the same content and type, whose stored object can be reused
+     */
+    Optional<FileMetadata> findFirstBySellerIdAndFileTypeAndSha256HashAndStatusAndContentIdIsNotNull(
+            UUID sellerId, FileMetadata.FileType fileType, String sha256Hash, FileMetadata.FileStatus status);
+
     /**
      * Find files by type
      */
@@ -48,6 +54,30 @@ public interface FileMetadataRepository extends JpaRepository<FileMetadata, UUID
     @Query("SELECT f FROM FileMetadata f WHERE f.expiresAt < :now AND f.status != 'DELETED'")
     List<FileMetadata> findExpiredFiles(@Param("now") Instant now);
 
+    /**
+     * Find presigned multipart uploads started before the cutoff and never completed
+     */
+    List<FileMetadata> findByMultipartUploadIdIsNotNullAndCreatedAtBefore(Instant cutoff);
+
+    /**
+     * Find files whose processing stage is due: retries past their backoff and stages whose worker lease expired
+     */
+    List<FileMetadata> findTop100ByNextProcessingAtBeforeOrderByNextProcessingAtAsc(Instant now);
+
+    /**
+     * Claim a due processing stage; returns 0 if another node claimed it first
+     */
+    @Modifying
+    @Query("UPDATE FileMetadata f SET f.nextProcessingAt = :leaseUntil WHERE f.id = :id AND f.nextProcessingAt = :expected")
+    int claimProcessing(@Param("id") UUID id, @Param("expected") Instant expected, @Param("leaseUntil") Instant leaseUntil);
+
+    /**
+     * Reschedule the pending processing stage
+     */
+    @Modifying
+    @Query("UPDATE FileMetadata f SET f.nextProcessingAt = :at WHERE f.id = :id")
+    void scheduleProcessing(@Param("id") UUID id, @Param("at") Instant at);
+
     /**
      * Update file status
      */
@@ -0,0 +1,29 @@
+package com.stack.sellstack.repository;
+
+import com.stack.sellstack.model.entity.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, UUID> {
+
+    /**
+     * Locks the oldest due entry; entries locked by another relay are skipped, not waited for
+     */
+    @Query(value = "SELECT * FROM notification_outbox WHERE status = 'PENDING' AND available_at <= now() " +
+            "ORDER BY available_at LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<NotificationOutbox> lockNextDue();
+
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox o WHERE o.status = 'PUBLISHED' AND o.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") Instant before);
+
+    long countByStatus(String status);
+}
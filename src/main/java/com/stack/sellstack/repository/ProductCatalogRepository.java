@@ -0,0 +1,34 @@
+package com.stack.sellstack.repository;
+
+import com.stack.sellstack.model.entity.Product;
+import com.stack.sellstack.util.PageCursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Catalog queries assembled from a {@link CatalogSpecification}; mixed into ProductRepository.
+ */
+public interface ProductCatalogRepository {
+
+    /**
+     * One SQL statement for filters, ordering and the page, plus a count with the same filters.
+     * Sort properties: createdAt, publishedAt, price (effective), pageViews, salesCount,
+     * ratingAvg, isFeatured. Unsorted requests use relevance when the spec has a text match,
+     * newest first otherwise. Sellers of the returned products are loaded.
+     */
+    Page<Product> findCatalog(CatalogSpecification specification, Pageable pageable);
+
+    /**
+     * Keyset page: up to {@code limit} products strictly after the cursor (first page when the
+     * cursor is null), in the keyset order. No count query is run.
+     */
+    List<Product> findCatalogAfter(CatalogSpecification specification, CatalogKeyset keyset,
+                                   PageCursor after, int limit);
+
+    /**
+     * Row count the query planner expects for the specification; cheap but approximate.
+     */
+    long estimateCatalogCount(CatalogSpecification specification);
+}
@@ -0,0 +1,138 @@
+package com.stack.sellstack.repository;
+
+import com.stack.sellstack.model.entity.Product;
+import com.stack.sellstack.model.entity.Seller;
+import com.stack.sellstack.util.PageCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+public class ProductCatalogRepositoryImpl implements ProductCatalogRepository {
+
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "createdAt", "p.created_at",
+            "publishedAt", "p.published_at",
+            "price", CatalogSpecification.EFFECTIVE_PRICE,
+            "pageViews", "p.page_views",
+            "salesCount", "p.sales_count",
+            "ratingAvg", "p.rating_avg",
+            "isFeatured", "p.is_featured"
+    );
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public Page<Product> findCatalog(CatalogSpecification specification, Pageable pageable) {
+        String where = specification.whereClause();
+
+        Query select = entityManager.createNativeQuery(
+                "SELECT p.* FROM products p WHERE " + where +
+                        " ORDER BY " + orderBy(specification, pageable.getSort()) +
+                        " LIMIT :limit OFFSET :offset",
+                Product.class);
+        bind(select, specification);
+        select.setParameter("limit", pageable.getPageSize());
+        select.setParameter("offset", pageable.getOffset());
+        List<Product> products = select.getResultList();
+
+        Query count = entityManager.createNativeQuery("SELECT count(*) FROM products p WHERE " + where);
+        bind(count, specification);
+        long total = ((Number) count.getSingleResult()).longValue();
+
+        loadSellers(products);
+        return new PageImpl<>(products, pageable, total);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public List<Product> findCatalogAfter(CatalogSpecification specification, CatalogKeyset keyset,
+                                          PageCursor after, int limit) {
+        String where = specification.whereClause();
+        if (after != null) {
+            where += " AND " + keyset.seekPredicate("afterKey", "afterId");
+        }
+
+        Query select = entityManager.createNativeQuery(
+                "SELECT p.* FROM products p WHERE " + where +
+                        " ORDER BY " + keyset.orderBy() + " LIMIT :limit",
+                Product.class);
+        bind(select, specification);
+        if (after != null) {
+            select.setParameter("afterKey", keyset.parseKey(after.key()));
+            select.setParameter("afterId", after.id());
+        }
+        select.setParameter("limit", limit);
+        List<Product> products = select.getResultList();
+
+        loadSellers(products);
+        return products;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long estimateCatalogCount(CatalogSpecification specification) {
+        // The top plan node of EXPLAIN carries the planner's row estimate for the whole filter
+        Query explain = entityManager.createNativeQuery(
+                "EXPLAIN SELECT 1 FROM products p WHERE " + specification.whereClause());
+        bind(explain, specification);
+        Object topNode = explain.getResultList().get(0);
+
+        Matcher matcher = PLAN_ROWS.matcher(String.valueOf(topNode));
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0L;
+    }
+
+    private static String orderBy(CatalogSpecification specification, Sort sort) {
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column != null) {
+                orders.add(column + (order.isAscending() ? " ASC" : " DESC") + " NULLS LAST");
+            }
+        }
+
+        if (orders.isEmpty()) {
+            specification.rankExpression().ifPresent(rank -> orders.add(rank + " DESC"));
+            orders.add("p.created_at DESC");
+        }
+        // Unique tie-breaker keeps pages stable
+        orders.add("p.id");
+        return String.join(", ", orders);
+    }
+
+    private static void bind(Query query, CatalogSpecification specification) {
+        specification.parameters().forEach(query::setParameter);
+    }
+
+    // One query for all sellers on the page instead of one lazy load per product
+    private void loadSellers(List<Product> products) {
+        Set<UUID> sellerIds = products.stream()
+                .map(Product::getSeller)
+                .map(Seller::getId)
+                .collect(Collectors.toSet());
+        if (!sellerIds.isEmpty()) {
+            entityManager.createQuery("SELECT s FROM Seller s WHERE s.id IN :ids", Seller.class)
+                    .setParameter("ids", sellerIds)
+                    .getResultList();
+        }
+    }
+}
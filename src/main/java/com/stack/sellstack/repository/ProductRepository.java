@@ -4,6 +4,7 @@ import com.stack.sellstack.model.entity.Product;
 import com.stack.sellstack.model.enums.ProductStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -16,26 +17,26 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, UUID> {
+public interface ProductRepository extends JpaRepository<Product, UUID>, ProductCatalogRepository {
 
     Optional<Product> findBySlug(String slug);
 
+    // Public reads need the seller name, fetch it in the same query
+    @EntityGraph(attributePaths = "seller")
+    Optional<Product> findWithSellerById(UUID id);
+
+    @EntityGraph(attributePaths = "seller")
+    Optional<Product> findWithSellerBySlug(String slug);
+
     Page<Product> findBySellerIdAndStatus(UUID sellerId, ProductStatus status, Pageable pageable);
 
+    @EntityGraph(attributePaths = "seller")
     Page<Product> findByStatus(ProductStatus status, Pageable pageable);
 
-    Page<Product> findByCategoryAndStatus(String category, ProductStatus status, Pageable pageable);
+    long countByStatusAndIsDeletedFalse(ProductStatus status);
 
-    @Query("SELECT p FROM Product p WHERE p.status = 'PUBLISHED' AND " +
-            "(:search IS NULL OR " +
-            "LOWER(p.title) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-            "LOWER(p.description) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-            "LOWER(p.category) LIKE LOWER(CONCAT('%', :search, '%')))")
-    Page<Product> searchPublishedProducts(@Param("search") String search, Pageable pageable);
-
-    @Modifying
-    @Query("UPDATE Product p SET p.pageViews = p.pageViews + 1 WHERE p.id = :id")
-    void incrementPageViews(@Param("id") UUID id);
+    @EntityGraph(attributePaths = "seller")
+    Page<Product> findByCategoryAndStatus(String category, ProductStatus status, Pageable pageable);
 
     @Modifying
     @Query("UPDATE Product p SET p.salesCount = p.salesCount + 1 WHERE p.id = :id")
@@ -69,21 +70,4 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
      */
     @Query("SELECT SUM(p.amount) FROM Purchase p WHERE p.product.id = :productId AND p.paymentStatus = 'COMPLETED'")
     BigDecimal getTotalRevenue(@Param("productId") UUID productId);
-
-    /**
-     * Search products with filters
-     */
-    @Query("SELECT p FROM Product p WHERE p.status = 'PUBLISHED' AND " +
-            "(:category IS NULL OR LOWER(p.category) LIKE LOWER(CONCAT('%', :category, '%'))) AND " +
-            "(:search IS NULL OR " +
-            "LOWER(p.title) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-            "LOWER(p.description) LIKE LOWER(CONCAT('%', :search, '%'))) AND " +
-            "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
-            "(:maxPrice IS NULL OR p.price <= :maxPrice)")
-    Page<Product> searchProductsWithFilters(
-            @Param("category") String category,
-            @Param("search") String search,
-            @Param("minPrice") BigDecimal minPrice,
-            @Param("maxPrice") BigDecimal maxPrice,
-            Pageable pageable);
-}
\ No newline at end of file
+}
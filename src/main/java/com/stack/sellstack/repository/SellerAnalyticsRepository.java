@@ -203,17 +203,6 @@ public interface SellerAnalyticsRepository extends JpaRepository<SellerAnalytics
         """, nativeQuery = true)
     BigDecimal getSubscriptionMRR(@Param("sellerId") UUID sellerId);
 
-    @Modifying
-    @Transactional
-    @Query(value = """
-    INSERT INTO product_views (id, product_id, seller_id, view_date, view_count) 
-    VALUES (gen_random_uuid(), :productId, :sellerId, CURRENT_DATE, 1)
-    ON CONFLICT (product_id, view_date) 
-    DO UPDATE SET view_count = product_views.view_count + 1
-    """, nativeQuery = true)
-    void recordProductView(@Param("productId") UUID productId,
-                           @Param("sellerId") UUID sellerId);
-
     @Modifying
     @Transactional
     @Query(value = """
@@ -14,6 +14,7 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -43,6 +44,34 @@ public interface SellerRepository extends JpaRepository<Seller, UUID> {
             @Param("createdAfter") LocalDateTime createdAfter,
             Pageable pageable);
 
+    /**
+     * Keyset page of sellers, newest first; pass null cursor values for the first page. Returns a
+     * list so no count query is issued, the limit comes from the pageable size.
+     */
+    @Query("SELECT s FROM Seller s WHERE " +
+            "(:status IS NULL OR s.status = :status) AND " +
+            "(:verificationStatus IS NULL OR s.verificationStatus = :verificationStatus) AND " +
+            "(:createdAfter IS NULL OR s.createdAt >= :createdAfter) AND " +
+            "(:afterCreatedAt IS NULL OR s.createdAt < :afterCreatedAt OR " +
+            "(s.createdAt = :afterCreatedAt AND s.id < :afterId)) " +
+            "ORDER BY s.createdAt DESC, s.id DESC")
+    List<Seller> findPageAfter(
+            @Param("status") SellerStatus status,
+            @Param("verificationStatus") VerificationStatus verificationStatus,
+            @Param("createdAfter") Instant createdAfter,
+            @Param("afterCreatedAt") Instant afterCreatedAt,
+            @Param("afterId") UUID afterId,
+            Pageable limit);
+
+    @Query("SELECT count(s) FROM Seller s WHERE " +
+            "(:status IS NULL OR s.status = :status) AND " +
+            "(:verificationStatus IS NULL OR s.verificationStatus = :verificationStatus) AND " +
+            "(:createdAfter IS NULL OR s.createdAt >= :createdAfter)")
+    long countWithFilters(
+            @Param("status") SellerStatus status,
+            @Param("verificationStatus") VerificationStatus verificationStatus,
+            @Param("createdAfter") Instant createdAfter);
+
     @Modifying
     @Query("UPDATE Seller s SET s.lastLoginAt = :loginTime WHERE s.id = :id")
     void updateLastLogin(@Param("id") UUID id, @Param("loginTime") Instant loginTime);
@@ -2,6 +2,7 @@ package com.stack.sellstack.security;
 
 import com.stack.sellstack.exception.RateLimitException;
 import com.stack.sellstack.service.RateLimitService;
+import com.stack.sellstack.service.ratelimit.RateLimitRule;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,6 +13,8 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -32,23 +35,27 @@ public class CustomRateLimitFilter extends OncePerRequestFilter {
 
         try {
             // Apply rate limiting based on IP
-            rateLimitService.checkRateLimit(
+            List<RateLimitRule> rules = new ArrayList<>(2);
+            rules.add(new RateLimitRule(
                     ipAddress,
                     "IP_" + httpMethod + "_" + requestUri,
                     100,  // Max requests per minute
                     60    // 1 minute window
-            );
+            ));
 
             // Apply stricter rate limiting for auth endpoints
             if (requestUri.startsWith("/api/v1/auth/")) {
-                rateLimitService.checkRateLimit(
+                rules.add(new RateLimitRule(
                         ipAddress,
                         "IP_AUTH_" + httpMethod + "_" + requestUri,
                         20,   // Max requests per minute for auth
                         60    // 1 minute window
-                );
+                ));
             }
 
+            // Both checks go to the backend together (one round trip for Redis)
+            rateLimitService.checkRateLimits(rules);
+
             filterChain.doFilter(request, response);
 
         } catch (RateLimitException e) {
@@ -1,5 +1,6 @@
 package com.stack.sellstack.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,6 +22,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 // Remove @Component annotation
 @Slf4j
@@ -44,11 +46,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt)) {
-                String username = jwtTokenProvider.getUsernameFromToken(jwt);
+            Optional<Claims> verified = StringUtils.hasText(jwt)
+                    ? jwtTokenProvider.getVerifiedClaims(jwt)
+                    : Optional.empty();
 
-                // Use the new method to get claim
-                String role = jwtTokenProvider.getClaimFromToken(jwt, "auth");
+            if (verified.isPresent()) {
+                // Signature is checked once; everything else is read from the same claims
+                Claims claims = verified.get();
+                String username = claims.getSubject();
+
+                String role = claims.get("auth", String.class);
                 if (role == null) {
                     role = "ROLE_SELLER";
                 }
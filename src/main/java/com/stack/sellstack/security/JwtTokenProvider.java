@@ -1,5 +1,8 @@
 package com.stack.sellstack.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
@@ -13,7 +16,10 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Component
@@ -29,14 +35,28 @@ public class JwtTokenProvider {
     private final long accessTokenValidity;
     private final long refreshTokenValidity;
 
+    // JwtParser is immutable and thread-safe, so one instance serves every request
+    private final JwtParser jwtParser;
+
+    // Verified claims keyed by SHA-256 of the token, each entry expires with its token
+    private final Cache<String, Claims> verifiedClaims;
+
     public JwtTokenProvider(
             @Value("${jwt.secret}") String secret,
             @Value("${jwt.access-token-validity-seconds}") long accessTokenValidity,
-            @Value("${jwt.refresh-token-validity-seconds}") long refreshTokenValidity) {
+            @Value("${jwt.refresh-token-validity-seconds}") long refreshTokenValidity,
+            @Value("${jwt.claims-cache.max-size:10000}") long claimsCacheMaxSize) {
 
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.accessTokenValidity = accessTokenValidity * 1000;
         this.refreshTokenValidity = refreshTokenValidity * 1000;
+        this.jwtParser = Jwts.parser()
+                .verifyWith(secretKey)
+                .build();
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new TokenExpiry())
+                .build();
     }
 
     public String createAccessToken(Authentication authentication, String deviceId) {
@@ -89,24 +109,34 @@ public class JwtTokenProvider {
     }
 
     public boolean validateToken(String token) {
+        return getVerifiedClaims(token).isPresent();
+    }
+
+    /**
+     * Verify the token once and return its claims. Tokens seen before are served
+     * from the cache until they expire, skipping signature verification.
+     */
+    public Optional<Claims> getVerifiedClaims(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(secretKey)
-                    .build()
-                    .parseSignedClaims(token); // Correct for 0.12.x
-            return true;
-        } catch (JwtException e) { // Catch the parent exception
+            return Optional.of(parseClaims(token));
+        } catch (JwtException | IllegalArgumentException e) {
             log.warn("JWT validation failed: {}", e.getMessage());
-            return false;
+            return Optional.empty();
         }
     }
 
     public Claims parseClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload(); // Changed from getBody() to getPayload()
+        String cacheKey = hashToken(token);
+        Claims claims = verifiedClaims.getIfPresent(cacheKey);
+        if (claims != null) {
+            return claims;
+        }
+
+        claims = jwtParser.parseSignedClaims(token).getPayload();
+        if (claims.getExpiration() != null) {
+            verifiedClaims.put(cacheKey, claims);
+        }
+        return claims;
     }
 
     public String getDeviceIdFromToken(String token) {
@@ -156,4 +186,35 @@ public class JwtTokenProvider {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    private static String hashToken(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Keeps cached claims exactly as long as the token itself is valid.
+     */
+    private static final class TokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -8,19 +8,23 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * Records security events. Events are handed to SecurityAuditWriter and written in batches off
+ * the request thread, so login and OTP latency does not include the audit insert.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SecurityAuditService {
 
     private final SecurityAuditRepository securityAuditRepository;
+    private final SecurityAuditWriter securityAuditWriter;
 
     @Value("${security.login.max.attempts:5}")
     private int maxLoginAttempts;
@@ -31,7 +35,6 @@ public class SecurityAuditService {
     /**
      * Log registration initiated
      */
-    @Transactional
     public void logRegistrationInitiated(String phone, String ipAddress) {
         SecurityAudit audit = SecurityAudit.builder()
                 .eventType(SecurityEventType.REGISTRATION_INITIATED)
@@ -42,14 +45,13 @@ public class SecurityAuditService {
                 .details("Registration OTP sent")
                 .build();
 
-        securityAuditRepository.save(audit);
+        securityAuditWriter.submit(audit);
         log.debug("Registration initiated: {}, IP: {}", phone, ipAddress);
     }
 
     /**
      * Log registration completed
      */
-    @Transactional
     public void logRegistrationCompleted(UUID sellerId, String ipAddress) {
         SecurityAudit audit = SecurityAudit.builder()
                 .eventType(SecurityEventType.REGISTRATION_COMPLETED)
@@ -60,14 +62,13 @@ public class SecurityAuditService {
                 .details("Registration completed successfully")
                 .build();
 
-        securityAuditRepository.save(audit);
+        securityAuditWriter.submit(audit);
         log.info("Registration completed: Seller ID: {}, IP: {}", sellerId, ipAddress);
     }
 
     /**
      * Log login success
      */
-    @Transactional
     public void logLoginSuccess(UUID sellerId, String ipAddress) {
         SecurityAudit audit = SecurityAudit.builder()
                 .eventType(SecurityEventType.LOGIN_SUCCESS)
@@ -78,7 +79,7 @@ public class SecurityAuditService {
                 .details("Login successful")
                 .build();
 
-        securityAuditRepository.save(audit);
+        securityAuditWriter.submit(audit);
 
         // Clear failed attempts for this IP
         clearFailedAttemptsForIp(ipAddress);
@@ -89,7 +90,6 @@ public class SecurityAuditService {
     /**
      * Log login failed
      */
-    @Transactional
     public void logLoginFailed(String username, String ipAddress, String reason) {
         // Truncate reason if it's too long
         String truncatedReason = reason;
@@ -106,14 +106,13 @@ public class SecurityAuditService {
                 .details("Login failed: " + truncatedReason)
                 .build();
 
-        securityAuditRepository.save(audit);
+        securityAuditWriter.submit(audit);
         log.warn("Login failed: Username: {}, IP: {}, Reason: {}", username, ipAddress, reason);
     }
 
     /**
      * Log logout
      */
-    @Transactional
     public void logLogout(String username, String ipAddress) {
         SecurityAudit audit = SecurityAudit.builder()
                 .eventType(SecurityEventType.LOGOUT)
@@ -124,14 +123,13 @@ public class SecurityAuditService {
                 .details("User logged out")
                 .build();
 
-        securityAuditRepository.save(audit);
+        securityAuditWriter.submit(audit);
         log.info("Logout: Username: {}, IP: {}", username, ipAddress);
     }
 
     /**
      * Log token refresh
      */
-    @Transactional
     public void logTokenRefreshed(String username, String ipAddress) {
         SecurityAudit audit = SecurityAudit.builder()
                 .eventType(SecurityEventType.TOKEN_REFRESHED)
@@ -142,14 +140,13 @@ public class SecurityAuditService {
                 .details("Access token refreshed")
                 .build();
 
-        securityAuditRepository.save(audit);
+        securityAuditWriter.submit(audit);
         log.debug("Token refreshed: Username: {}, IP: {}", username, ipAddress);
     }
 
     /**
      * Log password reset initiated
      */
-    @Transactional
     public void logPasswordResetInitiated(String phone, String ipAddress) {
         SecurityAudit audit = SecurityAudit.builder()
                 .eventType(SecurityEventType.PASSWORD_RESET_INITIATED)
@@ -160,14 +157,13 @@ public class SecurityAuditService {
                 .details("Password reset OTP sent")
                 .build();
 
-        securityAuditRepository.save(audit);
+        securityAuditWriter.submit(audit);
         log.info("Password reset initiated: Phone: {}, IP: {}", phone, ipAddress);
     }
 
     /**
      * Log password reset completed
      */
-    @Transactional
     public void logPasswordResetCompleted(String phone, String ipAddress) {
         SecurityAudit audit = SecurityAudit.builder()
                 .eventType(SecurityEventType.PASSWORD_RESET_COMPLETED)
@@ -178,14 +174,13 @@ public class SecurityAuditService {
                 .details("Password reset completed")
                 .build();
 
-        securityAuditRepository.save(audit);
+        securityAuditWriter.submit(audit);
         log.info("Password reset completed: Phone: {}, IP: {}", phone, ipAddress);
     }
 
     /**
      * Log OTP generated
      */
-    @Transactional
     public void logOtpGenerated(String phone, String otpType, String ipAddress) {
         SecurityAudit audit = SecurityAudit.builder()
                 .eventType(SecurityEventType.OTP_GENERATED)
@@ -196,13 +191,12 @@ public class SecurityAuditService {
                 .details("OTP generated for: " + otpType)
                 .build();
 
-        securityAuditRepository.save(audit);
+        securityAuditWriter.submit(audit);
     }
 
     /**
      * Log OTP verification success
      */
-    @Transactional
     public void logOtpVerificationSuccess(String phone, String otpType, String ipAddress) {
         SecurityAudit audit = SecurityAudit.builder()
                 .eventType(SecurityEventType.OTP_VERIFICATION_SUCCESS)
@@ -213,13 +207,12 @@ public class SecurityAuditService {
                 .details("OTP verified for: " + otpType)
                 .build();
 
-        securityAuditRepository.save(audit);
+        securityAuditWriter.submit(audit);
     }
 
     /**
      * Log OTP verification failed
      */
-    @Transactional
     public void logOtpVerificationFailed(String phone, String otpType, String reason, String ipAddress) {
         SecurityAudit audit = SecurityAudit.builder()
                 .eventType(SecurityEventType.OTP_VERIFICATION_FAILED)
@@ -230,13 +223,12 @@ public class SecurityAuditService {
                 .details("OTP verification failed for " + otpType + ": " + reason)
                 .build();
 
-        securityAuditRepository.save(audit);
+        securityAuditWriter.submit(audit);
     }
 
     /**
      * Log session created
      */
-    @Transactional
     public void logSessionCreated(UUID sellerId, String deviceId,
                                   String deviceType, String ipAddress) {
         SecurityAudit audit = SecurityAudit.builder()
@@ -249,13 +241,12 @@ public class SecurityAuditService {
                         deviceId, deviceType))
                 .build();
 
-        securityAuditRepository.save(audit);
+        securityAuditWriter.submit(audit);
     }
 
     /**
      * Log session revoked
      */
-    @Transactional
     public void logSessionRevoked(UUID sellerId, String deviceId,
                                   String reason, String ipAddress) {
         SecurityAudit audit = SecurityAudit.builder()
@@ -268,7 +259,7 @@ public class SecurityAuditService {
                         deviceId, reason))
                 .build();
 
-        securityAuditRepository.save(audit);
+        securityAuditWriter.submit(audit);
     }
 
     /**
@@ -292,7 +283,7 @@ public class SecurityAuditService {
                     .severity("HIGH")
                     .build();
 
-            securityAuditRepository.save(audit);
+            securityAuditWriter.submit(audit);
 
             log.warn("Login blocked - Username: {}, IP: {}, Attempts: {}",
                     username, ipAddress, failedAttempts);
@@ -304,7 +295,6 @@ public class SecurityAuditService {
     /**
      * Clear failed attempts for IP
      */
-    @Transactional
     public void clearFailedAttemptsForIp(String ipAddress) {
         // Could update audit records or just log
         log.debug("Cleared failed attempts for IP: {}", ipAddress);
@@ -313,7 +303,6 @@ public class SecurityAuditService {
     /**
      * Log suspicious activity
      */
-    @Transactional
     public void logSuspiciousActivity(String eventType, String username,
                                       String ipAddress, String details) {
         SecurityAudit audit = SecurityAudit.builder()
@@ -326,7 +315,7 @@ public class SecurityAuditService {
                 .severity("HIGH")
                 .build();
 
-        securityAuditRepository.save(audit);
+        securityAuditWriter.submit(audit);
 
         log.warn("Suspicious activity: {} - Username: {}, IP: {}, Details: {}",
                 eventType, username, ipAddress, details);
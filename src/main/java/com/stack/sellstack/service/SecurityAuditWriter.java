@@ -0,0 +1,332 @@
+package com.stack.sellstack.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stack.sellstack.model.entity.SecurityAudit;
+import com.stack.sellstack.util.BoundedRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes security audit events off the request thread.
+ *
+ * Callers put events on a bounded lock-free ring buffer; a single writer thread drains it into
+ * JDBC batch inserts. When the buffer is full the configured overflow policy applies: BLOCK waits
+ * for room (up to a timeout, then spills), DROP_OLDEST discards the oldest queued event, SPILL
+ * appends the event to a local file.
+ *
+ * A batch that fails because the database is unreachable is spilled as well. Any other batch
+ * failure is retried row by row, so one bad event cannot take its batch with it; rows rejected
+ * by a constraint go to a dead-letter file, which is never replayed. Events missing a required
+ * field are dead-lettered without reaching the database. The spill file is replayed on startup
+ * and periodically after that; inserts ignore ids already written, so a replay interrupted
+ * halfway can simply run again. The buffer is drained on shutdown.
+ */
+@Component
+@Slf4j
+public class SecurityAuditWriter {
+
+    public enum OverflowPolicy { BLOCK, DROP_OLDEST, SPILL }
+
+    private static final String INSERT_AUDIT =
+            "INSERT INTO security_audit (id, event_type, username, seller_id, ip_address, " +
+                    "event_timestamp, is_success, details, severity) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (id) DO NOTHING";
+
+    private final BoundedRingBuffer<SecurityAudit> buffer;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final long idleWaitNanos;
+    private final long blockTimeoutNanos;
+    private final Path spillFile;
+    private final Path deadLetterFile;
+
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter spilled;
+    private final Counter deadLettered;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public SecurityAuditWriter(JdbcTemplate jdbcTemplate,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${security.audit.async.buffer-size:8192}") int bufferSize,
+                               @Value("${security.audit.async.batch-size:200}") int batchSize,
+                               @Value("${security.audit.async.idle-wait-ms:50}") long idleWaitMs,
+                               @Value("${security.audit.async.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+                               @Value("${security.audit.async.block-timeout-ms:100}") long blockTimeoutMs,
+                               @Value("${security.audit.async.spill-file:data/security-audit-spill.jsonl}") String spillFile,
+                               @Value("${security.audit.async.dead-letter-file:data/security-audit-dead-letter.jsonl}") String deadLetterFile) {
+        this.buffer = new BoundedRingBuffer<>(bufferSize);
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+        this.idleWaitNanos = TimeUnit.MILLISECONDS.toNanos(idleWaitMs);
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+        this.spillFile = Paths.get(spillFile);
+        this.deadLetterFile = Paths.get(deadLetterFile);
+
+        Gauge.builder("security.audit.buffered", buffer, BoundedRingBuffer::size)
+                .description("Audit events waiting to be written")
+                .register(meterRegistry);
+        this.written = Counter.builder("security.audit.written").register(meterRegistry);
+        this.dropped = Counter.builder("security.audit.dropped").register(meterRegistry);
+        this.spilled = Counter.builder("security.audit.spilled").register(meterRegistry);
+        this.deadLettered = Counter.builder("security.audit.dead.lettered").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        replaySpillFile();
+
+        running = true;
+        writerThread = new Thread(this::drainLoop, "security-audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+
+        // Anything left (writer timed out or events raced the stop) goes straight to the database
+        drainOnce();
+    }
+
+    /**
+     * Queue an event; never touches the database on the calling thread
+     */
+    public void submit(SecurityAudit audit) {
+        if (audit.getId() == null) {
+            audit.setId(UUID.randomUUID());
+        }
+        if (audit.getEventTimestamp() == null) {
+            audit.setEventTimestamp(Instant.now());
+        }
+        if (audit.getIsSuccess() == null) {
+            audit.setIsSuccess(false);
+        }
+
+        if (buffer.offer(audit)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                long deadline = System.nanoTime() + blockTimeoutNanos;
+                while (!buffer.offer(audit)) {
+                    if (System.nanoTime() >= deadline) {
+                        spill(List.of(audit));
+                        return;
+                    }
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!buffer.offer(audit)) {
+                    if (buffer.poll() != null) {
+                        dropped.increment();
+                    }
+                }
+            }
+            case SPILL -> spill(List.of(audit));
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                if (drainOnce() == 0) {
+                    LockSupport.parkNanos(idleWaitNanos);
+                }
+            } catch (Exception e) {
+                log.error("Security audit writer failed", e);
+            }
+        }
+    }
+
+    private int drainOnce() {
+        int total = 0;
+        List<SecurityAudit> batch = new ArrayList<>(batchSize);
+        SecurityAudit audit;
+        while ((audit = buffer.poll()) != null) {
+            batch.add(audit);
+            if (batch.size() == batchSize) {
+                write(batch);
+                total += batch.size();
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+            total += batch.size();
+        }
+        return total;
+    }
+
+    private void write(List<SecurityAudit> events) {
+        List<SecurityAudit> batch = new ArrayList<>(events.size());
+        List<SecurityAudit> incomplete = new ArrayList<>();
+        for (SecurityAudit audit : events) {
+            (isComplete(audit) ? batch : incomplete).add(audit);
+        }
+        if (!incomplete.isEmpty()) {
+            log.error("{} security audit events lack a required field, dead-lettering to {}",
+                    incomplete.size(), deadLetterFile);
+            append(deadLetterFile, incomplete, deadLettered);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            insert(batch);
+            written.increment(batch.size());
+        } catch (TransientDataAccessException | DataAccessResourceFailureException e) {
+            log.error("Failed to write {} security audit events, spilling to {}", batch.size(), spillFile, e);
+            spill(batch);
+        } catch (Exception e) {
+            log.warn("Failed to write {} security audit events as a batch, retrying one by one: {}",
+                    batch.size(), e.getMessage());
+            batch.forEach(this::writeOne);
+        }
+    }
+
+    private void writeOne(SecurityAudit audit) {
+        try {
+            insert(List.of(audit));
+            written.increment();
+        } catch (DataIntegrityViolationException e) {
+            log.error("Security audit event {} rejected, dead-lettering to {}: {}",
+                    audit.getId(), deadLetterFile, e.getMessage());
+            append(deadLetterFile, List.of(audit), deadLettered);
+        } catch (Exception e) {
+            log.error("Failed to write security audit event {}, spilling to {}", audit.getId(), spillFile, e);
+            spill(List.of(audit));
+        }
+    }
+
+    /**
+     * Whether every column security_audit declares NOT NULL has a value
+     */
+    private static boolean isComplete(SecurityAudit audit) {
+        return audit.getId() != null
+                && audit.getEventType() != null
+                && audit.getIpAddress() != null
+                && audit.getEventTimestamp() != null
+                && audit.getIsSuccess() != null;
+    }
+
+    private void insert(List<SecurityAudit> batch) {
+        jdbcTemplate.batchUpdate(INSERT_AUDIT, batch, batch.size(), (ps, audit) -> {
+            ps.setObject(1, audit.getId());
+            ps.setString(2, audit.getEventType().name());
+            ps.setString(3, audit.getUsername());
+            ps.setObject(4, audit.getSellerId());
+            ps.setString(5, audit.getIpAddress());
+            ps.setTimestamp(6, Timestamp.from(audit.getEventTimestamp()));
+            ps.setBoolean(7, audit.getIsSuccess());
+            ps.setString(8, audit.getDetails());
+            ps.setString(9, audit.getSeverity());
+        });
+    }
+
+    private void spill(List<SecurityAudit> events) {
+        append(spillFile, events, spilled);
+    }
+
+    private synchronized void append(Path file, List<SecurityAudit> events, Counter counter) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (SecurityAudit event : events) {
+                    writer.write(objectMapper.writeValueAsString(event));
+                    writer.newLine();
+                }
+            }
+            counter.increment(events.size());
+        } catch (IOException e) {
+            dropped.increment(events.size());
+            log.error("Failed to write {} security audit events to {}, dropping them", events.size(), file, e);
+        }
+    }
+
+    /**
+     * Loads spilled events into the database. The file is renamed first, under the append lock, so
+     * events failing again are spilled into a fresh file instead of duplicating it. A replay file
+     * left behind by a crash is replayed before the spill file is taken.
+     */
+    @Scheduled(fixedDelayString = "${security.audit.async.replay-interval-ms:60000}",
+            initialDelayString = "${security.audit.async.replay-interval-ms:60000}")
+    public void replaySpillFile() {
+        Path replaying = spillFile.resolveSibling(spillFile.getFileName() + ".replaying");
+        try {
+            synchronized (this) {
+                if (!Files.exists(replaying)) {
+                    if (!Files.exists(spillFile)) {
+                        return;
+                    }
+                    Files.move(spillFile, replaying);
+                }
+            }
+            List<SecurityAudit> batch = new ArrayList<>(batchSize);
+            for (String line : Files.readAllLines(replaying, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(objectMapper.readValue(line, SecurityAudit.class));
+                } catch (JsonProcessingException e) {
+                    dropped.increment();
+                    log.error("Skipping unreadable spilled security audit event: {}", e.getOriginalMessage());
+                    continue;
+                }
+                if (batch.size() == batchSize) {
+                    write(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+            Files.delete(replaying);
+            log.info("Replayed spilled security audit events from {}", spillFile);
+        } catch (IOException e) {
+            log.error("Failed to replay security audit spill file {}", spillFile, e);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.stack.sellstack.model.dto.response.SellerAnalyticsResponse;
 import com.stack.sellstack.model.dto.response.DailyAnalyticsResponse;
 import com.stack.sellstack.model.entity.Seller;
 import com.stack.sellstack.repository.SellerAnalyticsRepository;
+import com.stack.sellstack.service.product.ProductViewCounter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -27,6 +28,7 @@ public class SellerAnalyticsService {
 
     private final SellerAnalyticsRepository sellerAnalyticsRepository;
     private final SellerService sellerService;
+    private final ProductViewCounter productViewCounter;
 
     public SellerAnalyticsResponse getSellerAnalytics(UUID sellerId, LocalDate startDate, LocalDate endDate) {
         Seller seller = sellerService.findById(sellerId);
@@ -217,7 +219,7 @@ public class SellerAnalyticsService {
     }
 
     public void recordProductView(UUID productId, UUID sellerId) {
-        sellerAnalyticsRepository.recordProductView(productId, sellerId);
+        productViewCounter.record(productId);
     }
 
     public void recordSale(UUID sellerId, UUID productId, BigDecimal amount, UUID customerId) {
@@ -2,24 +2,31 @@ package com.stack.sellstack.service;
 
 import com.stack.sellstack.exception.BusinessException;
 import com.stack.sellstack.exception.ResourceNotFoundException;
+import com.stack.sellstack.exception.ValidationException;
 import com.stack.sellstack.model.dto.request.AuthRequest;
 import com.stack.sellstack.model.dto.request.SellerRequest;
+import com.stack.sellstack.model.dto.response.CursorPage;
 import com.stack.sellstack.model.dto.response.PublicSellerResponse;
 import com.stack.sellstack.model.entity.Seller;
 import com.stack.sellstack.model.enums.SellerStatus;
 import com.stack.sellstack.model.enums.VerificationStatus;
 import com.stack.sellstack.repository.SellerRepository;
+import com.stack.sellstack.util.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -27,6 +34,8 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class SellerService {
 
+    private static final String SELLER_SORT = "newest";
+
     private final SellerRepository sellerRepository;
     private final PasswordEncoder passwordEncoder;
     private final SessionService sessionService;
@@ -177,6 +186,45 @@ public class SellerService {
         return sellerRepository.findAllWithFilters(status, verificationStatus, null, pageable);
     }
 
+    /**
+     * Keyset page of sellers, newest first. The total is only counted when asked for.
+     */
+    public CursorPage<Seller> scrollSellers(SellerStatus status, VerificationStatus verificationStatus,
+                                            LocalDate createdAfter, String cursor, int size,
+                                            boolean includeTotal) {
+        PageCursor after = PageCursor.decode(cursor, SELLER_SORT);
+        Instant createdFrom = createdAfter != null ? createdAfter.atStartOfDay().toInstant(ZoneOffset.UTC) : null;
+        Instant afterCreatedAt = null;
+        if (after != null) {
+            try {
+                afterCreatedAt = Instant.parse(after.key());
+            } catch (RuntimeException e) {
+                throw new ValidationException("Invalid cursor");
+            }
+        }
+
+        // One extra row tells whether another page exists
+        List<Seller> rows = sellerRepository.findPageAfter(status, verificationStatus, createdFrom,
+                afterCreatedAt, after != null ? after.id() : null, PageRequest.of(0, size + 1));
+        boolean hasMore = rows.size() > size;
+        List<Seller> sellers = hasMore ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            Seller last = sellers.get(sellers.size() - 1);
+            nextCursor = new PageCursor(SELLER_SORT, last.getCreatedAt().toString(), last.getId()).encode();
+        }
+
+        return CursorPage.<Seller>builder()
+                .items(sellers)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .estimatedTotal(includeTotal
+                        ? sellerRepository.countWithFilters(status, verificationStatus, createdFrom)
+                        : null)
+                .build();
+    }
+
     public PublicSellerResponse getPublicProfile(UUID sellerId) {
         Seller seller = findById(sellerId);
 
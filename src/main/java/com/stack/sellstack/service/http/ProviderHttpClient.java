@@ -0,0 +1,144 @@
+package com.stack.sellstack.service.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Asynchronous HTTP calls to external providers (Meta Graph API, ...).
+ *
+ * Every provider gets a client derived from the shared OkHttpClient: same connection pool and
+ * HTTP/2 settings, its own dispatcher bounding the requests in flight per provider host. Calls
+ * are enqueued and complete a future; exchanges run on virtual threads, so waiting on a slow
+ * provider holds no platform thread. Latency is recorded per provider, endpoint and status as
+ * a histogram.
+ */
+@Component
+@Slf4j
+public class ProviderHttpClient {
+
+    public static final MediaType JSON = MediaType.get("application/json");
+
+    private final OkHttpClient baseClient;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, OkHttpClient> providerClients = new ConcurrentHashMap<>();
+
+    @Value("${http.client.provider.default.max-requests:64}")
+    private int defaultMaxRequests;
+
+    public ProviderHttpClient(OkHttpClient baseClient, MeterRegistry meterRegistry, Environment environment) {
+        this.baseClient = baseClient;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+    }
+
+    /**
+     * Posts a JSON body; headers are typically built once per provider and reused
+     */
+    public CompletableFuture<ProviderResponse> postJson(String provider, String endpoint, HttpUrl url,
+                                                        Headers headers, byte[] json) {
+        Request request = new Request.Builder()
+                .url(url)
+                .headers(headers)
+                .post(RequestBody.create(json, JSON))
+                .build();
+        return execute(provider, endpoint, request);
+    }
+
+    /**
+     * Sends the request without blocking the caller. The future fails only on I/O errors; HTTP
+     * error statuses complete it normally so callers can inspect the body.
+     */
+    public CompletableFuture<ProviderResponse> execute(String provider, String endpoint, Request request) {
+        CompletableFuture<ProviderResponse> future = new CompletableFuture<>();
+        long started = System.nanoTime();
+
+        clientFor(provider).newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    ResponseBody body = response.body();
+                    String content = body != null ? body.string() : "";
+                    record(provider, endpoint, String.valueOf(response.code()), started);
+                    future.complete(new ProviderResponse(response.code(), content));
+                } catch (IOException e) {
+                    record(provider, endpoint, "IO_ERROR", started);
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                record(provider, endpoint, "IO_ERROR", started);
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Executor the provider calls complete on; callers can use it for blocking steps of the same
+     * send, such as waiting for a rate limit permit
+     */
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private OkHttpClient clientFor(String provider) {
+        return providerClients.computeIfAbsent(provider, name -> {
+            int maxRequests = environment.getProperty("http.client.provider." + name + ".max-requests",
+                    Integer.class, defaultMaxRequests);
+            Dispatcher dispatcher = new Dispatcher(executor);
+            dispatcher.setMaxRequests(maxRequests);
+            dispatcher.setMaxRequestsPerHost(maxRequests);
+            return baseClient.newBuilder().dispatcher(dispatcher).build();
+        });
+    }
+
+    private void record(String provider, String endpoint, String status, long startedNanos) {
+        Timer.builder("http.client.provider.requests")
+                .tag("provider", provider)
+                .tag("endpoint", endpoint)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(Duration.ofNanos(System.nanoTime() - startedNanos));
+    }
+
+    public record ProviderResponse(int code, String body) {
+
+        public boolean isSuccessful() {
+            return code >= 200 && code < 300;
+        }
+    }
+}
@@ -28,32 +28,18 @@ public class DeliveryMonitoringService {
     private final AlertService alertService;
 
     /**
-     * Daily aggregation job
+     * Daily rate alerts on yesterday's counters. The counters themselves are maintained as events
+     * happen by DeliveryCounterStore, so nothing is re-aggregated here.
      */
     @Scheduled(cron = "0 0 2 * * ?") // Run at 2 AM daily
-    @Transactional
-    public void aggregateDailyAnalytics() {
+    public void checkDailyDeliveryRates() {
         LocalDate yesterday = LocalDate.now().minusDays(1);
 
-        log.info("Aggregating delivery analytics for {}", yesterday);
-
         try {
-            // Aggregate email statistics
-            Map<String, Object> emailStats = emailQueueRepository.getDailyStatistics(yesterday);
-
-            // Aggregate WhatsApp statistics
-            Map<String, Object> whatsappStats = whatsAppQueueRepository.getDailyStatistics(yesterday);
-
-            // Save aggregated data
-            saveAggregatedData(yesterday, emailStats, whatsappStats);
-
-            // Check for alerts
-            checkForAlerts(emailStats, whatsappStats);
-
+            checkForAlerts(getDeliveryAnalytics(yesterday, yesterday, "EMAIL"),
+                    getDeliveryAnalytics(yesterday, yesterday, "WHATSAPP"));
         } catch (Exception e) {
-            log.error("Failed to aggregate daily analytics for {}", yesterday, e);
-            alertService.sendAlert("ANALYTICS_AGGREGATION_FAILED",
-                    "Failed to aggregate daily analytics: " + e.getMessage());
+            log.error("Failed to check delivery rates for {}", yesterday, e);
         }
     }
 
@@ -84,40 +70,6 @@ public class DeliveryMonitoringService {
         }
     }
 
-    private void saveAggregatedData(LocalDate date,
-                                    Map<String, Object> emailStats,
-                                    Map<String, Object> whatsappStats) {
-
-        // Save email analytics
-        DeliveryAnalytics emailAnalytics = DeliveryAnalytics.builder()
-                .date(date)
-                .channel("EMAIL")
-                .attempted(getLongValue(emailStats, "attempted"))
-                .sent(getLongValue(emailStats, "sent"))
-                .delivered(getLongValue(emailStats, "delivered"))
-                .failed(getLongValue(emailStats, "failed"))
-                .bounced(getLongValue(emailStats, "bounced"))
-                .opened(getLongValue(emailStats, "opened"))
-                .clicked(getLongValue(emailStats, "clicked"))
-                .build();
-
-        analyticsRepository.save(emailAnalytics);
-
-        // Save WhatsApp analytics
-        DeliveryAnalytics whatsappAnalytics = DeliveryAnalytics.builder()
-                .date(date)
-                .channel("WHATSAPP")
-                .attempted(getLongValue(whatsappStats, "attempted"))
-                .sent(getLongValue(whatsappStats, "sent"))
-                .delivered(getLongValue(whatsappStats, "delivered"))
-                .failed(getLongValue(whatsappStats, "failed"))
-                .build();
-
-        analyticsRepository.save(whatsappAnalytics);
-
-        log.info("Daily analytics saved for {}", date);
-    }
-
     private Long getLongValue(Map<String, Object> stats, String key) {
         if (stats == null || !stats.containsKey(key)) {
             return 0L;
@@ -0,0 +1,415 @@
+package com.stack.sellstack.service.notification;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stack.sellstack.exception.NotificationException;
+import com.stack.sellstack.exception.ResourceNotFoundException;
+import com.stack.sellstack.exception.ValidationException;
+import com.stack.sellstack.model.dto.request.BulkNotificationRequest;
+import com.stack.sellstack.model.dto.request.BulkNotificationRequest.Channel;
+import com.stack.sellstack.model.dto.request.BulkNotificationRequest.Recipient;
+import com.stack.sellstack.model.dto.response.BulkNotificationJobResponse;
+import com.stack.sellstack.model.dto.response.ProcessedTemplate;
+import com.stack.sellstack.model.entity.BulkNotificationJob;
+import com.stack.sellstack.model.entity.WhatsAppTemplate;
+import com.stack.sellstack.repository.BulkNotificationJobRepository;
+import com.stack.sellstack.repository.WhatsAppTemplateRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Fans one template out to many recipients as a background job.
+ *
+ * Recipients come from the request or, for a product, from its buyers (read in keyset pages).
+ * Email templates are prepared once per job: parts that do not depend on the recipient are
+ * rendered once and the rest get each recipient's variables bound over the shared ones. Messages
+ * are written to email_queue / whatsapp_queue with JDBC batch inserts, one transaction per chunk
+ * together with the job's progress counters, and delivered by the outbound dispatcher.
+ *
+ * The request lives only in memory, so a job cannot be resumed on another node. The node running
+ * a job refreshes its heartbeat; unfinished jobs whose heartbeat went stale (the node was
+ * restarted or died) are marked FAILED by a sweep that also runs at startup.
+ */
+@Service
+@Slf4j
+public class BulkNotificationService {
+
+    public static final String RECIPIENT_NAME = "recipientName";
+    public static final String RECIPIENT_ADDRESS = "recipientAddress";
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
+    private static final Pattern PHONE_PATTERN = Pattern.compile("^\\+[1-9]\\d{1,14}$");
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private static final String INSERT_EMAIL =
+            "INSERT INTO email_queue (id, seller_id, template_key, to_email, to_name, subject, html_content, " +
+                    "plain_text_content, priority, send_after, max_retries, retry_count, status, open_count, " +
+                    "click_count, created_at, updated_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 3, 0, 'PENDING', 0, 0, now(), now())";
+
+    private static final String INSERT_WHATSAPP =
+            "INSERT INTO whatsapp_queue (id, seller_id, template_key, whatsapp_template_id, to_phone, to_name, " +
+                    "variables, priority, send_after, max_retries, retry_count, status, created_at, updated_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, CAST(? AS jsonb), ?, ?, 3, 0, 'PENDING', now(), now())";
+
+    private static final String PRODUCT_BUYERS =
+            "SELECT DISTINCT s.id, s.email, s.phone, s.display_name FROM payments p " +
+                    "JOIN sellers s ON s.id = p.buyer_id " +
+                    "WHERE p.product_id = ? AND p.status IN ('CAPTURED', 'COMPLETED') AND s.id > ? " +
+                    "ORDER BY s.id LIMIT ?";
+
+    private static final String COUNT_PRODUCT_BUYERS =
+            "SELECT count(DISTINCT p.buyer_id) FROM payments p " +
+                    "WHERE p.product_id = ? AND p.status IN ('CAPTURED', 'COMPLETED')";
+
+    private final BulkNotificationJobRepository jobRepository;
+    private final WhatsAppTemplateRepository whatsAppTemplateRepository;
+    private final EmailTemplateService emailTemplateService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final DeliveryCounterStore deliveryCounters;
+    private final int batchSize;
+    private final int maxRecipients;
+    private final Duration abandonedAfter;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore runningJobs;
+    private final Set<UUID> activeJobs = ConcurrentHashMap.newKeySet();
+
+    public BulkNotificationService(BulkNotificationJobRepository jobRepository,
+                                   WhatsAppTemplateRepository whatsAppTemplateRepository,
+                                   EmailTemplateService emailTemplateService,
+                                   JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   ObjectMapper objectMapper,
+                                   DeliveryCounterStore deliveryCounters,
+                                   @Value("${notification.bulk.batch-size:500}") int batchSize,
+                                   @Value("${notification.bulk.max-recipients:10000}") int maxRecipients,
+                                   @Value("${notification.bulk.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                                   @Value("${notification.bulk.abandoned-after-minutes:10}") long abandonedAfterMinutes) {
+        this.jobRepository = jobRepository;
+        this.whatsAppTemplateRepository = whatsAppTemplateRepository;
+        this.emailTemplateService = emailTemplateService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.deliveryCounters = deliveryCounters;
+        this.batchSize = batchSize;
+        this.maxRecipients = maxRecipients;
+        this.runningJobs = new Semaphore(maxConcurrentJobs);
+        this.abandonedAfter = Duration.ofMinutes(abandonedAfterMinutes);
+    }
+
+    /**
+     * Validate the request, record the job and start it in the background
+     */
+    public BulkNotificationJobResponse submit(UUID sellerId, BulkNotificationRequest request) {
+        boolean hasRecipients = request.getRecipients() != null && !request.getRecipients().isEmpty();
+        if (hasRecipients == (request.getProductId() != null)) {
+            throw new ValidationException("Provide either recipients or productId");
+        }
+        if (hasRecipients && request.getRecipients().size() > maxRecipients) {
+            throw new ValidationException("At most " + maxRecipients + " recipients per request");
+        }
+
+        int total;
+        if (hasRecipients) {
+            total = request.getRecipients().size();
+        } else {
+            Integer owned = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM products WHERE id = ? AND seller_id = ?",
+                    Integer.class, request.getProductId(), sellerId);
+            if (owned == null || owned == 0) {
+                throw new ResourceNotFoundException("Product not found");
+            }
+            Integer buyers = jdbcTemplate.queryForObject(COUNT_PRODUCT_BUYERS, Integer.class, request.getProductId());
+            total = buyers != null ? buyers : 0;
+        }
+
+        // Fail fast on an unknown template instead of inside the job
+        if (request.getChannel() == Channel.EMAIL) {
+            emailTemplateService.getTemplateByKey(request.getTemplateKey());
+        } else {
+            approvedWhatsAppTemplate(request.getTemplateKey());
+        }
+
+        BulkNotificationJob job = jobRepository.save(BulkNotificationJob.builder()
+                .sellerId(sellerId)
+                .channel(request.getChannel().name())
+                .templateKey(request.getTemplateKey())
+                .totalRecipients(total)
+                .heartbeatAt(Instant.now())
+                .build());
+
+        UUID jobId = job.getId();
+        activeJobs.add(jobId);
+        executor.execute(() -> run(jobId, sellerId, request));
+
+        log.info("Bulk {} notification job {} submitted for {} recipients", request.getChannel(), jobId, total);
+        return mapToResponse(job);
+    }
+
+    public BulkNotificationJobResponse getJob(UUID sellerId, UUID jobId) {
+        return jobRepository.findByIdAndSellerId(jobId, sellerId)
+                .map(this::mapToResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("Bulk notification job not found"));
+    }
+
+    /**
+     * Refreshes the heartbeat of the jobs this node is waiting to run or running
+     */
+    @Scheduled(fixedDelayString = "${notification.bulk.heartbeat-interval-ms:60000}")
+    public void heartbeat() {
+        if (activeJobs.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jobRepository.heartbeat(List.copyOf(activeJobs), Instant.now()));
+        } catch (Exception e) {
+            log.warn("Failed to refresh bulk notification job heartbeats: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Marks jobs left unfinished by a node that went away as FAILED; first run at startup
+     */
+    @Scheduled(fixedDelayString = "${notification.bulk.abandoned-sweep-interval-ms:300000}")
+    public void failAbandonedJobs() {
+        try {
+            Instant now = Instant.now();
+            Integer failed = transactionTemplate.execute(status -> jobRepository.failAbandoned(
+                    now.minus(abandonedAfter), "Interrupted by a restart", now));
+            if (failed != null && failed > 0) {
+                log.warn("Marked {} abandoned bulk notification jobs as FAILED", failed);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to sweep abandoned bulk notification jobs: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void run(UUID jobId, UUID sellerId, BulkNotificationRequest request) {
+        try {
+            runningJobs.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(jobId, "FAILED", "Interrupted before start");
+            activeJobs.remove(jobId);
+            return;
+        }
+
+        try {
+            markRunning(jobId);
+            ChunkWriter writer = request.getChannel() == Channel.EMAIL
+                    ? emailWriter(sellerId, request)
+                    : whatsAppWriter(sellerId, request);
+
+            if (request.getRecipients() != null && !request.getRecipients().isEmpty()) {
+                List<Recipient> recipients = request.getRecipients();
+                for (int i = 0; i < recipients.size(); i += batchSize) {
+                    writeChunk(jobId, writer, recipients.subList(i, Math.min(i + batchSize, recipients.size())));
+                }
+            } else {
+                UUID after = FIRST_ID;
+                List<Recipient> page;
+                do {
+                    List<UUID> ids = new ArrayList<>(batchSize);
+                    page = jdbcTemplate.query(PRODUCT_BUYERS, (rs, rowNum) -> {
+                        ids.add(rs.getObject("id", UUID.class));
+                        String address = request.getChannel() == Channel.EMAIL
+                                ? rs.getString("email") : rs.getString("phone");
+                        return Recipient.builder().to(address).name(rs.getString("display_name")).build();
+                    }, request.getProductId(), after, batchSize);
+                    if (!page.isEmpty()) {
+                        writeChunk(jobId, writer, page);
+                        after = ids.get(ids.size() - 1);
+                    }
+                } while (page.size() == batchSize);
+            }
+
+            finish(jobId, "COMPLETED", null);
+        } catch (Exception e) {
+            log.error("Bulk notification job {} failed", jobId, e);
+            finish(jobId, "FAILED", e.getMessage());
+        } finally {
+            activeJobs.remove(jobId);
+            runningJobs.release();
+        }
+    }
+
+    private void writeChunk(UUID jobId, ChunkWriter writer, List<Recipient> recipients) {
+        List<Object[]> rows = new ArrayList<>(recipients.size());
+        int skipped = 0;
+        for (Recipient recipient : recipients) {
+            Object[] row = writer.row(recipient);
+            if (row != null) {
+                rows.add(row);
+            } else {
+                skipped++;
+            }
+        }
+
+        int skippedInChunk = skipped;
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(writer.sql(), rows);
+                deliveryCounters.record(writer.channel(), writer.sellerId(), DeliveryCounterStore.Metric.ATTEMPTED,
+                        rows.size());
+            }
+            jobRepository.addProgress(jobId, rows.size(), skippedInChunk);
+        });
+    }
+
+    private ChunkWriter emailWriter(UUID sellerId, BulkNotificationRequest request) {
+        Set<String> recipientKeys = new HashSet<>(Set.of(RECIPIENT_NAME, RECIPIENT_ADDRESS));
+        if (request.getRecipients() != null) {
+            for (Recipient recipient : request.getRecipients()) {
+                if (recipient.getVariables() != null) {
+                    recipientKeys.addAll(recipient.getVariables().keySet());
+                }
+            }
+        }
+
+        EmailTemplateService.BulkRenderer renderer = emailTemplateService.prepareBulk(
+                request.getTemplateKey(), request.getVariables(), recipientKeys);
+        Common common = common(sellerId, request);
+
+        return new ChunkWriter(INSERT_EMAIL, DeliveryCounterStore.EMAIL, common.sellerId(), recipient -> {
+            if (recipient.getTo() == null || !EMAIL_PATTERN.matcher(recipient.getTo()).matches()) {
+                return null;
+            }
+            ProcessedTemplate processed = renderer.render(recipientVariables(recipient));
+            return new Object[]{UUID.randomUUID(), common.sellerId(), request.getTemplateKey(), recipient.getTo(),
+                    recipient.getName(), processed.getSubject(), processed.getHtmlContent(),
+                    processed.getPlainTextContent(), common.priority(), common.sendAfter()};
+        });
+    }
+
+    private ChunkWriter whatsAppWriter(UUID sellerId, BulkNotificationRequest request) {
+        WhatsAppTemplate template = approvedWhatsAppTemplate(request.getTemplateKey());
+        Map<String, Object> shared = request.getVariables() != null ? request.getVariables() : Map.of();
+        Common common = common(sellerId, request);
+
+        return new ChunkWriter(INSERT_WHATSAPP, DeliveryCounterStore.WHATSAPP, common.sellerId(), recipient -> {
+            if (recipient.getTo() == null || !PHONE_PATTERN.matcher(recipient.getTo()).matches()) {
+                return null;
+            }
+            // Meta renders WhatsApp templates, so the merged variables travel with each row
+            Map<String, Object> variables = new HashMap<>(shared);
+            variables.putAll(recipientVariables(recipient));
+            return new Object[]{UUID.randomUUID(), common.sellerId(), request.getTemplateKey(),
+                    template.getWhatsappTemplateId(), recipient.getTo(), recipient.getName(),
+                    toJson(variables), common.priority(), common.sendAfter()};
+        });
+    }
+
+    private Map<String, Object> recipientVariables(Recipient recipient) {
+        Map<String, Object> variables = new HashMap<>();
+        if (recipient.getVariables() != null) {
+            variables.putAll(recipient.getVariables());
+        }
+        variables.putIfAbsent(RECIPIENT_ADDRESS, recipient.getTo());
+        if (recipient.getName() != null) {
+            variables.putIfAbsent(RECIPIENT_NAME, recipient.getName());
+        }
+        return variables;
+    }
+
+    private WhatsAppTemplate approvedWhatsAppTemplate(String templateKey) {
+        return whatsAppTemplateRepository.findByTemplateKeyAndStatus(templateKey, "APPROVED")
+                .orElseThrow(() -> new ValidationException("WhatsApp template not found or not approved"));
+    }
+
+    private Common common(UUID sellerId, BulkNotificationRequest request) {
+        return new Common(
+                sellerId.toString(),
+                request.getPriority() != null ? request.getPriority() : 5,
+                new Timestamp(request.getSendAfter() != null ? request.getSendAfter().getTime() : System.currentTimeMillis()));
+    }
+
+    private String toJson(Map<String, Object> variables) {
+        try {
+            return objectMapper.writeValueAsString(variables);
+        } catch (JsonProcessingException e) {
+            throw new NotificationException("Invalid template variables: " + e.getMessage());
+        }
+    }
+
+    private void markRunning(UUID jobId) {
+        jobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus("RUNNING");
+            job.setStartedAt(Instant.now());
+            jobRepository.save(job);
+        });
+    }
+
+    private void finish(UUID jobId, String status, String errorMessage) {
+        try {
+            jobRepository.findById(jobId).ifPresent(job -> {
+                job.setStatus(status);
+                job.setErrorMessage(errorMessage);
+                job.setCompletedAt(Instant.now());
+                jobRepository.save(job);
+            });
+        } catch (Exception e) {
+            log.error("Failed to record the end of bulk notification job {}", jobId, e);
+        }
+    }
+
+    private BulkNotificationJobResponse mapToResponse(BulkNotificationJob job) {
+        return BulkNotificationJobResponse.builder()
+                .jobId(job.getId())
+                .channel(job.getChannel())
+                .templateKey(job.getTemplateKey())
+                .status(job.getStatus())
+                .totalRecipients(job.getTotalRecipients())
+                .queuedCount(job.getQueuedCount())
+                .skippedCount(job.getSkippedCount())
+                .errorMessage(job.getErrorMessage())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
+
+    /**
+     * Insert statement of a channel and how a recipient becomes its parameters (null = skip)
+     */
+    private record ChunkWriter(String sql, String channel, String sellerId,
+                               Function<Recipient, Object[]> rowMapper) {
+        Object[] row(Recipient recipient) {
+            return rowMapper.apply(recipient);
+        }
+    }
+
+    private record Common(String sellerId, int priority, Timestamp sendAfter) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.stack.sellstack.service.notification;
 
 import com.stack.sellstack.model.dto.response.DailyAnalyticsResponse;
+import com.stack.sellstack.repository.DeliveryAnalyticsRepository;
 import com.stack.sellstack.repository.EmailQueueRepository;
 import com.stack.sellstack.repository.WhatsAppQueueRepository;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +12,9 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -20,145 +24,42 @@ public class DeliveryAnalyticsService {
 
     private final EmailQueueRepository emailQueueRepository;
     private final WhatsAppQueueRepository whatsAppQueueRepository;
+    private final DeliveryAnalyticsRepository deliveryAnalyticsRepository;
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+    /**
+     * Delivery counts of one day, read from the rows maintained by {@link DeliveryCounterStore}
+     */
     public DailyAnalyticsResponse getDailyAnalytics(String date, String channel, String sellerId) {
         LocalDate analyticsDate = LocalDate.parse(date, dateFormatter);
-        LocalDate startOfDay = analyticsDate.atStartOfDay().toLocalDate();
-        LocalDate endOfDay = analyticsDate.plusDays(1).atStartOfDay().toLocalDate();
+        Map<String, ChannelTotals> totals = totals(analyticsDate, analyticsDate, sellerId);
 
         DailyAnalyticsResponse.DailyAnalyticsResponseBuilder builder = DailyAnalyticsResponse.builder()
                 .date(analyticsDate)
                 .channel(channel);
 
         if (channel == null || channel.equals("EMAIL") || channel.equals("ALL")) {
-            // UPDATED METHOD NAMES
-            long totalEmails = sellerId != null ?
-                    emailQueueRepository.countEmailsBySellerIdAndCreatedAtBetween(sellerId, startOfDay, endOfDay) :
-                    emailQueueRepository.countEmailsByCreatedAtBetween(startOfDay, endOfDay);
-
-            long sentEmails = sellerId != null ?
-                    emailQueueRepository.countEmailsBySellerIdAndStatusAndCreatedAtBetween(sellerId, "SENT", startOfDay, endOfDay) :
-                    emailQueueRepository.countEmailsByStatusAndCreatedAtBetween("SENT", startOfDay, endOfDay);
-
-            long deliveredEmails = sellerId != null ?
-                    emailQueueRepository.countEmailsBySellerIdAndStatusAndCreatedAtBetween(sellerId, "DELIVERED", startOfDay, endOfDay) :
-                    emailQueueRepository.countEmailsByStatusAndCreatedAtBetween("DELIVERED", startOfDay, endOfDay);
-
-            long failedEmails = sellerId != null ?
-                    emailQueueRepository.countEmailsBySellerIdAndStatusAndCreatedAtBetween(sellerId, "FAILED", startOfDay, endOfDay) :
-                    emailQueueRepository.countEmailsByStatusAndCreatedAtBetween("FAILED", startOfDay, endOfDay);
-
-            long openedEmails = sellerId != null ?
-                    emailQueueRepository.countEmailsBySellerIdAndOpenedAtBetween(sellerId, startOfDay, endOfDay) :
-                    emailQueueRepository.countEmailsByOpenedAtBetween(startOfDay, endOfDay);
-
-            long clickedEmails = sellerId != null ?
-                    emailQueueRepository.countEmailsBySellerIdAndClickedAtBetween(sellerId, startOfDay, endOfDay) :
-                    emailQueueRepository.countEmailsByClickedAtBetween(startOfDay, endOfDay);
-
-            builder.emailStats(DailyAnalyticsResponse.EmailStats.builder()
-                    .total(totalEmails)
-                    .sent(sentEmails)
-                    .delivered(deliveredEmails)
-                    .failed(failedEmails)
-                    .opened(openedEmails)
-                    .clicked(clickedEmails)
-                    .deliveryRate(totalEmails > 0 ? (deliveredEmails * 100.0 / totalEmails) : 0.0)
-                    .openRate(deliveredEmails > 0 ? (openedEmails * 100.0 / deliveredEmails) : 0.0)
-                    .clickRate(openedEmails > 0 ? (clickedEmails * 100.0 / openedEmails) : 0.0)
-                    .build());
+            builder.emailStats(emailStats(totals.getOrDefault(DeliveryCounterStore.EMAIL, ChannelTotals.EMPTY)));
         }
-
         if (channel == null || channel.equals("WHATSAPP") || channel.equals("ALL")) {
-            // WhatsApp methods might also need updating if you changed them
-            long totalWhatsApp = sellerId != null ?
-                    whatsAppQueueRepository.countBySellerIdAndCreatedAtBetween(sellerId, startOfDay, endOfDay) :
-                    whatsAppQueueRepository.countByCreatedAtBetween(startOfDay, endOfDay);
-
-            long sentWhatsApp = sellerId != null ?
-                    whatsAppQueueRepository.countBySellerIdAndStatusAndCreatedAtBetween(sellerId, "SENT", startOfDay, endOfDay) :
-                    whatsAppQueueRepository.countByStatusAndCreatedAtBetween("SENT", startOfDay, endOfDay);
-
-            long deliveredWhatsApp = sellerId != null ?
-                    whatsAppQueueRepository.countBySellerIdAndStatusAndCreatedAtBetween(sellerId, "DELIVERED", startOfDay, endOfDay) :
-                    whatsAppQueueRepository.countByStatusAndCreatedAtBetween("DELIVERED", startOfDay, endOfDay);
-
-            long failedWhatsApp = sellerId != null ?
-                    whatsAppQueueRepository.countBySellerIdAndStatusAndCreatedAtBetween(sellerId, "FAILED", startOfDay, endOfDay) :
-                    whatsAppQueueRepository.countByStatusAndCreatedAtBetween("FAILED", startOfDay, endOfDay);
-
-            long readWhatsApp = sellerId != null ?
-                    whatsAppQueueRepository.countBySellerIdAndReadAtBetween(sellerId, startOfDay, endOfDay) :
-                    whatsAppQueueRepository.countByReadAtBetween(startOfDay, endOfDay);
-
-            builder.whatsappStats(DailyAnalyticsResponse.WhatsAppStats.builder()
-                    .total(totalWhatsApp)
-                    .sent(sentWhatsApp)
-                    .delivered(deliveredWhatsApp)
-                    .failed(failedWhatsApp)
-                    .read(readWhatsApp)
-                    .deliveryRate(totalWhatsApp > 0 ? (deliveredWhatsApp * 100.0 / totalWhatsApp) : 0.0)
-                    .readRate(deliveredWhatsApp > 0 ? (readWhatsApp * 100.0 / deliveredWhatsApp) : 0.0)
-                    .build());
+            builder.whatsappStats(whatsAppStats(totals.getOrDefault(DeliveryCounterStore.WHATSAPP, ChannelTotals.EMPTY)));
         }
 
         return builder.build();
     }
 
+    /**
+     * Delivery counts of both channels from startDate to endDate, inclusive
+     */
     public DailyAnalyticsResponse getAnalyticsSummary(LocalDate startDate, LocalDate endDate, String sellerId) {
-        DailyAnalyticsResponse.DailyAnalyticsResponseBuilder builder = DailyAnalyticsResponse.builder()
-                .date(startDate)
-                .channel("ALL");
-
-        // Email stats for the period - UPDATED METHOD NAMES
-        long totalEmails = sellerId != null ?
-                emailQueueRepository.countEmailsBySellerIdAndCreatedAtBetween(sellerId, startDate, endDate) :
-                emailQueueRepository.countEmailsByCreatedAtBetween(startDate, endDate);
-
-        long deliveredEmails = sellerId != null ?
-                emailQueueRepository.countEmailsBySellerIdAndStatusAndCreatedAtBetween(sellerId, "DELIVERED", startDate, endDate) :
-                emailQueueRepository.countEmailsByStatusAndCreatedAtBetween("DELIVERED", startDate, endDate);
-
-        long openedEmails = sellerId != null ?
-                emailQueueRepository.countEmailsBySellerIdAndOpenedAtBetween(sellerId, startDate, endDate) :
-                emailQueueRepository.countEmailsByOpenedAtBetween(startDate, endDate);
-
-        long clickedEmails = sellerId != null ?
-                emailQueueRepository.countEmailsBySellerIdAndClickedAtBetween(sellerId, startDate, endDate) :
-                emailQueueRepository.countEmailsByClickedAtBetween(startDate, endDate);
-
-        // WhatsApp stats for the period
-        long totalWhatsApp = sellerId != null ?
-                whatsAppQueueRepository.countBySellerIdAndCreatedAtBetween(sellerId, startDate, endDate) :
-                whatsAppQueueRepository.countByCreatedAtBetween(startDate, endDate);
-
-        long deliveredWhatsApp = sellerId != null ?
-                whatsAppQueueRepository.countBySellerIdAndStatusAndCreatedAtBetween(sellerId, "DELIVERED", startDate, endDate) :
-                whatsAppQueueRepository.countByStatusAndCreatedAtBetween("DELIVERED", startDate, endDate);
-
-        long readWhatsApp = sellerId != null ?
-                whatsAppQueueRepository.countBySellerIdAndReadAtBetween(sellerId, startDate, endDate) :
-                whatsAppQueueRepository.countByReadAtBetween(startDate, endDate);
-
-        builder.emailStats(DailyAnalyticsResponse.EmailStats.builder()
-                        .total(totalEmails)
-                        .delivered(deliveredEmails)
-                        .opened(openedEmails)
-                        .clicked(clickedEmails)
-                        .deliveryRate(totalEmails > 0 ? (deliveredEmails * 100.0 / totalEmails) : 0.0)
-                        .openRate(deliveredEmails > 0 ? (openedEmails * 100.0 / deliveredEmails) : 0.0)
-                        .clickRate(openedEmails > 0 ? (clickedEmails * 100.0 / openedEmails) : 0.0)
-                        .build())
-                .whatsappStats(DailyAnalyticsResponse.WhatsAppStats.builder()
-                        .total(totalWhatsApp)
-                        .delivered(deliveredWhatsApp)
-                        .read(readWhatsApp)
-                        .deliveryRate(totalWhatsApp > 0 ? (deliveredWhatsApp * 100.0 / totalWhatsApp) : 0.0)
-                        .readRate(deliveredWhatsApp > 0 ? (readWhatsApp * 100.0 / deliveredWhatsApp) : 0.0)
-                        .build());
+        Map<String, ChannelTotals> totals = totals(startDate, endDate, sellerId);
 
-        return builder.build();
+        return DailyAnalyticsResponse.builder()
+                .date(startDate)
+                .channel("ALL")
+                .emailStats(emailStats(totals.getOrDefault(DeliveryCounterStore.EMAIL, ChannelTotals.EMPTY)))
+                .whatsappStats(whatsAppStats(totals.getOrDefault(DeliveryCounterStore.WHATSAPP, ChannelTotals.EMPTY)))
+                .build();
     }
 
     public double getAverageDeliveryTime(String channel, String sellerId) {
@@ -175,4 +76,57 @@ public class DeliveryAnalyticsService {
         }
     }
 
-}
\ No newline at end of file
+    private Map<String, ChannelTotals> totals(LocalDate startDate, LocalDate endDate, String sellerId) {
+        List<Object[]> rows = sellerId != null
+                ? deliveryAnalyticsRepository.sumByChannelForSeller(sellerId, startDate, endDate)
+                : deliveryAnalyticsRepository.sumByChannel(startDate, endDate);
+
+        Map<String, ChannelTotals> totals = new HashMap<>();
+        for (Object[] row : rows) {
+            totals.put((String) row[0], new ChannelTotals(count(row[1]), count(row[2]), count(row[3]),
+                    count(row[4]), count(row[5]), count(row[6]), count(row[7])));
+        }
+        return totals;
+    }
+
+    private DailyAnalyticsResponse.EmailStats emailStats(ChannelTotals totals) {
+        return DailyAnalyticsResponse.EmailStats.builder()
+                .total(totals.attempted())
+                .sent(totals.sent())
+                .delivered(totals.delivered())
+                .failed(totals.failed())
+                .opened(totals.opened())
+                .clicked(totals.clicked())
+                .deliveryRate(rate(totals.delivered(), totals.attempted()))
+                .openRate(rate(totals.opened(), totals.delivered()))
+                .clickRate(rate(totals.clicked(), totals.opened()))
+                .bounceRate(rate(totals.bounced(), totals.sent()))
+                .build();
+    }
+
+    // WhatsApp reads are stored in the opened column
+    private DailyAnalyticsResponse.WhatsAppStats whatsAppStats(ChannelTotals totals) {
+        return DailyAnalyticsResponse.WhatsAppStats.builder()
+                .total(totals.attempted())
+                .sent(totals.sent())
+                .delivered(totals.delivered())
+                .failed(totals.failed())
+                .read(totals.opened())
+                .deliveryRate(rate(totals.delivered(), totals.attempted()))
+                .readRate(rate(totals.opened(), totals.delivered()))
+                .build();
+    }
+
+    private static double rate(long part, long whole) {
+        return whole > 0 ? part * 100.0 / whole : 0.0;
+    }
+
+    private static long count(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private record ChannelTotals(long attempted, long sent, long delivered, long failed,
+                                 long bounced, long opened, long clicked) {
+        static final ChannelTotals EMPTY = new ChannelTotals(0, 0, 0, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,210 @@
+package com.stack.sellstack.service.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streaming delivery counters behind the delivery_analytics table.
+ *
+ * Queue inserts, dispatch outcomes and provider webhooks count events in memory per seller,
+ * channel and day. A scheduled flush drains the deltas and adds them to the matching
+ * delivery_analytics rows with multi-row upserts, so the analytics endpoints read a handful of
+ * pre-aggregated rows instead of counting the queue tables. Events recorded inside a transaction
+ * are counted only once it commits. A failed flush puts its deltas back; a crash loses at most
+ * one flush interval.
+ */
+@Component
+@Slf4j
+public class DeliveryCounterStore {
+
+    public static final String EMAIL = "EMAIL";
+    public static final String WHATSAPP = "WHATSAPP";
+
+    public enum Metric { ATTEMPTED, SENT, DELIVERED, FAILED, BOUNCED, OPENED, CLICKED }
+
+    private static final Metric[] METRICS = Metric.values();
+
+    // Conflicts on uq_delivery_analytics_bucket; streamed rows have no template key
+    private static final String UPSERT_COUNTERS =
+            "INSERT INTO delivery_analytics (id, date, channel, seller_id, attempted, sent, delivered, failed, " +
+                    "bounced, opened, clicked, created_at, updated_at) " +
+                    "SELECT gen_random_uuid(), v.date, v.channel, v.seller_id, v.attempted, v.sent, v.delivered, " +
+                    "v.failed, v.bounced, v.opened, v.clicked, now(), now() " +
+                    "FROM (VALUES %s) AS v(date, channel, seller_id, attempted, sent, delivered, failed, bounced, " +
+                    "opened, clicked) " +
+                    "ON CONFLICT (date, channel, (COALESCE(seller_id, '')), (COALESCE(template_key, ''))) " +
+                    "DO UPDATE SET attempted = COALESCE(delivery_analytics.attempted, 0) + EXCLUDED.attempted, " +
+                    "sent = COALESCE(delivery_analytics.sent, 0) + EXCLUDED.sent, " +
+                    "delivered = COALESCE(delivery_analytics.delivered, 0) + EXCLUDED.delivered, " +
+                    "failed = COALESCE(delivery_analytics.failed, 0) + EXCLUDED.failed, " +
+                    "bounced = COALESCE(delivery_analytics.bounced, 0) + EXCLUDED.bounced, " +
+                    "opened = COALESCE(delivery_analytics.opened, 0) + EXCLUDED.opened, " +
+                    "clicked = COALESCE(delivery_analytics.clicked, 0) + EXCLUDED.clicked, " +
+                    "updated_at = now()";
+    private static final String COUNTERS_ROW =
+            "(CAST(? AS date), CAST(? AS varchar), CAST(? AS varchar), CAST(? AS bigint), CAST(? AS bigint), " +
+                    "CAST(? AS bigint), CAST(? AS bigint), CAST(? AS bigint), CAST(? AS bigint), CAST(? AS bigint))";
+
+    // Sorted so concurrent flushes from several nodes lock rows in the same order
+    private static final Comparator<Bucket> BUCKET_ORDER = Comparator.comparing(Bucket::day)
+            .thenComparing(Bucket::channel)
+            .thenComparing(Bucket::sellerId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final Map<Bucket, LongAdder[]> pending = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final Counter flushedEvents;
+    private final Counter failedFlushes;
+
+    public DeliveryCounterStore(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${notification.analytics.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+
+        this.flushedEvents = Counter.builder("notification.analytics.flushed")
+                .description("Delivery events written to delivery_analytics")
+                .register(meterRegistry);
+        this.failedFlushes = Counter.builder("notification.analytics.flush.failures")
+                .register(meterRegistry);
+    }
+
+    public void record(String channel, String sellerId, Metric metric) {
+        record(channel, sellerId, metric, 1);
+    }
+
+    /**
+     * Counts events for today's bucket, after commit when called inside a transaction
+     */
+    public void record(String channel, String sellerId, Metric metric, long count) {
+        if (count <= 0) {
+            return;
+        }
+        Bucket bucket = new Bucket(LocalDate.now(), channel.toUpperCase(Locale.ROOT), sellerId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(bucket, metric.ordinal(), count);
+                }
+            });
+        } else {
+            add(bucket, metric.ordinal(), count);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.analytics.flush-interval-ms:5000}")
+    public void flush() {
+        Map<Bucket, long[]> deltas = drain();
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(deltas));
+            flushedEvents.increment(deltas.values().stream().flatMapToLong(Arrays::stream).sum());
+        } catch (Exception e) {
+            failedFlushes.increment();
+            log.error("Failed to flush {} delivery counters, keeping them for the next run", deltas.size(), e);
+            deltas.forEach((bucket, values) -> {
+                for (int i = 0; i < values.length; i++) {
+                    add(bucket, i, values[i]);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void add(Bucket bucket, int metric, long count) {
+        if (count > 0) {
+            pending.computeIfAbsent(bucket, key -> newAdders())[metric].add(count);
+        }
+    }
+
+    /**
+     * Takes the current deltas; events racing with the drain land in the next flush. Buckets of
+     * past days are dropped once empty.
+     */
+    private Map<Bucket, long[]> drain() {
+        LocalDate today = LocalDate.now();
+        Map<Bucket, long[]> deltas = new HashMap<>();
+        pending.forEach((bucket, adders) -> {
+            long[] values = new long[adders.length];
+            long total = 0;
+            for (int i = 0; i < adders.length; i++) {
+                values[i] = adders[i].sumThenReset();
+                total += values[i];
+            }
+            if (total > 0) {
+                deltas.put(bucket, values);
+            } else if (bucket.day().isBefore(today)) {
+                pending.remove(bucket, adders);
+            }
+        });
+        return deltas;
+    }
+
+    private void write(Map<Bucket, long[]> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(BUCKET_ORDER))
+                .forEach(entry -> {
+                    Bucket bucket = entry.getKey();
+                    long[] values = entry.getValue();
+                    Object[] row = new Object[3 + values.length];
+                    row[0] = bucket.day();
+                    row[1] = bucket.channel();
+                    row[2] = bucket.sellerId();
+                    for (int i = 0; i < values.length; i++) {
+                        row[3 + i] = values[i];
+                    }
+                    rows.add(row);
+                });
+
+        for (int i = 0; i < rows.size(); i += batchSize) {
+            List<Object[]> chunk = rows.subList(i, Math.min(i + batchSize, rows.size()));
+            String sql = String.format(UPSERT_COUNTERS, String.join(", ", Collections.nCopies(chunk.size(), COUNTERS_ROW)));
+            jdbcTemplate.update(sql, chunk.stream().flatMap(Arrays::stream).toArray());
+        }
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[METRICS.length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private record Bucket(LocalDate day, String channel, String sellerId) {
+    }
+}
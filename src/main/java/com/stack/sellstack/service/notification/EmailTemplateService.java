@@ -6,26 +6,65 @@ import com.stack.sellstack.model.dto.response.ProcessedTemplate;
 import com.stack.sellstack.exception.NotificationException;
 import com.stack.sellstack.model.entity.EmailTemplate;
 import com.stack.sellstack.repository.EmailTemplateRepository;
+import com.stack.sellstack.util.HtmlToText;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import freemarker.template.Configuration;
+import freemarker.template.ObjectWrapper;
 import freemarker.template.Template;
-import lombok.RequiredArgsConstructor;
+import freemarker.template.TemplateHashModel;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
 import java.io.StringWriter;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class EmailTemplateService {
 
     private final EmailTemplateRepository emailTemplateRepository;
     private final Configuration freemarkerConfig;
+    private final boolean cacheEnabled;
+
+    /**
+     * Parsed templates of active email templates by template key. FreeMarker templates are
+     * thread-safe once parsed, so one instance serves every render. Entries are evicted after a
+     * template change commits; other nodes pick up changes within the TTL.
+     */
+    private final Cache<String, CompiledTemplate> compiledTemplates;
+
+    public EmailTemplateService(EmailTemplateRepository emailTemplateRepository,
+                                Configuration freemarkerConfig,
+                                MeterRegistry meterRegistry,
+                                @Value("${templates.cache.enabled:true}") boolean cacheEnabled,
+                                @Value("${templates.cache.max-size:500}") long cacheMaxSize,
+                                @Value("${templates.cache.ttl.minutes:30}") long cacheTtlMinutes) {
+        this.emailTemplateRepository = emailTemplateRepository;
+        this.freemarkerConfig = freemarkerConfig;
+        this.cacheEnabled = cacheEnabled;
+        this.compiledTemplates = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofMinutes(cacheTtlMinutes))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, compiledTemplates, "email.templates");
+    }
 
     /**
      * Create or update email template
@@ -73,6 +112,7 @@ public class EmailTemplateService {
         }
 
         template = emailTemplateRepository.save(template);
+        evictCompiled(template.getTemplateKey());
 
         return mapToResponse(template);
     }
@@ -80,28 +120,25 @@ public class EmailTemplateService {
     /**
      * Process template with variables
      */
-    @Transactional(readOnly = true)
     public ProcessedTemplate processTemplate(String templateKey, Map<String, Object> variables) {
-        EmailTemplate template = emailTemplateRepository
-                .findByTemplateKeyAndIsActiveTrue(templateKey)
-                .orElseThrow(() -> new NotificationException("Template not found or inactive"));
+        CompiledTemplate template = cacheEnabled
+                ? compiledTemplates.get(templateKey, this::compile)
+                : compile(templateKey);
 
         try {
             // Process subject template
-            String processedSubject = processTemplateString(
-                    template.getSubjectTemplate(), variables);
+            String processedSubject = renderPart(template.subject(), variables);
 
             // Process HTML template
-            String processedHtml = processTemplateString(
-                    template.getHtmlTemplate(), variables);
+            String processedHtml = renderPart(template.html(), variables);
 
             // Process plain text template (if available)
-            String processedPlainText = template.getPlainTextTemplate() != null ?
-                    processTemplateString(template.getPlainTextTemplate(), variables) : null;
+            String processedPlainText = template.plainText() != null ?
+                    renderPart(template.plainText(), variables) : null;
 
             // Generate plain text from HTML if not provided
             if (processedPlainText == null) {
-                processedPlainText = htmlToPlainText(processedHtml);
+                processedPlainText = HtmlToText.convert(processedHtml);
             }
 
             return ProcessedTemplate.builder()
@@ -117,6 +154,30 @@ public class EmailTemplateService {
         }
     }
 
+    /**
+     * Prepare a template for rendering to many recipients.
+     *
+     * Parts that reference none of the per-recipient variable names are rendered once. The others
+     * are rendered per recipient against the shared variables, wrapped for FreeMarker once, with
+     * the recipient's own variables laid over them.
+     */
+    public BulkRenderer prepareBulk(String templateKey, Map<String, Object> sharedVariables,
+                                    Set<String> recipientKeys) {
+        CompiledTemplate template = cacheEnabled
+                ? compiledTemplates.get(templateKey, this::compile)
+                : compile(templateKey);
+
+        try {
+            ObjectWrapper wrapper = freemarkerConfig.getObjectWrapper();
+            TemplateHashModel shared = (TemplateHashModel) wrapper.wrap(
+                    sharedVariables != null ? sharedVariables : Map.of());
+            return new BulkRenderer(templateKey, template, wrapper, shared, recipientKeys);
+        } catch (Exception e) {
+            log.error("Failed to prepare template: {}", templateKey, e);
+            throw new NotificationException("Failed to prepare template: " + e.getMessage());
+        }
+    }
+
     /**
      * Get all active templates
      */
@@ -161,46 +222,61 @@ public class EmailTemplateService {
         template.setUpdatedBy(deactivatedBy);
 
         emailTemplateRepository.save(template);
+        evictCompiled(templateKey);
 
         log.info("Template deactivated: {}", templateKey);
     }
 
     /**
-     * Process template string with FreeMarker
+     * Load an active template and parse its parts with FreeMarker
      */
-    private String processTemplateString(String templateString, Map<String, Object> variables)
-            throws Exception {
-        Template template = new Template(
-                "template",
-                templateString,
-                freemarkerConfig
-        );
+    private CompiledTemplate compile(String templateKey) {
+        EmailTemplate template = emailTemplateRepository
+                .findByTemplateKeyAndIsActiveTrue(templateKey)
+                .orElseThrow(() -> new NotificationException("Template not found or inactive"));
+
+        try {
+            return new CompiledTemplate(
+                    parse(templateKey + ".subject", template.getSubjectTemplate()),
+                    parse(templateKey + ".html", template.getHtmlTemplate()),
+                    template.getPlainTextTemplate() != null
+                            ? parse(templateKey + ".text", template.getPlainTextTemplate())
+                            : null);
+        } catch (IOException e) {
+            log.error("Failed to parse template: {}", templateKey, e);
+            throw new NotificationException("Failed to parse template: " + e.getMessage());
+        }
+    }
+
+    private Template parse(String name, String templateString) throws IOException {
+        return new Template(name, templateString, freemarkerConfig);
+    }
 
+    /**
+     * Process a parsed template with FreeMarker
+     */
+    private String renderPart(Template template, Object dataModel) throws Exception {
         StringWriter writer = new StringWriter();
-        template.process(variables, writer);
+        template.process(dataModel, writer);
 
         return writer.toString();
     }
 
     /**
-     * Convert HTML to plain text (basic implementation)
+     * Drop the parsed template; inside a transaction only once it commits, so a concurrent
+     * render cannot re-cache the old version
      */
-    private String htmlToPlainText(String html) {
-        // Remove HTML tags
-        String text = html.replaceAll("<[^>]*>", " ");
-
-        // Replace HTML entities
-        text = text.replaceAll("&nbsp;", " ")
-                .replaceAll("&amp;", "&")
-                .replaceAll("&lt;", "<")
-                .replaceAll("&gt;", ">")
-                .replaceAll("&quot;", "\"")
-                .replaceAll("&#39;", "'");
-
-        // Collapse multiple spaces
-        text = text.replaceAll("\\s+", " ").trim();
-
-        return text;
+    private void evictCompiled(String templateKey) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    compiledTemplates.invalidate(templateKey);
+                }
+            });
+        } else {
+            compiledTemplates.invalidate(templateKey);
+        }
     }
 
     /**
@@ -225,4 +301,90 @@ public class EmailTemplateService {
                 .updatedBy(template.getUpdatedBy())
                 .build();
     }
-}
\ No newline at end of file
+
+    private record CompiledTemplate(Template subject, Template html, Template plainText) {
+    }
+
+    /**
+     * Renders one prepared template for many recipients; not thread-safe
+     */
+    public final class BulkRenderer {
+        private final String templateKey;
+        private final ObjectWrapper wrapper;
+        private final TemplateHashModel shared;
+        private final Template subject;
+        private final Template html;
+        private final Template plainText;
+        private final String fixedSubject;
+        private final String fixedHtml;
+        private final String fixedPlainText;
+
+        private BulkRenderer(String templateKey, CompiledTemplate template, ObjectWrapper wrapper,
+                             TemplateHashModel shared, Set<String> recipientKeys) throws Exception {
+            this.templateKey = templateKey;
+            this.wrapper = wrapper;
+            this.shared = shared;
+            this.subject = template.subject();
+            this.html = template.html();
+            this.plainText = template.plainText();
+
+            this.fixedSubject = references(subject, recipientKeys) ? null : renderPart(subject, shared);
+            this.fixedHtml = references(html, recipientKeys) ? null : renderPart(html, shared);
+            if (plainText != null) {
+                this.fixedPlainText = references(plainText, recipientKeys) ? null : renderPart(plainText, shared);
+            } else {
+                this.fixedPlainText = fixedHtml != null ? HtmlToText.convert(fixedHtml) : null;
+            }
+        }
+
+        public ProcessedTemplate render(Map<String, Object> recipientVariables) {
+            TemplateHashModel model = recipientVariables == null || recipientVariables.isEmpty()
+                    ? shared
+                    : new LayeredModel(recipientVariables, shared, wrapper);
+            try {
+                String processedHtml = fixedHtml != null ? fixedHtml : renderPart(html, model);
+                String processedPlainText = fixedPlainText;
+                if (processedPlainText == null) {
+                    processedPlainText = plainText != null
+                            ? renderPart(plainText, model)
+                            : HtmlToText.convert(processedHtml);
+                }
+
+                return ProcessedTemplate.builder()
+                        .subject(fixedSubject != null ? fixedSubject : renderPart(subject, model))
+                        .htmlContent(processedHtml)
+                        .plainTextContent(processedPlainText)
+                        .templateKey(templateKey)
+                        .build();
+            } catch (Exception e) {
+                throw new NotificationException("Failed to process template: " + e.getMessage());
+            }
+        }
+
+        /**
+         * Conservative: any mention of a recipient variable name in the template source counts
+         */
+        private boolean references(Template template, Set<String> recipientKeys) {
+            String source = template.toString();
+            return recipientKeys.stream().anyMatch(source::contains);
+        }
+    }
+
+    /**
+     * Recipient variables first, shared variables underneath; nothing is copied per recipient
+     */
+    private record LayeredModel(Map<String, Object> recipient, TemplateHashModel shared, ObjectWrapper wrapper)
+            implements TemplateHashModel {
+
+        @Override
+        public TemplateModel get(String key) throws TemplateModelException {
+            Object value = recipient.get(key);
+            return value != null ? wrapper.wrap(value) : shared.get(key);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+    }
+}
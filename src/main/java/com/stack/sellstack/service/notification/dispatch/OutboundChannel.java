@@ -0,0 +1,70 @@
+package com.stack.sellstack.service.notification.dispatch;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * A queue table drained by {@link OutboundDispatcher}.
+ *
+ * The table must have the shared queue columns: id, status, priority, send_after, created_at,
+ * retry_count, max_retries, provider, provider_message_id, provider_response, sent_at,
+ * lease_owner, lease_expires_at and updated_at.
+ */
+public interface OutboundChannel<T> {
+
+    /**
+     * Channel name used in metric tags and logs, e.g. "email"
+     */
+    String channel();
+
+    String queueTable();
+
+    /**
+     * Provider the messages go to; concurrency is limited per provider
+     */
+    String provider();
+
+    List<T> load(List<UUID> ids);
+
+    UUID idOf(T message);
+
+    /**
+     * Seller the message is counted against in delivery analytics; may be null
+     */
+    String sellerIdOf(T message);
+
+    /**
+     * Whether a failure of this send exhausts the message's retries
+     */
+    boolean isLastAttempt(T message);
+
+    /**
+     * Sends one message; any exception schedules a retry, except a
+     * {@link com.stack.sellstack.exception.SendThrottledException}, which requeues it without spending one
+     */
+    OutboundResult send(T message) throws Exception;
+
+    /**
+     * Sends one message without blocking the caller; a failed future schedules a retry. The
+     * default runs {@link #send} on the executor, channels with an asynchronous client override it.
+     */
+    default CompletableFuture<OutboundResult> sendAsync(T message, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return send(message);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * SET assignments applied on failure, with exactly one placeholder for the error message
+     */
+    default String failureAssignments() {
+        return "provider_response = ?";
+    }
+}
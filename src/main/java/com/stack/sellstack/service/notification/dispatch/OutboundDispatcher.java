@@ -0,0 +1,488 @@
+package com.stack.sellstack.service.notification.dispatch;
+
+import com.stack.sellstack.exception.SendThrottledException;
+import com.stack.sellstack.service.notification.DeliveryCounterStore;
+import com.stack.sellstack.service.notification.DeliveryCounterStore.Metric;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains outbound message queues (email, WhatsApp) on any number of nodes.
+ *
+ * Each dispatch runs one claim loop per partition. A loop claims due PENDING rows of its hash
+ * partition, plus PROCESSING rows whose lease expired because their worker died, with
+ * FOR UPDATE SKIP LOCKED, and stamps them with a lease owner unique to the batch and a lease
+ * deadline. Claimed messages are sent asynchronously, at most a per-provider number in flight, and
+ * the outcomes are written back in JDBC batch updates fenced on the lease owner. Retry backoff is
+ * computed in SQL: 2^n minutes, capped, with jitter so failed bursts do not retry in lockstep.
+ * A send refused for rate limits ({@link SendThrottledException}, from the governor or the provider)
+ * is not a failure: the row goes back to PENDING after a short jittered delay and keeps its retries.
+ *
+ * Sent messages and messages that failed their last attempt are counted in the
+ * {@link DeliveryCounterStore} for delivery analytics.
+ *
+ * Leases of batches still in flight are renewed periodically, so a batch slowed down by provider
+ * pacing keeps its rows. A message whose lease has run out anyway (renewal failing) is not sent:
+ * another worker may have claimed it, and its row is left for that worker or the next claim.
+ * Reclaiming an expired lease spends a retry, and a row with none left is failed instead, so a
+ * message that crashes or stalls every worker that takes it does not circulate forever.
+ *
+ * The batch size adapts per channel: it doubles while full batches finish under the target
+ * time and halves when a batch takes longer. A claim is also capped at what the
+ * {@link SendRateGovernor} lets through in half a lease at the provider's current rate, so a node
+ * does not hold rows it cannot send before the lease would need renewing.
+ */
+@Component
+@Slf4j
+public class OutboundDispatcher {
+
+    // Reclaiming an expired lease counts as an attempt; status on the right-hand side is the old one
+    private static final String CLAIM_BATCH =
+            "UPDATE %1$s SET status = 'PROCESSING', lease_owner = ?, lease_expires_at = ?, " +
+                    "retry_count = CASE WHEN status = 'PROCESSING' THEN COALESCE(retry_count, 0) + 1 " +
+                    "ELSE retry_count END, updated_at = now() " +
+                    "WHERE id IN (SELECT id FROM %1$s " +
+                    "WHERE ((status = 'PENDING' AND send_after <= now()) " +
+                    "OR (status = 'PROCESSING' AND lease_expires_at < now() " +
+                    "AND COALESCE(retry_count, 0) + 1 < COALESCE(max_retries, 3))) " +
+                    "AND (hashtext(id::text) & 2147483647) %% ? = ? " +
+                    "ORDER BY priority DESC NULLS LAST, created_at ASC LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                    "RETURNING id";
+
+    // Expired leases that used up the retries: the message keeps killing or stalling its worker
+    private static final String DEAD_LETTER_EXPIRED =
+            "UPDATE %1$s SET %2$s, retry_count = COALESCE(retry_count, 0) + 1, status = 'FAILED', " +
+                    "lease_owner = NULL, lease_expires_at = NULL, updated_at = now() " +
+                    "WHERE id IN (SELECT id FROM %1$s " +
+                    "WHERE status = 'PROCESSING' AND lease_expires_at < now() " +
+                    "AND COALESCE(retry_count, 0) + 1 >= COALESCE(max_retries, 3) " +
+                    "AND (hashtext(id::text) & 2147483647) %% ? = ? FOR UPDATE SKIP LOCKED) " +
+                    "RETURNING seller_id";
+
+    private static final String LEASE_EXPIRED_ERROR = "Lease expired without a result; retries exhausted";
+
+    private static final String MARK_SENT =
+            "UPDATE %s SET status = 'SENT', provider = ?, provider_message_id = ?, provider_response = ?, " +
+                    "sent_at = now(), lease_owner = NULL, lease_expires_at = NULL, updated_at = now() " +
+                    "WHERE id = ? AND lease_owner = ?";
+
+    private static final String RENEW_LEASE =
+            "UPDATE %s SET lease_expires_at = ? WHERE lease_owner = ? AND status = 'PROCESSING'";
+
+    // Right-hand sides see the old row, so retry_count here is the count before this failure
+    private static final String MARK_FAILED =
+            "UPDATE %s SET %s, " +
+                    "retry_count = COALESCE(retry_count, 0) + 1, " +
+                    "status = CASE WHEN COALESCE(retry_count, 0) + 1 >= COALESCE(max_retries, 3) " +
+                    "THEN 'FAILED' ELSE 'PENDING' END, " +
+                    "send_after = CASE WHEN COALESCE(retry_count, 0) + 1 >= COALESCE(max_retries, 3) THEN send_after " +
+                    "ELSE now() + make_interval(secs => LEAST(power(2, COALESCE(retry_count, 0) + 1) * 60, ?) " +
+                    "* (0.5 + random() * 0.5)) END, " +
+                    "lease_owner = NULL, lease_expires_at = NULL, updated_at = now() " +
+                    "WHERE id = ? AND lease_owner = ?";
+
+    private static final String MARK_THROTTLED =
+            "UPDATE %s SET status = 'PENDING', send_after = now() + make_interval(secs => ? * (0.5 + random() * 0.5)), " +
+                    "lease_owner = NULL, lease_expires_at = NULL, updated_at = now() " +
+                    "WHERE id = ? AND lease_owner = ?";
+
+    private static final String QUEUE_STATS =
+            "SELECT count(*) FILTER (WHERE status = 'PENDING' AND send_after <= now()) AS due, " +
+                    "count(*) FILTER (WHERE status = 'PROCESSING') AS processing, " +
+                    "COALESCE(EXTRACT(EPOCH FROM now() - min(send_after) " +
+                    "FILTER (WHERE status = 'PENDING' AND send_after <= now())), 0) AS oldest_age " +
+                    "FROM %s WHERE status IN ('PENDING', 'PROCESSING')";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final DeliveryCounterStore deliveryCounters;
+    private final SendRateGovernor sendRateGovernor;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService leaseRenewer =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("outbound-lease-"));
+    private final Map<String, Semaphore> providerLimits = new ConcurrentHashMap<>();
+    private final Map<String, ChannelState> channels = new ConcurrentHashMap<>();
+    private final String workerId;
+    private final AtomicLong leaseSequence = new AtomicLong();
+
+    @Value("${notification.dispatch.partitions:4}")
+    private int partitions;
+
+    @Value("${notification.dispatch.batch.min-size:10}")
+    private int minBatchSize;
+
+    @Value("${notification.dispatch.batch.max-size:500}")
+    private int maxBatchSize;
+
+    @Value("${notification.dispatch.batch.target-ms:2000}")
+    private long targetBatchMs;
+
+    @Value("${notification.dispatch.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${notification.dispatch.lease-renew-interval-ms:30000}")
+    private long leaseRenewIntervalMs;
+
+    @Value("${notification.dispatch.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    @Value("${notification.dispatch.throttled-retry-seconds:30}")
+    private long throttledRetrySeconds;
+
+    @Value("${notification.dispatch.default-concurrency:16}")
+    private int defaultConcurrency;
+
+    public OutboundDispatcher(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, Environment environment,
+                              DeliveryCounterStore deliveryCounters, SendRateGovernor sendRateGovernor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+        this.deliveryCounters = deliveryCounters;
+        this.sendRateGovernor = sendRateGovernor;
+        this.workerId = hostName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Claims and sends until nothing is due in any partition. Safe to call on every node.
+     */
+    public <T> void dispatch(OutboundChannel<T> channel) {
+        ChannelState state = channels.computeIfAbsent(channel.channel(), name -> register(channel));
+
+        List<CompletableFuture<Void>> loops = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            int current = partition;
+            loops.add(CompletableFuture.runAsync(() -> drainPartition(channel, state, current), executor));
+        }
+        CompletableFuture.allOf(loops.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private <T> void drainPartition(OutboundChannel<T> channel, ChannelState state, int partition) {
+        try {
+            deadLetterExpired(channel, state, partition);
+            while (true) {
+                int batchSize = Math.min(state.batchSize.get(), pacedBatchSize(channel));
+                Lease lease = newLease();
+                List<UUID> claimed = claim(channel, partition, batchSize, lease);
+                if (claimed.isEmpty()) {
+                    return;
+                }
+
+                long started = System.nanoTime();
+                state.leases.add(lease);
+                try {
+                    process(channel, state, claimed, lease);
+                } finally {
+                    state.leases.remove(lease);
+                }
+                long elapsed = System.nanoTime() - started;
+                state.batchTimer.record(Duration.ofNanos(elapsed));
+                adaptBatchSize(state, claimed.size() == batchSize, elapsed);
+
+                if (claimed.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to dispatch {} queue partition {}", channel.channel(), partition, e);
+        }
+    }
+
+    /**
+     * Fails expired-lease rows that would otherwise be reclaimed past their retry limit
+     */
+    private void deadLetterExpired(OutboundChannel<?> channel, ChannelState state, int partition) {
+        List<String> sellerIds = jdbcTemplate.queryForList(
+                String.format(DEAD_LETTER_EXPIRED, channel.queueTable(), channel.failureAssignments()), String.class,
+                LEASE_EXPIRED_ERROR, partitions, partition);
+        if (sellerIds.isEmpty()) {
+            return;
+        }
+        log.warn("Dead-lettered {} queued {} messages whose lease kept expiring", sellerIds.size(), channel.channel());
+        state.failed.increment(sellerIds.size());
+        sellerIds.forEach(sellerId -> deliveryCounters.record(channel.channel(), sellerId, Metric.FAILED));
+    }
+
+    private List<UUID> claim(OutboundChannel<?> channel, int partition, int batchSize, Lease lease) {
+        return jdbcTemplate.queryForList(String.format(CLAIM_BATCH, channel.queueTable()), UUID.class,
+                lease.owner, Timestamp.from(lease.expiresAt), partitions, partition, batchSize);
+    }
+
+    /**
+     * Messages the governor lets through in half a lease at the provider's current rate
+     */
+    private int pacedBatchSize(OutboundChannel<?> channel) {
+        double perLease = sendRateGovernor.rate(channel.provider()) * leaseSeconds / 2;
+        return (int) Math.max(1, Math.min(maxBatchSize, perLease));
+    }
+
+    private Lease newLease() {
+        return new Lease(workerId + ":" + leaseSequence.incrementAndGet(), Instant.now().plusSeconds(leaseSeconds));
+    }
+
+    private <T> void process(OutboundChannel<T> channel, ChannelState state, List<UUID> ids, Lease lease) {
+        Semaphore limit = providerLimits.computeIfAbsent(channel.provider(), provider -> new Semaphore(
+                environment.getProperty("notification.dispatch.provider." + provider + ".concurrency",
+                        Integer.class, defaultConcurrency)));
+
+        List<T> messages = channel.load(ids);
+        List<CompletableFuture<Outcome>> outcomes = new ArrayList<>(messages.size());
+        for (T message : messages) {
+            outcomes.add(send(channel, limit, message, lease));
+        }
+
+        List<Outcome> sent = new ArrayList<>();
+        List<Outcome> failed = new ArrayList<>();
+        List<Outcome> throttled = new ArrayList<>();
+        int skipped = 0;
+        for (CompletableFuture<Outcome> future : outcomes) {
+            Outcome outcome = future.join();
+            if (outcome == null) {
+                skipped++;
+                continue;
+            }
+            switch (outcome.result()) {
+                case SENT -> sent.add(outcome);
+                case FAILED -> failed.add(outcome);
+                case THROTTLED -> throttled.add(outcome);
+            }
+        }
+        if (skipped > 0) {
+            log.warn("Lease {} expired, skipped {} queued {} messages", lease.owner, skipped, channel.channel());
+        }
+
+        if (!sent.isEmpty()) {
+            jdbcTemplate.batchUpdate(String.format(MARK_SENT, channel.queueTable()),
+                    sent.stream().map(Outcome::parameters).toList());
+            state.sent.increment(sent.size());
+            sent.forEach(outcome -> deliveryCounters.record(channel.channel(), outcome.sellerId(), Metric.SENT));
+        }
+        if (!failed.isEmpty()) {
+            jdbcTemplate.batchUpdate(String.format(MARK_FAILED, channel.queueTable(), channel.failureAssignments()),
+                    failed.stream().map(Outcome::parameters).toList());
+            state.failed.increment(failed.size());
+            failed.stream()
+                    .filter(Outcome::lastAttempt)
+                    .forEach(outcome -> deliveryCounters.record(channel.channel(), outcome.sellerId(), Metric.FAILED));
+        }
+        if (!throttled.isEmpty()) {
+            jdbcTemplate.batchUpdate(String.format(MARK_THROTTLED, channel.queueTable()),
+                    throttled.stream().map(Outcome::parameters).toList());
+            state.throttled.increment(throttled.size());
+        }
+    }
+
+    /**
+     * Waits for a provider slot, then starts the send; the slot is released when the send completes.
+     * Completes with null, without sending, if the lease ran out while waiting.
+     */
+    private <T> CompletableFuture<Outcome> send(OutboundChannel<T> channel, Semaphore limit, T message,
+                                                Lease lease) {
+        UUID id = channel.idOf(message);
+        try {
+            limit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.completedFuture(failed(channel, message, id, lease, e));
+        }
+        if (lease.expired()) {
+            limit.release();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<OutboundResult> result;
+        try {
+            result = channel.sendAsync(message, executor);
+        } catch (Exception e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        return result.handle((sent, error) -> {
+            limit.release();
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                if (cause instanceof SendThrottledException) {
+                    log.debug("Throttled queued {} message ID: {}: {}", channel.channel(), id, cause.getMessage());
+                    return new Outcome(Result.THROTTLED, false, channel.sellerIdOf(message),
+                            new Object[]{throttledRetrySeconds, id, lease.owner});
+                }
+                log.error("Failed to send queued {} message ID: {}", channel.channel(), id, cause);
+                return failed(channel, message, id, lease, cause);
+            }
+            if (sent == null) {
+                log.error("No result from provider for queued {} message ID: {}", channel.channel(), id);
+                return failed(channel, message, id, lease, new IllegalStateException("No result from provider"));
+            }
+            return new Outcome(Result.SENT, false, channel.sellerIdOf(message), new Object[]{channel.provider(),
+                    sent.providerMessageId(), sent.providerResponse(), id, lease.owner});
+        });
+    }
+
+    private <T> Outcome failed(OutboundChannel<T> channel, T message, UUID id, Lease lease, Throwable error) {
+        return new Outcome(Result.FAILED, channel.isLastAttempt(message), channel.sellerIdOf(message),
+                new Object[]{String.valueOf(error.getMessage()), maxBackoffSeconds, id, lease.owner});
+    }
+
+    private void adaptBatchSize(ChannelState state, boolean full, long elapsedNanos) {
+        long elapsedMs = Duration.ofNanos(elapsedNanos).toMillis();
+        if (elapsedMs > targetBatchMs) {
+            state.batchSize.updateAndGet(size -> Math.max(minBatchSize, size / 2));
+        } else if (full) {
+            state.batchSize.updateAndGet(size -> Math.min(maxBatchSize, size * 2));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        leaseRenewer.scheduleWithFixedDelay(this::renewLeases, leaseRenewIntervalMs, leaseRenewIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Extends the leases of batches still in flight. A lease that already ran out is not renewed:
+     * its rows may belong to another worker by now. Runs on its own thread, as the dispatch loops
+     * themselves occupy the shared scheduler.
+     */
+    private void renewLeases() {
+        channels.forEach((name, state) -> {
+            for (Lease lease : state.leases) {
+                if (lease.expired()) {
+                    continue;
+                }
+                Instant until = Instant.now().plusSeconds(leaseSeconds);
+                try {
+                    jdbcTemplate.update(String.format(RENEW_LEASE, state.queueTable), Timestamp.from(until), lease.owner);
+                    lease.expiresAt = until;
+                } catch (Exception e) {
+                    log.warn("Failed to renew {} lease {}: {}", name, lease.owner, e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Refreshes the depth and age gauges; one aggregate query per channel
+     */
+    @Scheduled(fixedDelayString = "${notification.dispatch.stats-interval-ms:15000}")
+    public void refreshQueueStats() {
+        channels.forEach((name, state) -> {
+            try {
+                jdbcTemplate.query(String.format(QUEUE_STATS, state.queueTable), rs -> {
+                    state.due.set(rs.getLong("due"));
+                    state.processing.set(rs.getLong("processing"));
+                    state.oldestAgeSeconds.set(rs.getLong("oldest_age"));
+                });
+            } catch (Exception e) {
+                log.warn("Failed to refresh {} queue stats: {}", name, e.getMessage());
+            }
+        });
+    }
+
+    private ChannelState register(OutboundChannel<?> channel) {
+        String name = channel.channel();
+        ChannelState state = new ChannelState(channel.queueTable(), Math.max(minBatchSize, 100),
+                Counter.builder("notification.dispatch.sent").tag("channel", name).register(meterRegistry),
+                Counter.builder("notification.dispatch.failed").tag("channel", name).register(meterRegistry),
+                Counter.builder("notification.dispatch.throttled").tag("channel", name).register(meterRegistry),
+                Timer.builder("notification.dispatch.batch").tag("channel", name).register(meterRegistry));
+
+        Gauge.builder("notification.queue.due", state.due, AtomicLong::get)
+                .tag("channel", name).register(meterRegistry);
+        Gauge.builder("notification.queue.processing", state.processing, AtomicLong::get)
+                .tag("channel", name).register(meterRegistry);
+        Gauge.builder("notification.queue.oldest.age.seconds", state.oldestAgeSeconds, AtomicLong::get)
+                .tag("channel", name).register(meterRegistry);
+        Gauge.builder("notification.dispatch.batch.size", state.batchSize, AtomicInteger::get)
+                .tag("channel", name).register(meterRegistry);
+        return state;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        leaseRenewer.shutdown();
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "worker";
+        }
+    }
+
+    private enum Result { SENT, FAILED, THROTTLED }
+
+    // Parameters for MARK_SENT, MARK_FAILED or MARK_THROTTLED, plus what delivery analytics count
+    private record Outcome(Result result, boolean lastAttempt, String sellerId, Object[] parameters) {
+    }
+
+    private static final class Lease {
+        private final String owner;
+        private volatile Instant expiresAt;
+
+        private Lease(String owner, Instant expiresAt) {
+            this.owner = owner;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean expired() {
+            return Instant.now().isAfter(expiresAt);
+        }
+    }
+
+    private static final class ChannelState {
+        private final String queueTable;
+        private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger batchSize;
+        private final Counter sent;
+        private final Counter failed;
+        private final Counter throttled;
+        private final Timer batchTimer;
+        private final AtomicLong due = new AtomicLong();
+        private final AtomicLong processing = new AtomicLong();
+        private final AtomicLong oldestAgeSeconds = new AtomicLong();
+
+        private ChannelState(String queueTable, int initialBatchSize, Counter sent, Counter failed, Counter throttled,
+                             Timer batchTimer) {
+            this.queueTable = queueTable;
+            this.batchSize = new AtomicInteger(initialBatchSize);
+            this.sent = sent;
+            this.failed = failed;
+            this.throttled = throttled;
+            this.batchTimer = batchTimer;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package com.stack.sellstack.service.notification.dispatch;
+
+public record OutboundResult(String providerMessageId, String providerResponse) {
+}
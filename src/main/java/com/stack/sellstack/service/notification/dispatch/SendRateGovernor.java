@@ -0,0 +1,205 @@
+package com.stack.sellstack.service.notification.dispatch;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stack.sellstack.exception.NotificationException;
+import com.stack.sellstack.exception.SendThrottledException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces sends to external providers so bursts are smoothed instead of throttled.
+ *
+ * Every send takes a token from the provider's bucket and from the seller's bucket for that
+ * provider. The provider rate adapts AIMD-style: each success adds additive-increase/rate (about
+ * +additive-increase per second at steady state, up to max-rate), a throttling response
+ * multiplies it by decrease-factor (at most once per cooldown, down to min-rate). Seller buckets
+ * run at a fixed rate so one seller's campaign cannot take the whole provider budget.
+ *
+ * Used by the direct send paths and the queue dispatcher alike; the dispatcher also sizes its claims
+ * from the current rate. Provider endpoints are
+ * configurable (aws.ses.endpoint, whatsapp.meta.base-url), so the adaptation can be exercised
+ * against a local stub that answers 429.
+ */
+@Component
+@Slf4j
+public class SendRateGovernor {
+
+    private final Map<String, AdaptiveBucket> providers = new ConcurrentHashMap<>();
+    private final Cache<String, AdaptiveBucket> sellers;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final long maxWaitNanos;
+    private final double sellerRate;
+
+    public SendRateGovernor(MeterRegistry meterRegistry,
+                            Environment environment,
+                            @Value("${notification.governor.max-wait-ms:30000}") long maxWaitMs,
+                            @Value("${notification.governor.seller.rate-per-second:5}") double sellerRate) {
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.sellerRate = sellerRate;
+        this.sellers = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .maximumSize(100_000)
+                .build();
+    }
+
+    /**
+     * Waits for a send slot for the provider and seller
+     *
+     * @throws SendThrottledException if the wait would exceed max-wait-ms
+     */
+    public void acquire(String provider, String sellerId) {
+        AdaptiveBucket providerBucket = provider(provider);
+        long wait = providerBucket.reserve(maxWaitNanos);
+        if (wait < 0) {
+            throw new SendThrottledException("Send rate limit exceeded for " + provider);
+        }
+
+        if (sellerId != null) {
+            AdaptiveBucket sellerBucket = sellers.get(provider + ":" + sellerId,
+                    key -> new AdaptiveBucket(sellerRate, sellerRate, sellerRate, Math.max(1, sellerRate)));
+            long sellerWait = sellerBucket.reserve(maxWaitNanos);
+            if (sellerWait < 0) {
+                providerBucket.cancel();
+                throw new SendThrottledException("Send rate limit exceeded for seller");
+            }
+            wait = Math.max(wait, sellerWait);
+        }
+
+        // parkNanos may return early (spurious wakeup, unpark), so sleep until the deadline
+        long deadline = System.nanoTime() + wait;
+        while (wait > 0) {
+            LockSupport.parkNanos(wait);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new NotificationException("Interrupted while waiting for a send slot");
+            }
+            wait = deadline - System.nanoTime();
+        }
+    }
+
+    /**
+     * Current send rate for the provider, in messages per second
+     */
+    public double rate(String provider) {
+        return provider(provider).rate();
+    }
+
+    public void onSuccess(String provider) {
+        provider(provider).increase(doubleProperty(provider, "additive-increase", 1.0));
+    }
+
+    public void onThrottled(String provider) {
+        AdaptiveBucket bucket = provider(provider);
+        long cooldown = TimeUnit.MILLISECONDS.toNanos(
+                environment.getProperty(key(provider, "decrease-cooldown-ms"), Long.class, 1000L));
+        if (bucket.decrease(doubleProperty(provider, "decrease-factor", 0.5), cooldown)) {
+            log.warn("{} throttled sends, rate lowered to {}/s", provider, String.format("%.2f", bucket.rate()));
+        }
+        bucket.throttled.increment();
+    }
+
+    private AdaptiveBucket provider(String provider) {
+        return providers.computeIfAbsent(provider, name -> {
+            double initial = doubleProperty(name, "initial-rate", 10);
+            AdaptiveBucket bucket = new AdaptiveBucket(initial,
+                    doubleProperty(name, "min-rate", 1),
+                    doubleProperty(name, "max-rate", 50),
+                    doubleProperty(name, "burst", initial));
+            bucket.throttled = Counter.builder("notification.governor.throttled")
+                    .tag("provider", name).register(meterRegistry);
+            Gauge.builder("notification.governor.rate", bucket, AdaptiveBucket::rate)
+                    .tag("provider", name).register(meterRegistry);
+            return bucket;
+        });
+    }
+
+    private double doubleProperty(String provider, String name, double defaultValue) {
+        return environment.getProperty(key(provider, name), Double.class, defaultValue);
+    }
+
+    private static String key(String provider, String name) {
+        return "notification.governor.provider." + provider + "." + name;
+    }
+
+    /**
+     * Token bucket that hands out reservations: tokens may go negative, and the caller sleeps
+     * until its token would have been refilled. Keeps callers in FIFO order without a queue.
+     */
+    private static final class AdaptiveBucket {
+        private final double minRate;
+        private final double maxRate;
+        private final double capacity;
+        private double rate;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private long lastDecreaseAt;
+        private Counter throttled;
+
+        private AdaptiveBucket(double rate, double minRate, double maxRate, double capacity) {
+            this.rate = rate;
+            this.minRate = minRate;
+            this.maxRate = maxRate;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastDecreaseAt = refilledAt - TimeUnit.SECONDS.toNanos(60);
+        }
+
+        /**
+         * @return nanos to wait before sending, or -1 if that would exceed maxWait (nothing taken)
+         */
+        synchronized long reserve(long maxWaitNanos) {
+            refill();
+            double after = tokens - 1;
+            long wait = after >= 0 ? 0 : (long) (-after / rate * TimeUnit.SECONDS.toNanos(1));
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            tokens = after;
+            return wait;
+        }
+
+        synchronized void cancel() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        synchronized void increase(double additiveIncrease) {
+            refill();
+            rate = Math.min(maxRate, rate + additiveIncrease / rate);
+        }
+
+        synchronized boolean decrease(double factor, long cooldownNanos) {
+            long now = System.nanoTime();
+            if (now - lastDecreaseAt < cooldownNanos) {
+                return false;
+            }
+            refill();
+            rate = Math.max(minRate, rate * factor);
+            lastDecreaseAt = now;
+            return true;
+        }
+
+        synchronized double rate() {
+            return rate;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * rate / TimeUnit.SECONDS.toNanos(1));
+            refilledAt = now;
+        }
+    }
+}
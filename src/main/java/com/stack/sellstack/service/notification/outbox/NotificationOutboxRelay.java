@@ -0,0 +1,203 @@
+package com.stack.sellstack.service.notification.outbox;
+
+import com.stack.sellstack.exception.NotificationException;
+import com.stack.sellstack.model.entity.NotificationOutbox;
+import com.stack.sellstack.model.entity.Payment;
+import com.stack.sellstack.repository.NotificationOutboxRepository;
+import com.stack.sellstack.repository.PaymentRepository;
+import com.stack.sellstack.service.payment.NotificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes notification outbox entries to the email and WhatsApp queues.
+ *
+ * Each entry is locked with SKIP LOCKED, turned into queued messages and marked PUBLISHED in
+ * one transaction, so a message is queued exactly once however many nodes relay and wherever a
+ * crash happens. Relaying is triggered right after the writing transaction commits and, as a
+ * fallback, on a fixed delay. A failed entry is retried with exponential backoff and marked
+ * FAILED after max-attempts.
+ */
+@Component
+@Slf4j
+public class NotificationOutboxRelay {
+
+    private static final String MARK_FAILED =
+            "UPDATE notification_outbox SET attempts = attempts + 1, last_error = ?, available_at = ?, " +
+                    "status = CASE WHEN attempts + 1 >= ? THEN 'FAILED' ELSE 'PENDING' END " +
+                    "WHERE id = ? AND status = 'PENDING'";
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final PaymentRepository paymentRepository;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBase;
+    private final Duration maxBackoff;
+    private final Duration retention;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicBoolean relaying = new AtomicBoolean();
+    private final AtomicBoolean relayRequested = new AtomicBoolean();
+
+    private final Counter published;
+    private final Counter retried;
+    private final Counter failed;
+
+    public NotificationOutboxRelay(NotificationOutboxRepository outboxRepository,
+                                   PaymentRepository paymentRepository,
+                                   NotificationService notificationService,
+                                   TransactionTemplate transactionTemplate,
+                                   JdbcTemplate jdbcTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${notification.outbox.batch-size:100}") int batchSize,
+                                   @Value("${notification.outbox.max-attempts:10}") int maxAttempts,
+                                   @Value("${notification.outbox.retry-base-seconds:30}") long retryBaseSeconds,
+                                   @Value("${notification.outbox.max-backoff-seconds:3600}") long maxBackoffSeconds,
+                                   @Value("${notification.outbox.retention-days:7}") long retentionDays) {
+        this.outboxRepository = outboxRepository;
+        this.paymentRepository = paymentRepository;
+        this.notificationService = notificationService;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBase = Duration.ofSeconds(retryBaseSeconds);
+        this.maxBackoff = Duration.ofSeconds(maxBackoffSeconds);
+        this.retention = Duration.ofDays(retentionDays);
+
+        this.published = Counter.builder("notification.outbox.published").register(meterRegistry);
+        this.retried = Counter.builder("notification.outbox.retried").register(meterRegistry);
+        this.failed = Counter.builder("notification.outbox.failed").register(meterRegistry);
+    }
+
+    /**
+     * Relay soon on another thread; called after an outbox write commits
+     */
+    public void trigger() {
+        relayRequested.set(true);
+        try {
+            executor.execute(this::relay);
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the entry stays PENDING for the next start
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        // One relay loop per node; other nodes skip the rows it has locked
+        if (!relaying.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            do {
+                relayRequested.set(false);
+                relayBatch();
+            } while (relayRequested.get());
+        } finally {
+            relaying.set(false);
+        }
+    }
+
+    @Scheduled(cron = "${notification.outbox.cleanup-cron:0 15 3 * * *}")
+    public void purgePublished() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxRepository.deletePublishedBefore(Instant.now().minus(retention)));
+        log.info("Purged {} published notification outbox entries", deleted);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void relayBatch() {
+        for (int i = 0; i < batchSize; i++) {
+            AtomicReference<NotificationOutbox> current = new AtomicReference<>();
+            try {
+                Boolean relayed = transactionTemplate.execute(status -> relayNext(current));
+                if (!Boolean.TRUE.equals(relayed)) {
+                    return;
+                }
+                published.increment();
+            } catch (Exception e) {
+                NotificationOutbox entry = current.get();
+                if (entry == null) {
+                    log.error("Failed to poll the notification outbox", e);
+                    return;
+                }
+                recordFailure(entry, e);
+            }
+        }
+    }
+
+    private boolean relayNext(AtomicReference<NotificationOutbox> current) {
+        NotificationOutbox entry = outboxRepository.lockNextDue().orElse(null);
+        if (entry == null) {
+            return false;
+        }
+        current.set(entry);
+
+        publish(entry);
+
+        entry.setStatus("PUBLISHED");
+        entry.setAttempts(entry.getAttempts() + 1);
+        entry.setPublishedAt(Instant.now());
+        entry.setLastError(null);
+        outboxRepository.save(entry);
+        return true;
+    }
+
+    private void publish(NotificationOutbox entry) {
+        UUID paymentId = entry.getAggregateId();
+        Payment payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new NotificationException("Payment not found: " + paymentId));
+
+        switch (entry.getEventType()) {
+            case PAYMENT_SUCCEEDED -> notificationService.queuePaymentSuccessNotification(payment);
+            case PRODUCT_DELIVERY -> notificationService.queueProductDeliveryNotification(payment);
+        }
+    }
+
+    private void recordFailure(NotificationOutbox entry, Exception e) {
+        int attempt = entry.getAttempts() + 1;
+        long backoffSeconds = Math.min(
+                retryBase.getSeconds() << Math.min(attempt - 1, 20), maxBackoff.getSeconds());
+        try {
+            jdbcTemplate.update(MARK_FAILED, String.valueOf(e.getMessage()),
+                    Timestamp.from(Instant.now().plusSeconds(backoffSeconds)), maxAttempts, entry.getId());
+        } catch (Exception updateError) {
+            log.error("Failed to record outbox failure for {}", entry.getId(), updateError);
+            return;
+        }
+
+        if (attempt >= maxAttempts) {
+            failed.increment();
+            log.error("Giving up on {} notification for {} after {} attempts",
+                    entry.getEventType(), entry.getAggregateId(), attempt, e);
+        } else {
+            retried.increment();
+            log.warn("Failed to publish {} notification for {} (attempt {}), retrying in {}s",
+                    entry.getEventType(), entry.getAggregateId(), attempt, backoffSeconds, e);
+        }
+    }
+}
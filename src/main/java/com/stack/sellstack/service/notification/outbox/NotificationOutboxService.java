@@ -0,0 +1,47 @@
+package com.stack.sellstack.service.notification.outbox;
+
+import com.stack.sellstack.model.entity.NotificationOutbox;
+import com.stack.sellstack.model.entity.NotificationOutbox.EventType;
+import com.stack.sellstack.repository.NotificationOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Records notifications as part of the caller's transaction (transactional outbox).
+ *
+ * The entry commits or rolls back together with the business change, so a committed payment
+ * always has its notifications owed and a rolled back one never sends any. Building and sending
+ * messages happens in the relay, outside the payment transaction.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class NotificationOutboxService {
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationOutboxRelay relay;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(EventType eventType, UUID aggregateId) {
+        NotificationOutbox entry = outboxRepository.save(NotificationOutbox.builder()
+                .eventType(eventType)
+                .aggregateId(aggregateId)
+                .build());
+
+        log.debug("Recorded {} notification {} for {}", eventType, entry.getId(), aggregateId);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                relay.trigger();
+            }
+        });
+    }
+}
@@ -2,6 +2,7 @@ package com.stack.sellstack.service.notification.provider;
 
 import com.stack.sellstack.config.properties.EmailProperties;
 import com.stack.sellstack.exception.NotificationException;
+import com.stack.sellstack.exception.SendThrottledException;
 import com.stack.sellstack.model.dto.request.EmailQueueRequest;
 import com.stack.sellstack.model.dto.request.EmailRequest;
 import com.stack.sellstack.model.dto.response.EmailResponse;
@@ -9,32 +10,43 @@ import com.stack.sellstack.model.dto.response.EmailStatusResponse;
 import com.stack.sellstack.model.dto.response.ProcessedTemplate;
 import com.stack.sellstack.model.entity.EmailQueue;
 import com.stack.sellstack.repository.EmailQueueRepository;
+import com.stack.sellstack.service.notification.DeliveryCounterStore;
+import com.stack.sellstack.service.notification.DeliveryCounterStore.Metric;
 import com.stack.sellstack.service.notification.EmailService;
 import com.stack.sellstack.service.notification.EmailTemplateService;
+import com.stack.sellstack.service.notification.dispatch.OutboundChannel;
+import com.stack.sellstack.service.notification.dispatch.OutboundDispatcher;
+import com.stack.sellstack.service.notification.dispatch.OutboundResult;
+import com.stack.sellstack.service.notification.dispatch.SendRateGovernor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.services.ses.SesClient;
 import software.amazon.awssdk.services.ses.model.*;
 
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
-public class AwsSesEmailService implements EmailService {
+public class AwsSesEmailService implements EmailService, OutboundChannel<EmailQueue> {
+
+    private static final String PROVIDER = "AWS_SES";
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
 
     private final SesClient sesClient;
     private final EmailProperties emailProperties;
     private final EmailQueueRepository emailQueueRepository;
     private final EmailTemplateService emailTemplateService;
+    private final OutboundDispatcher outboundDispatcher;
+    private final SendRateGovernor sendRateGovernor;
+    private final DeliveryCounterStore deliveryCounters;
 
     @Override
     public CompletableFuture<EmailResponse> sendEmail(EmailRequest request) {
@@ -43,14 +55,11 @@ public class AwsSesEmailService implements EmailService {
                 // Validate request
                 validateEmailRequest(request);
 
-                // Check rate limits
-                checkRateLimits(request.getSellerId());
-
                 // Prepare SES request
                 SendEmailRequest sesRequest = createSesRequest(request);
 
-                // Send email
-                SendEmailResponse response = sesClient.sendEmail(sesRequest);
+                // Send email, paced by the shared governor
+                SendEmailResponse response = sendGoverned(sesRequest, request.getSellerId());
 
                 log.info("Email sent via AWS SES. MessageId: {}, To: {}",
                         response.messageId(), request.getTo());
@@ -133,6 +142,7 @@ public class AwsSesEmailService implements EmailService {
                     .build();
 
             emailQueue = emailQueueRepository.save(emailQueue);
+            deliveryCounters.record(DeliveryCounterStore.EMAIL, emailQueue.getSellerId(), Metric.ATTEMPTED);
 
             log.info("Email queued with ID: {}, To: {}",
                     emailQueue.getId(), request.getTo());
@@ -145,72 +155,69 @@ public class AwsSesEmailService implements EmailService {
         }
     }
 
+    /**
+     * Sends due queued emails through the shared outbound dispatcher
+     */
     @Override
-    @Scheduled(fixedRate = 1, timeUnit = TimeUnit.MINUTES)
-    @Transactional
+    @Scheduled(fixedDelayString = "${notification.dispatch.poll-interval-ms:1000}")
     public void processEmailQueue() {
-        Date currentTime = new Date();
-        Pageable limit = PageRequest.of(0, 100); // First page, 100 records
-        List<EmailQueue> pendingEmails = emailQueueRepository
-                .findPendingEmailsWithLimit(currentTime, limit);
+        outboundDispatcher.dispatch(this);
+    }
 
-        log.info("Processing {} pending emails from queue", pendingEmails.size());
+    @Override
+    public String channel() {
+        return "email";
+    }
 
-        for (EmailQueue emailQueue : pendingEmails) {
-            try {
-                // Update status to PROCESSING
-                emailQueue.setStatus("PROCESSING");
-                emailQueueRepository.save(emailQueue);
-
-                // Prepare and send email
-                EmailRequest emailRequest = EmailRequest.builder()
-                        .sellerId(emailQueue.getSellerId())
-                        .to(emailQueue.getToEmail())
-                        .toName(emailQueue.getToName())
-                        .subject(emailQueue.getSubject())
-                        .htmlContent(emailQueue.getHtmlContent())
-                        .plainTextContent(emailQueue.getPlainTextContent())
-                        .cc(emailQueue.getCcEmails())
-                        .bcc(emailQueue.getBccEmails())
-                        .attachments(emailQueue.getAttachments())
-                        .build();
+    @Override
+    public String queueTable() {
+        return "email_queue";
+    }
 
-                // Send email
-                SendEmailRequest sesRequest = createSesRequest(emailRequest);
-                SendEmailResponse response = sesClient.sendEmail(sesRequest);
+    @Override
+    public String provider() {
+        return PROVIDER;
+    }
 
-                // Update queue with success
-                emailQueue.setStatus("SENT");
-                emailQueue.setProvider("AWS_SES");
-                emailQueue.setProviderMessageId(response.messageId());
-                emailQueue.setSentAt(new Date());
-                emailQueue.setRetryCount(0);
-                emailQueueRepository.save(emailQueue);
+    @Override
+    public List<EmailQueue> load(List<UUID> ids) {
+        return emailQueueRepository.findAllById(ids);
+    }
 
-                log.debug("Successfully sent queued email ID: {}", emailQueue.getId());
+    @Override
+    public UUID idOf(EmailQueue emailQueue) {
+        return emailQueue.getId();
+    }
 
-            } catch (Exception e) {
-                log.error("Failed to process queued email ID: {}", emailQueue.getId(), e);
-
-                // Update retry count
-                emailQueue.setRetryCount(emailQueue.getRetryCount() != null ?
-                        emailQueue.getRetryCount() + 1 : 1);
-
-                if (emailQueue.getRetryCount() >= emailQueue.getMaxRetries()) {
-                    emailQueue.setStatus("FAILED");
-                    emailQueue.setProviderResponse(e.getMessage());
-                } else {
-                    // Schedule retry with exponential backoff
-                    Calendar retryTime = Calendar.getInstance();
-                    retryTime.add(Calendar.MINUTE,
-                            (int) Math.pow(2, emailQueue.getRetryCount()));
-                    emailQueue.setSendAfter(retryTime.getTime());
-                    emailQueue.setStatus("PENDING");
-                }
+    @Override
+    public String sellerIdOf(EmailQueue emailQueue) {
+        return emailQueue.getSellerId();
+    }
 
-                emailQueueRepository.save(emailQueue);
-            }
-        }
+    @Override
+    public boolean isLastAttempt(EmailQueue emailQueue) {
+        int retries = emailQueue.getRetryCount() != null ? emailQueue.getRetryCount() : 0;
+        int maxRetries = emailQueue.getMaxRetries() != null ? emailQueue.getMaxRetries() : 3;
+        return retries + 1 >= maxRetries;
+    }
+
+    @Override
+    public OutboundResult send(EmailQueue emailQueue) {
+        EmailRequest emailRequest = EmailRequest.builder()
+                .sellerId(emailQueue.getSellerId())
+                .to(emailQueue.getToEmail())
+                .toName(emailQueue.getToName())
+                .subject(emailQueue.getSubject())
+                .htmlContent(emailQueue.getHtmlContent())
+                .plainTextContent(emailQueue.getPlainTextContent())
+                .cc(emailQueue.getCcEmails())
+                .bcc(emailQueue.getBccEmails())
+                .attachments(emailQueue.getAttachments())
+                .build();
+
+        SendEmailResponse response = sendGoverned(createSesRequest(emailRequest), emailQueue.getSellerId());
+        log.debug("Successfully sent queued email ID: {}", emailQueue.getId());
+        return new OutboundResult(response.messageId(), null);
     }
 
     private SendEmailRequest createSesRequest(EmailRequest request) {
@@ -296,14 +303,27 @@ public class AwsSesEmailService implements EmailService {
         }
     }
 
-    private void checkRateLimits(String sellerId) {
-        // TODO: Implement rate limiting per seller
-        // Check daily email limit from communication_preferences table
+    /**
+     * Sends through SES within the provider and seller send rate, and feeds the outcome back so
+     * the rate follows what SES accepts
+     */
+    private SendEmailResponse sendGoverned(SendEmailRequest sesRequest, String sellerId) {
+        sendRateGovernor.acquire(PROVIDER, sellerId);
+        try {
+            SendEmailResponse response = sesClient.sendEmail(sesRequest);
+            sendRateGovernor.onSuccess(PROVIDER);
+            return response;
+        } catch (SdkServiceException e) {
+            if (e.isThrottlingException()) {
+                sendRateGovernor.onThrottled(PROVIDER);
+                throw new SendThrottledException("AWS SES throttled: " + e.getMessage(), e);
+            }
+            throw e;
+        }
     }
 
     private boolean isValidEmail(String email) {
-        String emailRegex = "^[A-Za-z0-9+_.-]+@(.+)$";
-        return email != null && email.matches(emailRegex);
+        return email != null && EMAIL_PATTERN.matcher(email).matches();
     }
 
     private EmailQueue saveToQueue(EmailRequest request, String messageId, String provider) {
@@ -325,7 +345,10 @@ public class AwsSesEmailService implements EmailService {
                 .clickCount(0)
                 .build();
 
-        return emailQueueRepository.save(emailQueue);
+        emailQueue = emailQueueRepository.save(emailQueue);
+        deliveryCounters.record(DeliveryCounterStore.EMAIL, emailQueue.getSellerId(), Metric.ATTEMPTED);
+        deliveryCounters.record(DeliveryCounterStore.EMAIL, emailQueue.getSellerId(), Metric.SENT);
+        return emailQueue;
     }
 
     @Override
@@ -351,16 +374,8 @@ public class AwsSesEmailService implements EmailService {
     @Override
     @Transactional
     public void handleBounce(String messageId, String bounceType, String reason) {
-        Optional<EmailQueue> emailQueueOpt = emailQueueRepository
-                .findByProviderMessageId(messageId);
-
-        if (emailQueueOpt.isPresent()) {
-            EmailQueue emailQueue = emailQueueOpt.get();
-            emailQueue.setStatus("BOUNCED");
-            emailQueue.setBounceType(bounceType);
-            emailQueue.setBounceReason(reason);
-            emailQueueRepository.save(emailQueue);
-
+        if (emailQueueRepository.markFirstBounce(messageId, bounceType, reason) > 0) {
+            count(messageId, Metric.BOUNCED);
             log.warn("Email bounced. MessageId: {}, Reason: {}", messageId, reason);
         }
     }
@@ -368,15 +383,9 @@ public class AwsSesEmailService implements EmailService {
     @Override
     @Transactional
     public void handleDelivery(String messageId) {
-        Optional<EmailQueue> emailQueueOpt = emailQueueRepository
-                .findByProviderMessageId(messageId);
-
-        if (emailQueueOpt.isPresent()) {
-            EmailQueue emailQueue = emailQueueOpt.get();
-            emailQueue.setStatus("DELIVERED");
-            emailQueue.setDeliveredAt(new Date());
-            emailQueueRepository.save(emailQueue);
-
+        // SNS delivers at least once; only the first notification counts
+        if (emailQueueRepository.markFirstDelivery(messageId, new Date()) > 0) {
+            count(messageId, Metric.DELIVERED);
             log.info("Email delivered. MessageId: {}", messageId);
         }
     }
@@ -384,16 +393,12 @@ public class AwsSesEmailService implements EmailService {
     @Override
     @Transactional
     public void handleOpen(String messageId) {
-        Optional<EmailQueue> emailQueueOpt = emailQueueRepository
-                .findByProviderMessageId(messageId);
-
-        if (emailQueueOpt.isPresent()) {
-            EmailQueue emailQueue = emailQueueOpt.get();
-            emailQueue.setOpenedAt(new Date());
-            emailQueue.setOpenCount(emailQueue.getOpenCount() != null ?
-                    emailQueue.getOpenCount() + 1 : 1);
-            emailQueueRepository.save(emailQueue);
-
+        // Opens and clicks are counted per email, not per event
+        Date now = new Date();
+        if (emailQueueRepository.markFirstOpen(messageId, now) > 0) {
+            count(messageId, Metric.OPENED);
+        }
+        if (emailQueueRepository.recordOpen(messageId, now) > 0) {
             log.debug("Email opened. MessageId: {}", messageId);
         }
     }
@@ -401,20 +406,23 @@ public class AwsSesEmailService implements EmailService {
     @Override
     @Transactional
     public void handleClick(String messageId, String clickUrl) {
-        Optional<EmailQueue> emailQueueOpt = emailQueueRepository
-                .findByProviderMessageId(messageId);
-
-        if (emailQueueOpt.isPresent()) {
-            EmailQueue emailQueue = emailQueueOpt.get();
-            emailQueue.setClickedAt(new Date());
-            emailQueue.setClickCount(emailQueue.getClickCount() != null ?
-                    emailQueue.getClickCount() + 1 : 1);
-            emailQueueRepository.save(emailQueue);
-
+        Date now = new Date();
+        if (emailQueueRepository.markFirstClick(messageId, now) > 0) {
+            count(messageId, Metric.CLICKED);
+        }
+        if (emailQueueRepository.recordClick(messageId, now) > 0) {
             log.debug("Email clicked. MessageId: {}, URL: {}", messageId, clickUrl);
         }
     }
 
+    /**
+     * Counts an event that a conditional update has just claimed as the first of its kind
+     */
+    private void count(String messageId, Metric metric) {
+        String sellerId = emailQueueRepository.findSellerIdByProviderMessageId(messageId).orElse(null);
+        deliveryCounters.record(DeliveryCounterStore.EMAIL, sellerId, metric);
+    }
+
     @Override
     public void handleSesWebhook(Map<String, Object> payload) {
         // TODO: Implement AWS SES webhook handling
@@ -1,8 +1,14 @@
 package com.stack.sellstack.service.notification.provider;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.stack.sellstack.config.properties.WhatsAppProperties;
 import com.stack.sellstack.exception.NotificationException;
+import com.stack.sellstack.exception.SendThrottledException;
 import com.stack.sellstack.model.dto.request.WhatsAppQueueRequest;
 import com.stack.sellstack.model.dto.request.WhatsAppRequest;
 import com.stack.sellstack.model.dto.response.WhatsAppResponse;
@@ -11,75 +17,124 @@ import com.stack.sellstack.model.entity.WhatsAppQueue;
 import com.stack.sellstack.model.entity.WhatsAppTemplate;
 import com.stack.sellstack.repository.WhatsAppQueueRepository;
 import com.stack.sellstack.repository.WhatsAppTemplateRepository;
+import com.stack.sellstack.service.http.ProviderHttpClient;
+import com.stack.sellstack.service.notification.DeliveryCounterStore;
+import com.stack.sellstack.service.notification.DeliveryCounterStore.Metric;
 import com.stack.sellstack.service.notification.WhatsAppService;
+import com.stack.sellstack.service.notification.dispatch.OutboundChannel;
+import com.stack.sellstack.service.notification.dispatch.OutboundDispatcher;
+import com.stack.sellstack.service.notification.dispatch.OutboundResult;
+import com.stack.sellstack.service.notification.dispatch.SendRateGovernor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.*;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
-public class MetaWhatsAppService implements WhatsAppService {
+public class MetaWhatsAppService implements WhatsAppService, OutboundChannel<WhatsAppQueue> {
+
+    private static final String PROVIDER = "META";
+    private static final Pattern PHONE_PATTERN = Pattern.compile("^\\+[1-9]\\d{1,14}$");
+    private static final Pattern THROTTLE_ERROR_CODE = Pattern.compile("\"code\"\\s*:\\s*(4|80007|130429)\\b");
+    // 131052 media download error, 131053 media upload error
+    private static final Pattern MEDIA_ERROR_CODE = Pattern.compile("\"code\"\\s*:\\s*(131052|131053)\\b");
 
     private final WhatsAppProperties whatsAppProperties;
     private final WhatsAppTemplateRepository whatsAppTemplateRepository;
     private final WhatsAppQueueRepository whatsAppQueueRepository;
     private final ObjectMapper objectMapper;
-    private final OkHttpClient httpClient;
+    private final ProviderHttpClient providerHttpClient;
+    private final OutboundDispatcher outboundDispatcher;
+    private final SendRateGovernor sendRateGovernor;
+    private final DeliveryCounterStore deliveryCounters;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${whatsapp.media.cache.max-size:10000}")
+    private long mediaCacheMaxSize;
+
+    // Meta keeps uploaded media for 30 days
+    @Value("${whatsapp.media.cache.ttl-days:29}")
+    private long mediaCacheTtlDays;
+
+    // Uploaded media ids; a pending upload is shared by every send of the same media
+    private AsyncCache<MediaKey, String> mediaIds;
+
+    private HttpUrl messagesUrl;
+    private HttpUrl mediaUploadUrl;
+    private Headers authHeaders;
+
+    private final Cache<String, WhatsAppTemplate> approvedTemplates = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .build();
+
+    @PostConstruct
+    public void init() {
+        mediaIds = Caffeine.newBuilder()
+                .maximumSize(mediaCacheMaxSize)
+                .expireAfterWrite(Duration.ofDays(mediaCacheTtlDays))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, mediaIds, "whatsapp.media");
+
+        String phoneNumberUrl = whatsAppProperties.getBaseUrl() + whatsAppProperties.getPhoneNumberId();
+        messagesUrl = HttpUrl.get(phoneNumberUrl + "/messages");
+        mediaUploadUrl = HttpUrl.get(phoneNumberUrl + "/media");
+        authHeaders = whatsAppProperties.getAccessToken() != null
+                ? Headers.of("Authorization", "Bearer " + whatsAppProperties.getAccessToken())
+                : Headers.of();
+    }
 
     @Override
     public CompletableFuture<WhatsAppResponse> sendMessage(WhatsAppRequest request) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                validateWhatsAppRequest(request);
-                checkWhatsAppRateLimits(request.getSellerId());
-
-                String response;
-                String messageId;
-
-                if (request.getTemplateKey() != null) {
-                    response = sendTemplateMessage(request);
-                } else if (request.getMediaUrl() != null ||
-                        (request.getMediaUrls() != null && !request.getMediaUrls().isEmpty())) {
-                    response = sendMediaMessage(request);
-                } else {
-                    response = sendTextMessage(request);
-                }
-
-                messageId = extractMessageId(response);
-
-                log.info("WhatsApp message sent. MessageId: {}, To: {}", messageId, request.getToPhone());
-
-                WhatsAppQueue whatsAppQueue = saveToQueue(request, messageId, response);
-
-                return WhatsAppResponse.builder()
-                        .messageId(whatsAppQueue.getId().toString())
-                        .providerMessageId(messageId)
-                        .status("SENT")
-                        .sentAt(new Date())
-                        .provider("META")
-                        .build();
-
-            } catch (Exception e) {
-                log.error("Failed to send WhatsApp message", e);
-                throw new NotificationException("Failed to send WhatsApp message: " + e.getMessage());
-            }
-        });
+        return CompletableFuture.runAsync(() -> {
+                    validateWhatsAppRequest(request);
+                    sendRateGovernor.acquire(PROVIDER, request.getSellerId());
+                }, providerHttpClient.executor())
+                .thenCompose(ignored -> postMessage(request))
+                .thenApply(response -> {
+                    String messageId = extractMessageId(response);
+                    log.info("WhatsApp message sent. MessageId: {}, To: {}", messageId, request.getToPhone());
+
+                    WhatsAppQueue whatsAppQueue = saveToQueue(request, messageId, response);
+
+                    return WhatsAppResponse.builder()
+                            .messageId(whatsAppQueue.getId().toString())
+                            .providerMessageId(messageId)
+                            .status("SENT")
+                            .sentAt(new Date())
+                            .provider("META")
+                            .build();
+                })
+                .exceptionally(e -> {
+                    Throwable cause = unwrap(e);
+                    log.error("Failed to send WhatsApp message", cause);
+                    throw new NotificationException("Failed to send WhatsApp message: " + cause.getMessage());
+                });
     }
 
     @Override
@@ -87,8 +142,7 @@ public class MetaWhatsAppService implements WhatsAppService {
     public String queueMessage(WhatsAppQueueRequest request) {
         try {
             if (request.getTemplateKey() != null) {
-                WhatsAppTemplate template = whatsAppTemplateRepository
-                        .findByTemplateKeyAndStatus(request.getTemplateKey(), "APPROVED")
+                WhatsAppTemplate template = Optional.ofNullable(findApprovedTemplate(request.getTemplateKey()))
                         .orElseThrow(() -> new NotificationException("WhatsApp template not found or not approved"));
 
                 request.setWhatsAppTemplateId(template.getWhatsappTemplateId());
@@ -111,6 +165,7 @@ public class MetaWhatsAppService implements WhatsAppService {
                     .build();
 
             whatsAppQueue = whatsAppQueueRepository.save(whatsAppQueue);
+            deliveryCounters.record(DeliveryCounterStore.WHATSAPP, whatsAppQueue.getSellerId(), Metric.ATTEMPTED);
 
             log.info("WhatsApp message queued with ID: {}, To: {}",
                     whatsAppQueue.getId(), request.getToPhone());
@@ -123,253 +178,298 @@ public class MetaWhatsAppService implements WhatsAppService {
         }
     }
 
+    /**
+     * Sends due queued messages through the shared outbound dispatcher
+     */
     @Override
-    @Scheduled(fixedRate = 1, timeUnit = TimeUnit.MINUTES)
-    @Transactional
+    @Scheduled(fixedDelayString = "${notification.dispatch.poll-interval-ms:1000}")
     public void processMessageQueue() {
-        Date currentTime = new Date();
-        Pageable limit = PageRequest.of(0, 100);
-        List<WhatsAppQueue> pendingMessages = whatsAppQueueRepository
-                .findPendingMessagesWithLimit(currentTime, limit);
+        outboundDispatcher.dispatch(this);
+    }
 
-        log.info("Processing {} pending WhatsApp messages from queue", pendingMessages.size());
+    @Override
+    public String channel() {
+        return "whatsapp";
+    }
 
-        for (WhatsAppQueue whatsAppQueue : pendingMessages) {
-            try {
-                whatsAppQueue.setStatus("PROCESSING");
-                whatsAppQueueRepository.save(whatsAppQueue);
+    @Override
+    public String queueTable() {
+        return "whatsapp_queue";
+    }
 
-                WhatsAppRequest whatsAppRequest = WhatsAppRequest.builder()
-                        .sellerId(whatsAppQueue.getSellerId())
-                        .toPhone(whatsAppQueue.getToPhone())
-                        .toName(whatsAppQueue.getToName())
-                        .templateKey(whatsAppQueue.getTemplateKey())
-                        .variables(whatsAppQueue.getVariables())
-                        .mediaUrls(whatsAppQueue.getMediaUrls())
-                        .build();
-
-                String response;
-
-                if (whatsAppQueue.getTemplateKey() != null) {
-                    response = sendTemplateMessage(whatsAppRequest);
-                } else if (whatsAppQueue.getMediaUrls() != null && !whatsAppQueue.getMediaUrls().isEmpty()) {
-                    response = sendMediaMessage(whatsAppRequest);
-                } else {
-                    String messageText = whatsAppQueue.getVariables() != null ?
-                            whatsAppQueue.getVariables().getOrDefault("message", "").toString() : "";
-                    whatsAppRequest.setMessage(messageText);
-                    response = sendTextMessage(whatsAppRequest);
-                }
+    @Override
+    public String provider() {
+        return PROVIDER;
+    }
 
-                String messageId = extractMessageId(response);
+    @Override
+    public List<WhatsAppQueue> load(List<UUID> ids) {
+        return whatsAppQueueRepository.findAllById(ids);
+    }
 
-                whatsAppQueue.setStatus("SENT");
-                whatsAppQueue.setProvider("META");
-                whatsAppQueue.setProviderMessageId(messageId);
-                whatsAppQueue.setProviderResponse(response);
-                whatsAppQueue.setSentAt(new Date());
-                whatsAppQueue.setRetryCount(0);
-                whatsAppQueueRepository.save(whatsAppQueue);
+    @Override
+    public UUID idOf(WhatsAppQueue whatsAppQueue) {
+        return whatsAppQueue.getId();
+    }
 
-                log.debug("Successfully sent queued WhatsApp message ID: {}", whatsAppQueue.getId());
-
-            } catch (Exception e) {
-                log.error("Failed to process queued WhatsApp message ID: {}", whatsAppQueue.getId(), e);
-
-                whatsAppQueue.setRetryCount(whatsAppQueue.getRetryCount() != null ?
-                        whatsAppQueue.getRetryCount() + 1 : 1);
-
-                if (whatsAppQueue.getRetryCount() >= whatsAppQueue.getMaxRetries()) {
-                    whatsAppQueue.setStatus("FAILED");
-                    whatsAppQueue.setProviderResponse(e.getMessage());
-                    whatsAppQueue.setErrorCode("RETRY_EXCEEDED");
-                    whatsAppQueue.setErrorMessage(e.getMessage());
-                } else {
-                    Calendar retryTime = Calendar.getInstance();
-                    retryTime.add(Calendar.MINUTE,
-                            (int) Math.pow(2, whatsAppQueue.getRetryCount()));
-                    whatsAppQueue.setSendAfter(retryTime.getTime());
-                    whatsAppQueue.setStatus("PENDING");
-                }
+    @Override
+    public String sellerIdOf(WhatsAppQueue whatsAppQueue) {
+        return whatsAppQueue.getSellerId();
+    }
 
-                whatsAppQueueRepository.save(whatsAppQueue);
-            }
-        }
+    @Override
+    public boolean isLastAttempt(WhatsAppQueue whatsAppQueue) {
+        int retries = whatsAppQueue.getRetryCount() != null ? whatsAppQueue.getRetryCount() : 0;
+        int maxRetries = whatsAppQueue.getMaxRetries() != null ? whatsAppQueue.getMaxRetries() : 3;
+        return retries + 1 >= maxRetries;
     }
 
-    private String sendTemplateMessage(WhatsAppRequest request) throws IOException {
-        WhatsAppTemplate template = whatsAppTemplateRepository
-                .findByTemplateKeyAndStatus(request.getTemplateKey(), "APPROVED")
-                .orElseThrow(() -> new NotificationException("Template not approved"));
+    @Override
+    public OutboundResult send(WhatsAppQueue whatsAppQueue) throws Exception {
+        try {
+            return sendAsync(whatsAppQueue, Runnable::run).join();
+        } catch (CompletionException e) {
+            throw unwrap(e) instanceof Exception cause ? cause : e;
+        }
+    }
 
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("messaging_product", "whatsapp");
-        requestBody.put("to", request.getToPhone());
-        requestBody.put("type", "template");
+    /**
+     * Waits for a send permit on a virtual thread, then posts without holding a thread per request
+     */
+    @Override
+    public CompletableFuture<OutboundResult> sendAsync(WhatsAppQueue whatsAppQueue, Executor executor) {
+        WhatsAppRequest whatsAppRequest = WhatsAppRequest.builder()
+                .sellerId(whatsAppQueue.getSellerId())
+                .toPhone(whatsAppQueue.getToPhone())
+                .toName(whatsAppQueue.getToName())
+                .templateKey(whatsAppQueue.getTemplateKey())
+                .variables(whatsAppQueue.getVariables())
+                .mediaUrls(whatsAppQueue.getMediaUrls())
+                .build();
 
-        Map<String, Object> templateMap = new HashMap<>();
-        templateMap.put("name", template.getWhatsappTemplateId());
+        if (whatsAppQueue.getTemplateKey() == null
+                && (whatsAppQueue.getMediaUrls() == null || whatsAppQueue.getMediaUrls().isEmpty())) {
+            String messageText = whatsAppQueue.getVariables() != null ?
+                    whatsAppQueue.getVariables().getOrDefault("message", "").toString() : "";
+            whatsAppRequest.setMessage(messageText);
+        }
 
-        Map<String, String> languageMap = new HashMap<>();
-        languageMap.put("code", template.getLanguageCode() != null ? template.getLanguageCode() : "en");
-        templateMap.put("language", languageMap);
+        return CompletableFuture.runAsync(() -> sendRateGovernor.acquire(PROVIDER, whatsAppQueue.getSellerId()), executor)
+                .thenCompose(ignored -> postMessage(whatsAppRequest))
+                .thenApply(response -> {
+                    log.debug("Successfully sent queued WhatsApp message ID: {}", whatsAppQueue.getId());
+                    return new OutboundResult(extractMessageId(response), response);
+                });
+    }
 
-        if (request.getVariables() != null && !request.getVariables().isEmpty()) {
-            List<Map<String, Object>> components = new ArrayList<>();
+    @Override
+    public String failureAssignments() {
+        return "error_message = ?, error_code = CASE WHEN COALESCE(retry_count, 0) + 1 >= COALESCE(max_retries, 3) " +
+                "THEN 'RETRY_EXCEEDED' ELSE error_code END";
+    }
 
-            if (request.getVariables().containsKey("body_variables")) {
-                List<Map<String, String>> bodyVariables = new ArrayList<>();
-                Object bodyVarsObj = request.getVariables().get("body_variables");
+    /**
+     * Approved templates by key. Approval changes are rare, so a short TTL replaces a lookup per send.
+     */
+    private WhatsAppTemplate findApprovedTemplate(String templateKey) {
+        return approvedTemplates.get(templateKey, key -> whatsAppTemplateRepository
+                .findByTemplateKeyAndStatus(key, "APPROVED")
+                .orElse(null));
+    }
 
-                if (bodyVarsObj instanceof List) {
-                    List<?> bodyVars = (List<?>) bodyVarsObj;
-                    for (Object var : bodyVars) {
-                        Map<String, String> varMap = new HashMap<>();
-                        varMap.put("type", "text");
-                        varMap.put("text", var.toString());
-                        bodyVariables.add(varMap);
-                    }
+    private CompletableFuture<String> postMessage(WhatsAppRequest request) {
+        if (request.getTemplateKey() != null) {
+            return makeWhatsAppApiCall(templateMessageBody(request));
+        }
+        if (request.getMediaUrl() != null ||
+                (request.getMediaUrls() != null && !request.getMediaUrls().isEmpty())) {
+            return mediaMessageBody(request).thenCompose(media -> makeWhatsAppApiCall(media.body())
+                    .whenComplete((response, error) -> {
+                        // Only a rejected or expired media id is uploaded again; transport errors and
+                        // throttling keep it
+                        if (error != null && isMediaRejected(unwrap(error), media.mediaId())) {
+                            mediaIds.synchronous().invalidate(media.key());
+                        }
+                    }));
+        }
+        return makeWhatsAppApiCall(textMessageBody(request));
+    }
 
-                    Map<String, Object> bodyComponent = new HashMap<>();
-                    bodyComponent.put("type", "body");
-                    bodyComponent.put("parameters", bodyVariables);
-                    components.add(bodyComponent);
+    private byte[] templateMessageBody(WhatsAppRequest request) {
+        WhatsAppTemplate template = Optional.ofNullable(findApprovedTemplate(request.getTemplateKey()))
+                .orElseThrow(() -> new NotificationException("Template not approved"));
+        String languageCode = template.getLanguageCode() != null ? template.getLanguageCode() : "en";
+        List<?> bodyVariables = request.getVariables() != null
+                && request.getVariables().get("body_variables") instanceof List<?> list ? list : null;
+
+        return json(gen -> {
+            gen.writeStringField("to", request.getToPhone());
+            gen.writeStringField("type", "template");
+            gen.writeObjectFieldStart("template");
+            gen.writeStringField("name", template.getWhatsappTemplateId());
+            gen.writeObjectFieldStart("language");
+            gen.writeStringField("code", languageCode);
+            gen.writeEndObject();
+
+            if (bodyVariables != null) {
+                gen.writeArrayFieldStart("components");
+                gen.writeStartObject();
+                gen.writeStringField("type", "body");
+                gen.writeArrayFieldStart("parameters");
+                for (Object variable : bodyVariables) {
+                    gen.writeStartObject();
+                    gen.writeStringField("type", "text");
+                    gen.writeStringField("text", variable.toString());
+                    gen.writeEndObject();
                 }
+                gen.writeEndArray();
+                gen.writeEndObject();
+                gen.writeEndArray();
             }
-
-            if (!components.isEmpty()) {
-                templateMap.put("components", components);
-            }
-        }
-
-        requestBody.put("template", templateMap);
-
-        return makeWhatsAppApiCall(requestBody);
+            gen.writeEndObject();
+        });
     }
 
-    private String sendTextMessage(WhatsAppRequest request) throws IOException {
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("messaging_product", "whatsapp");
-        requestBody.put("to", request.getToPhone());
-        requestBody.put("type", "text");
-
-        Map<String, String> textMap = new HashMap<>();
-        textMap.put("preview_url", "false");
-        textMap.put("body", request.getMessage() != null ? request.getMessage() : "");
-
-        requestBody.put("text", textMap);
-
-        return makeWhatsAppApiCall(requestBody);
+    private byte[] textMessageBody(WhatsAppRequest request) {
+        return json(gen -> {
+            gen.writeStringField("to", request.getToPhone());
+            gen.writeStringField("type", "text");
+            gen.writeObjectFieldStart("text");
+            gen.writeBooleanField("preview_url", false);
+            gen.writeStringField("body", request.getMessage() != null ? request.getMessage() : "");
+            gen.writeEndObject();
+        });
     }
 
-    private String sendMediaMessage(WhatsAppRequest request) throws IOException {
+    private CompletableFuture<MediaMessage> mediaMessageBody(WhatsAppRequest request) {
         String mediaUrl;
         String mediaType;
+        String caption = null;
+        String contentHash = null;
 
         if (request.getMediaUrl() != null) {
             mediaUrl = request.getMediaUrl();
             mediaType = "image"; // default, you might want to detect from URL
-        } else if (request.getMediaUrls() != null && !request.getMediaUrls().isEmpty()) {
+        } else {
             Map<String, Object> media = request.getMediaUrls().getFirst();
             mediaUrl = media.get("url").toString();
             mediaType = media.get("type") != null ? media.get("type").toString() : "image";
-        } else {
-            throw new NotificationException("No media URL provided");
-        }
-
-        String mediaId = uploadMedia(mediaUrl, mediaType);
-
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("messaging_product", "whatsapp");
-        requestBody.put("to", request.getToPhone());
-        requestBody.put("type", mediaType.toLowerCase());
-
-        Map<String, String> mediaMap = new HashMap<>();
-        mediaMap.put("id", mediaId);
-
-        if (request.getMediaUrls() != null && !request.getMediaUrls().isEmpty() &&
-                request.getMediaUrls().getFirst().containsKey("caption")) {
-            mediaMap.put("caption", request.getMediaUrls().getFirst().get("caption").toString());
+            caption = media.get("caption") != null ? media.get("caption").toString() : null;
+            contentHash = media.get("hash") != null ? media.get("hash").toString() : null;
         }
 
-        requestBody.put(mediaType.toLowerCase(), mediaMap);
-
-        return makeWhatsAppApiCall(requestBody);
+        String type = mediaType.toLowerCase();
+        String mediaCaption = caption;
+        MediaKey key = new MediaKey(mediaUrl, type, contentHash);
+        CompletableFuture<String> mediaId = mediaIds.get(key, (k, executor) -> uploadMedia(mediaUrl, mediaType));
+
+        return mediaId.thenApply(id -> new MediaMessage(key, id, json(gen -> {
+            gen.writeStringField("to", request.getToPhone());
+            gen.writeStringField("type", type);
+            gen.writeObjectFieldStart(type);
+            gen.writeStringField("id", id);
+            if (mediaCaption != null) {
+                gen.writeStringField("caption", mediaCaption);
+            }
+            gen.writeEndObject();
+        })));
     }
 
-    private String uploadMedia(String mediaUrl, String mediaType) throws IOException {
-        String uploadUrl = whatsAppProperties.getBaseUrl() +
-                whatsAppProperties.getPhoneNumberId() + "/media";
-
-        Map<String, Object> uploadBody = new HashMap<>();
-        uploadBody.put("messaging_product", "whatsapp");
-        uploadBody.put("type", mediaType);
-        uploadBody.put("url", mediaUrl);
-
-        RequestBody body = RequestBody.create(
-                objectMapper.writeValueAsString(uploadBody),
-                MediaType.parse("application/json")
-        );
+    private CompletableFuture<String> uploadMedia(String mediaUrl, String mediaType) {
+        byte[] body = json(gen -> {
+            gen.writeStringField("type", mediaType);
+            gen.writeStringField("url", mediaUrl);
+        });
 
-        Request request = new Request.Builder()
-                .url(uploadUrl)
-                .post(body)
-                .addHeader("Authorization", "Bearer " + whatsAppProperties.getAccessToken())
-                .addHeader("Content-Type", "application/json")
-                .build();
+        return providerHttpClient.postJson(PROVIDER, "media", mediaUploadUrl, authHeaders, body)
+                .thenApply(response -> {
+                    if (!response.isSuccessful()) {
+                        throw new NotificationException("Failed to upload media: " + response.body());
+                    }
+                    String mediaId;
+                    try {
+                        mediaId = objectMapper.readTree(response.body()).path("id").asText(null);
+                    } catch (JsonProcessingException e) {
+                        throw new NotificationException("Invalid media upload response: " + e.getMessage());
+                    }
+                    if (mediaId == null) {
+                        throw new NotificationException("Media upload returned no id: " + response.body());
+                    }
+                    return mediaId;
+                });
+    }
 
-        try (Response response = httpClient.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                assert response.body() != null;
-                throw new NotificationException("Failed to upload media: " + response.body().string());
-            }
+    private CompletableFuture<String> makeWhatsAppApiCall(byte[] body) {
+        return providerHttpClient.postJson(PROVIDER, "messages", messagesUrl, authHeaders, body)
+                .thenApply(response -> {
+                    if (!response.isSuccessful()) {
+                        if (isThrottled(response.code(), response.body())) {
+                            sendRateGovernor.onThrottled(PROVIDER);
+                            log.warn("WhatsApp API throttled: {}", response.body());
+                            throw new SendThrottledException("WhatsApp API throttled: " + response.body());
+                        }
+                        log.error("WhatsApp API error: {}", response.body());
+                        throw new WhatsAppApiException(response.code(), response.body());
+                    }
 
-            assert response.body() != null;
-            Map<String, Object> responseMap = objectMapper.readValue(
-                    response.body().string(), Map.class);
+                    sendRateGovernor.onSuccess(PROVIDER);
+                    return response.body();
+                });
+    }
 
-            return (String) responseMap.get("id");
+    /**
+     * Writes a Graph API request object; the messaging_product field every request carries is added here
+     */
+    private byte[] json(JsonBody body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeStringField("messaging_product", "whatsapp");
+            body.write(gen);
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return out.toByteArray();
     }
 
-    private String makeWhatsAppApiCall(Map<String, Object> requestBody) throws IOException {
-        String url = whatsAppProperties.getBaseUrl() +
-                whatsAppProperties.getPhoneNumberId() + "/messages";
-
-        RequestBody body = RequestBody.create(
-                objectMapper.writeValueAsString(requestBody),
-                MediaType.parse("application/json")
-        );
-
-        Request request = new Request.Builder()
-                .url(url)
-                .post(body)
-                .addHeader("Authorization", "Bearer " + whatsAppProperties.getAccessToken())
-                .addHeader("Content-Type", "application/json")
-                .build();
-
-        try (Response response = httpClient.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                assert response.body() != null;
-                String errorBody = response.body().string();
-                log.error("WhatsApp API error: {}", errorBody);
-                throw new NotificationException("WhatsApp API error: " + errorBody);
-            }
+    /**
+     * HTTP 429, or a Graph API rate limit error code (4 app, 80007 account, 130429 throughput)
+     */
+    private boolean isThrottled(int statusCode, String errorBody) {
+        return statusCode == 429 || THROTTLE_ERROR_CODE.matcher(errorBody).find();
+    }
 
-            assert response.body() != null;
-            return response.body().string();
+    /**
+     * A media error code, or a 400 naming the media id (invalid or expired id)
+     */
+    private static boolean isMediaRejected(Throwable error, String mediaId) {
+        if (!(error instanceof WhatsAppApiException apiError)) {
+            return false;
         }
+        return MEDIA_ERROR_CODE.matcher(apiError.body).find()
+                || (apiError.statusCode == 400 && apiError.body.contains(mediaId));
     }
 
-    private String extractMessageId(String response) throws IOException {
-        Map<String, Object> responseMap = objectMapper.readValue(response, Map.class);
-        if (responseMap.containsKey("messages")) {
-            Map<String, Object> messages = (Map<String, Object>) responseMap.get("messages");
-            return (String) messages.get("id");
+    /**
+     * Graph API returns {"messages": [{"id": "wamid..."}]}
+     */
+    private String extractMessageId(String response) {
+        try {
+            String messageId = objectMapper.readTree(response).path("messages").path(0).path("id").asText(null);
+            if (messageId != null) {
+                return messageId;
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Could not read message id from WhatsApp response: {}", e.getMessage());
         }
         return UUID.randomUUID().toString();
     }
 
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
     private void validateWhatsAppRequest(WhatsAppRequest request) {
         if (request.getToPhone() == null || request.getToPhone().isEmpty()) {
             throw new NotificationException("Recipient phone number is required");
@@ -390,12 +490,8 @@ public class MetaWhatsAppService implements WhatsAppService {
         }
     }
 
-    private void checkWhatsAppRateLimits(String sellerId) {
-        // TODO: Implement rate limiting
-    }
-
     private boolean isValidPhoneNumber(String phone) {
-        return phone != null && phone.matches("^\\+[1-9]\\d{1,14}$");
+        return phone != null && PHONE_PATTERN.matcher(phone).matches();
     }
 
     private WhatsAppQueue saveToQueue(WhatsAppRequest request, String providerMessageId,
@@ -414,7 +510,10 @@ public class MetaWhatsAppService implements WhatsAppService {
                 .sentAt(new Date())
                 .build();
 
-        return whatsAppQueueRepository.save(whatsAppQueue);
+        whatsAppQueue = whatsAppQueueRepository.save(whatsAppQueue);
+        deliveryCounters.record(DeliveryCounterStore.WHATSAPP, whatsAppQueue.getSellerId(), Metric.ATTEMPTED);
+        deliveryCounters.record(DeliveryCounterStore.WHATSAPP, whatsAppQueue.getSellerId(), Metric.SENT);
+        return whatsAppQueue;
     }
 
     @Override
@@ -523,6 +622,7 @@ public class MetaWhatsAppService implements WhatsAppService {
 
             if (queueOpt.isPresent()) {
                 WhatsAppQueue whatsAppQueue = queueOpt.get();
+                String previousStatus = whatsAppQueue.getStatus();
                 whatsAppQueue.setStatus(statusStr.toUpperCase());
 
                 try {
@@ -537,8 +637,57 @@ public class MetaWhatsAppService implements WhatsAppService {
                 }
 
                 whatsAppQueueRepository.save(whatsAppQueue);
+                countStatusChange(whatsAppQueue, previousStatus);
                 log.debug("Updated WhatsApp message status: {} -> {}", messageId, statusStr);
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Counts a status once per message; Meta repeats webhooks, and reads are counted as opens
+     */
+    private void countStatusChange(WhatsAppQueue whatsAppQueue, String previousStatus) {
+        String status = whatsAppQueue.getStatus();
+        if (status.equals(previousStatus)) {
+            return;
+        }
+        Metric metric = switch (status) {
+            case "DELIVERED" -> Metric.DELIVERED;
+            case "READ" -> Metric.OPENED;
+            case "FAILED" -> Metric.FAILED;
+            default -> null;
+        };
+        if (metric != null) {
+            deliveryCounters.record(DeliveryCounterStore.WHATSAPP, whatsAppQueue.getSellerId(), metric);
+        }
+    }
+
+    /**
+     * Media is uploaded by URL and Meta fetches it, so the bytes are never seen here; callers that
+     * may replace the file behind a URL pass its content hash as "hash" to get a fresh upload
+     */
+    private record MediaKey(String url, String type, String contentHash) {
+    }
+
+    private record MediaMessage(MediaKey key, String mediaId, byte[] body) {
+    }
+
+    /**
+     * A non-2xx Graph API response other than throttling
+     */
+    private static final class WhatsAppApiException extends NotificationException {
+        private final int statusCode;
+        private final String body;
+
+        private WhatsAppApiException(int statusCode, String body) {
+            super("WhatsApp API error: " + body);
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonBody {
+        void write(JsonGenerator gen) throws IOException;
+    }
+}
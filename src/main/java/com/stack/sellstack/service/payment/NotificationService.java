@@ -1,15 +1,19 @@
 package com.stack.sellstack.service.payment;
 
+import com.stack.sellstack.model.dto.request.EmailQueueRequest;
+import com.stack.sellstack.model.dto.request.WhatsAppQueueRequest;
 import com.stack.sellstack.model.entity.Payment;
 import com.stack.sellstack.model.entity.Product;
 import com.stack.sellstack.model.entity.Refund;
 import com.stack.sellstack.model.entity.Seller;
+import com.stack.sellstack.util.HtmlToText;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -19,86 +23,92 @@ public class NotificationService {
 
     private final EmailService emailService;
     private final WhatsAppService whatsAppService;
-
-    public void sendPaymentSuccessNotification(Payment payment) {
-        try {
-            Seller buyer = payment.getBuyer();
-            Product product = payment.getProduct();
-
-            // Format amount
-            DecimalFormat df = new DecimalFormat("₹ #,##0.00");
-            String formattedAmount = df.format(payment.getAmount());
-
-            // Send email to buyer
-            String buyerEmailSubject = "Payment Successful - " + product.getTitle();
-            String buyerEmailBody = buildPaymentSuccessEmail(
-                    buyer.getDisplayName(),
+    // Outbound queues drained by the notification dispatcher
+    private final com.stack.sellstack.service.notification.EmailService emailQueueService;
+    private final com.stack.sellstack.service.notification.WhatsAppService whatsAppQueueService;
+
+    /**
+     * Queue the buyer receipt (email, and WhatsApp if the buyer has a phone) and the seller's
+     * new-sale email. Called by the notification outbox relay; failures propagate so the relay
+     * retries the whole event.
+     */
+    public void queuePaymentSuccessNotification(Payment payment) {
+        Seller buyer = payment.getBuyer();
+        Product product = payment.getProduct();
+
+        // Format amount
+        DecimalFormat df = new DecimalFormat("₹ #,##0.00");
+        String formattedAmount = df.format(payment.getAmount());
+
+        // Queue email to buyer
+        String buyerEmailSubject = "Payment Successful - " + product.getTitle();
+        String buyerEmailBody = buildPaymentSuccessEmail(
+                buyer.getDisplayName(),
+                product.getTitle(),
+                formattedAmount,
+                payment.getReceiptNumber(),
+                payment.getPaymentMethod()
+        );
+
+        queueEmail(payment, buyer, buyerEmailSubject, buyerEmailBody);
+
+        // Queue WhatsApp to buyer if phone available
+        if (buyer.getPhone() != null) {
+            String whatsAppMessage = buildPaymentSuccessWhatsApp(
                     product.getTitle(),
                     formattedAmount,
-                    payment.getReceiptNumber(),
-                    payment.getPaymentMethod()
+                    payment.getReceiptNumber()
             );
 
-            emailService.sendEmail(buyer.getEmail(), buyerEmailSubject, buyerEmailBody);
-
-            // Send WhatsApp to buyer if phone available
-            if (buyer.getPhone() != null) {
-                String whatsAppMessage = buildPaymentSuccessWhatsApp(
-                        product.getTitle(),
-                        formattedAmount,
-                        payment.getReceiptNumber()
-                );
+            whatsAppQueueService.queueMessage(WhatsAppQueueRequest.builder()
+                    .sellerId(payment.getSeller().getId().toString())
+                    .orderId(payment.getRazorpayOrderId())
+                    .toPhone(whatsAppService.formatPhoneNumber(buyer.getPhone()))
+                    .toName(buyer.getDisplayName())
+                    .variables(Map.of("message", whatsAppMessage))
+                    .build());
+        }
 
-                whatsAppService.sendMessage(buyer.getPhone(), whatsAppMessage);
-            }
+        // Queue notification to seller
+        Seller seller = payment.getSeller();
+        BigDecimal sellerShare = calculateSellerShare(payment.getAmount());
+        String sellerFormattedShare = df.format(sellerShare);
 
-            // Send notification to seller
-            Seller seller = payment.getSeller();
-            BigDecimal sellerShare = calculateSellerShare(payment.getAmount());
-            String sellerFormattedShare = df.format(sellerShare);
+        String sellerEmailSubject = "New Sale! - " + product.getTitle();
+        String sellerEmailBody = buildNewSaleEmail(
+                seller.getDisplayName(),
+                product.getTitle(),
+                formattedAmount,
+                sellerFormattedShare,
+                buyer.getDisplayName() != null ? buyer.getDisplayName() : buyer.getEmail()
+        );
 
-            String sellerEmailSubject = "New Sale! - " + product.getTitle();
-            String sellerEmailBody = buildNewSaleEmail(
-                    seller.getDisplayName(),
-                    product.getTitle(),
-                    formattedAmount,
-                    sellerFormattedShare,
-                    buyer.getDisplayName() != null ? buyer.getDisplayName() : buyer.getEmail()
-            );
+        queueEmail(payment, seller, sellerEmailSubject, sellerEmailBody);
 
-            emailService.sendEmail(seller.getEmail(), sellerEmailSubject, sellerEmailBody);
-
-            log.info("Payment success notifications sent for payment: {}", payment.getId());
-
-        } catch (Exception e) {
-            log.error("Error sending payment success notifications", e);
-            // Don't throw exception - payment shouldn't fail due to notification error
-        }
+        log.info("Payment success notifications queued for payment: {}", payment.getId());
     }
 
-    public void sendProductDeliveryNotification(Payment payment) {
-        try {
-            Seller buyer = payment.getBuyer();
-            Product product = payment.getProduct();
-
-            // Generate download link (you need to implement this)
-            String downloadLink = generateDownloadLink(payment);
+    /**
+     * Queue the download email to the buyer. Called by the notification outbox relay.
+     */
+    public void queueProductDeliveryNotification(Payment payment) {
+        Seller buyer = payment.getBuyer();
+        Product product = payment.getProduct();
 
-            String emailSubject = "Your Download is Ready - " + product.getTitle();
-            String emailBody = buildDeliveryEmail(
-                    buyer.getDisplayName(),
-                    product.getTitle(),
-                    downloadLink,
-                    product.getDownloadExpiryDays()
-            );
+        // Generate download link (you need to implement this)
+        String downloadLink = generateDownloadLink(payment);
 
-            emailService.sendEmail(buyer.getEmail(), emailSubject, emailBody);
+        String emailSubject = "Your Download is Ready - " + product.getTitle();
+        String emailBody = buildDeliveryEmail(
+                buyer.getDisplayName(),
+                product.getTitle(),
+                downloadLink,
+                product.getDownloadExpiryDays()
+        );
 
-            log.info("Product delivery notification sent for payment: {}", payment.getId());
+        queueEmail(payment, buyer, emailSubject, emailBody);
 
-        } catch (Exception e) {
-            log.error("Error sending product delivery notification", e);
-        }
+        log.info("Product delivery notification queued for payment: {}", payment.getId());
     }
 
     public void sendRefundNotification(Payment payment, Refund refund) {
@@ -144,6 +154,19 @@ public class NotificationService {
     }
 
     // Helper methods
+    // Messages about a sale count against the selling seller's send rate
+    private void queueEmail(Payment payment, Seller recipient, String subject, String htmlBody) {
+        emailQueueService.queueEmail(EmailQueueRequest.builder()
+                .sellerId(payment.getSeller().getId().toString())
+                .orderId(payment.getRazorpayOrderId())
+                .to(recipient.getEmail())
+                .toName(recipient.getDisplayName())
+                .subject(subject)
+                .htmlContent(htmlBody)
+                .plainTextContent(HtmlToText.convert(htmlBody))
+                .build());
+    }
+
     private String buildPaymentSuccessEmail(String buyerName, String productTitle,
                                             String amount, String receipt, String method) {
         return """
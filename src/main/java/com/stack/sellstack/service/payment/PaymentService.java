@@ -8,7 +8,9 @@ import com.stack.sellstack.exception.RefundException;
 import com.stack.sellstack.model.dto.request.*;
 import com.stack.sellstack.model.dto.response.*;
 import com.stack.sellstack.model.entity.*;
+import com.stack.sellstack.model.entity.NotificationOutbox.EventType;
 import com.stack.sellstack.repository.*;
+import com.stack.sellstack.service.notification.outbox.NotificationOutboxService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -35,6 +37,7 @@ public class PaymentService {
     private final ProductRepository productRepository;
     private final SellerRepository sellerRepository;
     private final NotificationService notificationService;
+    private final NotificationOutboxService notificationOutboxService;
 
     @Transactional
     public PaymentOrderResponse createPaymentOrder(PaymentOrderRequest request) {
@@ -185,9 +188,9 @@ public class PaymentService {
                 // Create transaction record
                 createPaymentTransaction(payment);
 
-                // Send notifications
-                notificationService.sendPaymentSuccessNotification(payment);
-                notificationService.sendProductDeliveryNotification(payment);
+                // Notifications are sent by the outbox relay once this transaction commits
+                notificationOutboxService.record(EventType.PAYMENT_SUCCEEDED, payment.getId());
+                notificationOutboxService.record(EventType.PRODUCT_DELIVERY, payment.getId());
 
                 log.info("Payment captured successfully: {}", payment.getId());
             }
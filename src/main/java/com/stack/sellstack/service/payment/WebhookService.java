@@ -1,10 +1,15 @@
 package com.stack.sellstack.service.payment;
 
 import com.stack.sellstack.model.entity.*;
+import com.stack.sellstack.model.entity.NotificationOutbox.EventType;
 import com.stack.sellstack.repository.*;
+import com.stack.sellstack.service.notification.outbox.NotificationOutboxService;
+import com.stack.sellstack.service.product.ProductCache;
+import com.stack.sellstack.service.product.ProductChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.json.JSONObject;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +29,9 @@ public class WebhookService {
     private final PaymentTransactionRepository paymentTransactionRepository; // FIXED: Changed from TransactionRepository
     private final SellerBalanceRepository sellerBalanceRepository; // FIXED: Added for balance management
     private final NotificationService notificationService;
+    private final NotificationOutboxService notificationOutboxService;
+    private final ProductCache productCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public void processWebhookEvent(String payload) {
@@ -133,6 +141,9 @@ public class WebhookService {
         Product product = paymentEntity.getProduct();
         product.setSalesCount(product.getSalesCount() + 1); // FIXED: Use correct field name
         productRepository.save(product);
+        // Cached copies and the search index carry the sales count
+        productCache.evict(product.getId(), product.getSlug());
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
 
         // Update seller balance using SellerBalance entity
         Seller seller = product.getSeller();
@@ -161,9 +172,9 @@ public class WebhookService {
         seller.setTotalSales(seller.getTotalSales() + 1);
         sellerRepository.save(seller);
 
-        // Send notifications
-        notificationService.sendPaymentSuccessNotification(paymentEntity);
-        notificationService.sendProductDeliveryNotification(paymentEntity);
+        // Notifications are sent by the outbox relay once this transaction commits
+        notificationOutboxService.record(EventType.PAYMENT_SUCCEEDED, paymentEntity.getId());
+        notificationOutboxService.record(EventType.PRODUCT_DELIVERY, paymentEntity.getId());
 
         log.info("Payment captured: {}, Amount: {}, Seller Share: {}",
                 paymentId, amountInRupees, sellerShare);
@@ -33,8 +33,8 @@ public class WhatsAppService {
     @Value("${whatsapp.api.template.refund-processed:refund_processed}")
     private String refundProcessedTemplate;
 
-    public WhatsAppService() {
-        this.restTemplate = new RestTemplate();
+    public WhatsAppService(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
     }
 
     /**
@@ -201,9 +201,9 @@ public class WhatsAppService {
     }
 
     /**
-     * Format phone number
+     * Format phone number as E.164, defaulting to India
      */
-    private String formatPhoneNumber(String phoneNumber) {
+    public String formatPhoneNumber(String phoneNumber) {
         String formatted = phoneNumber.replaceAll("[^0-9+]", "");
 
         if (!formatted.startsWith("+")) {
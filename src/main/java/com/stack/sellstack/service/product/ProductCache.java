@@ -0,0 +1,299 @@
+package com.stack.sellstack.service.product;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stack.sellstack.model.dto.response.ProductResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read cache for public product lookups.
+ *
+ * L1 is a per-node Caffeine cache, L2 is Redis shared by all nodes. Single products are cached
+ * in both tiers by id and by slug. Browse pages change with every write, so they only live in L1
+ * with a short TTL. Writes evict after commit and publish the eviction on a Redis channel so
+ * every node drops its L1 copy. Redis errors degrade to L1 + database, never to a failed read.
+ *
+ * Misses are loaded outside Caffeine's compute, one load per key at a time. A load that overlapped
+ * an eviction on this node is returned but not cached, since it may have read the old row. A
+ * load on another node can still write the old row to Redis after the eviction, so every eviction
+ * is repeated once after a short delay.
+ */
+@Component
+@Slf4j
+public class ProductCache implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "sellstack:product-cache:invalidate";
+
+    private static final String L2_PREFIX = "product:";
+    private static final String ID_KEY = "id:";
+    private static final String SLUG_KEY = "slug:";
+    private static final String BROWSE_MESSAGE = "browse";
+
+    private final Cache<String, ProductResponse> products;
+    private final Cache<String, CachedPage> browsePages;
+    private final ConcurrentMap<String, CompletableFuture<ProductResponse>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+    private final ScheduledExecutorService secondEvictions =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("product-cache-evict-"));
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration l2Ttl;
+    private final long secondEvictionDelayMs;
+
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter l2Errors;
+
+    public ProductCache(ObjectProvider<StringRedisTemplate> redisTemplate,
+                        ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry,
+                        @Value("${product.cache.redis-enabled:true}") boolean redisEnabled,
+                        @Value("${product.cache.l1.max-size:10000}") long l1MaxSize,
+                        @Value("${product.cache.l1.ttl-seconds:300}") long l1TtlSeconds,
+                        @Value("${product.cache.l2.ttl-seconds:1800}") long l2TtlSeconds,
+                        @Value("${product.cache.browse.max-size:2000}") long browseMaxSize,
+                        @Value("${product.cache.browse.ttl-seconds:60}") long browseTtlSeconds,
+                        @Value("${product.cache.second-eviction-delay-ms:2000}") long secondEvictionDelayMs) {
+
+        this.redisTemplate = redisEnabled ? redisTemplate.getIfAvailable() : null;
+        this.objectMapper = objectMapper;
+        this.l2Ttl = Duration.ofSeconds(l2TtlSeconds);
+        this.secondEvictionDelayMs = secondEvictionDelayMs;
+
+        this.products = Caffeine.newBuilder()
+                .maximumSize(l1MaxSize)
+                .expireAfterWrite(Duration.ofSeconds(l1TtlSeconds))
+                .recordStats()
+                .build();
+        this.browsePages = Caffeine.newBuilder()
+                .maximumSize(browseMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(browseTtlSeconds))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "product.l1");
+        CaffeineCacheMetrics.monitor(meterRegistry, browsePages, "product.browse");
+
+        this.l2Hits = Counter.builder("product.cache.l2")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.l2Misses = Counter.builder("product.cache.l2")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.l2Errors = Counter.builder("product.cache.l2")
+                .tag("result", "error")
+                .register(meterRegistry);
+    }
+
+    public ProductResponse getById(UUID productId, Supplier<ProductResponse> loader) {
+        return get(ID_KEY + productId, loader);
+    }
+
+    public ProductResponse getBySlug(String slug, Supplier<ProductResponse> loader) {
+        return get(SLUG_KEY + slug, loader);
+    }
+
+    public Page<ProductResponse> getPage(String key, Pageable pageable, Supplier<Page<ProductResponse>> loader) {
+        CachedPage page = browsePages.get(key, k -> CachedPage.of(loader.get()));
+        return new PageImpl<>(page.content(), pageable, page.total());
+    }
+
+    /**
+     * Evict a product (by id and every slug it was reachable under) and all browse pages.
+     * Inside a transaction the eviction waits for the commit, so no node can re-cache the old row;
+     * it is repeated after second-eviction-delay-ms to drop a stale copy a concurrent load wrote.
+     */
+    public void evict(UUID productId, String... slugs) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictTwice(productId, slugs);
+                }
+            });
+        } else {
+            evictTwice(productId, slugs);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String key = new String(message.getBody(), StandardCharsets.UTF_8);
+        evictions.incrementAndGet();
+        if (!BROWSE_MESSAGE.equals(key)) {
+            loading.remove(key);
+            products.invalidate(key);
+        }
+        browsePages.invalidateAll();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        secondEvictions.shutdown();
+    }
+
+    private ProductResponse get(String key, Supplier<ProductResponse> loader) {
+        ProductResponse cached = products.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<ProductResponse> load = new CompletableFuture<>();
+        CompletableFuture<ProductResponse> inFlight = loading.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+
+        try {
+            long generation = evictions.get();
+            ProductResponse loaded = readL2(key);
+            if (loaded == null) {
+                loaded = loader.get();
+                if (evictions.get() == generation) {
+                    writeL2(key, loaded);
+                }
+            }
+            if (loaded != null && evictions.get() == generation) {
+                products.put(key, loaded);
+            }
+            load.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    private static ProductResponse await(CompletableFuture<ProductResponse> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private void evictTwice(UUID productId, String... slugs) {
+        evictNow(productId, slugs);
+        try {
+            secondEvictions.schedule(() -> evictNow(productId, slugs), secondEvictionDelayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Skipping delayed product cache eviction for {}: shutting down", productId);
+        }
+    }
+
+    private void evictNow(UUID productId, String... slugs) {
+        List<String> keys = new ArrayList<>();
+        keys.add(ID_KEY + productId);
+        for (String slug : slugs) {
+            if (slug != null) {
+                keys.add(SLUG_KEY + slug);
+            }
+        }
+
+        evictions.incrementAndGet();
+        keys.forEach(loading::remove);
+        products.invalidateAll(keys);
+        browsePages.invalidateAll();
+
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.delete(keys.stream().map(k -> L2_PREFIX + k).toList());
+            for (String key : keys) {
+                redisTemplate.convertAndSend(INVALIDATION_CHANNEL, key);
+            }
+        } catch (Exception e) {
+            l2Errors.increment();
+            log.warn("Failed to propagate product cache eviction for {}: {}", productId, e.getMessage());
+        }
+    }
+
+    private ProductResponse readL2(String key) {
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            String json = redisTemplate.opsForValue().get(L2_PREFIX + key);
+            if (json == null) {
+                l2Misses.increment();
+                return null;
+            }
+            l2Hits.increment();
+            return objectMapper.readValue(json, ProductResponse.class);
+        } catch (Exception e) {
+            l2Errors.increment();
+            log.debug("Product L2 cache read failed for {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeL2(String key, ProductResponse product) {
+        if (redisTemplate == null || product == null) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(L2_PREFIX + key, objectMapper.writeValueAsString(product), l2Ttl);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize product {} for cache", product.getId(), e);
+        } catch (Exception e) {
+            l2Errors.increment();
+            log.debug("Product L2 cache write failed for {}: {}", key, e.getMessage());
+        }
+    }
+
+    private record CachedPage(List<ProductResponse> content, long total) {
+
+        static CachedPage of(Page<ProductResponse> page) {
+            return new CachedPage(page.getContent(), page.getTotalElements());
+        }
+    }
+
+    /**
+     * Cache key for a browse request; every parameter that changes the result is part of it.
+     */
+    public static String browseKey(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : parts) {
+            key.append(Objects.toString(part, "")).append('|');
+        }
+        return key.toString();
+    }
+}
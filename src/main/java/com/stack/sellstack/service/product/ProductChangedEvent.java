@@ -0,0 +1,9 @@
+package com.stack.sellstack.service.product;
+
+import java.util.UUID;
+
+/**
+ * Published by ProductService after any write to a product.
+ */
+public record ProductChangedEvent(UUID productId) {
+}
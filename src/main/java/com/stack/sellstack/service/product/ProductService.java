@@ -2,6 +2,9 @@ package com.stack.sellstack.service.product;
 
 import com.stack.sellstack.exception.ValidationException;
 import com.stack.sellstack.model.dto.request.ProductRequest;
+import com.stack.sellstack.model.dto.request.ProductSearchRequest;
+import com.stack.sellstack.model.dto.response.CursorPage;
+import com.stack.sellstack.model.dto.response.ProductSearchResponse;
 import com.stack.sellstack.model.dto.response.ProductResponse;
 import com.stack.sellstack.exception.BusinessException;
 import com.stack.sellstack.exception.ResourceNotFoundException;
@@ -9,12 +12,17 @@ import com.stack.sellstack.model.entity.FileMetadata;
 import com.stack.sellstack.model.entity.Product;
 import com.stack.sellstack.model.entity.Seller;
 import com.stack.sellstack.model.enums.ProductStatus;
+import com.stack.sellstack.repository.CatalogKeyset;
+import com.stack.sellstack.repository.CatalogSpecification;
 import com.stack.sellstack.repository.ProductRepository;
 import com.stack.sellstack.repository.SellerRepository;
+import com.stack.sellstack.service.search.ProductSearchService;
 import com.stack.sellstack.service.storage.FileStorageService;
+import com.stack.sellstack.util.PageCursor;
 import com.stack.sellstack.util.SlugGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -24,6 +32,9 @@ import org.springframework.web.multipart.MultipartFile;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 import java.util.UUID;
 
 @Service
@@ -35,6 +46,10 @@ public class ProductService {
     private final SellerRepository sellerRepository;
     private final FileStorageService fileStorageService;
     private final SlugGenerator slugGenerator;
+    private final ProductCache productCache;
+    private final ProductViewCounter productViewCounter;
+    private final ProductSearchService productSearchService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public ProductResponse createProduct(UUID sellerId, ProductRequest.CreateProductRequest request) {
@@ -126,6 +141,8 @@ public class ProductService {
             throw new BusinessException("You don't have permission to update this product");
         }
 
+        String previousSlug = product.getSlug();
+
         // Update fields if provided
         if (request.getTitle() != null) {
             product.setTitle(request.getTitle());
@@ -195,6 +212,7 @@ public class ProductService {
         }
 
         product = productRepository.save(product);
+        onProductChanged(productId, previousSlug, product.getSlug());
 
         log.info("Product updated: {}", productId);
 
@@ -222,6 +240,7 @@ public class ProductService {
         }
 
         product = productRepository.save(product);
+        onProductChanged(productId, product.getSlug());
 
         log.info("Product {}: {}", productId, publish ? "published" : "unpublished");
 
@@ -242,6 +261,7 @@ public class ProductService {
         product.setStatus(ProductStatus.DELETED);
         product.setIsDeleted(true);
         productRepository.save(product);
+        onProductChanged(productId, product.getSlug());
 
         // Update seller product count
         Seller seller = product.getSeller();
@@ -311,70 +331,121 @@ public class ProductService {
      * Get product by ID
      */
     public ProductResponse getProduct(UUID productId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+        ProductResponse product = productCache.getById(productId, () ->
+                ProductResponse.fromEntity(productRepository.findWithSellerById(productId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Product not found"))));
 
-        // Increment page views (async)
+        // Increment page views (buffered)
         incrementPageViews(productId);
 
-        return ProductResponse.fromEntity(product);
+        return product;
     }
 
     /**
      * Get product by slug
      */
     public ProductResponse getProductBySlug(String slug) {
-        Product product = productRepository.findBySlug(slug)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+        ProductResponse product = productCache.getBySlug(slug, () ->
+                ProductResponse.fromEntity(productRepository.findWithSellerBySlug(slug)
+                        .orElseThrow(() -> new ResourceNotFoundException("Product not found"))));
 
         // Check if product is published (unless seller is viewing)
         if (!ProductStatus.PUBLISHED.equals(product.getStatus())) {
             throw new ResourceNotFoundException("Product not found");
         }
 
-        // Increment page views (async)
+        // Increment page views (buffered)
         incrementPageViews(product.getId());
 
-        return ProductResponse.fromEntity(product);
+        return product;
     }
 
     /**
      * Browse published products with filters
      */
-    public Page<ProductResponse> browseProducts(String category, String search,
-                                                BigDecimal minPrice, BigDecimal maxPrice,
-                                                Pageable pageable) {
-        Page<Product> products;
+    public Page<ProductResponse> browseProducts(ProductSearchRequest request, Pageable pageable) {
+        String cacheKey = ProductCache.browseKey(request.getCategory(), request.getQuery(),
+                request.getTags() != null ? new TreeSet<>(request.getTags()) : null,
+                request.getLanguage(), request.getMinPrice(), request.getMaxPrice(),
+                request.getFeatured(), pageable.getPageNumber(), pageable.getPageSize(),
+                pageable.getSort());
+
+        return productCache.getPage(cacheKey, pageable, () -> productSearchService.browse(request, pageable));
+    }
 
-        if (search != null && !search.trim().isEmpty()) {
-            // Search in published products
-            products = productRepository.searchPublishedProducts(search.trim(), pageable);
-        } else if (category != null && !category.trim().isEmpty()) {
-            // Filter by category
-            products = productRepository.findByCategoryAndStatus(
-                    category.trim(),
-                    ProductStatus.PUBLISHED,
-                    pageable
-            );
-        } else {
-            // Get all published products
-            products = productRepository.findByStatus(ProductStatus.PUBLISHED, pageable);
+    /**
+     * Keyset-paginated browse for infinite scroll: each page seeks past the cursor instead of
+     * skipping rows, and no count query runs unless an estimated total is requested.
+     */
+    public CursorPage<ProductResponse> scrollProducts(ProductSearchRequest request, String sort,
+                                                      String cursor, int size, boolean includeTotal) {
+        CatalogSpecification specification = CatalogSpecification.published()
+                .inCategory(request.getCategory())
+                .matching(request.getQuery())
+                .withTags(request.getTags())
+                .effectivePriceBetween(request.getMinPrice(), request.getMaxPrice())
+                .featured(request.getFeatured());
+
+        return scrollCatalog(specification, CatalogKeyset.fromParameter(sort), cursor, size, includeTotal);
+    }
+
+    /**
+     * Keyset-paginated listing of a seller's own products, newest first
+     */
+    public CursorPage<ProductResponse> scrollSellerProducts(UUID sellerId, String status, String cursor,
+                                                            int size, boolean includeTotal) {
+        ProductStatus productStatus = null;
+        if (status != null && !status.trim().isEmpty()) {
+            try {
+                productStatus = ProductStatus.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Invalid status value: " + status);
+            }
         }
 
-        // Apply price filters if provided
-        if (minPrice != null || maxPrice != null) {
-            products = (Page<Product>) products.filter(product -> {
-                BigDecimal price = product.getDiscountPrice() != null ?
-                        product.getDiscountPrice() : product.getPrice();
+        CatalogSpecification specification = CatalogSpecification.withStatus(productStatus)
+                .ownedBy(sellerId);
+
+        return scrollCatalog(specification, CatalogKeyset.NEWEST, cursor, size, includeTotal);
+    }
 
-                boolean minCondition = minPrice == null || price.compareTo(minPrice) >= 0;
-                boolean maxCondition = maxPrice == null || price.compareTo(maxPrice) <= 0;
+    private CursorPage<ProductResponse> scrollCatalog(CatalogSpecification specification, CatalogKeyset keyset,
+                                                      String cursor, int size, boolean includeTotal) {
+        String sort = keyset.name().toLowerCase();
+        PageCursor after = PageCursor.decode(cursor, sort);
 
-                return minCondition && maxCondition;
-            });
+        // One extra row tells whether another page exists
+        List<Product> rows = productRepository.findCatalogAfter(specification, keyset, after, size + 1);
+        boolean hasMore = rows.size() > size;
+        List<Product> products = hasMore ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            Product last = products.get(products.size() - 1);
+            nextCursor = new PageCursor(sort, keyset.keyOf(last), last.getId()).encode();
         }
 
-        return products.map(ProductResponse::fromEntity);
+        return CursorPage.<ProductResponse>builder()
+                .items(products.stream().map(ProductResponse::fromEntity).toList())
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .estimatedTotal(includeTotal ? productRepository.estimateCatalogCount(specification) : null)
+                .build();
+    }
+
+    /**
+     * Catalog search with facet counts. Facets need the Lucene engine; without it only the
+     * matching products are returned.
+     */
+    public ProductSearchResponse searchCatalog(ProductSearchRequest request, Pageable pageable) {
+        if (productSearchService.supportsFacets()) {
+            return productSearchService.browseWithFacets(request, pageable);
+        }
+
+        return ProductSearchResponse.builder()
+                .products(browseProducts(request, pageable))
+                .facets(Map.of())
+                .build();
     }
 
     /**
@@ -447,6 +518,7 @@ public class ProductService {
         product.getGalleryUrls().add(galleryImage.getCdnUrl());
 
         product = productRepository.save(product);
+        onProductChanged(productId, product.getSlug());
 
         return ProductResponse.fromEntity(product);
     }
@@ -468,6 +540,7 @@ public class ProductService {
         if (product.getGalleryUrls() != null) {
             product.getGalleryUrls().remove(imageUrl);
             product = productRepository.save(product);
+            onProductChanged(productId, product.getSlug());
         }
 
         return ProductResponse.fromEntity(product);
@@ -488,6 +561,7 @@ public class ProductService {
 
         product.setIsFeatured(featured);
         product = productRepository.save(product);
+        onProductChanged(productId, product.getSlug());
 
         log.info("Product {} featured: {}", productId, featured);
 
@@ -497,15 +571,18 @@ public class ProductService {
     // ==================== HELPER METHODS ====================
 
     /**
-     * Async increment page views
+     * Drop cached copies and notify listeners (search index) that a product changed
+     */
+    private void onProductChanged(UUID productId, String... slugs) {
+        productCache.evict(productId, slugs);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
+    }
+
+    /**
+     * Count a page view; written to the database in batches by ProductViewCounter
      */
-    @Transactional
     public void incrementPageViews(UUID productId) {
-        try {
-            productRepository.incrementPageViews(productId);
-        } catch (Exception e) {
-            log.error("Failed to increment page views for product: {}", productId, e);
-        }
+        productViewCounter.record(productId);
     }
 
     /**
@@ -0,0 +1,169 @@
+package com.stack.sellstack.service.product;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind page view counter.
+ *
+ * Views are counted in memory per product and day on LongAdders, so a hot product costs no
+ * row lock and no write on the read path. A scheduled flush drains the deltas and applies them
+ * in multi-row statements: one UPDATE of products.page_views and one upsert into product_views
+ * per chunk. A failed flush puts its deltas back; a crash loses at most one flush interval.
+ */
+@Component
+@Slf4j
+public class ProductViewCounter {
+
+    private static final String UPDATE_PAGE_VIEWS =
+            "UPDATE products p SET page_views = COALESCE(p.page_views, 0) + v.delta " +
+                    "FROM (VALUES %s) AS v(id, delta) WHERE p.id = v.id";
+    private static final String PAGE_VIEWS_ROW = "(CAST(? AS uuid), CAST(? AS bigint))";
+
+    // The join skips products deleted since the view was counted
+    private static final String UPSERT_DAILY_VIEWS =
+            "INSERT INTO product_views (id, product_id, view_date, view_count) " +
+                    "SELECT gen_random_uuid(), v.product_id, v.view_date, v.views " +
+                    "FROM (VALUES %s) AS v(product_id, view_date, views) " +
+                    "JOIN products p ON p.id = v.product_id " +
+                    "ON CONFLICT (product_id, view_date) " +
+                    "DO UPDATE SET view_count = product_views.view_count + EXCLUDED.view_count";
+    private static final String DAILY_VIEWS_ROW = "(CAST(? AS uuid), CAST(? AS date), CAST(? AS integer))";
+
+    private static final Comparator<ViewKey> VIEW_KEY_ORDER =
+            Comparator.comparing(ViewKey::productId).thenComparing(ViewKey::day);
+
+    private final Map<ViewKey, LongAdder> pending = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final Counter flushedViews;
+    private final Counter failedFlushes;
+
+    public ProductViewCounter(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${product.views.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+
+        Gauge.builder("product.views.buffered", this, ProductViewCounter::bufferedViews)
+                .description("Page views counted in memory and not yet written")
+                .register(meterRegistry);
+        this.flushedViews = Counter.builder("product.views.flushed")
+                .description("Page views written to the database")
+                .register(meterRegistry);
+        this.failedFlushes = Counter.builder("product.views.flush.failures")
+                .register(meterRegistry);
+    }
+
+    public void record(UUID productId) {
+        pending.computeIfAbsent(new ViewKey(productId, LocalDate.now()), key -> new LongAdder())
+                .increment();
+    }
+
+    public long bufferedViews() {
+        return pending.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    @Scheduled(fixedDelayString = "${product.views.flush-interval-ms:10000}")
+    public void flush() {
+        Map<ViewKey, Long> deltas = drain();
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(deltas));
+            flushedViews.increment(deltas.values().stream().mapToLong(Long::longValue).sum());
+        } catch (Exception e) {
+            failedFlushes.increment();
+            log.error("Failed to flush {} product view counters, keeping them for the next run", deltas.size(), e);
+            deltas.forEach((key, delta) -> pending.computeIfAbsent(key, k -> new LongAdder()).add(delta));
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Takes the current deltas; increments racing with the drain land in the next flush. Counters
+     * of past days are dropped once empty, today's stay so hot products keep their adder.
+     */
+    private Map<ViewKey, Long> drain() {
+        LocalDate today = LocalDate.now();
+        Map<ViewKey, Long> deltas = new HashMap<>();
+        pending.forEach((key, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta > 0) {
+                deltas.put(key, delta);
+            } else if (key.day().isBefore(today)) {
+                pending.remove(key, adder);
+            }
+        });
+        return deltas;
+    }
+
+    private void write(Map<ViewKey, Long> deltas) {
+        // Sorted so concurrent flushes from several nodes lock rows in the same order
+        Map<UUID, Long> totals = new TreeMap<>();
+        deltas.forEach((key, delta) -> totals.merge(key.productId(), delta, Long::sum));
+
+        List<Object[]> totalRows = new ArrayList<>();
+        totals.forEach((productId, delta) -> totalRows.add(new Object[]{productId, delta}));
+        for (List<Object[]> chunk : chunks(totalRows)) {
+            execute(UPDATE_PAGE_VIEWS, PAGE_VIEWS_ROW, chunk);
+        }
+
+        List<Object[]> dailyRows = new ArrayList<>();
+        deltas.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(VIEW_KEY_ORDER))
+                .forEach(entry -> dailyRows.add(
+                        new Object[]{entry.getKey().productId(), entry.getKey().day(), entry.getValue()}));
+        for (List<Object[]> chunk : chunks(dailyRows)) {
+            execute(UPSERT_DAILY_VIEWS, DAILY_VIEWS_ROW, chunk);
+        }
+    }
+
+    private void execute(String template, String row, List<Object[]> rows) {
+        String sql = String.format(template, String.join(", ", Collections.nCopies(rows.size(), row)));
+        Object[] args = rows.stream().flatMap(Arrays::stream).toArray();
+        jdbcTemplate.update(sql, args);
+    }
+
+    private List<List<Object[]>> chunks(List<Object[]> rows) {
+        List<List<Object[]>> chunks = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i += batchSize) {
+            chunks.add(rows.subList(i, Math.min(i + batchSize, rows.size())));
+        }
+        return chunks;
+    }
+
+    private record ViewKey(UUID productId, LocalDate day) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.stack.sellstack.service.ratelimit;
+
+import com.stack.sellstack.model.entity.RateLimit;
+import com.stack.sellstack.repository.RateLimitRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Database backed limiter: one row per attempt in {@code rate_limits}.
+ * Kept as a fallback for setups that need the attempt history.
+ */
+@Component
+@ConditionalOnProperty(name = "rate.limit.backend", havingValue = "jdbc")
+@RequiredArgsConstructor
+@Slf4j
+public class JpaRateLimiter implements RateLimiter {
+
+    private final RateLimitRepository rateLimitRepository;
+
+    @Override
+    @Transactional
+    public boolean tryAcquire(String key, String action, int maxAttempts, int windowSeconds) {
+        Instant windowStart = Instant.now().minusSeconds(windowSeconds);
+
+        // Count attempts in the time window
+        int attemptCount = rateLimitRepository.countAttemptsInWindow(key, action, windowStart);
+
+        if (attemptCount >= maxAttempts) {
+            return false;
+        }
+
+        // Record this attempt
+        RateLimit rateLimit = RateLimit.builder()
+                .key(key)
+                .action(action)
+                .attemptedAt(Instant.now())
+                .build();
+
+        rateLimitRepository.save(rateLimit);
+        return true;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public int getRemainingAttempts(String key, String action, int maxAttempts, int windowSeconds) {
+        Instant windowStart = Instant.now().minusSeconds(windowSeconds);
+        int attemptCount = rateLimitRepository.countAttemptsInWindow(key, action, windowStart);
+        return Math.max(0, maxAttempts - attemptCount);
+    }
+}
@@ -0,0 +1,128 @@
+package com.stack.sellstack.service.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-process sliding window counter limiter.
+ *
+ * Each key/action pair keeps the count of the current and the previous fixed window and
+ * weights the previous one by how much of it still overlaps the sliding window. Updates
+ * are a CAS on an immutable snapshot, so there is no locking on the request path. The
+ * Caffeine map is bounded and drops keys that have been idle for two windows.
+ */
+@Component
+@ConditionalOnProperty(name = "rate.limit.backend", havingValue = "local", matchIfMissing = true)
+public class LocalRateLimiter implements RateLimiter {
+
+    private final Cache<String, SlidingWindow> windows;
+
+    public LocalRateLimiter(@Value("${rate.limit.local.max-keys:100000}") long maxKeys) {
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfter(new IdleWindowExpiry())
+                .build();
+    }
+
+    @Override
+    public boolean tryAcquire(String key, String action, int maxAttempts, int windowSeconds) {
+        SlidingWindow window = windows.get(cacheKey(key, action), k -> new SlidingWindow(windowSeconds));
+        return window.tryAcquire(System.currentTimeMillis(), maxAttempts);
+    }
+
+    @Override
+    public int getRemainingAttempts(String key, String action, int maxAttempts, int windowSeconds) {
+        SlidingWindow window = windows.getIfPresent(cacheKey(key, action));
+        if (window == null) {
+            return maxAttempts;
+        }
+        int used = (int) Math.ceil(window.estimate(System.currentTimeMillis()));
+        return Math.max(0, maxAttempts - used);
+    }
+
+    private static String cacheKey(String key, String action) {
+        return action + '|' + key;
+    }
+
+    static final class SlidingWindow {
+
+        private final long windowMillis;
+        private final AtomicReference<State> state;
+
+        SlidingWindow(int windowSeconds) {
+            this.windowMillis = Math.max(1, windowSeconds) * 1000L;
+            this.state = new AtomicReference<>(new State(System.currentTimeMillis() / windowMillis, 0, 0));
+        }
+
+        boolean tryAcquire(long now, int maxAttempts) {
+            long index = now / windowMillis;
+            while (true) {
+                State current = state.get();
+                State rolled = current.rollTo(index);
+
+                if (weighted(rolled, now) >= maxAttempts) {
+                    return false;
+                }
+
+                State next = new State(index, rolled.previous(), rolled.current() + 1);
+                if (state.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        double estimate(long now) {
+            return weighted(state.get().rollTo(now / windowMillis), now);
+        }
+
+        private double weighted(State state, long now) {
+            double elapsed = (double) (now - state.windowIndex() * windowMillis) / windowMillis;
+            return state.previous() * (1.0 - elapsed) + state.current();
+        }
+
+        long windowNanos() {
+            return TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        }
+    }
+
+    record State(long windowIndex, int previous, int current) {
+
+        State rollTo(long index) {
+            if (windowIndex == index) {
+                return this;
+            }
+            if (windowIndex == index - 1) {
+                return new State(index, current, 0);
+            }
+            return new State(index, 0, 0);
+        }
+    }
+
+    /**
+     * A key stops mattering once both of its windows have slid out.
+     */
+    private static final class IdleWindowExpiry implements Expiry<String, SlidingWindow> {
+
+        @Override
+        public long expireAfterCreate(String key, SlidingWindow window, long currentTime) {
+            return 2 * window.windowNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, SlidingWindow window, long currentTime, long currentDuration) {
+            return 2 * window.windowNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, SlidingWindow window, long currentTime, long currentDuration) {
+            return 2 * window.windowNanos();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.stack.sellstack.service.ratelimit;
+
+/**
+ * One limit to enforce: at most {@code maxAttempts} per {@code windowSeconds} for key/action.
+ */
+public record RateLimitRule(String key, String action, int maxAttempts, int windowSeconds) {
+}
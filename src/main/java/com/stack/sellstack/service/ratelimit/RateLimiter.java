@@ -0,0 +1,34 @@
+package com.stack.sellstack.service.ratelimit;
+
+import java.util.List;
+
+/**
+ * Storage strategy behind {@link com.stack.sellstack.service.RateLimitService}.
+ * The active implementation is chosen with {@code rate.limit.backend}.
+ */
+public interface RateLimiter {
+
+    /**
+     * Record an attempt for key/action if it is still under the limit.
+     *
+     * @return false when the limit for the current window is exhausted
+     */
+    boolean tryAcquire(String key, String action, int maxAttempts, int windowSeconds);
+
+    int getRemainingAttempts(String key, String action, int maxAttempts, int windowSeconds);
+
+    /**
+     * Check several rules for one request.
+     *
+     * @return index of the first rule that rejected the attempt, or -1 if all passed
+     */
+    default int tryAcquireAll(List<RateLimitRule> rules) {
+        for (int i = 0; i < rules.size(); i++) {
+            RateLimitRule rule = rules.get(i);
+            if (!tryAcquire(rule.key(), rule.action(), rule.maxAttempts(), rule.windowSeconds())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,149 @@
+package com.stack.sellstack.service.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cluster wide sliding window limiter backed by Redis.
+ *
+ * Uses the same two-window approximation as {@link LocalRateLimiter}, but the counters live in
+ * Redis and every check-and-increment runs as one Lua script, so all nodes share one budget.
+ * The rules of a request are sent together in a single script call. While Redis is unreachable
+ * the limiter falls back to per-node limiting and retries Redis after a short back-off.
+ */
+@Component
+@ConditionalOnProperty(name = "rate.limit.backend", havingValue = "redis")
+@Slf4j
+public class RedisRateLimiter implements RateLimiter {
+
+    private static final String KEY_PREFIX = "rl:";
+
+    // KEYS come in pairs (current window, previous window) and ARGV in triples
+    // (max attempts, weight of previous window, ttl millis). Returns the 1-based index of the
+    // first rule over its limit, or 0 after counting the attempt against every rule.
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            local rules = #KEYS / 2
+            for i = 1, rules do
+              local current = tonumber(redis.call('GET', KEYS[2 * i - 1]) or '0')
+              local previous = tonumber(redis.call('GET', KEYS[2 * i]) or '0')
+              if previous * tonumber(ARGV[3 * i - 1]) + current >= tonumber(ARGV[3 * i - 2]) then
+                return i
+              end
+            end
+            for i = 1, rules do
+              redis.call('INCR', KEYS[2 * i - 1])
+              redis.call('PEXPIRE', KEYS[2 * i - 1], ARGV[3 * i])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final LocalRateLimiter fallback;
+    private final long retryAfterMillis;
+
+    private volatile long redisRetryAt;
+
+    public RedisRateLimiter(StringRedisTemplate redisTemplate,
+                            @Value("${rate.limit.local.max-keys:100000}") long maxKeys,
+                            @Value("${rate.limit.redis.retry-after-seconds:30}") long retryAfterSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.fallback = new LocalRateLimiter(maxKeys);
+        this.retryAfterMillis = retryAfterSeconds * 1000;
+    }
+
+    @Override
+    public boolean tryAcquire(String key, String action, int maxAttempts, int windowSeconds) {
+        return tryAcquireAll(List.of(new RateLimitRule(key, action, maxAttempts, windowSeconds))) < 0;
+    }
+
+    @Override
+    public int tryAcquireAll(List<RateLimitRule> rules) {
+        if (!redisAvailable()) {
+            return fallback.tryAcquireAll(rules);
+        }
+
+        long now = System.currentTimeMillis();
+        List<String> keys = new ArrayList<>(rules.size() * 2);
+        List<String> args = new ArrayList<>(rules.size() * 3);
+
+        for (RateLimitRule rule : rules) {
+            long windowMillis = windowMillis(rule.windowSeconds());
+            long index = now / windowMillis;
+            double elapsed = (double) (now - index * windowMillis) / windowMillis;
+
+            keys.add(windowKey(rule.key(), rule.action(), index));
+            keys.add(windowKey(rule.key(), rule.action(), index - 1));
+            args.add(String.valueOf(rule.maxAttempts()));
+            args.add(String.valueOf(1.0 - elapsed));
+            args.add(String.valueOf(2 * windowMillis));
+        }
+
+        try {
+            Long rejected = redisTemplate.execute(ACQUIRE_SCRIPT, keys, args.toArray());
+            return rejected == null || rejected == 0 ? -1 : rejected.intValue() - 1;
+        } catch (DataAccessException e) {
+            markUnavailable(e);
+            return fallback.tryAcquireAll(rules);
+        }
+    }
+
+    @Override
+    public int getRemainingAttempts(String key, String action, int maxAttempts, int windowSeconds) {
+        if (!redisAvailable()) {
+            return fallback.getRemainingAttempts(key, action, maxAttempts, windowSeconds);
+        }
+
+        long now = System.currentTimeMillis();
+        long windowMillis = windowMillis(windowSeconds);
+        long index = now / windowMillis;
+        double elapsed = (double) (now - index * windowMillis) / windowMillis;
+
+        try {
+            List<String> counts = redisTemplate.opsForValue().multiGet(List.of(
+                    windowKey(key, action, index),
+                    windowKey(key, action, index - 1)));
+            long current = parseCount(counts, 0);
+            long previous = parseCount(counts, 1);
+            int used = (int) Math.ceil(previous * (1.0 - elapsed) + current);
+            return Math.max(0, maxAttempts - used);
+        } catch (DataAccessException e) {
+            markUnavailable(e);
+            return fallback.getRemainingAttempts(key, action, maxAttempts, windowSeconds);
+        }
+    }
+
+    private boolean redisAvailable() {
+        return System.currentTimeMillis() >= redisRetryAt;
+    }
+
+    private void markUnavailable(DataAccessException e) {
+        redisRetryAt = System.currentTimeMillis() + retryAfterMillis;
+        log.warn("Redis rate limiting unavailable, using local limits for {} ms: {}",
+                retryAfterMillis, e.getMessage());
+    }
+
+    private static long windowMillis(int windowSeconds) {
+        return Math.max(1, windowSeconds) * 1000L;
+    }
+
+    // Hash tag on the client key keeps all rules of one client in the same cluster slot
+    private static String windowKey(String key, String action, long windowIndex) {
+        return KEY_PREFIX + "{" + key + "}:" + action + ":" + windowIndex;
+    }
+
+    private static long parseCount(List<String> counts, int position) {
+        if (counts == null || counts.size() <= position || counts.get(position) == null) {
+            return 0;
+        }
+        return Long.parseLong(counts.get(position));
+    }
+}
@@ -0,0 +1,580 @@
+package com.stack.sellstack.service.search;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stack.sellstack.model.dto.request.ProductSearchRequest;
+import com.stack.sellstack.model.dto.response.ProductResponse;
+import com.stack.sellstack.model.dto.response.ProductSearchResponse;
+import com.stack.sellstack.model.entity.Product;
+import com.stack.sellstack.model.enums.ProductStatus;
+import com.stack.sellstack.repository.ProductRepository;
+import com.stack.sellstack.service.product.ProductChangedEvent;
+import com.stack.sellstack.util.SearchTerms;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.*;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.Facets;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * In-process Lucene index of published products.
+ *
+ * Serves catalog browse and search (relevance scoring, category/tag/language facets and effective
+ * price ranges) entirely from a memory-mapped index on local disk; each document stores the
+ * serialized ProductResponse, so results never touch Postgres. The index follows product writes
+ * through {@link ProductChangedEvent}; changes are visible to searches right away and committed
+ * to disk periodically and on shutdown.
+ *
+ * The index is rebuilt in the background at startup when its document count does not match the
+ * published products in the database, or when {@code product.search.lucene.rebuild-on-startup}
+ * is set. A rebuild writes a new index generation next to the live one and swaps it in when
+ * complete, so searches keep being served from the old index meanwhile. The CURRENT file in the
+ * index path names the live generation.
+ */
+@Service
+@ConditionalOnProperty(name = "product.search.engine", havingValue = "lucene")
+@RequiredArgsConstructor
+@Slf4j
+public class LuceneProductIndex implements ProductSearchService {
+
+    private static final String ID = "id";
+    private static final String SOURCE = "source";
+    private static final String TITLE = "title";
+    private static final String DESCRIPTION = "description";
+    private static final String CATEGORY_TEXT = "category_text";
+    private static final String TAGS_TEXT = "tags_text";
+    private static final String CATEGORY = "category";
+    private static final String TAG = "tag";
+    private static final String LANGUAGE = "language";
+    private static final String FEATURED = "featured";
+    private static final String PRICE = "price";
+    private static final String CREATED_AT = "created_at";
+
+    private static final List<String> FACET_DIMENSIONS = List.of(CATEGORY, TAG, LANGUAGE);
+    private static final int MAX_RESULT_WINDOW = 10_000;
+    private static final int REBUILD_BATCH_SIZE = 500;
+    private static final String CURRENT_GENERATION = "CURRENT";
+    private static final String GENERATION_PREFIX = "gen-";
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${product.search.lucene.index-path:data/product-index}")
+    private String indexPath;
+
+    @Value("${product.search.lucene.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @Value("${product.search.lucene.facet-size:20}")
+    private int facetSize;
+
+    private final FacetsConfig facetsConfig = new FacetsConfig();
+    private final ExecutorService rebuildExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("product-index-rebuild-"));
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    // Guards swapping the live generation and the set of products changed during a rebuild
+    private final Object swapLock = new Object();
+    private volatile IndexGeneration current;
+    private Set<UUID> changedDuringRebuild;
+    private volatile FacetState facetState;
+
+    @PostConstruct
+    public void open() throws IOException {
+        facetsConfig.setMultiValued(TAG, true);
+
+        Path root = Path.of(indexPath);
+        Files.createDirectories(root);
+
+        Path pointer = root.resolve(CURRENT_GENERATION);
+        Path live = Files.exists(pointer) ? root.resolve(Files.readString(pointer).trim()) : null;
+        if (live == null || !Files.isDirectory(live)) {
+            live = newGenerationPath();
+            current = IndexGeneration.open(live, IndexWriterConfig.OpenMode.CREATE);
+            writePointer(live);
+        } else {
+            current = IndexGeneration.open(live, IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        }
+
+        // Left behind by a rebuild that did not finish or an old generation that could not be deleted
+        try (Stream<Path> generations = Files.list(root)) {
+            Path keep = live;
+            generations.filter(path -> path.getFileName().toString().startsWith(GENERATION_PREFIX))
+                    .filter(path -> !path.equals(keep))
+                    .forEach(LuceneProductIndex::deleteGeneration);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        rebuildExecutor.shutdownNow();
+        synchronized (swapLock) {
+            current.close();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNeeded() {
+        int indexed = current.writer.getDocStats().numDocs;
+        long published = productRepository.countByStatusAndIsDeletedFalse(ProductStatus.PUBLISHED);
+        if (rebuildOnStartup || indexed != published) {
+            log.info("Product search index has {} of {} published products, rebuilding in the background",
+                    indexed, published);
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * Re-indexes all published products from the database into a new generation and swaps it in.
+     * Searches and product updates keep using the live index until the swap; products changed
+     * while the rebuild runs are indexed again just before it.
+     */
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.info("Product search index rebuild already running");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        IndexGeneration fresh = null;
+        try {
+            synchronized (swapLock) {
+                changedDuringRebuild = new HashSet<>();
+            }
+            fresh = IndexGeneration.open(newGenerationPath(), IndexWriterConfig.OpenMode.CREATE);
+
+            int indexed = 0;
+            Page<Product> batch;
+            int page = 0;
+            do {
+                batch = productRepository.findByStatus(ProductStatus.PUBLISHED,
+                        PageRequest.of(page++, REBUILD_BATCH_SIZE, Sort.by(ID)));
+                for (Product product : batch) {
+                    if (isSearchable(product)) {
+                        fresh.writer.addDocument(toDocument(product));
+                        indexed++;
+                    }
+                }
+            } while (batch.hasNext());
+
+            IndexGeneration previous;
+            synchronized (swapLock) {
+                for (UUID productId : changedDuringRebuild) {
+                    index(fresh, productId, productRepository.findWithSellerById(productId));
+                }
+                changedDuringRebuild = null;
+                fresh.writer.commit();
+                fresh.searcherManager.maybeRefresh();
+                writePointer(fresh.path);
+                previous = current;
+                current = fresh;
+            }
+
+            // Searches still holding the old reader finish on it; new ones acquire from the new generation
+            previous.close();
+            deleteGeneration(previous.path);
+            log.info("Rebuilt product search index: {} products in {} ms",
+                    indexed, System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to rebuild product search index", e);
+            synchronized (swapLock) {
+                changedDuringRebuild = null;
+            }
+            if (fresh != null && fresh != current) {
+                fresh.closeQuietly();
+                deleteGeneration(fresh.path);
+            }
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Applies the change to the live index and makes it searchable; the commit to disk is left to
+     * {@link #commit()}
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        UUID productId = event.productId();
+        try {
+            Optional<Product> product = productRepository.findWithSellerById(productId);
+            synchronized (swapLock) {
+                if (changedDuringRebuild != null) {
+                    changedDuringRebuild.add(productId);
+                }
+                index(current, productId, product);
+                current.searcherManager.maybeRefresh();
+            }
+        } catch (IOException e) {
+            log.error("Failed to update search index for product: {}", productId, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.search.lucene.commit-interval-ms:30000}")
+    public void commit() {
+        IndexGeneration generation = current;
+        try {
+            if (generation.writer.hasUncommittedChanges()) {
+                generation.writer.commit();
+            }
+        } catch (AlreadyClosedException e) {
+            // Swapped out by a rebuild, which committed the new generation
+        } catch (IOException e) {
+            log.error("Failed to commit product search index", e);
+        }
+    }
+
+    private void index(IndexGeneration generation, UUID productId, Optional<Product> product) throws IOException {
+        Term idTerm = new Term(ID, productId.toString());
+        if (product.isPresent() && isSearchable(product.get())) {
+            generation.writer.updateDocument(idTerm, toDocument(product.get()));
+        } else {
+            generation.writer.deleteDocuments(idTerm);
+        }
+    }
+
+    @Override
+    public Page<ProductResponse> browse(ProductSearchRequest request, Pageable pageable) {
+        return search(request, pageable, false).getProducts();
+    }
+
+    @Override
+    public boolean supportsFacets() {
+        return true;
+    }
+
+    @Override
+    public ProductSearchResponse browseWithFacets(ProductSearchRequest request, Pageable pageable) {
+        return search(request, pageable, true);
+    }
+
+    private ProductSearchResponse search(ProductSearchRequest request, Pageable pageable, boolean withFacets) {
+        IndexGeneration generation;
+        IndexSearcher searcher;
+        while (true) {
+            generation = current;
+            try {
+                searcher = generation.searcherManager.acquire();
+                break;
+            } catch (AlreadyClosedException e) {
+                // A rebuild swapped the generation between the read and the acquire; retry on the new one
+                if (generation == current) {
+                    throw e;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Product search index unavailable", e);
+            }
+        }
+
+        try {
+            Query query = buildQuery(request);
+            int window = (int) Math.min(MAX_RESULT_WINDOW, pageable.getOffset() + pageable.getPageSize());
+            FacetsCollector facetsCollector = new FacetsCollector();
+
+            TopDocs topDocs = hasText(request.getQuery()) && pageable.getSort().isUnsorted()
+                    ? FacetsCollector.search(searcher, query, Math.max(1, window), facetsCollector)
+                    : FacetsCollector.search(searcher, query, Math.max(1, window), toLuceneSort(pageable.getSort()), facetsCollector);
+
+            List<ProductResponse> content = new ArrayList<>(pageable.getPageSize());
+            StoredFields storedFields = searcher.storedFields();
+            for (int i = (int) Math.min(pageable.getOffset(), topDocs.scoreDocs.length); i < topDocs.scoreDocs.length; i++) {
+                BytesRef source = storedFields.document(topDocs.scoreDocs[i].doc, Set.of(SOURCE)).getBinaryValue(SOURCE);
+                content.add(objectMapper.readValue(source.bytes, source.offset, source.length, ProductResponse.class));
+            }
+
+            Page<ProductResponse> page = new PageImpl<>(content, pageable, topDocs.totalHits.value);
+            Map<String, List<ProductSearchResponse.FacetCount>> facets = withFacets
+                    ? countFacets(searcher, facetsCollector)
+                    : Map.of();
+
+            return ProductSearchResponse.builder()
+                    .products(page)
+                    .facets(facets)
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Product search failed", e);
+        } finally {
+            try {
+                generation.searcherManager.release(searcher);
+            } catch (IOException e) {
+                log.warn("Failed to release index searcher", e);
+            }
+        }
+    }
+
+    private Query buildQuery(ProductSearchRequest request) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+
+        if (hasText(request.getQuery())) {
+            SearchTerms.of(request.getQuery())
+                    .forEach(term -> query.add(termQuery(term), BooleanClause.Occur.MUST));
+        } else {
+            query.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+
+        if (hasText(request.getCategory())) {
+            query.add(new TermQuery(new Term(CATEGORY, request.getCategory().trim())), BooleanClause.Occur.FILTER);
+        }
+        if (request.getTags() != null) {
+            for (String tag : request.getTags()) {
+                query.add(new TermQuery(new Term(TAG, tag)), BooleanClause.Occur.FILTER);
+            }
+        }
+        if (hasText(request.getLanguage())) {
+            query.add(new TermQuery(new Term(LANGUAGE, request.getLanguage().trim())), BooleanClause.Occur.FILTER);
+        }
+        if (request.getMinPrice() != null || request.getMaxPrice() != null) {
+            long min = request.getMinPrice() != null ? toPaise(request.getMinPrice()) : Long.MIN_VALUE;
+            long max = request.getMaxPrice() != null ? toPaise(request.getMaxPrice()) : Long.MAX_VALUE;
+            query.add(LongPoint.newRangeQuery(PRICE, min, max), BooleanClause.Occur.FILTER);
+        }
+        if (request.getFeatured() != null) {
+            query.add(new TermQuery(new Term(FEATURED, request.getFeatured().toString())), BooleanClause.Occur.FILTER);
+        }
+
+        return query.build();
+    }
+
+    /**
+     * A term matches exactly (BM25 scored) or as a prefix (constant score) in any text field;
+     * title hits weigh most.
+     */
+    private static Query termQuery(String term) {
+        BooleanQuery.Builder fields = new BooleanQuery.Builder();
+        addField(fields, TITLE, term, 3f);
+        addField(fields, CATEGORY_TEXT, term, 2f);
+        addField(fields, TAGS_TEXT, term, 2f);
+        addField(fields, DESCRIPTION, term, 1f);
+        return fields.build();
+    }
+
+    private static void addField(BooleanQuery.Builder fields, String field, String term, float boost) {
+        fields.add(new BoostQuery(new TermQuery(new Term(field, term)), boost), BooleanClause.Occur.SHOULD);
+        fields.add(new BoostQuery(new PrefixQuery(new Term(field, term)), boost * 0.5f), BooleanClause.Occur.SHOULD);
+    }
+
+    private Map<String, List<ProductSearchResponse.FacetCount>> countFacets(IndexSearcher searcher,
+                                                                            FacetsCollector collector) throws IOException {
+        SortedSetDocValuesReaderState state = facetState(searcher.getIndexReader());
+        if (state == null) {
+            return Map.of();
+        }
+
+        Facets facets = new SortedSetDocValuesFacetCounts(state, collector);
+        Map<String, List<ProductSearchResponse.FacetCount>> counts = new LinkedHashMap<>();
+        for (String dimension : FACET_DIMENSIONS) {
+            List<ProductSearchResponse.FacetCount> values = new ArrayList<>();
+            try {
+                FacetResult result = facets.getTopChildren(facetSize, dimension);
+                if (result != null) {
+                    for (LabelAndValue labelValue : result.labelValues) {
+                        values.add(new ProductSearchResponse.FacetCount(labelValue.label, labelValue.value.longValue()));
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                // Dimension not present in the index yet
+            }
+            counts.put(dimension, values);
+        }
+        return counts;
+    }
+
+    /**
+     * The facet ordinal state is expensive to build, so it is reused until the reader changes.
+     */
+    private SortedSetDocValuesReaderState facetState(IndexReader reader) throws IOException {
+        FacetState current = facetState;
+        if (current != null && current.reader() == reader) {
+            return current.state();
+        }
+        if (reader.numDocs() == 0) {
+            return null;
+        }
+        try {
+            SortedSetDocValuesReaderState state = new DefaultSortedSetDocValuesReaderState(reader, facetsConfig);
+            facetState = new FacetState(reader, state);
+            return state;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Document toDocument(Product product) throws IOException {
+        ProductResponse response = ProductResponse.fromEntity(product);
+        BigDecimal effectivePrice = product.getDiscountPrice() != null ? product.getDiscountPrice() : product.getPrice();
+        long createdAt = product.getCreatedAt() != null ? product.getCreatedAt().toEpochMilli() : 0L;
+
+        Document document = new Document();
+        document.add(new StringField(ID, product.getId().toString(), Field.Store.YES));
+        document.add(new StoredField(SOURCE, new BytesRef(objectMapper.writeValueAsBytes(response))));
+
+        document.add(new TextField(TITLE, nullToEmpty(product.getTitle()), Field.Store.NO));
+        document.add(new TextField(DESCRIPTION, nullToEmpty(product.getDescription()), Field.Store.NO));
+        document.add(new TextField(CATEGORY_TEXT, nullToEmpty(product.getCategory()), Field.Store.NO));
+
+        if (hasText(product.getCategory())) {
+            document.add(new StringField(CATEGORY, product.getCategory(), Field.Store.NO));
+            document.add(new SortedSetDocValuesFacetField(CATEGORY, product.getCategory()));
+        }
+        if (product.getTags() != null) {
+            for (String tag : product.getTags()) {
+                if (hasText(tag)) {
+                    document.add(new TextField(TAGS_TEXT, tag, Field.Store.NO));
+                    document.add(new StringField(TAG, tag, Field.Store.NO));
+                    document.add(new SortedSetDocValuesFacetField(TAG, tag));
+                }
+            }
+        }
+        if (hasText(product.getLanguage())) {
+            document.add(new StringField(LANGUAGE, product.getLanguage(), Field.Store.NO));
+            document.add(new SortedSetDocValuesFacetField(LANGUAGE, product.getLanguage()));
+        }
+
+        document.add(new StringField(FEATURED, String.valueOf(Boolean.TRUE.equals(product.getIsFeatured())),
+                Field.Store.NO));
+
+        if (effectivePrice != null) {
+            long paise = toPaise(effectivePrice);
+            document.add(new LongPoint(PRICE, paise));
+            document.add(new NumericDocValuesField(PRICE, paise));
+        }
+        document.add(new NumericDocValuesField(CREATED_AT, createdAt));
+
+        return facetsConfig.build(document);
+    }
+
+    // Spring's Sort is imported; the Lucene one is qualified
+    private static org.apache.lucene.search.Sort toLuceneSort(Sort sort) {
+        Sort.Order price = sort.getOrderFor("price");
+        if (price != null) {
+            return new org.apache.lucene.search.Sort(new SortField(PRICE, SortField.Type.LONG, price.isDescending()));
+        }
+        Sort.Order createdAt = sort.getOrderFor("createdAt");
+        boolean ascending = createdAt != null && createdAt.isAscending();
+        return new org.apache.lucene.search.Sort(new SortField(CREATED_AT, SortField.Type.LONG, !ascending));
+    }
+
+    private Path newGenerationPath() {
+        return Path.of(indexPath, GENERATION_PREFIX + System.currentTimeMillis());
+    }
+
+    /**
+     * Points CURRENT at the generation; written to a temporary file and renamed so it is never partial
+     */
+    private void writePointer(Path generation) throws IOException {
+        Path pointer = Path.of(indexPath, CURRENT_GENERATION);
+        Path temporary = Path.of(indexPath, CURRENT_GENERATION + ".tmp");
+        Files.writeString(temporary, generation.getFileName().toString());
+        Files.move(temporary, pointer, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void deleteGeneration(Path path) {
+        try (Stream<Path> files = Files.walk(path)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Failed to delete old product search index {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static boolean isSearchable(Product product) {
+        return ProductStatus.PUBLISHED.equals(product.getStatus()) && !Boolean.TRUE.equals(product.getIsDeleted());
+    }
+
+    private static long toPaise(BigDecimal amount) {
+        return amount.movePointRight(2).longValue();
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private record FacetState(IndexReader reader, SortedSetDocValuesReaderState state) {
+    }
+
+    /**
+     * One index directory with its writer and near-real-time searchers
+     */
+    private static final class IndexGeneration {
+        private final Path path;
+        private final MMapDirectory directory;
+        private final IndexWriter writer;
+        private final SearcherManager searcherManager;
+
+        private IndexGeneration(Path path, MMapDirectory directory, IndexWriter writer, SearcherManager searcherManager) {
+            this.path = path;
+            this.directory = directory;
+            this.writer = writer;
+            this.searcherManager = searcherManager;
+        }
+
+        static IndexGeneration open(Path path, IndexWriterConfig.OpenMode openMode) throws IOException {
+            Files.createDirectories(path);
+            MMapDirectory directory = new MMapDirectory(path);
+            IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer())
+                    .setOpenMode(openMode));
+            return new IndexGeneration(path, directory, writer, new SearcherManager(writer, null));
+        }
+
+        void close() throws IOException {
+            searcherManager.close();
+            writer.commit();
+            writer.close();
+            directory.close();
+        }
+
+        void closeQuietly() {
+            try {
+                searcherManager.close();
+                writer.rollback();
+                directory.close();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to close product search index {}: {}", path, e.getMessage());
+            }
+        }
+    }
+}
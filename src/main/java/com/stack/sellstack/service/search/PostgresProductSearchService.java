@@ -0,0 +1,42 @@
+package com.stack.sellstack.service.search;
+
+import com.stack.sellstack.model.dto.request.ProductSearchRequest;
+import com.stack.sellstack.model.dto.response.ProductResponse;
+import com.stack.sellstack.repository.CatalogSpecification;
+import com.stack.sellstack.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Full-text search on the products.search_vector column.
+ *
+ * The column is a stored generated tsvector, so Postgres keeps it current on every insert and
+ * update, and a GIN index serves the match (both created by ProductSchemaInitializer). Every
+ * search term is matched as a prefix so results show up while the buyer is still typing. Browse
+ * filters and sorts in the same statement; facets are not counted.
+ */
+@Service
+@ConditionalOnProperty(name = "product.search.engine", havingValue = "postgres", matchIfMissing = true)
+@RequiredArgsConstructor
+public class PostgresProductSearchService implements ProductSearchService {
+
+    private final ProductRepository productRepository;
+
+    @Override
+    public Page<ProductResponse> browse(ProductSearchRequest request, Pageable pageable) {
+        // All filters, the sort and the page limit go into one SQL statement
+        CatalogSpecification specification = CatalogSpecification.published()
+                .inCategory(request.getCategory())
+                .inLanguage(request.getLanguage())
+                .matching(request.getQuery())
+                .withTags(request.getTags())
+                .effectivePriceBetween(request.getMinPrice(), request.getMaxPrice())
+                .featured(request.getFeatured());
+
+        return productRepository.findCatalog(specification, pageable)
+                .map(ProductResponse::fromEntity);
+    }
+}
@@ -0,0 +1,40 @@
+package com.stack.sellstack.service.search;
+
+import com.stack.sellstack.model.dto.request.ProductSearchRequest;
+import com.stack.sellstack.model.dto.response.ProductResponse;
+import com.stack.sellstack.model.dto.response.ProductSearchResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Map;
+
+/**
+ * Search and browse over published products. The engine is chosen with
+ * {@code product.search.engine}: postgres (default) or lucene.
+ */
+public interface ProductSearchService {
+
+    /**
+     * Catalog browse with every filter of the request, in the requested sort (by relevance when
+     * unsorted and there is a query)
+     */
+    Page<ProductResponse> browse(ProductSearchRequest request, Pageable pageable);
+
+    /**
+     * Whether {@link #browseWithFacets} counts facets; callers may serve the plain browse
+     * (and its cache) otherwise
+     */
+    default boolean supportsFacets() {
+        return false;
+    }
+
+    /**
+     * Browse plus category, tag and language counts over all matches
+     */
+    default ProductSearchResponse browseWithFacets(ProductSearchRequest request, Pageable pageable) {
+        return ProductSearchResponse.builder()
+                .products(browse(request, pageable))
+                .facets(Map.of())
+                .build();
+    }
+}
@@ -0,0 +1,187 @@
+package com.stack.sellstack.service.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * clamd client over a pool of persistent IDSESSION connections.
+ *
+ * A scan streams the content straight into an INSTREAM command in large chunks; nothing is
+ * buffered on disk. Sessions are reused across scans, so there is no TCP handshake per file, and
+ * at most {@code poolSize} scans run at once. A session idle longer than {@code idleTimeoutMs}
+ * (keep it below clamd's IdleTimeout) is replaced before use; a session that failed is closed.
+ */
+@Slf4j
+class ClamdClient implements AutoCloseable {
+
+    private static final byte[] IDSESSION = "zIDSESSION\0".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] INSTREAM = "zINSTREAM\0".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END = "zEND\0".getBytes(StandardCharsets.US_ASCII);
+
+    private final String host;
+    private final int port;
+    private final int chunkSize;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+    private final long idleTimeoutMs;
+    private final Semaphore permits;
+    private final BlockingQueue<Session> idle;
+
+    ClamdClient(String host, int port, int poolSize, int chunkSize,
+                int connectTimeoutMs, int readTimeoutMs, long idleTimeoutMs) {
+        this.host = host;
+        this.port = port;
+        this.chunkSize = chunkSize;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.permits = new Semaphore(poolSize);
+        this.idle = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /**
+     * Streams the content to clamd and returns its verdict. Fails with an IOException when clamd
+     * reports an error (e.g. the stream exceeds StreamMaxLength) or the connection breaks.
+     */
+    ScanResult scan(InputStream content) throws IOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a clamd connection");
+        }
+
+        Session session = null;
+        boolean healthy = false;
+        try {
+            session = borrow();
+            ScanResult result = session.scan(content);
+            healthy = true;
+            return result;
+        } finally {
+            if (session != null) {
+                session.lastUsed = System.currentTimeMillis();
+                if (!healthy || !idle.offer(session)) {
+                    session.close();
+                }
+            }
+            permits.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        Session session;
+        while ((session = idle.poll()) != null) {
+            session.close();
+        }
+    }
+
+    private Session borrow() throws IOException {
+        Session session;
+        while ((session = idle.poll()) != null) {
+            if (System.currentTimeMillis() - session.lastUsed < idleTimeoutMs) {
+                return session;
+            }
+            session.close();
+        }
+        return new Session();
+    }
+
+    record ScanResult(boolean clean, String reply) {
+    }
+
+    private final class Session {
+
+        private final Socket socket;
+        private final DataOutputStream out;
+        private final InputStream in;
+        private final byte[] buffer = new byte[chunkSize];
+        private int lastId;
+        private long lastUsed = System.currentTimeMillis();
+
+        Session() throws IOException {
+            socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(host, port), connectTimeoutMs);
+                socket.setSoTimeout(readTimeoutMs);
+                socket.setTcpNoDelay(true);
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), chunkSize + 4));
+                in = new BufferedInputStream(socket.getInputStream(), 256);
+                out.write(IDSESSION);
+                out.flush();
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        ScanResult scan(InputStream content) throws IOException {
+            int id = ++lastId;
+            out.write(INSTREAM);
+            int length;
+            while ((length = content.readNBytes(buffer, 0, buffer.length)) > 0) {
+                out.writeInt(length);
+                out.write(buffer, 0, length);
+            }
+            out.writeInt(0);
+            out.flush();
+
+            // Session replies are prefixed with the command id: "<id>: stream: OK"
+            String reply = readReply();
+            String prefix = id + ": ";
+            if (!reply.startsWith(prefix)) {
+                throw new IOException("Unexpected clamd reply: " + reply);
+            }
+            reply = reply.substring(prefix.length());
+
+            if (reply.endsWith("OK")) {
+                return new ScanResult(true, reply);
+            }
+            if (reply.endsWith("FOUND")) {
+                return new ScanResult(false, reply);
+            }
+            throw new IOException("clamd error: " + reply);
+        }
+
+        private String readReply() throws IOException {
+            ByteArrayOutputStream reply = new ByteArrayOutputStream(64);
+            int b;
+            while ((b = in.read()) != 0) {
+                if (b == -1) {
+                    throw new EOFException("clamd closed the connection");
+                }
+                reply.write(b);
+            }
+            return reply.toString(StandardCharsets.US_ASCII).trim();
+        }
+
+        void close() {
+            try {
+                out.write(END);
+                out.flush();
+            } catch (IOException ignored) {
+                // Closing anyway
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Failed to close clamd connection", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.stack.sellstack.service.storage;
+
+import com.stack.sellstack.config.S3Config;
+import com.stack.sellstack.model.entity.FileContent;
+import com.stack.sellstack.model.entity.FileMetadata;
+import com.stack.sellstack.repository.FileContentRepository;
+import com.stack.sellstack.repository.FileMetadataRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Content-addressed storage for uploaded files.
+ *
+ * A file that finished processing registers its S3 object as the stored content for its
+ * seller, file type and SHA-256. A later upload of the same content reuses that object and its
+ * processing results instead of storing and processing it again. Every file using the content
+ * holds a reference; deleting a file releases it, and the object is purged only after it has
+ * been unreferenced for the retention period.
+ */
+@Service
+@Slf4j
+public class FileContentStore {
+
+    private final FileContentRepository fileContentRepository;
+    private final FileMetadataRepository fileMetadataRepository;
+    private final S3Client s3Client;
+    private final S3Config s3Config;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+
+    public FileContentStore(FileContentRepository fileContentRepository,
+                            FileMetadataRepository fileMetadataRepository,
+                            S3Client s3Client,
+                            S3Config s3Config,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${file.storage.unreferenced-retention-days:30}") long retentionDays) {
+        this.fileContentRepository = fileContentRepository;
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.s3Client = s3Client;
+        this.s3Config = s3Config;
+        this.transactionTemplate = transactionTemplate;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    /**
+     * Takes a reference on stored content with this hash, if any; returns the processed file it
+     * was registered from so its results can be copied
+     */
+    @Transactional
+    public Optional<FileMetadata> acquire(UUID sellerId, FileMetadata.FileType fileType, String sha256Hash) {
+        return fileMetadataRepository.findFirstBySellerIdAndFileTypeAndSha256HashAndStatusAndContentIdIsNotNull(
+                        sellerId, fileType, sha256Hash, FileMetadata.FileStatus.READY)
+                .filter(source -> fileContentRepository.acquire(source.getContentId()) == 1);
+    }
+
+    /**
+     * Registers a processed file's object as stored content, holding the first reference. If the
+     * same content was registered concurrently the file keeps its own object, unshared.
+     */
+    @Transactional
+    public void register(FileMetadata metadata) {
+        if (metadata.getSha256Hash() == null || metadata.getContentId() != null) {
+            return;
+        }
+        UUID contentId = UUID.randomUUID();
+        int inserted = fileContentRepository.insertIfAbsent(contentId, metadata.getSellerId(),
+                metadata.getFileType().name(), metadata.getSha256Hash(), metadata.getFileKey());
+        if (inserted == 1) {
+            metadata.setContentId(contentId);
+        }
+    }
+
+    /**
+     * Releases the file's reference on its stored content
+     */
+    @Transactional
+    public void release(FileMetadata metadata) {
+        if (metadata.getContentId() != null) {
+            fileContentRepository.release(metadata.getContentId());
+        }
+    }
+
+    /**
+     * Deletes objects whose content has been unreferenced past the retention period. The row is
+     * removed only while still unreferenced, so content reused in the meantime is kept.
+     */
+    @Scheduled(cron = "${file.storage.purge-cron:0 45 3 * * *}")
+    public void purgeUnreferenced() {
+        Instant cutoff = Instant.now().minus(retention);
+        for (FileContent content : fileContentRepository.findTop100ByReferenceCountAndUpdatedAtBefore(0, cutoff)) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (fileContentRepository.deleteUnreferenced(content.getId()) == 1) {
+                        s3Client.deleteObject(DeleteObjectRequest.builder()
+                                .bucket(s3Config.getBucketName())
+                                .key(content.getFileKey())
+                                .build());
+                        log.info("Purged unreferenced file content: {}", content.getFileKey());
+                    }
+                });
+            } catch (Exception e) {
+                log.error("Failed to purge file content: {}", content.getFileKey(), e);
+            }
+        }
+    }
+}
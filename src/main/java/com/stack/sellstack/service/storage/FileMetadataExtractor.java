@@ -0,0 +1,96 @@
+package com.stack.sellstack.service.storage;
+
+import com.stack.sellstack.config.S3Config;
+import com.stack.sellstack.model.entity.FileMetadata;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Reads descriptive metadata from a stored file.
+ *
+ * Images get their dimensions from the image header only, so nothing is decoded (the optimize
+ * stage may already have set them). PDFs get their page count and document title and author.
+ * Other types have nothing to extract.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FileMetadataExtractor {
+
+    private static final String PDF = "application/pdf";
+
+    private final S3Client s3Client;
+    private final S3Config s3Config;
+
+    public void extract(FileMetadata metadata) throws IOException {
+        String mimeType = metadata.getMimeType();
+        if (mimeType == null) {
+            return;
+        }
+        if (mimeType.startsWith("image/") && (metadata.getWidth() == null || metadata.getHeight() == null)) {
+            readImageDimensions(metadata);
+        } else if (PDF.equals(mimeType)) {
+            readPdfInfo(metadata);
+        }
+    }
+
+    private void readImageDimensions(FileMetadata metadata) throws IOException {
+        try (ResponseInputStream<GetObjectResponse> object = open(metadata);
+             ImageInputStream input = ImageIO.createImageInputStream(object)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                log.warn("No image reader for {} ({})", metadata.getFileKey(), metadata.getMimeType());
+                object.abort();
+                return;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                metadata.setWidth(reader.getWidth(0));
+                metadata.setHeight(reader.getHeight(0));
+                metadata.addMetadata("format", reader.getFormatName());
+            } finally {
+                reader.dispose();
+            }
+            // Only the header was read; drop the connection instead of draining the body
+            object.abort();
+        }
+    }
+
+    private void readPdfInfo(FileMetadata metadata) throws IOException {
+        try (ResponseInputStream<GetObjectResponse> object = open(metadata);
+             PDDocument document = PDDocument.load(object, MemoryUsageSetting.setupTempFileOnly())) {
+            metadata.addMetadata("pageCount", String.valueOf(document.getNumberOfPages()));
+
+            PDDocumentInformation info = document.getDocumentInformation();
+            if (info.getTitle() != null) {
+                metadata.addMetadata("title", info.getTitle());
+            }
+            if (info.getAuthor() != null) {
+                metadata.addMetadata("author", info.getAuthor());
+            }
+        }
+    }
+
+    private ResponseInputStream<GetObjectResponse> open(FileMetadata metadata) {
+        return s3Client.getObject(GetObjectRequest.builder()
+                .bucket(s3Config.getBucketName())
+                .key(metadata.getFileKey())
+                .build());
+    }
+}
@@ -0,0 +1,350 @@
+package com.stack.sellstack.service.storage;
+
+import com.stack.sellstack.config.FileValidationConfig;
+import com.stack.sellstack.model.entity.FileMetadata;
+import com.stack.sellstack.model.entity.FileMetadata.FileStatus;
+import com.stack.sellstack.model.entity.FileMetadata.ProcessingStage;
+import com.stack.sellstack.repository.FileMetadataRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Post-upload processing: virus scan, then image optimization, then metadata extraction.
+ * Product file images are watermarked in the optimize stage when watermarking is enabled.
+ *
+ * Every stage runs on its own bounded thread pool and queue, so a slow ClamAV scan neither
+ * blocks upload requests nor starves the cheaper stages. The current stage, its attempts and
+ * last error are persisted on the file; a stage hands the file to the next one when it
+ * succeeds. A failed stage is retried with exponential backoff and the file is marked CORRUPTED
+ * after max-attempts (it can be reprocessed from that stage). While a stage is queued or running
+ * the file holds a lease; a sweep resubmits stages whose retry is due or whose lease expired
+ * (full queue, node crash). Stage latency is recorded per stage and outcome. A processed file
+ * is registered in the {@link FileContentStore} so identical uploads can skip the pipeline.
+ */
+@Component
+@Slf4j
+public class FileProcessingPipeline {
+
+    private static final ProcessingStage[] STAGES = ProcessingStage.values();
+
+    private final FileMetadataRepository fileMetadataRepository;
+    private final FileValidationConfig validationConfig;
+    private final VirusScanner virusScanner;
+    private final ImageOptimizer imageOptimizer;
+    private final FileMetadataExtractor metadataExtractor;
+    private final FileContentStore fileContentStore;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final Duration retryBase;
+    private final Duration lease;
+
+    private final Map<ProcessingStage, ExecutorService> executors = new EnumMap<>(ProcessingStage.class);
+
+    private final Counter retried;
+    private final Counter failed;
+    private final Counter rejected;
+
+    public FileProcessingPipeline(FileMetadataRepository fileMetadataRepository,
+                                  FileValidationConfig validationConfig,
+                                  VirusScanner virusScanner,
+                                  ImageOptimizer imageOptimizer,
+                                  FileMetadataExtractor metadataExtractor,
+                                  FileContentStore fileContentStore,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry,
+                                  Environment environment,
+                                  @Value("${file.processing.default.threads:2}") int defaultThreads,
+                                  @Value("${file.processing.default.queue-capacity:100}") int defaultQueueCapacity,
+                                  @Value("${file.processing.max-attempts:3}") int maxAttempts,
+                                  @Value("${file.processing.retry-base-seconds:30}") long retryBaseSeconds,
+                                  @Value("${file.processing.lease-seconds:600}") long leaseSeconds) {
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.validationConfig = validationConfig;
+        this.virusScanner = virusScanner;
+        this.imageOptimizer = imageOptimizer;
+        this.metadataExtractor = metadataExtractor;
+        this.fileContentStore = fileContentStore;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.retryBase = Duration.ofSeconds(retryBaseSeconds);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+
+        for (ProcessingStage stage : STAGES) {
+            String name = stageName(stage);
+            int threads = environment.getProperty("file.processing." + name + ".threads",
+                    Integer.class, defaultThreads);
+            int queueCapacity = environment.getProperty("file.processing." + name + ".queue-capacity",
+                    Integer.class, defaultQueueCapacity);
+
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("file-" + name + "-"));
+            executors.put(stage, ExecutorServiceMetrics.monitor(meterRegistry, pool, "file.processing." + name));
+        }
+
+        this.retried = Counter.builder("file.processing.retried").register(meterRegistry);
+        this.failed = Counter.builder("file.processing.failed").register(meterRegistry);
+        this.rejected = Counter.builder("file.processing.rejected")
+                .description("Stages not queued because the stage queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a stored file for processing from the first applicable stage, once the caller's
+     * transaction commits
+     */
+    public void start(FileMetadata metadata) {
+        enter(metadata, nextStage(metadata, null));
+    }
+
+    /**
+     * Reprocesses a file from the stage that failed for good
+     */
+    public void retry(FileMetadata metadata) {
+        if (metadata.getStatus() != FileStatus.CORRUPTED || metadata.getProcessingStage() == null) {
+            throw new IllegalStateException("File has no failed processing stage");
+        }
+        enter(metadata, metadata.getProcessingStage());
+    }
+
+    /**
+     * Resubmits stages whose retry is due or whose lease has expired. The claim moves the lease
+     * forward, so each stage is resubmitted by one node only.
+     */
+    @Scheduled(fixedDelayString = "${file.processing.sweep-interval-ms:30000}")
+    public void resubmitDue() {
+        Instant now = Instant.now();
+        for (FileMetadata metadata : fileMetadataRepository.findTop100ByNextProcessingAtBeforeOrderByNextProcessingAtAsc(now)) {
+            if (metadata.getProcessingStage() == null) {
+                continue;
+            }
+            Integer claimed = transactionTemplate.execute(status -> fileMetadataRepository.claimProcessing(
+                    metadata.getId(), metadata.getNextProcessingAt(), now.plus(lease)));
+            if (claimed != null && claimed == 1) {
+                submit(metadata.getProcessingStage(), metadata.getId());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Queued and running stages are picked up again by the sweep once their lease expires
+        executors.values().forEach(ExecutorService::shutdown);
+    }
+
+    private void enter(FileMetadata metadata, ProcessingStage stage) {
+        metadata.setStatus(FileStatus.PROCESSING);
+        metadata.setProcessingStage(stage);
+        metadata.setProcessingAttempts(0);
+        metadata.setProcessingError(null);
+        metadata.setNextProcessingAt(Instant.now().plus(lease));
+        fileMetadataRepository.save(metadata);
+
+        UUID fileId = metadata.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(stage, fileId);
+                }
+            });
+        } else {
+            submit(stage, fileId);
+        }
+    }
+
+    private void submit(ProcessingStage stage, UUID fileId) {
+        try {
+            executors.get(stage).execute(() -> run(stage, fileId));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("{} queue full, file {} will be resubmitted in {}s", stage, fileId, retryBase.getSeconds());
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        fileMetadataRepository.scheduleProcessing(fileId, Instant.now().plus(retryBase)));
+            } catch (Exception scheduleError) {
+                // The lease still expires and the sweep picks the stage up
+                log.error("Failed to reschedule {} for file {}", stage, fileId, scheduleError);
+            }
+        }
+    }
+
+    private void run(ProcessingStage stage, UUID fileId) {
+        FileMetadata metadata = fileMetadataRepository.findById(fileId).orElse(null);
+        // Deleted, or a duplicate submission of a stage that has already moved on
+        if (metadata == null || metadata.getProcessingStage() != stage ||
+                metadata.getStatus() == FileStatus.DELETED) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            metadata.setStatus(statusFor(stage));
+            metadata = fileMetadataRepository.save(metadata);
+
+            if (execute(stage, metadata)) {
+                advance(metadata, stage);
+            } else {
+                outcome = "stopped";
+            }
+        } catch (Exception e) {
+            outcome = "failure";
+            recordFailure(stage, fileId, e);
+        } finally {
+            sample.stop(Timer.builder("file.processing.stage")
+                    .tag("stage", stageName(stage))
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Runs one stage; returns false when the file must not go any further
+     */
+    private boolean execute(ProcessingStage stage, FileMetadata metadata) throws IOException {
+        switch (stage) {
+            case SCAN -> {
+                boolean isClean = virusScanner.scanFile(metadata.getFileKey());
+                metadata.setVirusScanResult(isClean);
+                metadata.setVirusScanTimestamp(Instant.now());
+
+                if (!isClean) {
+                    metadata.setStatus(FileStatus.INFECTED);
+                    metadata.setProcessingStage(null);
+                    metadata.setNextProcessingAt(null);
+                    fileMetadataRepository.save(metadata);
+                    log.warn("Virus detected in file: {}", metadata.getFileKey());
+                    return false;
+                }
+            }
+            case OPTIMIZE -> metadata.setOptimizationApplied(imageOptimizer.optimizeImage(metadata));
+            case EXTRACT_METADATA -> metadataExtractor.extract(metadata);
+        }
+        return true;
+    }
+
+    private void advance(FileMetadata metadata, ProcessingStage stage) {
+        ProcessingStage next = nextStage(metadata, stage);
+
+        metadata.setProcessingAttempts(0);
+        metadata.setProcessingError(null);
+        if (next == null) {
+            // Later uploads of the same content reuse this object and its results
+            fileContentStore.register(metadata);
+            metadata.setStatus(FileStatus.READY);
+            metadata.setProcessedAt(Instant.now());
+            metadata.setProcessingStage(null);
+            metadata.setNextProcessingAt(null);
+            fileMetadataRepository.save(metadata);
+            log.info("File processing completed: {}", metadata.getFileKey());
+            return;
+        }
+
+        metadata.setStatus(FileStatus.PROCESSING);
+        metadata.setProcessingStage(next);
+        metadata.setNextProcessingAt(Instant.now().plus(lease));
+        fileMetadataRepository.save(metadata);
+        submit(next, metadata.getId());
+    }
+
+    private void recordFailure(ProcessingStage stage, UUID fileId, Exception e) {
+        try {
+            FileMetadata metadata = fileMetadataRepository.findById(fileId).orElse(null);
+            if (metadata == null) {
+                return;
+            }
+
+            int attempt = (metadata.getProcessingAttempts() == null ? 0 : metadata.getProcessingAttempts()) + 1;
+            metadata.setProcessingAttempts(attempt);
+            metadata.setProcessingError(truncate(String.valueOf(e.getMessage())));
+
+            if (attempt >= maxAttempts) {
+                metadata.setStatus(FileStatus.CORRUPTED);
+                metadata.setNextProcessingAt(null);
+                failed.increment();
+                log.error("File processing failed at {} after {} attempts: {}",
+                        stage, attempt, metadata.getFileKey(), e);
+            } else {
+                Duration backoff = retryBase.multipliedBy(1L << Math.min(attempt - 1, 10));
+                metadata.setStatus(FileStatus.PROCESSING);
+                metadata.setNextProcessingAt(Instant.now().plus(backoff));
+                retried.increment();
+                log.warn("File processing failed at {} (attempt {}), retrying in {}s: {}",
+                        stage, attempt, backoff.getSeconds(), metadata.getFileKey(), e);
+            }
+            fileMetadataRepository.save(metadata);
+        } catch (Exception updateError) {
+            // The lease expires and the sweep retries the stage
+            log.error("Failed to record {} failure for file {}", stage, fileId, updateError);
+        }
+    }
+
+    /**
+     * First stage after {@code after} that applies to the file; EXTRACT_METADATA always does
+     */
+    private ProcessingStage nextStage(FileMetadata metadata, ProcessingStage after) {
+        for (int i = after == null ? 0 : after.ordinal() + 1; i < STAGES.length; i++) {
+            if (applies(STAGES[i], metadata)) {
+                return STAGES[i];
+            }
+        }
+        return null;
+    }
+
+    private boolean applies(ProcessingStage stage, FileMetadata metadata) {
+        return switch (stage) {
+            case SCAN -> validationConfig.isEnableVirusScanning();
+            case OPTIMIZE -> isImageFile(metadata.getMimeType()) &&
+                    (validationConfig.isEnableImageOptimization() || imageOptimizer.shouldWatermark(metadata));
+            case EXTRACT_METADATA -> true;
+        };
+    }
+
+    private FileStatus statusFor(ProcessingStage stage) {
+        return switch (stage) {
+            case SCAN -> FileStatus.SCANNING;
+            case OPTIMIZE -> FileStatus.OPTIMIZING;
+            default -> FileStatus.PROCESSING;
+        };
+    }
+
+    private static String stageName(ProcessingStage stage) {
+        return stage.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+
+    private boolean isImageFile(String mimeType) {
+        return mimeType != null && mimeType.startsWith("image/");
+    }
+}
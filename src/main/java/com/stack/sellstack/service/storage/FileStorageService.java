@@ -1,23 +1,25 @@
 package com.stack.sellstack.service.storage;
 
-import com.stack.sellstack.config.FileValidationConfig;
 import com.stack.sellstack.config.S3Config;
 import com.stack.sellstack.exception.BusinessException;
 import com.stack.sellstack.exception.ValidationException;
+import com.stack.sellstack.model.dto.response.MultipartUploadResponse;
 import com.stack.sellstack.model.dto.response.PresignedUrlResponse;
 import com.stack.sellstack.model.entity.FileMetadata;
 import com.stack.sellstack.repository.FileMetadataRepository;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FilenameUtils;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3ClientBuilder;
@@ -27,16 +29,18 @@ import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
-import java.nio.ByteBuffer;
-import java.security.MessageDigest;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Slf4j
@@ -44,14 +48,20 @@ import java.util.*;
 public class FileStorageService {
 
     private final S3Config s3Config;
-    private final FileValidationConfig validationConfig;
     private final FileMetadataRepository fileMetadataRepository;
     private final FileValidator fileValidator;
-    private final VirusScanner virusScanner;
-    private final ImageOptimizer imageOptimizer;
+    private final FileProcessingPipeline fileProcessingPipeline;
+    private final FileContentStore fileContentStore;
+    private final TransactionTemplate transactionTemplate;
+
+    // S3 allows at most 10,000 parts per multipart upload
+    private static final int MAX_PARTS = 10_000;
+
+    private final ExecutorService partExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     private S3Client s3Client;
     private S3Presigner s3Presigner;
+    private MultipartUploadEngine multipartUploadEngine;
 
     @PostConstruct
     public void init() {
@@ -63,19 +73,35 @@ public class FileStorageService {
         S3ClientBuilder builder = S3Client.builder()
                 .credentialsProvider(StaticCredentialsProvider.create(awsCreds))
                 .region(Region.of(s3Config.getRegion()));
+        S3Presigner.Builder presignerBuilder = S3Presigner.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(awsCreds))
+                .region(Region.of(s3Config.getRegion()));
 
+        // Presigned URLs must point at the same endpoint (LocalStack) as the client
         if (s3Config.getEndpoint() != null && !s3Config.getEndpoint().isEmpty()) {
-            builder.endpointOverride(URI.create(s3Config.getEndpoint()));
-            builder.serviceConfiguration(S3Configuration.builder()
+            S3Configuration serviceConfiguration = S3Configuration.builder()
                     .pathStyleAccessEnabled(s3Config.isPathStyleAccessEnabled())
-                    .build());
+                    .build();
+            builder.endpointOverride(URI.create(s3Config.getEndpoint()));
+            builder.serviceConfiguration(serviceConfiguration);
+            presignerBuilder.endpointOverride(URI.create(s3Config.getEndpoint()));
+            presignerBuilder.serviceConfiguration(serviceConfiguration);
         }
 
         this.s3Client = builder.build();
-        this.s3Presigner = S3Presigner.builder()
-                .credentialsProvider(StaticCredentialsProvider.create(awsCreds))
-                .region(Region.of(s3Config.getRegion()))
-                .build();
+        this.s3Presigner = presignerBuilder.build();
+        this.multipartUploadEngine = new MultipartUploadEngine(
+                s3Client,
+                s3Config.getBucketName(),
+                s3Config.getMultipartPartSizeBytes(),
+                s3Config.getMultipartParallelism(),
+                s3Config.getMultipartPartRetries(),
+                partExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        partExecutor.shutdown();
     }
 
     /**
@@ -170,8 +196,8 @@ public class FileStorageService {
 
             log.info("File upload confirmed: {}", metadata.getFileKey());
 
-            // Trigger async processing
-            processFileAsync(metadata);
+            // Queue post-processing; runs after commit, off the request thread
+            fileProcessingPipeline.start(metadata);
 
         } catch (NoSuchKeyException e) {
             throw new BusinessException("File not found in storage");
@@ -179,75 +205,263 @@ public class FileStorageService {
     }
 
     /**
-     * Direct upload (for small files)
+     * Start a presigned multipart upload (Frontend → S3 in parts) for files too large for one PUT.
+     * The upload id and part layout are kept on the file record so the client can resume an
+     * interrupted upload instead of starting over.
      */
     @Transactional
-    public FileMetadata uploadFile(UUID sellerId, MultipartFile file, FileMetadata.FileType fileType) {
-        try {
-            // Validate file
-            fileValidator.validateFile(file, fileType);
-
-            // Generate metadata
-            String originalFilename = file.getOriginalFilename();
-            String fileKey = generateFileKey(sellerId, originalFilename, fileType);
-            String storedFilename = generateStoredFilename(originalFilename);
-
-            // Calculate hashes
-            String md5Hash = calculateMd5(file.getBytes());
-            String sha256Hash = calculateSha256(file.getBytes());
-
-            // Create metadata record
-            FileMetadata metadata = FileMetadata.builder()
-                    .sellerId(sellerId)
-                    .originalFilename(originalFilename)
-                    .storedFilename(storedFilename)
-                    .fileKey(fileKey)
-                    .fileSize(file.getSize())
-                    .mimeType(file.getContentType())
-                    .fileExtension(FilenameUtils.getExtension(originalFilename).toLowerCase())
-                    .fileType(fileType)
-                    .status(FileMetadata.FileStatus.UPLOADED)
-                    .md5Hash(md5Hash)
-                    .sha256Hash(sha256Hash)
-                    .uploadCompletedAt(Instant.now())
-                    .build();
+    public MultipartUploadResponse initiateMultipartUpload(UUID sellerId,
+                                                           String originalFilename,
+                                                           String contentType,
+                                                           FileMetadata.FileType fileType,
+                                                           long fileSize) {
 
-            // Upload to S3
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                    .bucket(s3Config.getBucketName())
-                    .key(fileKey)
-                    .contentType(file.getContentType())
-                    .contentLength(file.getSize())
-                    .metadata(Map.of(
-                            "seller-id", sellerId.toString(),
-                            "file-id", metadata.getId().toString(),
-                            "original-filename", originalFilename,
-                            "md5-hash", md5Hash
-                    ))
-                    .build();
+        fileValidator.validateFilename(originalFilename);
+        fileValidator.validateContentType(contentType);
+        if (fileSize <= 0 || fileSize > s3Config.getMaxFileSizeBytes()) {
+            throw new ValidationException("File size must be between 1 byte and " +
+                    s3Config.getMaxFileSizeBytes() + " bytes");
+        }
 
-            s3Client.putObject(putObjectRequest,
-                    RequestBody.fromByteBuffer(ByteBuffer.wrap(file.getBytes())));
+        String fileKey = generateFileKey(sellerId, originalFilename, fileType);
+        long partSize = Math.max(s3Config.getMultipartPartSizeBytes(), Math.ceilDiv(fileSize, MAX_PARTS));
 
-            // Generate URLs
-            metadata.setFileUrl(generateS3Url(fileKey));
-            metadata.setCdnUrl(generateCdnUrl(fileKey));
+        FileMetadata metadata = fileMetadataRepository.save(FileMetadata.builder()
+                .sellerId(sellerId)
+                .originalFilename(originalFilename)
+                .storedFilename(generateStoredFilename(originalFilename))
+                .fileKey(fileKey)
+                .fileSize(fileSize)
+                .mimeType(contentType)
+                .fileExtension(FilenameUtils.getExtension(originalFilename).toLowerCase())
+                .fileType(fileType)
+                .status(FileMetadata.FileStatus.UPLOADING)
+                .partSizeBytes(partSize)
+                .partCount((int) Math.ceilDiv(fileSize, partSize))
+                .build());
 
-            fileMetadataRepository.save(metadata);
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(s3Config.getBucketName())
+                .key(fileKey)
+                .contentType(contentType)
+                .metadata(Map.of(
+                        "seller-id", sellerId.toString(),
+                        "file-id", metadata.getId().toString(),
+                        "original-filename", originalFilename
+                ))
+                .build()).uploadId();
 
-            log.info("File uploaded directly: {}", fileKey);
+        metadata.setMultipartUploadId(uploadId);
+        fileMetadataRepository.save(metadata);
 
-            // Trigger async processing
-            processFileAsync(metadata);
+        log.info("Multipart upload started: {} ({} parts)", fileKey, metadata.getPartCount());
 
-            return metadata;
+        return multipartUploadResponse(metadata);
+    }
 
-        } catch (IOException e) {
+    /**
+     * Resume a presigned multipart upload: records the parts S3 already has and presigns the rest
+     */
+    @Transactional
+    public MultipartUploadResponse resumeMultipartUpload(UUID sellerId, UUID fileId) {
+        FileMetadata metadata = findMultipartUpload(sellerId, fileId);
+
+        metadata.setUploadedParts(listUploadedParts(metadata));
+        fileMetadataRepository.save(metadata);
+
+        return multipartUploadResponse(metadata);
+    }
+
+    /**
+     * Complete a presigned multipart upload once every part is in S3 and trigger processing
+     */
+    @Transactional
+    public FileMetadata completeMultipartUpload(UUID sellerId, UUID fileId) {
+        FileMetadata metadata = findMultipartUpload(sellerId, fileId);
+
+        // S3's part list is authoritative; the client's view of what it sent is not
+        List<FileMetadata.UploadedPart> parts = listUploadedParts(metadata);
+        if (parts.size() != metadata.getPartCount()) {
+            throw new BusinessException("Upload incomplete: " + parts.size() + " of " +
+                    metadata.getPartCount() + " parts received");
+        }
+
+        s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .bucket(s3Config.getBucketName())
+                .key(metadata.getFileKey())
+                .uploadId(metadata.getMultipartUploadId())
+                .multipartUpload(CompletedMultipartUpload.builder()
+                        .parts(parts.stream()
+                                .map(part -> CompletedPart.builder()
+                                        .partNumber(part.getPartNumber())
+                                        .eTag(part.getETag())
+                                        .build())
+                                .toList())
+                        .build())
+                .build());
+
+        HeadObjectResponse headResponse = s3Client.headObject(HeadObjectRequest.builder()
+                .bucket(s3Config.getBucketName())
+                .key(metadata.getFileKey())
+                .build());
+
+        metadata.setFileSize(headResponse.contentLength());
+        metadata.setStatus(FileMetadata.FileStatus.UPLOADED);
+        metadata.setUploadCompletedAt(Instant.now());
+        metadata.setMultipartUploadId(null);
+        metadata.setUploadedParts(new ArrayList<>());
+        metadata.setFileUrl(generateS3Url(metadata.getFileKey()));
+        metadata.setCdnUrl(generateCdnUrl(metadata.getFileKey()));
+
+        fileMetadataRepository.save(metadata);
+
+        log.info("Multipart upload completed: {}", metadata.getFileKey());
+
+        // Queue post-processing; runs after commit, off the request thread
+        fileProcessingPipeline.start(metadata);
+
+        return metadata;
+    }
+
+    /**
+     * Abort a presigned multipart upload and discard the parts stored so far
+     */
+    @Transactional
+    public void abortMultipartUpload(UUID sellerId, UUID fileId) {
+        FileMetadata metadata = findMultipartUpload(sellerId, fileId);
+        discardMultipartUpload(metadata);
+    }
+
+    /**
+     * Abort presigned multipart uploads abandoned past their expiry; their parts are billed until then
+     */
+    @Scheduled(fixedDelayString = "${aws.s3.multipart-cleanup-interval-ms:3600000}")
+    @Transactional
+    public void abortStaleMultipartUploads() {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(s3Config.getMultipartUploadExpiryHours()));
+        for (FileMetadata metadata : fileMetadataRepository.findByMultipartUploadIdIsNotNullAndCreatedAtBefore(cutoff)) {
+            log.info("Aborting stale multipart upload: {}", metadata.getFileKey());
+            try {
+                discardMultipartUpload(metadata);
+            } catch (SdkException e) {
+                log.warn("Failed to abort stale multipart upload: {}", metadata.getFileKey(), e);
+            }
+        }
+    }
+
+    /**
+     * Direct upload through the server. The multipart stream is read once: MD5 and SHA-256 are
+     * computed while the bytes go to S3, with up to {@code aws.s3.multipart-parallelism} parts
+     * uploading at a time, so heap use per upload is bounded by those part buffers whatever the
+     * file size. Content the seller already has processed under the same file type is not stored
+     * or processed again; the file reuses the stored object.
+     *
+     * The upload runs outside any transaction, so a slow client does not hold a database
+     * connection; the metadata is saved before and after it in short transactions of their own.
+     */
+    public FileMetadata uploadFile(UUID sellerId, MultipartFile file, FileMetadata.FileType fileType) {
+        // Validate file
+        fileValidator.validateFile(file, fileType);
+
+        // Generate metadata
+        String originalFilename = file.getOriginalFilename();
+        String fileKey = generateFileKey(sellerId, originalFilename, fileType);
+        String storedFilename = generateStoredFilename(originalFilename);
+
+        // Create metadata record; its id goes into the object metadata
+        FileMetadata metadata = fileMetadataRepository.save(FileMetadata.builder()
+                .sellerId(sellerId)
+                .originalFilename(originalFilename)
+                .storedFilename(storedFilename)
+                .fileKey(fileKey)
+                .fileSize(file.getSize())
+                .mimeType(file.getContentType())
+                .fileExtension(FilenameUtils.getExtension(originalFilename).toLowerCase())
+                .fileType(fileType)
+                .status(FileMetadata.FileStatus.UPLOADING)
+                .build());
+
+        // Upload to S3 unless the same content is already stored
+        AtomicReference<FileMetadata> existing = new AtomicReference<>();
+        MultipartUploadEngine.StoredObject stored;
+        try (InputStream in = file.getInputStream()) {
+            stored = multipartUploadEngine.upload(in, fileKey, file.getContentType(), Map.of(
+                    "seller-id", sellerId.toString(),
+                    "file-id", metadata.getId().toString(),
+                    "original-filename", originalFilename
+            ), candidate -> {
+                fileContentStore.acquire(sellerId, fileType, candidate.sha256Hash()).ifPresent(existing::set);
+                return existing.get() != null;
+            });
+        } catch (IOException | SdkException e) {
             log.error("File upload failed", e);
+            discardDirectUpload(metadata, existing.get(), false);
+            throw new BusinessException("File upload failed");
+        }
+
+        metadata.setFileSize(stored.size());
+        metadata.setMd5Hash(stored.md5Hash());
+        metadata.setSha256Hash(stored.sha256Hash());
+
+        try {
+            return transactionTemplate.execute(status -> completeDirectUpload(metadata, existing.get()));
+        } catch (RuntimeException e) {
+            log.error("Failed to record uploaded file: {}", fileKey, e);
+            discardDirectUpload(metadata, existing.get(), existing.get() == null);
             throw new BusinessException("File upload failed");
         }
     }
 
+    private FileMetadata completeDirectUpload(FileMetadata metadata, FileMetadata existing) {
+        String fileKey = metadata.getFileKey();
+        if (existing != null) {
+            reuseContent(metadata, existing);
+            fileMetadataRepository.save(metadata);
+
+            log.info("File deduplicated: {} reuses {}", fileKey, metadata.getFileKey());
+            return metadata;
+        }
+
+        metadata.setStatus(FileMetadata.FileStatus.UPLOADED);
+        metadata.setUploadCompletedAt(Instant.now());
+
+        // Generate URLs
+        metadata.setFileUrl(generateS3Url(fileKey));
+        metadata.setCdnUrl(generateCdnUrl(fileKey));
+
+        fileMetadataRepository.save(metadata);
+
+        log.info("File uploaded directly: {}", fileKey);
+
+        // Queue post-processing; runs after commit, off the request thread
+        fileProcessingPipeline.start(metadata);
+
+        return metadata;
+    }
+
+    /**
+     * Undoes a direct upload that could not be recorded: what the surrounding transaction's
+     * rollback used to do, plus the reference taken on reused content and the stored object
+     */
+    private void discardDirectUpload(FileMetadata metadata, FileMetadata existing, boolean objectStored) {
+        try {
+            if (existing != null) {
+                fileContentStore.release(existing);
+            }
+            if (objectStored) {
+                s3Client.deleteObject(DeleteObjectRequest.builder()
+                        .bucket(s3Config.getBucketName())
+                        .key(metadata.getFileKey())
+                        .build());
+            }
+            metadata.setStatus(FileMetadata.FileStatus.DELETED);
+            metadata.setIsDeleted(true);
+            fileMetadataRepository.save(metadata);
+        } catch (RuntimeException e) {
+            log.warn("Failed to clean up upload: {}", metadata.getFileKey(), e);
+        }
+    }
+
     /**
      * Generate secure download URL (signed)
      */
@@ -270,15 +484,38 @@ public class FileStorageService {
         FileMetadata metadata = fileMetadataRepository.findById(fileId)
                 .orElseThrow(() -> new BusinessException("File not found"));
 
+        if (metadata.getStatus() == FileMetadata.FileStatus.DELETED) {
+            return;
+        }
+
         // Mark as deleted in database
         metadata.setStatus(FileMetadata.FileStatus.DELETED);
         metadata.setIsDeleted(true);
         fileMetadataRepository.save(metadata);
 
+        // Shared content stays stored while other files still reference it
+        fileContentStore.release(metadata);
+
         log.info("File marked as deleted: {}", metadata.getFileKey());
 
         // Note: We don't delete from S3 immediately for recovery purposes
-        // Actual deletion can be done via lifecycle policy or manual cleanup
+        // Unreferenced content is purged by FileContentStore after its retention period
+    }
+
+    /**
+     * Reprocess a file whose processing failed, from the stage that failed
+     */
+    @Transactional
+    public void reprocessFile(UUID sellerId, UUID fileId) {
+        FileMetadata metadata = fileMetadataRepository.findById(fileId)
+                .filter(file -> file.getSellerId().equals(sellerId))
+                .orElseThrow(() -> new BusinessException("File not found"));
+
+        if (metadata.getStatus() != FileMetadata.FileStatus.CORRUPTED || metadata.getProcessingStage() == null) {
+            throw new BusinessException("File processing has not failed");
+        }
+
+        fileProcessingPipeline.retry(metadata);
     }
 
     /**
@@ -377,107 +614,107 @@ public class FileStorageService {
     }
 
     /**
-     * Async file processing pipeline
+     * Points the file at already stored content and copies that content's processing results
      */
-    @Async
-    @Transactional
-    public void processFileAsync(FileMetadata metadata) {
-        try {
-            metadata.setStatus(FileMetadata.FileStatus.PROCESSING);
-            fileMetadataRepository.save(metadata);
-
-            // 1. Virus scanning
-            if (validationConfig.isEnableVirusScanning()) {
-                metadata.setStatus(FileMetadata.FileStatus.SCANNING);
-                fileMetadataRepository.save(metadata);
-
-                boolean isClean = virusScanner.scanFile(metadata.getFileKey());
-                metadata.setVirusScanResult(isClean);
-                metadata.setVirusScanTimestamp(Instant.now());
-
-                if (!isClean) {
-                    metadata.setStatus(FileMetadata.FileStatus.INFECTED);
-                    fileMetadataRepository.save(metadata);
-                    log.warn("Virus detected in file: {}", metadata.getFileKey());
-                    return;
-                }
-            }
-
-            // 2. Image optimization (if image)
-            if (isImageFile(metadata.getMimeType()) && validationConfig.isEnableImageOptimization()) {
-                metadata.setStatus(FileMetadata.FileStatus.OPTIMIZING);
-                fileMetadataRepository.save(metadata);
-
-                boolean optimized = imageOptimizer.optimizeImage(metadata);
-                metadata.setOptimizationApplied(optimized);
-            }
-
-            // 3. Extract metadata (dimensions, duration, etc.)
-            extractFileMetadata(metadata);
-
-            // 4. Apply watermark if needed
-            if (metadata.getFileType() == FileMetadata.FileType.PRODUCT_FILE &&
-                    validationConfig.isEnableWatermarking()) {
-                applyWatermark(metadata);
-            }
-
-            metadata.setStatus(FileMetadata.FileStatus.READY);
-            metadata.setProcessedAt(Instant.now());
-            fileMetadataRepository.save(metadata);
+    private void reuseContent(FileMetadata metadata, FileMetadata source) {
+        metadata.setContentId(source.getContentId());
+        metadata.setFileKey(source.getFileKey());
+        metadata.setFileSize(source.getFileSize());
+        metadata.setMimeType(source.getMimeType());
+        metadata.setFileUrl(source.getFileUrl());
+        metadata.setCdnUrl(source.getCdnUrl());
+        metadata.setVirusScanResult(source.getVirusScanResult());
+        metadata.setVirusScanTimestamp(source.getVirusScanTimestamp());
+        metadata.setOptimizationApplied(source.getOptimizationApplied());
+        metadata.setWatermarkApplied(source.getWatermarkApplied());
+        metadata.setWidth(source.getWidth());
+        metadata.setHeight(source.getHeight());
+        metadata.setDuration(source.getDuration());
+        metadata.setStatus(FileMetadata.FileStatus.READY);
+        metadata.setUploadCompletedAt(Instant.now());
+        metadata.setProcessedAt(Instant.now());
+    }
 
-            log.info("File processing completed: {}", metadata.getFileKey());
+    private FileMetadata findMultipartUpload(UUID sellerId, UUID fileId) {
+        FileMetadata metadata = fileMetadataRepository.findById(fileId)
+                .filter(file -> file.getSellerId().equals(sellerId))
+                .orElseThrow(() -> new BusinessException("File not found"));
 
-        } catch (Exception e) {
-            log.error("File processing failed: {}", metadata.getFileKey(), e);
-            metadata.setStatus(FileMetadata.FileStatus.CORRUPTED);
-            fileMetadataRepository.save(metadata);
+        if (metadata.getMultipartUploadId() == null) {
+            throw new BusinessException("No multipart upload in progress for this file");
         }
+        return metadata;
     }
 
-    // Helper methods for hash calculation
-    private String calculateMd5(byte[] data) throws IOException {
+    private List<FileMetadata.UploadedPart> listUploadedParts(FileMetadata metadata) {
         try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] digest = md.digest(data);
-            return bytesToHex(digest);
-        } catch (Exception e) {
-            throw new IOException("Failed to calculate MD5", e);
+            return s3Client.listPartsPaginator(ListPartsRequest.builder()
+                            .bucket(s3Config.getBucketName())
+                            .key(metadata.getFileKey())
+                            .uploadId(metadata.getMultipartUploadId())
+                            .build())
+                    .parts().stream()
+                    .map(part -> new FileMetadata.UploadedPart(part.partNumber(), part.eTag(), part.size()))
+                    .sorted(Comparator.comparing(FileMetadata.UploadedPart::getPartNumber))
+                    .toList();
+        } catch (NoSuchUploadException e) {
+            throw new BusinessException("Multipart upload has expired or was aborted");
         }
     }
 
-    private String calculateSha256(byte[] data) throws IOException {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] digest = md.digest(data);
-            return bytesToHex(digest);
-        } catch (Exception e) {
-            throw new IOException("Failed to calculate SHA256", e);
-        }
-    }
+    private MultipartUploadResponse multipartUploadResponse(FileMetadata metadata) {
+        Set<Integer> completed = new TreeSet<>();
+        metadata.getUploadedParts().forEach(part -> completed.add(part.getPartNumber()));
 
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : bytes) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) {
-                hexString.append('0');
+        Duration expiry = Duration.ofHours(s3Config.getMultipartUploadExpiryHours());
+        List<MultipartUploadResponse.PartUrl> partUrls = new ArrayList<>();
+        for (int partNumber = 1; partNumber <= metadata.getPartCount(); partNumber++) {
+            if (!completed.contains(partNumber)) {
+                partUrls.add(new MultipartUploadResponse.PartUrl(partNumber, presignUploadPart(metadata, partNumber, expiry)));
             }
-            hexString.append(hex);
         }
-        return hexString.toString();
-    }
 
-    private boolean isImageFile(String mimeType) {
-        return mimeType != null && mimeType.startsWith("image/");
+        return MultipartUploadResponse.builder()
+                .fileId(metadata.getId())
+                .fileKey(metadata.getFileKey())
+                .uploadId(metadata.getMultipartUploadId())
+                .partSize(metadata.getPartSizeBytes())
+                .partCount(metadata.getPartCount())
+                .completedParts(new ArrayList<>(completed))
+                .partUrls(partUrls)
+                .expiresAt(Instant.now().plus(expiry))
+                .build();
     }
 
-    private void extractFileMetadata(FileMetadata metadata) {
-        // Extract dimensions, duration, etc. based on file type
-        // Implementation depends on file type
+    private String presignUploadPart(FileMetadata metadata, int partNumber, Duration expiry) {
+        UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                .bucket(s3Config.getBucketName())
+                .key(metadata.getFileKey())
+                .uploadId(metadata.getMultipartUploadId())
+                .partNumber(partNumber)
+                .build();
+
+        return s3Presigner.presignUploadPart(UploadPartPresignRequest.builder()
+                .signatureDuration(expiry)
+                .uploadPartRequest(uploadPartRequest)
+                .build()).url().toString();
     }
 
-    private void applyWatermark(FileMetadata metadata) {
-        // Apply watermark for digital products
-        // Implementation for images/PDFs
+    private void discardMultipartUpload(FileMetadata metadata) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(s3Config.getBucketName())
+                    .key(metadata.getFileKey())
+                    .uploadId(metadata.getMultipartUploadId())
+                    .build());
+        } catch (NoSuchUploadException e) {
+            log.debug("Multipart upload already gone: {}", metadata.getFileKey());
+        }
+
+        metadata.setMultipartUploadId(null);
+        metadata.setUploadedParts(new ArrayList<>());
+        metadata.setStatus(FileMetadata.FileStatus.DELETED);
+        metadata.setIsDeleted(true);
+        fileMetadataRepository.save(metadata);
     }
-}
\ No newline at end of file
+}
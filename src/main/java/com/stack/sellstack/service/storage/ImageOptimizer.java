@@ -59,6 +59,12 @@ public class ImageOptimizer {
             metadata.setWidth(originalImage.getWidth());
             metadata.setHeight(originalImage.getHeight());
 
+            // Drawn before re-encoding, so the image is encoded once
+            if (shouldWatermark(metadata)) {
+                originalImage = applyWatermark(originalImage);
+                metadata.setWatermarkApplied(true);
+            }
+
             // Optimize based on file type
             byte[] optimizedImage;
             String optimizedMimeType = metadata.getMimeType();
@@ -109,6 +115,44 @@ public class ImageOptimizer {
         }
     }
 
+    /**
+     * Product file images get the configured watermark when watermarking is enabled
+     */
+    public boolean shouldWatermark(FileMetadata metadata) {
+        return config.isEnableWatermarking()
+                && metadata.getFileType() == FileMetadata.FileType.PRODUCT_FILE
+                && isImageFile(metadata.getMimeType());
+    }
+
+    /**
+     * Draws the watermark text in the bottom-right corner, at the configured color and opacity.
+     * Draws on an RGB copy so palette images do not lose the blended text.
+     */
+    BufferedImage applyWatermark(BufferedImage image) {
+        boolean alpha = image.getColorModel().hasAlpha();
+        BufferedImage watermarked = new BufferedImage(image.getWidth(), image.getHeight(),
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D g2d = watermarked.createGraphics();
+        try {
+            g2d.drawImage(image, 0, 0, null);
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER,
+                    Math.max(0, Math.min(100, config.getWatermarkOpacity())) / 100f));
+            g2d.setColor(Color.decode(config.getWatermarkColor()));
+            g2d.setFont(new Font(config.getWatermarkFont(), Font.BOLD, config.getWatermarkFontSize()));
+
+            FontMetrics metrics = g2d.getFontMetrics();
+            int margin = config.getWatermarkFontSize() / 2;
+            int x = Math.max(0, image.getWidth() - metrics.stringWidth(config.getWatermarkText()) - margin);
+            int y = Math.max(metrics.getAscent(), image.getHeight() - metrics.getDescent() - margin);
+            g2d.drawString(config.getWatermarkText(), x, y);
+        } finally {
+            g2d.dispose();
+        }
+        return watermarked;
+    }
+
     private byte[] optimizeJpeg(BufferedImage image) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
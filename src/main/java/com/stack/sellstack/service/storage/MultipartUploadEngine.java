@@ -0,0 +1,240 @@
+package com.stack.sellstack.service.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Predicate;
+
+/**
+ * Streams an upload to S3 in parts, several in flight at once.
+ *
+ * The source is read once, sequentially, through MD5 and SHA-256 digests into part buffers.
+ * Content that fits in one buffer is a single PUT. Larger content becomes a multipart upload:
+ * each filled buffer is uploaded on the executor while the next one is read, with at most
+ * {@code parallelism} buffers (and so parts) in flight. A part is retried with backoff before the
+ * upload fails; a failed upload is aborted so no orphaned parts are billed.
+ *
+ * {@code alreadyStored} lets the caller deduplicate by hash. Content that fits in one buffer is
+ * hashed before anything is sent and is not uploaded if the caller already has it; larger
+ * content is only hashed once uploaded, and the new object is deleted again.
+ */
+@Slf4j
+class MultipartUploadEngine {
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final int partSize;
+    private final int parallelism;
+    private final int partRetries;
+    private final ExecutorService executor;
+
+    MultipartUploadEngine(S3Client s3Client, String bucket, int partSize, int parallelism, int partRetries,
+                          ExecutorService executor) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.partSize = partSize;
+        this.parallelism = Math.max(1, parallelism);
+        this.partRetries = Math.max(1, partRetries);
+        this.executor = executor;
+    }
+
+    StoredObject upload(InputStream source, String key, String contentType, Map<String, String> objectMetadata,
+                        Predicate<StoredObject> alreadyStored) throws IOException {
+        MessageDigest md5 = newDigest("MD5");
+        MessageDigest sha256 = newDigest("SHA-256");
+        InputStream in = new DigestInputStream(new DigestInputStream(source, md5), sha256);
+
+        byte[] first = new byte[partSize];
+        int length = in.readNBytes(first, 0, partSize);
+
+        if (length < partSize) {
+            StoredObject stored = new StoredObject(length, hex(md5), hex(sha256));
+            if (alreadyStored.test(stored)) {
+                return stored;
+            }
+            s3Client.putObject(PutObjectRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .contentType(contentType)
+                            .contentLength((long) length)
+                            .metadata(objectMetadata)
+                            .build(),
+                    body(first, length, contentType));
+            return stored;
+        }
+
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .metadata(objectMetadata)
+                .build()).uploadId();
+
+        BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<>(parallelism);
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        int allocated = 1;
+        byte[] buffer = first;
+        long size = 0;
+
+        try {
+            for (int partNumber = 1; length > 0; partNumber++) {
+                parts.add(uploadPartAsync(key, uploadId, partNumber, buffer, length, contentType, freeBuffers));
+                size += length;
+
+                failFast(parts);
+                if (allocated < parallelism && freeBuffers.isEmpty()) {
+                    buffer = new byte[partSize];
+                    allocated++;
+                } else {
+                    buffer = freeBuffers.take();
+                }
+                length = in.readNBytes(buffer, 0, partSize);
+            }
+
+            List<CompletedPart> completed = parts.stream()
+                    .map(CompletableFuture::join)
+                    .sorted(Comparator.comparing(CompletedPart::partNumber))
+                    .toList();
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completed).build())
+                    .build());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(key, uploadId, parts);
+            throw new InterruptedIOException("Upload interrupted: " + key);
+        } catch (CompletionException e) {
+            abort(key, uploadId, parts);
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        } catch (IOException | RuntimeException e) {
+            abort(key, uploadId, parts);
+            throw e;
+        }
+
+        StoredObject stored = new StoredObject(size, hex(md5), hex(sha256));
+        if (alreadyStored.test(stored)) {
+            s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+        }
+        return stored;
+    }
+
+    private CompletableFuture<CompletedPart> uploadPartAsync(String key, String uploadId, int partNumber,
+                                                             byte[] buffer, int length, String contentType,
+                                                             BlockingQueue<byte[]> freeBuffers) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return uploadPart(key, uploadId, partNumber, buffer, length, contentType);
+            } finally {
+                freeBuffers.offer(buffer);
+            }
+        }, executor);
+    }
+
+    private CompletedPart uploadPart(String key, String uploadId, int partNumber,
+                                     byte[] buffer, int length, String contentType) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                UploadPartResponse response = s3Client.uploadPart(UploadPartRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength((long) length)
+                                .build(),
+                        body(buffer, length, contentType));
+                return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+            } catch (SdkException e) {
+                if (attempt >= partRetries) {
+                    throw e;
+                }
+                log.warn("Part {} of {} failed (attempt {}), retrying: {}", partNumber, key, attempt, e.getMessage());
+                sleep(200L << Math.min(attempt, 6));
+            }
+        }
+    }
+
+    /**
+     * Stops reading as soon as a part has failed for good instead of streaming the rest first
+     */
+    private void failFast(List<CompletableFuture<CompletedPart>> parts) {
+        for (CompletableFuture<CompletedPart> part : parts) {
+            if (part.isCompletedExceptionally()) {
+                part.join();
+            }
+        }
+    }
+
+    private void abort(String key, String uploadId, List<CompletableFuture<CompletedPart>> parts) {
+        // Parts still in flight would recreate storage after the abort
+        for (CompletableFuture<CompletedPart> part : parts) {
+            try {
+                part.join();
+            } catch (RuntimeException ignored) {
+                // already failed
+            }
+        }
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (SdkException e) {
+            log.warn("Failed to abort multipart upload {} of {}", uploadId, key, e);
+        }
+    }
+
+    /**
+     * Part body over the buffer without copying it; a retry re-reads the same bytes
+     */
+    private static RequestBody body(byte[] buffer, int length, String contentType) {
+        return RequestBody.fromContentProvider(() -> new ByteArrayInputStream(buffer, 0, length), length, contentType);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    private static MessageDigest newDigest(String algorithm) throws IOException {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Digest not available: " + algorithm, e);
+        }
+    }
+
+    private static String hex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    record StoredObject(long size, String md5Hash, String sha256Hash) {
+    }
+}
@@ -2,16 +2,18 @@ package com.stack.sellstack.service.storage;
 
 import com.stack.sellstack.config.FileValidationConfig;
 import com.stack.sellstack.config.S3Config;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 
-import java.io.*;
-import java.net.Socket;
+import java.io.IOException;
 
 @Service
 @Slf4j
@@ -23,88 +25,57 @@ public class VirusScanner {
     private final FileValidationConfig config;
     private final S3Config s3Config;
 
+    private ClamdClient clamdClient;
+
+    @PostConstruct
+    public void init() {
+        this.clamdClient = new ClamdClient(
+                config.getClamAvHost(),
+                config.getClamAvPort(),
+                config.getClamAvPoolSize(),
+                config.getClamAvChunkSizeBytes(),
+                config.getClamAvConnectTimeoutMs(),
+                config.getClamAvReadTimeoutMs(),
+                config.getClamAvIdleTimeoutMs());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        clamdClient.close();
+    }
+
     /**
-     * Scan file using ClamAV antivirus
+     * Scan file using ClamAV antivirus. The S3 object is streamed straight into clamd, no temp
+     * file. Scanner errors are thrown rather than reported as clean or infected, so the
+     * processing pipeline retries the scan and the file never becomes READY unscanned.
      */
-    public boolean scanFile(String fileKey) {
+    public boolean scanFile(String fileKey) throws IOException {
         if (!config.isEnableVirusScanning()) {
             return true; // Skip scanning if disabled
         }
 
-        try {
-            // Download file from S3
-            File tempFile = downloadFileToTemp(fileKey);
-
-            try {
-                // Connect to ClamAV daemon
-                Socket socket = new Socket(config.getClamAvHost(), config.getClamAvPort());
-                DataInputStream dis = new DataInputStream(socket.getInputStream());
-                DataOutputStream dos = new DataOutputStream(socket.getOutputStream());
-
-                // Send INSTREAM command
-                dos.write("zINSTREAM\0".getBytes());
-                dos.flush();
-
-                // Send file in chunks
-                FileInputStream fis = new FileInputStream(tempFile);
-                byte[] buffer = new byte[2048];
-                int bytesRead;
-
-                while ((bytesRead = fis.read(buffer)) != -1) {
-                    dos.writeInt(bytesRead);
-                    dos.write(buffer, 0, bytesRead);
-                }
-
-                // Send zero-length chunk to indicate end
-                dos.writeInt(0);
-                dos.flush();
-                fis.close();
-
-                // Read response
-                byte[] response = new byte[2048];
-                int responseLength = dis.read(response);
-                String result = new String(response, 0, responseLength).trim();
-
-                socket.close();
-
-                // Parse result
-                boolean isClean = result.endsWith("OK");
-
-                log.info("Virus scan result for {}: {} - {}",
-                        fileKey, isClean ? "CLEAN" : "INFECTED", result);
-
-                return isClean;
-
-            } finally {
-                // Clean up temp file
-                if (!tempFile.delete()) {
-                    log.warn("Failed to delete temp file: {}", tempFile.getAbsolutePath());
-                }
-            }
-
-        } catch (Exception e) {
-            log.error("Virus scanning failed for file: {}", fileKey, e);
-
-            // If scanning fails, we have options:
-            // 1. Reject file (safe but strict)
-            // 2. Allow file with warning (business decision)
-            // For security, we'll reject the file
-            return false;
-        }
-    }
-
-    private File downloadFileToTemp(String fileKey) throws IOException {
         GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                 .bucket(s3Config.getBucketName())
                 .key(fileKey)
                 .build();
 
-        File tempFile = File.createTempFile("scan-", ".tmp");
-        tempFile.deleteOnExit();
+        ResponseInputStream<GetObjectResponse> object = s3Client.getObject(getObjectRequest);
+        boolean completed = false;
+        try {
+            ClamdClient.ScanResult result = clamdClient.scan(object);
+            completed = true;
 
-        s3Client.getObject(getObjectRequest, ResponseTransformer.toFile(tempFile));
+            log.info("Virus scan result for {}: {} - {}",
+                    fileKey, result.clean() ? "CLEAN" : "INFECTED", result.reply());
 
-        return tempFile;
+            return result.clean();
+        } finally {
+            if (!completed) {
+                // Don't drain the rest of the object just to reuse the connection
+                object.abort();
+            }
+            object.close();
+        }
     }
 
     /**
@@ -120,4 +91,4 @@ public class VirusScanner {
 
         return true; // Placeholder
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,345 @@
+package com.stack.sellstack.util;
+
+import java.util.Map;
+
+/**
+ * Converts HTML to readable plain text in a single pass over the input.
+ *
+ * Block elements start a new line (paragraphs, headings, lists and tables a blank line), list
+ * items get a "- " bullet, links keep their URL in brackets after the link text, and
+ * script/style/head content is dropped. Entities are decoded and whitespace runs collapse to
+ * one space. This is not a validating parser; it is meant for the text alternative of emails
+ * rendered from our own templates.
+ */
+public final class HtmlToText {
+
+    private static final String[] PARAGRAPH_TAGS =
+            {"p", "h1", "h2", "h3", "h4", "h5", "h6", "ul", "ol", "dl", "table", "blockquote", "pre"};
+    private static final String[] LINE_TAGS =
+            {"br", "div", "li", "tr", "hr", "dt", "dd", "section", "article", "header", "footer", "address", "center"};
+    private static final String[] SKIPPED_TAGS = {"script", "style", "head", "template"};
+    private static final String[] CELL_TAGS = {"td", "th"};
+
+    private static final int MAX_ENTITY_LENGTH = 10;
+    private static final Map<String, Character> NAMED_ENTITIES = Map.ofEntries(
+            Map.entry("nbsp", ' '), Map.entry("amp", '&'), Map.entry("lt", '<'), Map.entry("gt", '>'),
+            Map.entry("quot", '"'), Map.entry("apos", '\''), Map.entry("copy", '\u00A9'),
+            Map.entry("reg", '\u00AE'), Map.entry("trade", '\u2122'), Map.entry("hellip", '\u2026'),
+            Map.entry("mdash", '\u2014'), Map.entry("ndash", '\u2013'), Map.entry("lsquo", '\u2018'),
+            Map.entry("rsquo", '\u2019'), Map.entry("ldquo", '\u201C'), Map.entry("rdquo", '\u201D'),
+            Map.entry("bull", '\u2022'), Map.entry("middot", '\u00B7'), Map.entry("euro", '\u20AC'),
+            Map.entry("pound", '\u00A3'));
+
+    private HtmlToText() {
+    }
+
+    public static String convert(String html) {
+        if (html == null || html.isEmpty()) {
+            return "";
+        }
+
+        Output out = new Output(html.length());
+        int length = html.length();
+        int i = 0;
+        while (i < length) {
+            char c = html.charAt(i);
+            if (c == '<') {
+                i = tag(html, i, out);
+            } else if (c == '&') {
+                i = entity(html, i, out);
+            } else {
+                if (Character.isWhitespace(c)) {
+                    out.space();
+                } else {
+                    out.append(c);
+                }
+                i++;
+            }
+        }
+        return out.finish();
+    }
+
+    /**
+     * Handles the markup starting at html[start] == '<' and returns the index after it
+     */
+    private static int tag(String html, int start, Output out) {
+        int length = html.length();
+        if (html.startsWith("<!--", start)) {
+            int end = html.indexOf("-->", start + 4);
+            return end < 0 ? length : end + 3;
+        }
+
+        int p = start + 1;
+        boolean closing = p < length && html.charAt(p) == '/';
+        if (closing) {
+            p++;
+        }
+        int nameStart = p;
+        while (p < length && Character.isLetterOrDigit(html.charAt(p))) {
+            p++;
+        }
+        int nameEnd = p;
+
+        if (nameEnd == nameStart) {
+            // <!DOCTYPE ...>, <?xml ...?>, or a literal '<' in text
+            if (p < length && (html.charAt(p) == '!' || html.charAt(p) == '?')) {
+                int end = html.indexOf('>', p);
+                return end < 0 ? length : end + 1;
+            }
+            out.append('<');
+            return start + 1;
+        }
+
+        boolean anchor = !closing && is(html, nameStart, nameEnd, "a");
+        String href = null;
+        boolean selfClosing = false;
+        while (p < length && html.charAt(p) != '>') {
+            char c = html.charAt(p);
+            if (Character.isWhitespace(c) || c == '/') {
+                selfClosing = c == '/';
+                p++;
+                continue;
+            }
+            selfClosing = false;
+
+            int attrStart = p;
+            while (p < length && !isAttributeNameEnd(html.charAt(p))) {
+                p++;
+            }
+            int attrEnd = p;
+            while (p < length && Character.isWhitespace(html.charAt(p))) {
+                p++;
+            }
+            if (p < length && html.charAt(p) == '=') {
+                p++;
+                while (p < length && Character.isWhitespace(html.charAt(p))) {
+                    p++;
+                }
+                int valueStart;
+                int valueEnd;
+                if (p < length && (html.charAt(p) == '"' || html.charAt(p) == '\'')) {
+                    valueStart = p + 1;
+                    int close = html.indexOf(html.charAt(p), valueStart);
+                    valueEnd = close < 0 ? length : close;
+                    p = close < 0 ? length : close + 1;
+                } else {
+                    valueStart = p;
+                    while (p < length && !Character.isWhitespace(html.charAt(p)) && html.charAt(p) != '>') {
+                        p++;
+                    }
+                    valueEnd = p;
+                }
+                if (anchor && is(html, attrStart, attrEnd, "href")) {
+                    href = decode(html, valueStart, valueEnd).trim();
+                }
+            } else if (attrEnd == attrStart) {
+                p++;
+            }
+        }
+        int tagEnd = p < length ? p + 1 : length;
+
+        if (!closing && !selfClosing && isAny(html, nameStart, nameEnd, SKIPPED_TAGS)) {
+            return skipElement(html, tagEnd, nameStart, nameEnd);
+        }
+
+        if (isAny(html, nameStart, nameEnd, PARAGRAPH_TAGS)) {
+            out.lineBreak(2);
+        } else if (isAny(html, nameStart, nameEnd, LINE_TAGS)) {
+            out.lineBreak(1);
+            if (!closing && is(html, nameStart, nameEnd, "li")) {
+                out.append('-');
+                out.append(' ');
+            }
+        } else if (closing && isAny(html, nameStart, nameEnd, CELL_TAGS)) {
+            out.space();
+        } else if (anchor) {
+            out.openLink(href);
+        } else if (closing && is(html, nameStart, nameEnd, "a")) {
+            out.closeLink();
+        }
+        return tagEnd;
+    }
+
+    /**
+     * Returns the index after the element's closing tag, or the end of input when it is missing
+     */
+    private static int skipElement(String html, int from, int nameStart, int nameEnd) {
+        int nameLength = nameEnd - nameStart;
+        int p = from;
+        while ((p = html.indexOf("</", p)) >= 0) {
+            if (html.regionMatches(true, p + 2, html, nameStart, nameLength)) {
+                int end = html.indexOf('>', p);
+                return end < 0 ? html.length() : end + 1;
+            }
+            p += 2;
+        }
+        return html.length();
+    }
+
+    /**
+     * Handles the entity starting at html[start] == '&' and returns the index after it
+     */
+    private static int entity(String html, int start, Output out) {
+        int semicolon = html.indexOf(';', start + 1);
+        int codePoint = semicolon < 0 || semicolon - start > MAX_ENTITY_LENGTH
+                ? -1 : decodeEntity(html, start + 1, semicolon);
+        if (codePoint < 0) {
+            out.append('&');
+            return start + 1;
+        }
+        if (codePoint == ' ' || codePoint == 0xA0) {
+            out.space();
+        } else {
+            out.appendCodePoint(codePoint);
+        }
+        return semicolon + 1;
+    }
+
+    /**
+     * @return the code point of the entity between '&' and ';', or -1 if it is not one
+     */
+    private static int decodeEntity(String html, int start, int end) {
+        if (start < end && html.charAt(start) == '#') {
+            boolean hex = start + 1 < end && (html.charAt(start + 1) == 'x' || html.charAt(start + 1) == 'X');
+            int digits = hex ? start + 2 : start + 1;
+            if (digits == end) {
+                return -1;
+            }
+            try {
+                int codePoint = Integer.parseInt(html, digits, end, hex ? 16 : 10);
+                return Character.isValidCodePoint(codePoint) ? codePoint : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        Character named = NAMED_ENTITIES.get(html.substring(start, end));
+        return named != null ? named : -1;
+    }
+
+    private static String decode(String html, int start, int end) {
+        int amp = html.indexOf('&', start);
+        if (amp < 0 || amp >= end) {
+            return html.substring(start, end);
+        }
+        StringBuilder decoded = new StringBuilder(end - start);
+        int i = start;
+        while (i < end) {
+            char c = html.charAt(i);
+            int semicolon = c == '&' ? html.indexOf(';', i + 1) : -1;
+            int codePoint = semicolon > 0 && semicolon < end && semicolon - i <= MAX_ENTITY_LENGTH
+                    ? decodeEntity(html, i + 1, semicolon) : -1;
+            if (codePoint >= 0) {
+                decoded.appendCodePoint(codePoint);
+                i = semicolon + 1;
+            } else {
+                decoded.append(c);
+                i++;
+            }
+        }
+        return decoded.toString();
+    }
+
+    private static boolean isAttributeNameEnd(char c) {
+        return Character.isWhitespace(c) || c == '=' || c == '>' || c == '/';
+    }
+
+    private static boolean is(String html, int start, int end, String name) {
+        return end - start == name.length() && html.regionMatches(true, start, name, 0, name.length());
+    }
+
+    private static boolean isAny(String html, int start, int end, String[] names) {
+        for (String name : names) {
+            if (is(html, start, end, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Text builder that collapses whitespace lazily: spaces are only written between words on
+     * the same line, line breaks never stack beyond what was asked for
+     */
+    private static final class Output {
+        private final StringBuilder text;
+        private boolean pendingSpace;
+        private int trailingNewlines;
+        private String linkHref;
+        private int linkStart;
+
+        private Output(int capacity) {
+            this.text = new StringBuilder(capacity);
+        }
+
+        void append(char c) {
+            if (pendingSpace && trailingNewlines == 0 && !text.isEmpty()) {
+                text.append(' ');
+            }
+            pendingSpace = false;
+            text.append(c);
+            trailingNewlines = 0;
+        }
+
+        void appendCodePoint(int codePoint) {
+            if (Character.isBmpCodePoint(codePoint)) {
+                append((char) codePoint);
+            } else {
+                append(Character.highSurrogate(codePoint));
+                text.append(Character.lowSurrogate(codePoint));
+            }
+        }
+
+        void space() {
+            pendingSpace = true;
+        }
+
+        void lineBreak(int count) {
+            pendingSpace = false;
+            if (text.isEmpty()) {
+                return;
+            }
+            while (trailingNewlines < count) {
+                text.append('\n');
+                trailingNewlines++;
+            }
+        }
+
+        void openLink(String href) {
+            linkHref = href;
+            linkStart = text.length();
+        }
+
+        /**
+         * Appends " (url)" unless the link text already is the URL or the link goes nowhere
+         */
+        void closeLink() {
+            String href = linkHref;
+            linkHref = null;
+            if (href == null || href.isEmpty() || href.startsWith("#") || href.regionMatches(true, 0, "javascript:", 0, 11)) {
+                return;
+            }
+            String target = href.regionMatches(true, 0, "mailto:", 0, 7) ? href.substring(7) : href;
+            int start = Math.min(linkStart, text.length());
+            if (text.indexOf(target, start) >= 0) {
+                return;
+            }
+            if (text.length() > start) {
+                space();
+            }
+            append('(');
+            for (int i = 0; i < target.length(); i++) {
+                text.append(target.charAt(i));
+            }
+            text.append(')');
+        }
+
+        String finish() {
+            int end = text.length();
+            while (end > 0 && Character.isWhitespace(text.charAt(end - 1))) {
+                end--;
+            }
+            text.setLength(end);
+            return text.toString();
+        }
+    }
+}
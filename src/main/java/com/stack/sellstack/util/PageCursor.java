@@ -0,0 +1,42 @@
+package com.stack.sellstack.util;
+
+import com.stack.sellstack.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque seek position for keyset pagination: the sort order it was issued for, the sort key of
+ * the last row returned and that row's id as a tie-breaker. Clients pass it back verbatim.
+ */
+public record PageCursor(String sort, String key, UUID id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = sort + SEPARATOR + key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Null or blank means "first page". A cursor issued for another sort order is rejected, the
+     * key would not be comparable.
+     */
+    public static PageCursor decode(String cursor, String expectedSort) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || !parts[0].equals(expectedSort)) {
+                throw new ValidationException("Cursor does not match the requested sort order");
+            }
+            return new PageCursor(parts[0], parts[1], UUID.fromString(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+}
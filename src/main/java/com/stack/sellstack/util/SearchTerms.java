@@ -0,0 +1,33 @@
+package com.stack.sellstack.util;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Splits catalog search text into the terms every search engine matches: lowercased runs of
+ * letters and digits, punctuation dropped. Only the first {@link #MAX_TERMS} terms are kept, so a
+ * pasted paragraph cannot turn into a huge query.
+ */
+public final class SearchTerms {
+
+    public static final int MAX_TERMS = 8;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SearchTerms() {
+    }
+
+    /**
+     * @return the terms in input order; empty for null or blank text
+     */
+    public static List<String> of(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return NON_WORD.splitAsStream(text.toLowerCase(Locale.ROOT))
+                .filter(term -> !term.isEmpty())
+                .limit(MAX_TERMS)
+                .toList();
+    }
+}
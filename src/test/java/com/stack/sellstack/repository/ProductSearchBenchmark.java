@@ -0,0 +1,157 @@
+package com.stack.sellstack.repository;
+
+import com.stack.sellstack.config.ProductSchemaInitializer;
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog search over a seeded products table: the full-text predicate and rank ordering that
+ * {@link CatalogSpecification#matching} produces against the LIKE scan it replaced. Each
+ * invocation fetches one page and counts the total, like {@link ProductCatalogRepositoryImpl#findCatalog}.
+ *
+ * The table has only the columns the search touches; the search column and indexes come from
+ * {@link ProductSchemaInitializer}. Runs against Postgres in a container, so it needs Docker.
+ * Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=ProductSearchBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductSearchBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final String[] WORDS = {
+            "guitar", "piano", "lesson", "course", "python", "java", "design", "photo", "editing", "preset",
+            "lightroom", "template", "notion", "planner", "budget", "recipe", "ebook", "fitness", "yoga",
+            "workout", "marketing", "email", "social", "media", "icon", "font", "logo", "brand", "video",
+            "music", "beat", "sample", "drum", "vocal", "mixing", "resume", "career", "interview", "finance",
+            "excel", "sheet", "dashboard", "wedding", "invitation", "printable", "sticker", "kids", "math",
+            "science", "language", "spanish", "english", "writing", "novel", "poetry", "travel", "guide",
+            "map", "game", "asset"
+    };
+
+    private static final String[] CATEGORIES = {
+            "courses", "ebooks", "templates", "music", "graphics", "photography", "software", "printables"
+    };
+
+    private static final String LIKE_SEARCH_WHERE = "p.status = 'PUBLISHED' AND (" +
+            "LOWER(p.title) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(p.description) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(p.category) LIKE LOWER(CONCAT('%', :search, '%')))";
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    // A common single term and a narrower two-term query
+    @Param({"guitar", "python course"})
+    public String query;
+
+    private PostgreSQLContainer<?> postgres;
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+
+        PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(postgres.getJdbcUrl());
+        dataSource.setUser(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbc = new NamedParameterJdbcTemplate(jdbcTemplate);
+
+        jdbcTemplate.execute("""
+                CREATE TABLE products (
+                    id uuid PRIMARY KEY,
+                    seller_id uuid,
+                    title varchar(500) NOT NULL,
+                    description text,
+                    category varchar(100),
+                    tags jsonb,
+                    price numeric(10, 2) NOT NULL,
+                    discount_price numeric(10, 2),
+                    is_featured boolean,
+                    status varchar(50) NOT NULL,
+                    created_at timestamptz NOT NULL
+                )""");
+        jdbcTemplate.execute("CREATE TABLE product_views (product_id uuid, view_date date)");
+        seed();
+
+        ProductSchemaInitializer schema = new ProductSchemaInitializer(jdbcTemplate);
+        ReflectionTestUtils.setField(schema, "manageIndexes", true);
+        schema.createProductIndexes();
+        jdbcTemplate.execute("ANALYZE products");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        postgres.stop();
+    }
+
+    @Benchmark
+    public long fullTextSearch() {
+        CatalogSpecification specification = CatalogSpecification.published().matching(query);
+        String where = specification.whereClause();
+        String rank = specification.rankExpression().orElseThrow();
+
+        Map<String, Object> parameters = specification.parameters();
+        List<UUID> page = jdbc.queryForList("SELECT p.id FROM products p WHERE " + where +
+                " ORDER BY " + rank + " DESC, p.created_at DESC, p.id LIMIT " + PAGE_SIZE, parameters, UUID.class);
+        return page.size() + count(where, parameters);
+    }
+
+    @Benchmark
+    public long likeSearch() {
+        Map<String, Object> parameters = Map.of("search", query);
+        List<UUID> page = jdbc.queryForList("SELECT p.id FROM products p WHERE " + LIKE_SEARCH_WHERE +
+                " ORDER BY p.created_at DESC, p.id LIMIT " + PAGE_SIZE, parameters, UUID.class);
+        return page.size() + count(LIKE_SEARCH_WHERE, parameters);
+    }
+
+    private long count(String where, Map<String, Object> parameters) {
+        Long total = jdbc.queryForObject("SELECT count(*) FROM products p WHERE " + where, parameters, Long.class);
+        return total != null ? total : 0;
+    }
+
+    /**
+     * Titles of three random words, descriptions of thirty, 90% published
+     */
+    private void seed() {
+        jdbc.update("""
+                INSERT INTO products (id, seller_id, title, description, category, tags, price, discount_price,
+                                      is_featured, status, created_at)
+                SELECT gen_random_uuid(),
+                       gen_random_uuid(),
+                       (SELECT string_agg(w[1 + floor(random() * array_length(w, 1))::int], ' ')
+                        FROM generate_series(1, 3) WHERE g > 0),
+                       (SELECT string_agg(w[1 + floor(random() * array_length(w, 1))::int], ' ')
+                        FROM generate_series(1, 30) WHERE g > 0),
+                       c[1 + floor(random() * array_length(c, 1))::int],
+                       '[]'::jsonb,
+                       round((1 + random() * 99)::numeric, 2),
+                       NULL,
+                       random() < 0.05,
+                       CASE WHEN random() < 0.9 THEN 'PUBLISHED' ELSE 'DRAFT' END,
+                       now() - random() * interval '365 days'
+                FROM generate_series(1, :rows) AS g,
+                     (SELECT CAST(:words AS text[]) AS w, CAST(:categories AS text[]) AS c) AS vocabulary
+                """, Map.of(
+                "rows", rows,
+                "words", "{" + String.join(",", WORDS) + "}",
+                "categories", "{" + String.join(",", CATEGORIES) + "}"));
+    }
+}
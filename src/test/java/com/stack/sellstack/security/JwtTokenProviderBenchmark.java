@@ -0,0 +1,63 @@
+package com.stack.sellstack.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading the claims of an access token, per request:
+ * a parser built per call (as before the shared parser), a shared parser (a cache miss) and
+ * {@link JwtTokenProvider#parseClaims} for a token it has seen before (a cache hit).
+ *
+ * Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=JwtTokenProviderBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private SecretKey secretKey;
+    private JwtParser sharedParser;
+    private JwtTokenProvider provider;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        secretKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        sharedParser = Jwts.parser().verifyWith(secretKey).build();
+        provider = new JwtTokenProvider(SECRET, 900, 2_592_000, 10_000);
+        token = provider.createAccessToken(new UsernamePasswordAuthenticationToken("seller@example.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_SELLER"))), "device-1");
+        provider.parseClaims(token);
+    }
+
+    @Benchmark
+    public Claims parserPerCall() {
+        return Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Claims sharedParser() {
+        return sharedParser.parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Claims cachedClaims() {
+        return provider.parseClaims(token);
+    }
+}
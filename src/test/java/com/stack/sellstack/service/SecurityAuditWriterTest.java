@@ -0,0 +1,218 @@
+package com.stack.sellstack.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stack.sellstack.model.entity.SecurityAudit;
+import com.stack.sellstack.model.enums.SecurityEventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SecurityAuditWriterTest {
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    // Ids of every row the database accepted
+    private final List<UUID> inserted = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean databaseDown = new AtomicBoolean();
+    private UUID rejectedId;
+    private SecurityAuditWriter writer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void stubDatabase() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    if (databaseDown.get()) {
+                        throw new DataAccessResourceFailureException("Connection refused");
+                    }
+                    Collection<SecurityAudit> rows = invocation.getArgument(1);
+                    if (rows.stream().anyMatch(row -> row.getId().equals(rejectedId))) {
+                        throw new DataIntegrityViolationException("value too long for type character varying");
+                    }
+                    rows.forEach(row -> inserted.add(row.getId()));
+                    return new int[][]{};
+                });
+    }
+
+    @AfterEach
+    void stopWriter() throws InterruptedException {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void writesSubmittedEventsAndDrainsOnStop() throws InterruptedException {
+        writer = writer(SecurityAuditWriter.OverflowPolicy.BLOCK, 64);
+        writer.start();
+        List<SecurityAudit> events = List.of(event(), event(), event());
+        events.forEach(writer::submit);
+
+        writer.stop();
+        writer = null;
+
+        assertThat(inserted).containsExactlyInAnyOrderElementsOf(ids(events));
+        assertThat(count("security.audit.written")).isEqualTo(3);
+    }
+
+    @Test
+    void submitFillsInTheDefaults() {
+        SecurityAuditWriter unstarted = writer(SecurityAuditWriter.OverflowPolicy.BLOCK, 64);
+        SecurityAudit audit = SecurityAudit.builder()
+                .eventType(SecurityEventType.LOGIN_FAILED)
+                .ipAddress("10.0.0.1")
+                .build();
+
+        unstarted.submit(audit);
+
+        assertThat(audit.getId()).isNotNull();
+        assertThat(audit.getEventTimestamp()).isNotNull();
+        assertThat(audit.getIsSuccess()).isFalse();
+    }
+
+    @Test
+    void dropOldestDiscardsTheOldestQueuedEventWhenFull() throws InterruptedException {
+        writer = writer(SecurityAuditWriter.OverflowPolicy.DROP_OLDEST, 2);
+        SecurityAudit oldest = event();
+        SecurityAudit second = event();
+        SecurityAudit newest = event();
+
+        // Not started yet, so nothing drains the buffer
+        writer.submit(oldest);
+        writer.submit(second);
+        writer.submit(newest);
+        writer.start();
+        writer.stop();
+        writer = null;
+
+        assertThat(inserted).containsExactly(second.getId(), newest.getId());
+        assertThat(count("security.audit.dropped")).isEqualTo(1);
+    }
+
+    @Test
+    void spillPolicyWritesOverflowToTheSpillFileAndReplaysItOnStart() throws Exception {
+        writer = writer(SecurityAuditWriter.OverflowPolicy.SPILL, 2);
+        List<SecurityAudit> events = List.of(event(), event(), event());
+        events.forEach(writer::submit);
+
+        assertThat(count("security.audit.spilled")).isEqualTo(1);
+        assertThat(Files.readString(directory.resolve("spill.jsonl"))).contains(events.get(2).getId().toString());
+
+        writer.start();
+        writer.stop();
+        writer = null;
+
+        assertThat(inserted).containsExactlyInAnyOrderElementsOf(ids(events));
+        assertThat(directory.resolve("spill.jsonl")).doesNotExist();
+    }
+
+    @Test
+    void spillsWhileTheDatabaseIsDownAndReplaysLater() throws Exception {
+        databaseDown.set(true);
+        writer = writer(SecurityAuditWriter.OverflowPolicy.BLOCK, 64);
+        writer.start();
+        List<SecurityAudit> events = List.of(event(), event());
+        events.forEach(writer::submit);
+        writer.stop();
+        writer = null;
+
+        assertThat(inserted).isEmpty();
+        assertThat(count("security.audit.spilled")).isEqualTo(2);
+
+        databaseDown.set(false);
+        SecurityAuditWriter restarted = writer(SecurityAuditWriter.OverflowPolicy.BLOCK, 64);
+        restarted.replaySpillFile();
+
+        assertThat(inserted).containsExactlyInAnyOrderElementsOf(ids(events));
+        assertThat(directory.resolve("spill.jsonl")).doesNotExist();
+    }
+
+    @Test
+    void eventMissingARequiredFieldIsDeadLetteredWithoutReachingTheDatabase() throws Exception {
+        writer = writer(SecurityAuditWriter.OverflowPolicy.BLOCK, 64);
+        writer.start();
+        SecurityAudit complete = event();
+        SecurityAudit withoutIp = SecurityAudit.builder()
+                .eventType(SecurityEventType.LOGIN_FAILED)
+                .build();
+        writer.submit(complete);
+        writer.submit(withoutIp);
+        writer.stop();
+        writer = null;
+
+        assertThat(inserted).containsExactly(complete.getId());
+        assertThat(count("security.audit.dead.lettered")).isEqualTo(1);
+        assertThat(Files.readAllLines(directory.resolve("dead-letter.jsonl"), StandardCharsets.UTF_8))
+                .singleElement().asString().contains(withoutIp.getId().toString());
+    }
+
+    @Test
+    void constraintViolationDeadLettersOnlyTheOffendingEvent() throws Exception {
+        writer = writer(SecurityAuditWriter.OverflowPolicy.BLOCK, 64);
+        SecurityAudit good = event();
+        SecurityAudit bad = event();
+        rejectedId = bad.getId();
+
+        // Queued before start, so both go out in one batch
+        writer.submit(good);
+        writer.submit(bad);
+        writer.start();
+        writer.stop();
+        writer = null;
+
+        assertThat(inserted).containsExactly(good.getId());
+        assertThat(count("security.audit.written")).isEqualTo(1);
+        assertThat(count("security.audit.dead.lettered")).isEqualTo(1);
+        assertThat(Files.readString(directory.resolve("dead-letter.jsonl"))).contains(bad.getId().toString());
+    }
+
+    private SecurityAuditWriter writer(SecurityAuditWriter.OverflowPolicy policy, int bufferSize) {
+        return new SecurityAuditWriter(jdbcTemplate, objectMapper, meterRegistry, bufferSize, 100, 5, policy, 100,
+                directory.resolve("spill.jsonl").toString(), directory.resolve("dead-letter.jsonl").toString());
+    }
+
+    private double count(String counter) {
+        return meterRegistry.get(counter).counter().count();
+    }
+
+    private static SecurityAudit event() {
+        return SecurityAudit.builder()
+                .id(UUID.randomUUID())
+                .eventType(SecurityEventType.LOGIN_FAILED)
+                .username("seller@example.com")
+                .ipAddress("10.0.0.1")
+                .severity("MEDIUM")
+                .build();
+    }
+
+    private static List<UUID> ids(List<SecurityAudit> events) {
+        return events.stream().map(SecurityAudit::getId).toList();
+    }
+}
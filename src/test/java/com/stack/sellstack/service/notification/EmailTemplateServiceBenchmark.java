@@ -0,0 +1,114 @@
+package com.stack.sellstack.service.notification;
+
+import com.stack.sellstack.model.dto.response.ProcessedTemplate;
+import com.stack.sellstack.model.entity.EmailTemplate;
+import com.stack.sellstack.repository.EmailTemplateRepository;
+import freemarker.template.Configuration;
+import freemarker.template.TemplateExceptionHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Render throughput of an order confirmation email: parsing the template on every render (the
+ * cache disabled), the compiled-template cache, and a prepared bulk renderer with one
+ * per-recipient variable. The repository is a stub, so the uncached case measures parsing, not
+ * database reads.
+ *
+ * Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=EmailTemplateServiceBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailTemplateServiceBenchmark {
+
+    private static final String TEMPLATE_KEY = "order-confirmation";
+
+    private static final String HTML = """
+            <html><body>
+            <h1>Thanks for your order, ${customerName}!</h1>
+            <p>Order <strong>${orderId}</strong> is confirmed.</p>
+            <table>
+            <#list items as item>
+              <tr><td>${item.title}</td><td>${item.quantity}</td><td>${item.price}</td></tr>
+            </#list>
+            </table>
+            <p>Total: <strong>${total}</strong></p>
+            <p><a href="${downloadUrl}">Download your files</a></p>
+            <#if couponCode??><p>Your next order is 10% off with ${couponCode}.</p></#if>
+            </body></html>
+            """;
+
+    private static final Map<String, Object> VARIABLES = Map.of(
+            "customerName", "Asha",
+            "orderId", "ORD-2026-000123",
+            "items", List.of(
+                    Map.of("title", "Lightroom preset pack", "quantity", 1, "price", "499.00"),
+                    Map.of("title", "Notion budget planner", "quantity", 1, "price", "299.00"),
+                    Map.of("title", "Guitar lesson series", "quantity", 2, "price", "1,998.00")),
+            "total", "2,796.00",
+            "downloadUrl", "https://sellstack.example/downloads/ORD-2026-000123",
+            "couponCode", "THANKYOU10");
+
+    private EmailTemplateService uncached;
+    private EmailTemplateService cached;
+    private EmailTemplateService.BulkRenderer bulkRenderer;
+    private Map<String, Object> recipientVariables;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        EmailTemplateRepository repository = mock(EmailTemplateRepository.class);
+        when(repository.findByTemplateKeyAndIsActiveTrue(TEMPLATE_KEY)).thenReturn(Optional.of(EmailTemplate.builder()
+                .templateKey(TEMPLATE_KEY)
+                .subjectTemplate("Your order ${orderId} is confirmed")
+                .htmlTemplate(HTML)
+                .isActive(true)
+                .build()));
+
+        Configuration freemarker = freemarker();
+        uncached = new EmailTemplateService(repository, freemarker, new SimpleMeterRegistry(), false, 500, 30);
+        cached = new EmailTemplateService(repository, freemarker, new SimpleMeterRegistry(), true, 500, 30);
+        bulkRenderer = cached.prepareBulk(TEMPLATE_KEY, VARIABLES, Set.of("customerName"));
+        recipientVariables = Map.of("customerName", "Ravi");
+    }
+
+    @Benchmark
+    public ProcessedTemplate parseEveryRender() {
+        return uncached.processTemplate(TEMPLATE_KEY, VARIABLES);
+    }
+
+    @Benchmark
+    public ProcessedTemplate cachedTemplate() {
+        return cached.processTemplate(TEMPLATE_KEY, VARIABLES);
+    }
+
+    @Benchmark
+    public ProcessedTemplate bulkRecipient() {
+        return bulkRenderer.render(recipientVariables);
+    }
+
+    /**
+     * Same settings as FreeMarkerConfig, without its spring.ftl auto-import
+     */
+    private static Configuration freemarker() {
+        Configuration configuration = new Configuration(Configuration.VERSION_2_3_31);
+        configuration.setDefaultEncoding("UTF-8");
+        configuration.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
+        configuration.setLogTemplateExceptions(false);
+        configuration.setWrapUncheckedExceptions(true);
+        configuration.setFallbackOnNullLoopVariable(false);
+        return configuration;
+    }
+}
@@ -0,0 +1,139 @@
+package com.stack.sellstack.service.notification.dispatch;
+
+import com.stack.sellstack.exception.SendThrottledException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class SendRateGovernorTest {
+
+    private static final String PROVIDER = "TEST";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("notification.governor.provider.TEST.initial-rate", "10")
+            .withProperty("notification.governor.provider.TEST.min-rate", "3")
+            .withProperty("notification.governor.provider.TEST.max-rate", "11")
+            .withProperty("notification.governor.provider.TEST.decrease-cooldown-ms", "200");
+
+    @Test
+    void successRaisesTheRateAdditivelyUpToMaxRate() {
+        SendRateGovernor governor = governor(0, 5);
+
+        governor.onSuccess(PROVIDER);
+        assertThat(governor.rate(PROVIDER)).isCloseTo(10.1, within(1e-9));
+
+        // About +1/s for every rate's worth of successes
+        for (int i = 0; i < 9; i++) {
+            governor.onSuccess(PROVIDER);
+        }
+        assertThat(governor.rate(PROVIDER)).isCloseTo(10.96, within(0.01));
+
+        for (int i = 0; i < 100; i++) {
+            governor.onSuccess(PROVIDER);
+        }
+        assertThat(governor.rate(PROVIDER)).isEqualTo(11.0);
+        assertThat(meterRegistry.get("notification.governor.rate").tag("provider", PROVIDER).gauge().value())
+                .isEqualTo(11.0);
+    }
+
+    @Test
+    void throttlingHalvesTheRateAtMostOncePerCooldown() throws InterruptedException {
+        SendRateGovernor governor = governor(0, 5);
+
+        governor.onThrottled(PROVIDER);
+        governor.onThrottled(PROVIDER);
+        assertThat(governor.rate(PROVIDER)).isEqualTo(5.0);
+
+        Thread.sleep(250);
+        governor.onThrottled(PROVIDER);
+        assertThat(governor.rate(PROVIDER)).isEqualTo(3.0);
+
+        // Every throttling response is counted, decreased or not
+        assertThat(meterRegistry.get("notification.governor.throttled").tag("provider", PROVIDER).counter().count())
+                .isEqualTo(3.0);
+    }
+
+    @Test
+    void decreaseFactorIsConfigurable() {
+        environment.setProperty("notification.governor.provider.TEST.decrease-factor", "0.8");
+        SendRateGovernor governor = governor(0, 5);
+
+        governor.onThrottled(PROVIDER);
+
+        assertThat(governor.rate(PROVIDER)).isCloseTo(8.0, within(1e-9));
+    }
+
+    @Test
+    void providerBurstIsExhaustedBeforeWaitingLongerThanMaxWait() {
+        environment.setProperty("notification.governor.provider.TEST.burst", "2");
+        SendRateGovernor governor = governor(0, 100);
+
+        governor.acquire(PROVIDER, null);
+        governor.acquire(PROVIDER, null);
+
+        assertThatThrownBy(() -> governor.acquire(PROVIDER, null))
+                .isInstanceOf(SendThrottledException.class)
+                .hasMessage("Send rate limit exceeded for TEST");
+    }
+
+    @Test
+    void acquireWaitsForTheNextTokenAtTheCurrentRate() {
+        environment.setProperty("notification.governor.provider.TEST.burst", "1");
+        SendRateGovernor governor = governor(1000, 100);
+
+        governor.acquire(PROVIDER, null);
+        long start = System.nanoTime();
+        governor.acquire(PROVIDER, null);
+
+        // One token at 10/s is 100 ms away
+        assertThat((System.nanoTime() - start) / 1_000_000).isBetween(80L, 500L);
+    }
+
+    @Test
+    void acquireKeepsWaitingWhenUnparkedEarly() throws InterruptedException {
+        environment.setProperty("notification.governor.provider.TEST.burst", "1");
+        SendRateGovernor governor = governor(1000, 100);
+        governor.acquire(PROVIDER, null);
+
+        long[] waited = new long[1];
+        Thread sender = Thread.ofPlatform().start(() -> {
+            long start = System.nanoTime();
+            governor.acquire(PROVIDER, null);
+            waited[0] = System.nanoTime() - start;
+        });
+        for (int i = 0; i < 10 && sender.isAlive(); i++) {
+            LockSupport.unpark(sender);
+            Thread.sleep(5);
+        }
+        sender.join();
+
+        assertThat(waited[0] / 1_000_000).isBetween(80L, 500L);
+    }
+
+    @Test
+    void eachSellerIsCappedBelowTheProviderRate() {
+        environment.setProperty("notification.governor.provider.TEST.burst", "100");
+        SendRateGovernor governor = governor(0, 2);
+
+        governor.acquire(PROVIDER, "seller-a");
+        governor.acquire(PROVIDER, "seller-a");
+        assertThatThrownBy(() -> governor.acquire(PROVIDER, "seller-a"))
+                .isInstanceOf(SendThrottledException.class)
+                .hasMessage("Send rate limit exceeded for seller");
+
+        // Other sellers still get the provider budget
+        governor.acquire(PROVIDER, "seller-b");
+        governor.acquire(PROVIDER, null);
+    }
+
+    private SendRateGovernor governor(long maxWaitMs, double sellerRate) {
+        return new SendRateGovernor(meterRegistry, environment, maxWaitMs, sellerRate);
+    }
+}
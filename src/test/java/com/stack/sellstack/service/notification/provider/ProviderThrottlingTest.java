@@ -0,0 +1,252 @@
+package com.stack.sellstack.service.notification.provider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stack.sellstack.config.properties.EmailProperties;
+import com.stack.sellstack.config.properties.WhatsAppProperties;
+import com.stack.sellstack.exception.SendThrottledException;
+import com.stack.sellstack.model.entity.EmailQueue;
+import com.stack.sellstack.model.entity.WhatsAppQueue;
+import com.stack.sellstack.repository.EmailQueueRepository;
+import com.stack.sellstack.repository.WhatsAppQueueRepository;
+import com.stack.sellstack.repository.WhatsAppTemplateRepository;
+import com.stack.sellstack.service.http.ProviderHttpClient;
+import com.stack.sellstack.service.notification.DeliveryCounterStore;
+import com.stack.sellstack.service.notification.EmailTemplateService;
+import com.stack.sellstack.service.notification.dispatch.OutboundChannel;
+import com.stack.sellstack.service.notification.dispatch.OutboundDispatcher;
+import com.stack.sellstack.service.notification.dispatch.SendRateGovernor;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ses.SesClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Provider throttling against a local stub standing in for the Graph API
+ * (whatsapp.meta.base-url) and SES (aws.ses.endpoint): the governor rate is cut back and the
+ * queued message goes back to PENDING without spending a retry.
+ */
+class ProviderThrottlingTest {
+
+    private static final String SES_THROTTLED = """
+            <ErrorResponse xmlns="http://ses.amazonaws.com/doc/2010-12-01/">
+              <Error><Type>Sender</Type><Code>Throttling</Code><Message>Maximum sending rate exceeded.</Message></Error>
+              <RequestId>4f5e8b0c-0000-0000-0000-000000000000</RequestId>
+            </ErrorResponse>""";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("notification.governor.provider.META.initial-rate", "20")
+            .withProperty("notification.governor.provider.META.min-rate", "2")
+            .withProperty("notification.governor.provider.AWS_SES.initial-rate", "10")
+            .withProperty("notification.governor.provider.AWS_SES.min-rate", "1");
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private HttpServer server;
+    private SendRateGovernor governor;
+    private ProviderHttpClient providerHttpClient;
+    private JdbcTemplate jdbcTemplate;
+    private OutboundDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v17.0/", exchange -> {
+            requests.incrementAndGet();
+            respond(exchange, 429, "application/json", """
+                    {"error":{"message":"(#130429) Rate limit hit","type":"OAuthException","code":130429}}""");
+        });
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            respond(exchange, 400, "text/xml", SES_THROTTLED);
+        });
+        server.start();
+
+        governor = new SendRateGovernor(meterRegistry, environment, 1000, 100);
+        providerHttpClient = new ProviderHttpClient(new OkHttpClient(), meterRegistry, environment);
+        ReflectionTestUtils.setField(providerHttpClient, "defaultMaxRequests", 4);
+
+        jdbcTemplate = mock(JdbcTemplate.class);
+        dispatcher = new OutboundDispatcher(jdbcTemplate, meterRegistry, environment,
+                mock(DeliveryCounterStore.class), governor);
+        ReflectionTestUtils.setField(dispatcher, "partitions", 1);
+        ReflectionTestUtils.setField(dispatcher, "minBatchSize", 10);
+        ReflectionTestUtils.setField(dispatcher, "maxBatchSize", 500);
+        ReflectionTestUtils.setField(dispatcher, "targetBatchMs", 2000L);
+        ReflectionTestUtils.setField(dispatcher, "leaseSeconds", 120L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffSeconds", 3600L);
+        ReflectionTestUtils.setField(dispatcher, "throttledRetrySeconds", 30L);
+        ReflectionTestUtils.setField(dispatcher, "defaultConcurrency", 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+        providerHttpClient.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void metaRateLimitErrorLowersTheRateAndThrowsThrottled() {
+        MetaWhatsAppService whatsApp = whatsApp(mock(WhatsAppQueueRepository.class));
+
+        assertThatThrownBy(() -> whatsApp.send(whatsAppMessage(UUID.randomUUID())))
+                .isInstanceOf(SendThrottledException.class)
+                .hasMessageContaining("130429");
+
+        assertThat(requests).hasValue(1);
+        assertThat(governor.rate("META")).isEqualTo(10.0);
+    }
+
+    @Test
+    void throttledWhatsAppMessageIsRequeuedWithoutSpendingARetry() {
+        UUID id = UUID.randomUUID();
+        WhatsAppQueueRepository repository = mock(WhatsAppQueueRepository.class);
+        when(repository.findAllById(List.of(id))).thenReturn(List.of(whatsAppMessage(id)));
+
+        assertRequeued(whatsApp(repository), id);
+        assertThat(governor.rate("META")).isEqualTo(10.0);
+    }
+
+    @Test
+    void sesThrottlingLowersTheRateAndThrowsThrottled() {
+        AwsSesEmailService email = email(mock(EmailQueueRepository.class));
+
+        assertThatThrownBy(() -> email.send(emailMessage(UUID.randomUUID())))
+                .isInstanceOf(SendThrottledException.class)
+                .hasMessageContaining("Maximum sending rate exceeded");
+
+        assertThat(requests).hasValue(1);
+        assertThat(governor.rate("AWS_SES")).isEqualTo(5.0);
+    }
+
+    @Test
+    void throttledEmailIsRequeuedWithoutSpendingARetry() {
+        UUID id = UUID.randomUUID();
+        EmailQueueRepository repository = mock(EmailQueueRepository.class);
+        when(repository.findAllById(List.of(id))).thenReturn(List.of(emailMessage(id)));
+
+        assertRequeued(email(repository), id);
+        assertThat(governor.rate("AWS_SES")).isEqualTo(5.0);
+    }
+
+    /**
+     * Dispatches one claimed message and checks it was written back with the throttled update only
+     */
+    @SuppressWarnings("unchecked")
+    private void assertRequeued(OutboundChannel<?> channel, UUID id) {
+        when(jdbcTemplate.queryForList(anyString(), eq(UUID.class), any(Object[].class)))
+                .thenReturn(List.of(id), List.of());
+
+        dispatcher.dispatch(channel);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<List<Object[]>> parameters = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(sql.capture(), parameters.capture());
+
+        assertThat(sql.getValue())
+                .startsWith("UPDATE " + channel.queueTable() + " SET status = 'PENDING'")
+                .doesNotContain("retry_count");
+        assertThat(parameters.getValue()).hasSize(1);
+        assertThat(parameters.getValue().getFirst()).startsWith(30L, id);
+        assertThat(meterRegistry.get("notification.dispatch.throttled").tag("channel", channel.channel())
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    private MetaWhatsAppService whatsApp(WhatsAppQueueRepository repository) {
+        WhatsAppProperties properties = new WhatsAppProperties();
+        properties.setBaseUrl("http://localhost:" + server.getAddress().getPort() + "/v17.0/");
+        properties.setPhoneNumberId("1234567890");
+        properties.setAccessToken("test-token");
+
+        MetaWhatsAppService service = new MetaWhatsAppService(properties, mock(WhatsAppTemplateRepository.class),
+                repository, new ObjectMapper(), providerHttpClient, dispatcher, governor,
+                mock(DeliveryCounterStore.class), meterRegistry);
+        ReflectionTestUtils.setField(service, "mediaCacheMaxSize", 100L);
+        ReflectionTestUtils.setField(service, "mediaCacheTtlDays", 29L);
+        service.init();
+        return service;
+    }
+
+    private AwsSesEmailService email(EmailQueueRepository repository) {
+        SesClient sesClient = SesClient.builder()
+                .endpointOverride(URI.create("http://localhost:" + server.getAddress().getPort()))
+                .region(Region.AP_SOUTH_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .httpClient(UrlConnectionHttpClient.create())
+                .overrideConfiguration(configuration -> configuration.retryPolicy(RetryPolicy.none()))
+                .build();
+
+        EmailProperties properties = new EmailProperties();
+        properties.setFromEmail("orders@sellstack.example");
+
+        return new AwsSesEmailService(sesClient, properties, repository, mock(EmailTemplateService.class),
+                dispatcher, governor, mock(DeliveryCounterStore.class));
+    }
+
+    private static WhatsAppQueue whatsAppMessage(UUID id) {
+        return WhatsAppQueue.builder()
+                .id(id)
+                .sellerId("seller-1")
+                .toPhone("+919876543210")
+                .variables(Map.of("message", "Your order has shipped"))
+                .retryCount(0)
+                .maxRetries(3)
+                .status("PROCESSING")
+                .build();
+    }
+
+    private static EmailQueue emailMessage(UUID id) {
+        return EmailQueue.builder()
+                .id(id)
+                .sellerId("seller-1")
+                .toEmail("buyer@example.com")
+                .subject("Your order has shipped")
+                .plainTextContent("Your order has shipped")
+                .retryCount(0)
+                .maxRetries(3)
+                .status("PROCESSING")
+                .build();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body)
+            throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (exchange) {
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+}
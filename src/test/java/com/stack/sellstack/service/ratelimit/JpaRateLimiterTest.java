@@ -0,0 +1,57 @@
+package com.stack.sellstack.service.ratelimit;
+
+import com.stack.sellstack.model.entity.RateLimit;
+import com.stack.sellstack.repository.RateLimitRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JpaRateLimiterTest {
+
+    private final RateLimitRepository repository = mock(RateLimitRepository.class);
+    private final JpaRateLimiter limiter = new JpaRateLimiter(repository);
+
+    @Test
+    void recordsTheAttemptWhileUnderTheLimit() {
+        when(repository.countAttemptsInWindow(eq("10.0.0.1"), eq("LOGIN"), any())).thenReturn(2);
+
+        assertThat(limiter.tryAcquire("10.0.0.1", "LOGIN", 3, 60)).isTrue();
+
+        ArgumentCaptor<RateLimit> saved = ArgumentCaptor.forClass(RateLimit.class);
+        verify(repository).save(saved.capture());
+        assertThat(saved.getValue().getKey()).isEqualTo("10.0.0.1");
+        assertThat(saved.getValue().getAction()).isEqualTo("LOGIN");
+    }
+
+    @Test
+    void rejectsWithoutRecordingOnceTheLimitIsExhausted() {
+        when(repository.countAttemptsInWindow(eq("10.0.0.1"), eq("LOGIN"), any())).thenReturn(3);
+
+        assertThat(limiter.tryAcquire("10.0.0.1", "LOGIN", 3, 60)).isFalse();
+        assertThat(limiter.getRemainingAttempts("10.0.0.1", "LOGIN", 3, 60)).isZero();
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void onlyAttemptsInsideTheWindowAreCounted() {
+        when(repository.countAttemptsInWindow(any(), any(), any())).thenReturn(1);
+        Instant before = Instant.now();
+
+        assertThat(limiter.getRemainingAttempts("10.0.0.1", "LOGIN", 5, 300)).isEqualTo(4);
+
+        ArgumentCaptor<Instant> windowStart = ArgumentCaptor.forClass(Instant.class);
+        verify(repository).countAttemptsInWindow(eq("10.0.0.1"), eq("LOGIN"), windowStart.capture());
+        assertThat(windowStart.getValue())
+                .isBetween(before.minus(Duration.ofSeconds(300)), Instant.now().minus(Duration.ofSeconds(300)));
+    }
+}
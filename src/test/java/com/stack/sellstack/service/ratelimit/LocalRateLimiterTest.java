@@ -0,0 +1,116 @@
+package com.stack.sellstack.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalRateLimiterTest {
+
+    private static final long WINDOW_MILLIS = 10_000;
+
+    private final LocalRateLimiter limiter = new LocalRateLimiter(1000);
+
+    @Test
+    void rejectsOnceTheLimitIsExhausted() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("10.0.0.1", "LOGIN", 3, 60)).isTrue();
+        }
+
+        assertThat(limiter.tryAcquire("10.0.0.1", "LOGIN", 3, 60)).isFalse();
+        assertThat(limiter.getRemainingAttempts("10.0.0.1", "LOGIN", 3, 60)).isZero();
+    }
+
+    @Test
+    void keysAndActionsHaveSeparateBudgets() {
+        assertThat(limiter.tryAcquire("10.0.0.1", "LOGIN", 1, 60)).isTrue();
+
+        assertThat(limiter.tryAcquire("10.0.0.1", "LOGIN", 1, 60)).isFalse();
+        assertThat(limiter.tryAcquire("10.0.0.2", "LOGIN", 1, 60)).isTrue();
+        assertThat(limiter.tryAcquire("10.0.0.1", "OTP_GENERATION", 1, 60)).isTrue();
+        assertThat(limiter.getRemainingAttempts("10.0.0.3", "LOGIN", 5, 60)).isEqualTo(5);
+    }
+
+    @Test
+    void tryAcquireAllReportsTheFirstRejectingRule() {
+        List<RateLimitRule> rules = List.of(
+                new RateLimitRule("10.0.0.1", "IP", 10, 60),
+                new RateLimitRule("user@example.com", "LOGIN", 1, 60));
+
+        assertThat(limiter.tryAcquireAll(rules)).isEqualTo(-1);
+        assertThat(limiter.tryAcquireAll(rules)).isEqualTo(1);
+    }
+
+    @Test
+    void previousWindowCountsLessAsItSlidesOut() {
+        long start = System.currentTimeMillis() / WINDOW_MILLIS * WINDOW_MILLIS;
+        LocalRateLimiter.SlidingWindow window = new LocalRateLimiter.SlidingWindow(10);
+
+        assertThat(acquired(window, start, 5)).isEqualTo(5);
+        assertThat(window.tryAcquire(start + 9_999, 5)).isFalse();
+
+        // Start of the next window: the previous one still fully overlaps
+        assertThat(window.tryAcquire(start + WINDOW_MILLIS, 5)).isFalse();
+
+        // Halfway through: the previous window weighs 2.5, leaving room for 3 more
+        assertThat(acquired(window, start + WINDOW_MILLIS + 5_000, 5)).isEqualTo(3);
+        assertThat(window.estimate(start + WINDOW_MILLIS + 5_000)).isEqualTo(5.5);
+    }
+
+    @Test
+    void budgetRefillsOnceBothWindowsHaveSlidOut() {
+        long start = System.currentTimeMillis() / WINDOW_MILLIS * WINDOW_MILLIS;
+        LocalRateLimiter.SlidingWindow window = new LocalRateLimiter.SlidingWindow(10);
+
+        assertThat(acquired(window, start, 5)).isEqualTo(5);
+
+        assertThat(window.estimate(start + 2 * WINDOW_MILLIS)).isZero();
+        assertThat(acquired(window, start + 2 * WINDOW_MILLIS, 5)).isEqualTo(5);
+    }
+
+    @Test
+    void concurrentAcquiresNeverExceedTheLimit() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+        try {
+            List<Future<?>> attempts = new java.util.ArrayList<>();
+            for (int i = 0; i < threads * 10; i++) {
+                attempts.add(executor.submit(() -> {
+                    ready.await();
+                    if (limiter.tryAcquire("shared", "LOGIN", 50, 60)) {
+                        granted.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            ready.countDown();
+            for (Future<?> attempt : attempts) {
+                attempt.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(granted).hasValue(50);
+    }
+
+    /**
+     * Acquires until rejected (at most {@code max + 1} tries) and returns how many were granted
+     */
+    private static int acquired(LocalRateLimiter.SlidingWindow window, long now, int max) {
+        int granted = 0;
+        while (granted <= max && window.tryAcquire(now, max)) {
+            granted++;
+        }
+        return granted;
+    }
+}
@@ -0,0 +1,119 @@
+package com.stack.sellstack.service.ratelimit;
+
+import com.stack.sellstack.model.entity.RateLimit;
+import com.stack.sellstack.repository.RateLimitRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the local and jdbc limiter backends with every thread hitting the same keys.
+ * The limit is never reached, so each call records an attempt.
+ *
+ * Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=RateLimiterBenchmark}.
+ * The jdbc backend runs against Postgres in a container and needs Docker.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    @Param({"local", "jdbc"})
+    public String backend;
+
+    // 1 key: all threads contend on one window; 1000 keys: spread out like distinct client IPs
+    @Param({"1", "1000"})
+    public int keyCount;
+
+    private String[] keys;
+    private RateLimiter limiter;
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+
+        if (backend.equals("local")) {
+            limiter = new LocalRateLimiter(100_000);
+            return;
+        }
+
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+        context = new SpringApplicationBuilder(JdbcBackend.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "--spring.datasource.username=" + postgres.getUsername(),
+                        "--spring.datasource.password=" + postgres.getPassword(),
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.flyway.enabled=false",
+                        "--rate.limit.backend=jdbc");
+        limiter = context.getBean(RateLimiter.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearAttempts() {
+        if (context != null) {
+            context.getBean(RateLimitRepository.class).deleteAllInBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+            postgres.stop();
+        }
+    }
+
+    @Benchmark
+    public boolean tryAcquire() {
+        String key = keys[ThreadLocalRandom.current().nextInt(keys.length)];
+        return limiter.tryAcquire(key, "LOGIN", Integer.MAX_VALUE, 60);
+    }
+
+    /**
+     * Just the JPA limiter, its repository and the rate_limits table
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({
+            DataSourceAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class,
+            TransactionAutoConfiguration.class
+    })
+    @EnableJpaRepositories(basePackageClasses = RateLimitRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = RateLimitRepository.class))
+    @Import(JpaRateLimiter.class)
+    static class JdbcBackend {
+
+        @Bean
+        PersistenceManagedTypes persistenceManagedTypes() {
+            return PersistenceManagedTypes.of(RateLimit.class.getName());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.stack.sellstack.service.ratelimit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the acquire script of {@link RedisRateLimiter} against Redis in a container
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisRateLimiterScriptTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private final RedisRateLimiter limiter = new RedisRateLimiter(redisTemplate, 1000, 30);
+    // Keys are unique per test, so tests share the container without flushing it
+    private final String client = UUID.randomUUID().toString();
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void allowsUpToTheLimitThenDenies() {
+        // An hour-long window, so the test does not straddle a window boundary
+        for (int attempt = 0; attempt < 3; attempt++) {
+            assertThat(limiter.tryAcquire(client, "LOGIN", 3, 3600)).isTrue();
+        }
+        assertThat(limiter.tryAcquire(client, "LOGIN", 3, 3600)).isFalse();
+        assertThat(limiter.getRemainingAttempts(client, "LOGIN", 3, 3600)).isZero();
+
+        // A denied attempt is not counted
+        assertThat(redisTemplate.opsForValue().get(onlyKey())).isEqualTo("3");
+    }
+
+    @Test
+    void reportsTheFirstRuleOverItsLimitAndCountsNothingThen() {
+        RateLimitRule perIp = new RateLimitRule(client, "IP", 1, 3600);
+        RateLimitRule perAccount = new RateLimitRule(client, "ACCOUNT", 5, 3600);
+
+        assertThat(limiter.tryAcquireAll(List.of(perIp, perAccount))).isEqualTo(-1);
+        assertThat(limiter.tryAcquireAll(List.of(perAccount, perIp))).isEqualTo(1);
+
+        assertThat(limiter.getRemainingAttempts(client, "ACCOUNT", 5, 3600)).isEqualTo(4);
+    }
+
+    @Test
+    void refillsOnceThePreviousWindowHasPassed() throws InterruptedException {
+        assertThat(limiter.tryAcquire(client, "OTP", 2, 1)).isTrue();
+        assertThat(limiter.tryAcquire(client, "OTP", 2, 1)).isTrue();
+        assertThat(limiter.tryAcquire(client, "OTP", 2, 1)).isFalse();
+
+        sleepIntoWindow(2, 1000);
+
+        assertThat(limiter.getRemainingAttempts(client, "OTP", 2, 1)).isEqualTo(2);
+        assertThat(limiter.tryAcquire(client, "OTP", 2, 1)).isTrue();
+    }
+
+    @Test
+    void windowKeysExpireAfterTwoWindows() throws InterruptedException {
+        assertThat(limiter.tryAcquire(client, "SIGNUP", 5, 1)).isTrue();
+
+        Long ttl = redisTemplate.getExpire(onlyKey(), TimeUnit.MILLISECONDS);
+        assertThat(ttl).isPositive().isLessThanOrEqualTo(2000L);
+
+        Thread.sleep(ttl + 100);
+        assertThat(redisTemplate.keys(clientKeys())).isEmpty();
+    }
+
+    private String onlyKey() {
+        Set<String> keys = redisTemplate.keys(clientKeys());
+        assertThat(keys).hasSize(1);
+        return keys.iterator().next();
+    }
+
+    private String clientKeys() {
+        return "rl:{" + client + "}:*";
+    }
+
+    /**
+     * Sleeps until {@code windows} window boundaries after the current window's start have passed
+     */
+    private static void sleepIntoWindow(int windows, long windowMillis) throws InterruptedException {
+        long now = System.currentTimeMillis();
+        long target = (now / windowMillis + windows) * windowMillis + 50;
+        Thread.sleep(target - now);
+    }
+}
@@ -0,0 +1,34 @@
+package com.stack.sellstack.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Covers the fallback to per-node limits; {@link RedisRateLimiterScriptTest} runs the Lua script
+ */
+class RedisRateLimiterTest {
+
+    @Test
+    void fallsBackToLocalLimitsWhileRedisIsDown() {
+        AtomicInteger redisCalls = new AtomicInteger();
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class, invocation -> {
+            redisCalls.incrementAndGet();
+            throw new RedisConnectionFailureException("Connection refused");
+        });
+        RedisRateLimiter limiter = new RedisRateLimiter(redisTemplate, 1000, 30);
+
+        assertThat(limiter.tryAcquire("10.0.0.1", "LOGIN", 2, 60)).isTrue();
+        assertThat(limiter.tryAcquire("10.0.0.1", "LOGIN", 2, 60)).isTrue();
+        assertThat(limiter.tryAcquire("10.0.0.1", "LOGIN", 2, 60)).isFalse();
+        assertThat(limiter.getRemainingAttempts("10.0.0.1", "LOGIN", 2, 60)).isZero();
+
+        // Redis is not retried until the back-off has passed
+        assertThat(redisCalls).hasValue(1);
+    }
+}
@@ -0,0 +1,221 @@
+package com.stack.sellstack.service.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Runs ClamdClient against an in-process fake clamd that speaks the IDSESSION / INSTREAM protocol
+ */
+class ClamdClientTest {
+
+    private FakeClamd clamd;
+    private ClamdClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        clamd = new FakeClamd();
+        // Small chunks so one scan spans several INSTREAM chunks
+        client = new ClamdClient("localhost", clamd.port(), 2, 4, 1000, 2000, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        clamd.close();
+    }
+
+    @Test
+    void cleanContentIsStreamedInChunksInsideASession() throws IOException {
+        ClamdClient.ScanResult result = client.scan(stream("hello clamd"));
+
+        assertThat(result.clean()).isTrue();
+        assertThat(result.reply()).isEqualTo("stream: OK");
+        assertThat(clamd.commands).containsExactly("zIDSESSION", "zINSTREAM");
+        assertThat(clamd.chunkSizes).containsExactly(4, 4, 3);
+        assertThat(clamd.scanned).containsExactly("hello clamd");
+    }
+
+    @Test
+    void foundReplyIsInfected() throws IOException {
+        ClamdClient.ScanResult result = client.scan(stream("X5O!P%@AP EICAR"));
+
+        assertThat(result.clean()).isFalse();
+        assertThat(result.reply()).isEqualTo("stream: Eicar-Test-Signature FOUND");
+    }
+
+    @Test
+    void sessionIsReusedAcrossScans() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            assertThat(client.scan(stream("file " + i)).clean()).isTrue();
+        }
+
+        assertThat(clamd.connections).hasValue(1);
+        assertThat(clamd.commands).containsExactly("zIDSESSION", "zINSTREAM", "zINSTREAM", "zINSTREAM");
+        assertThat(clamd.replyIds).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void errorReplyFailsTheScanAndDiscardsTheSession() throws IOException {
+        assertThatThrownBy(() -> client.scan(stream("TOO-BIG")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("INSTREAM size limit exceeded. ERROR");
+
+        assertThat(client.scan(stream("next")).clean()).isTrue();
+        assertThat(clamd.connections).hasValue(2);
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> assertThat(clamd.ended).hasValue(1));
+    }
+
+    @Test
+    void replyForAnotherCommandIdIsRejected() {
+        assertThatThrownBy(() -> client.scan(stream("WRONG-ID")))
+                .isInstanceOf(IOException.class)
+                .hasMessageStartingWith("Unexpected clamd reply: 2: stream:");
+    }
+
+    @Test
+    void idleSessionIsReplacedBeforeUse() throws Exception {
+        client.close();
+        client = new ClamdClient("localhost", clamd.port(), 2, 4, 1000, 2000, 50);
+
+        client.scan(stream("first"));
+        Thread.sleep(100);
+        client.scan(stream("second"));
+
+        assertThat(clamd.connections).hasValue(2);
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> assertThat(clamd.ended).hasValue(1));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Minimal clamd: accepts IDSESSION, answers each INSTREAM with "<id>: stream: <verdict>\0" and
+     * closes on END. Content containing EICAR is infected, TOO-BIG is answered with an error, and
+     * WRONG-ID gets a reply for the wrong command id.
+     */
+    private static final class FakeClamd implements AutoCloseable {
+
+        private final ServerSocket server = new ServerSocket(0);
+        private final List<String> commands = new CopyOnWriteArrayList<>();
+        private final List<Integer> chunkSizes = new CopyOnWriteArrayList<>();
+        private final List<String> scanned = new CopyOnWriteArrayList<>();
+        private final List<Integer> replyIds = new CopyOnWriteArrayList<>();
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger ended = new AtomicInteger();
+
+        FakeClamd() throws IOException {
+            Thread acceptor = new Thread(this::accept, "fake-clamd");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        private void accept() {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    connections.incrementAndGet();
+                    Thread session = new Thread(() -> serve(socket), "fake-clamd-session");
+                    session.setDaemon(true);
+                    session.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (socket) {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                OutputStream out = socket.getOutputStream();
+                int id = 0;
+                String command;
+                while ((command = readCommand(in)) != null) {
+                    if (command.equals("zEND")) {
+                        ended.incrementAndGet();
+                        return;
+                    }
+                    commands.add(command);
+                    if (!command.equals("zINSTREAM")) {
+                        continue;
+                    }
+
+                    id++;
+                    String content = readStream(in);
+                    scanned.add(content);
+                    int replyId = content.contains("WRONG-ID") ? id + 1 : id;
+                    replyIds.add(replyId);
+                    out.write((replyId + ": stream: " + verdict(content) + "\0").getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // Client went away
+            }
+        }
+
+        private static String verdict(String content) {
+            if (content.contains("EICAR")) {
+                return "Eicar-Test-Signature FOUND";
+            }
+            if (content.contains("TOO-BIG")) {
+                return "INSTREAM size limit exceeded. ERROR";
+            }
+            return "OK";
+        }
+
+        private static String readCommand(DataInputStream in) throws IOException {
+            ByteArrayOutputStream command = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != 0) {
+                if (b == -1) {
+                    return null;
+                }
+                command.write(b);
+            }
+            return command.toString(StandardCharsets.US_ASCII);
+        }
+
+        private String readStream(DataInputStream in) throws IOException {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            int length;
+            while ((length = in.readInt()) > 0) {
+                chunkSizes.add(length);
+                byte[] chunk = new byte[length];
+                in.readFully(chunk);
+                content.write(chunk);
+            }
+            if (length < 0) {
+                throw new EOFException("Negative chunk length");
+            }
+            return content.toString(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.stack.sellstack.service.storage;
+
+import com.stack.sellstack.config.S3Config;
+import com.stack.sellstack.exception.BusinessException;
+import com.stack.sellstack.model.dto.response.MultipartUploadResponse;
+import com.stack.sellstack.model.entity.FileMetadata;
+import com.stack.sellstack.repository.FileMetadataRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs server-side multipart uploads (MultipartUploadEngine) and presigned client multipart
+ * uploads (FileStorageService) against S3 in LocalStack
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class MultipartUploadTest {
+
+    private static final String BUCKET = "multipart-test";
+    // S3's minimum part size; every part but the last must be at least this big
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    @Container
+    private static final LocalStackContainer LOCALSTACK =
+            new LocalStackContainer(DockerImageName.parse("localstack/localstack:3.2"))
+                    .withServices(LocalStackContainer.Service.S3);
+
+    private static S3Client s3;
+    private static ExecutorService executor;
+
+    private FlakyS3Client flakyS3;
+
+    @BeforeAll
+    static void startClient() {
+        s3 = S3Client.builder()
+                .endpointOverride(LOCALSTACK.getEndpoint())
+                .region(Region.of(LOCALSTACK.getRegion()))
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(
+                        LOCALSTACK.getAccessKey(), LOCALSTACK.getSecretKey())))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .build();
+        s3.createBucket(CreateBucketRequest.builder().bucket(BUCKET).build());
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @AfterAll
+    static void stopClient() {
+        executor.shutdown();
+        s3.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        flakyS3 = new FlakyS3Client(s3);
+    }
+
+    @Test
+    void partsAreUploadedInParallelAndReassembled() throws Exception {
+        byte[] content = content(3 * PART_SIZE + 1024);
+        MultipartUploadEngine engine = new MultipartUploadEngine(flakyS3, BUCKET, PART_SIZE, 3, 3, executor);
+
+        MultipartUploadEngine.StoredObject stored =
+                engine.upload(new ByteArrayInputStream(content), "parallel.bin", "application/octet-stream",
+                        Map.of(), object -> false);
+
+        assertThat(flakyS3.attempts).containsOnlyKeys(1, 2, 3, 4);
+        assertThat(flakyS3.maxInFlight.get()).isBetween(2, 3);
+        assertThat(stored.size()).isEqualTo(content.length);
+        assertThat(stored.sha256Hash()).isEqualTo(sha256(content));
+        assertThat(download("parallel.bin")).isEqualTo(content);
+    }
+
+    @Test
+    void failedPartIsRetried() throws Exception {
+        byte[] content = content(2 * PART_SIZE + 1024);
+        flakyS3.failOnce.add(2);
+        MultipartUploadEngine engine = new MultipartUploadEngine(flakyS3, BUCKET, PART_SIZE, 2, 3, executor);
+
+        engine.upload(new ByteArrayInputStream(content), "retried.bin", "application/octet-stream",
+                Map.of(), object -> false);
+
+        assertThat(flakyS3.attempts.get(1)).hasValue(1);
+        assertThat(flakyS3.attempts.get(2)).hasValue(2);
+        assertThat(download("retried.bin")).isEqualTo(content);
+    }
+
+    @Test
+    void partFailingEveryAttemptAbortsTheUpload() {
+        byte[] content = content(2 * PART_SIZE + 1024);
+        flakyS3.failAlways.add(2);
+        MultipartUploadEngine engine = new MultipartUploadEngine(flakyS3, BUCKET, PART_SIZE, 2, 2, executor);
+
+        assertThatThrownBy(() -> engine.upload(new ByteArrayInputStream(content), "aborted.bin",
+                "application/octet-stream", Map.of(), object -> false))
+                .isInstanceOf(SdkClientException.class);
+
+        assertThat(flakyS3.attempts.get(2)).hasValue(2);
+        assertThat(s3.listMultipartUploads(ListMultipartUploadsRequest.builder()
+                .bucket(BUCKET).prefix("aborted.bin").build()).uploads()).isEmpty();
+        assertThatThrownBy(() -> s3.headObject(HeadObjectRequest.builder().bucket(BUCKET).key("aborted.bin").build()))
+                .isInstanceOf(NoSuchKeyException.class);
+    }
+
+    @Test
+    void presignedUploadResumesFromS3PartListAndCompletes() throws Exception {
+        byte[] content = content(2 * PART_SIZE + 1024);
+        FileMetadataRepository repository = inMemoryRepository();
+        FileProcessingPipeline pipeline = mock(FileProcessingPipeline.class);
+        FileStorageService storage = fileStorageService(repository, pipeline);
+        UUID sellerId = UUID.randomUUID();
+
+        MultipartUploadResponse started = storage.initiateMultipartUpload(sellerId, "course.zip",
+                "application/zip", FileMetadata.FileType.PRODUCT_FILE, content.length);
+        assertThat(started.getPartCount()).isEqualTo(3);
+        assertThat(started.getPartUrls()).hasSize(3);
+
+        // Client uploads two parts, then loses its state
+        put(started.getPartUrls().get(0), content);
+        put(started.getPartUrls().get(1), content);
+        assertThatThrownBy(() -> storage.completeMultipartUpload(sellerId, started.getFileId()))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Upload incomplete: 2 of 3 parts received");
+
+        MultipartUploadResponse resumed = storage.resumeMultipartUpload(sellerId, started.getFileId());
+        assertThat(resumed.getCompletedParts()).containsExactly(1, 2);
+        assertThat(resumed.getPartUrls()).extracting(MultipartUploadResponse.PartUrl::getPartNumber)
+                .containsExactly(3);
+
+        put(resumed.getPartUrls().get(0), content);
+        FileMetadata completed = storage.completeMultipartUpload(sellerId, started.getFileId());
+
+        assertThat(completed.getStatus()).isEqualTo(FileMetadata.FileStatus.UPLOADED);
+        assertThat(completed.getFileSize()).isEqualTo(content.length);
+        assertThat(completed.getMultipartUploadId()).isNull();
+        assertThat(download(completed.getFileKey())).isEqualTo(content);
+        verify(pipeline).start(completed);
+    }
+
+    @Test
+    void abortedPresignedUploadDiscardsItsParts() throws Exception {
+        byte[] content = content(PART_SIZE + 1024);
+        FileMetadataRepository repository = inMemoryRepository();
+        FileStorageService storage = fileStorageService(repository, mock(FileProcessingPipeline.class));
+        UUID sellerId = UUID.randomUUID();
+
+        MultipartUploadResponse started = storage.initiateMultipartUpload(sellerId, "video.mp4",
+                "video/mp4", FileMetadata.FileType.PRODUCT_FILE, content.length);
+        put(started.getPartUrls().get(0), content);
+
+        storage.abortMultipartUpload(sellerId, started.getFileId());
+
+        assertThat(s3.listMultipartUploads(ListMultipartUploadsRequest.builder()
+                .bucket(BUCKET).prefix(started.getFileKey()).build()).uploads()).isEmpty();
+        assertThat(repository.findById(started.getFileId())).get()
+                .extracting(FileMetadata::getStatus).isEqualTo(FileMetadata.FileStatus.DELETED);
+    }
+
+    private static FileStorageService fileStorageService(FileMetadataRepository repository,
+                                                         FileProcessingPipeline pipeline) {
+        S3Config config = new S3Config();
+        config.setAccessKey(LOCALSTACK.getAccessKey());
+        config.setSecretKey(LOCALSTACK.getSecretKey());
+        config.setRegion(LOCALSTACK.getRegion());
+        config.setBucketName(BUCKET);
+        config.setEndpoint(LOCALSTACK.getEndpoint().toString());
+        config.setPathStyleAccessEnabled(true);
+        config.setMultipartPartSizeBytes(PART_SIZE);
+
+        FileStorageService storage = new FileStorageService(config, repository, mock(FileValidator.class),
+                pipeline, mock(FileContentStore.class),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        storage.init();
+        return storage;
+    }
+
+    private static FileMetadataRepository inMemoryRepository() {
+        Map<UUID, FileMetadata> files = new ConcurrentHashMap<>();
+        FileMetadataRepository repository = mock(FileMetadataRepository.class);
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> {
+            FileMetadata metadata = invocation.getArgument(0);
+            if (metadata.getId() == null) {
+                metadata.setId(UUID.randomUUID());
+            }
+            files.put(metadata.getId(), metadata);
+            return metadata;
+        });
+        when(repository.findById(any(UUID.class)))
+                .thenAnswer(invocation -> Optional.ofNullable(files.get(invocation.<UUID>getArgument(0))));
+        return repository;
+    }
+
+    /**
+     * PUTs the slice of {@code content} for a part to its presigned URL, as the browser would
+     */
+    private static void put(MultipartUploadResponse.PartUrl part, byte[] content) throws IOException {
+        int from = (part.getPartNumber() - 1) * PART_SIZE;
+        byte[] body = Arrays.copyOfRange(content, from, Math.min(content.length, from + PART_SIZE));
+
+        HttpURLConnection connection = (HttpURLConnection) URI.create(part.getUploadUrl()).toURL().openConnection();
+        connection.setRequestMethod("PUT");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        connection.disconnect();
+    }
+
+    private static byte[] download(String key) {
+        return s3.getObjectAsBytes(GetObjectRequest.builder().bucket(BUCKET).key(key).build()).asByteArray();
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    /**
+     * Passes the calls MultipartUploadEngine makes through to LocalStack. Part uploads are held
+     * briefly so overlapping ones can be counted, and chosen parts fail once or on every attempt.
+     */
+    private static final class FlakyS3Client implements S3Client {
+
+        private final S3Client delegate;
+        private final Map<Integer, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        private final Set<Integer> failOnce = ConcurrentHashMap.newKeySet();
+        private final Set<Integer> failAlways = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        FlakyS3Client(S3Client delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+            int attempt = attempts.computeIfAbsent(request.partNumber(), part -> new AtomicInteger()).incrementAndGet();
+            if (failAlways.contains(request.partNumber()) || (attempt == 1 && failOnce.contains(request.partNumber()))) {
+                throw SdkClientException.create("Injected failure for part " + request.partNumber());
+            }
+
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(300);
+                return delegate.uploadPart(request, body);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw SdkClientException.create("Interrupted", e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+            return delegate.putObject(request, body);
+        }
+
+        @Override
+        public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+            return delegate.createMultipartUpload(request);
+        }
+
+        @Override
+        public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+            return delegate.completeMultipartUpload(request);
+        }
+
+        @Override
+        public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+            return delegate.abortMultipartUpload(request);
+        }
+
+        @Override
+        public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+            return delegate.deleteObject(request);
+        }
+
+        @Override
+        public String serviceName() {
+            return delegate.serviceName();
+        }
+
+        @Override
+        public void close() {
+            // The shared client is closed once all tests have run
+        }
+    }
+}
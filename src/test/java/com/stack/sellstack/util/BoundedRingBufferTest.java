@@ -0,0 +1,142 @@
+package com.stack.sellstack.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedRingBufferTest {
+
+    @Test
+    void roundsCapacityUpToAPowerOfTwo() {
+        assertThat(new BoundedRingBuffer<>(2).capacity()).isEqualTo(2);
+        assertThat(new BoundedRingBuffer<>(3).capacity()).isEqualTo(4);
+        assertThat(new BoundedRingBuffer<>(8).capacity()).isEqualTo(8);
+        assertThat(new BoundedRingBuffer<>(1000).capacity()).isEqualTo(1024);
+        assertThatThrownBy(() -> new BoundedRingBuffer<>(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsOffersWhenFullAndKeepsWhatItHas() {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(4);
+        for (int i = 1; i <= 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+
+        assertThat(buffer.offer(5)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+        assertThat(drain(buffer)).containsExactly(1, 2, 3, 4);
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void keepsFifoOrderAcrossWraparound() {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(4);
+        buffer.offer(1);
+        buffer.offer(2);
+        buffer.offer(3);
+        assertThat(buffer.poll()).isEqualTo(1);
+        assertThat(buffer.poll()).isEqualTo(2);
+
+        // Slots 0 and 1 are reused for 5 and 6
+        assertThat(buffer.offer(4)).isTrue();
+        assertThat(buffer.offer(5)).isTrue();
+        assertThat(buffer.offer(6)).isTrue();
+        assertThat(buffer.offer(7)).isFalse();
+
+        assertThat(drain(buffer)).containsExactly(3, 4, 5, 6);
+    }
+
+    @Test
+    void slotsAreReusableForManyLaps() {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(4);
+        List<Integer> polled = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+            if (i % 3 == 2) {
+                polled.addAll(drain(buffer));
+            }
+        }
+        polled.addAll(drain(buffer));
+
+        assertThat(polled).hasSize(1000).isSorted();
+    }
+
+    @Test
+    void concurrentProducersAndConsumersHandOverEveryElementOnce() throws Exception {
+        int producers = 4;
+        int consumers = 4;
+        int perProducer = 20_000;
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(64);
+        Set<Integer> received = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(producers * perProducer);
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int base = p * perProducer;
+                tasks.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = base; i < base + perProducer; i++) {
+                        while (!buffer.offer(i)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (int c = 0; c < consumers; c++) {
+                tasks.add(executor.submit(() -> {
+                    start.await();
+                    while (remaining.get() > 0) {
+                        Integer element = buffer.poll();
+                        if (element == null) {
+                            Thread.onSpinWait();
+                            continue;
+                        }
+                        if (!received.add(element)) {
+                            duplicates.incrementAndGet();
+                        }
+                        remaining.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(duplicates).hasValue(0);
+        assertThat(received).hasSize(producers * perProducer);
+        assertThat(buffer.poll()).isNull();
+    }
+
+    private static <E> List<E> drain(BoundedRingBuffer<E> buffer) {
+        List<E> elements = new ArrayList<>();
+        E element;
+        while ((element = buffer.poll()) != null) {
+            elements.add(element);
+        }
+        return elements;
+    }
+}
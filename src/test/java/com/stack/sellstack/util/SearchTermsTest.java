@@ -0,0 +1,28 @@
+package com.stack.sellstack.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchTermsTest {
+
+    @Test
+    void splitsOnAnythingButLettersAndDigitsAndLowercases() {
+        assertThat(SearchTerms.of("  Lightroom-Presets, VOL.2 (café)  "))
+                .containsExactly("lightroom", "presets", "vol", "2", "café");
+    }
+
+    @Test
+    void keepsOnlyTheFirstTerms() {
+        assertThat(SearchTerms.of("a b c d e f g h i j"))
+                .hasSize(SearchTerms.MAX_TERMS)
+                .startsWith("a", "b")
+                .endsWith("h");
+    }
+
+    @Test
+    void nullOrPunctuationOnlyTextHasNoTerms() {
+        assertThat(SearchTerms.of(null)).isEmpty();
+        assertThat(SearchTerms.of(" -- !? ")).isEmpty();
+    }
+}